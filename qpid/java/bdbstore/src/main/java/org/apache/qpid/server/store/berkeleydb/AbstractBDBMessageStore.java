@@ -51,11 +51,12 @@ import org.apache.qpid.server.queue.AMQQueue;
 import org.apache.qpid.server.store.*;
 import org.apache.qpid.server.store.MessageStoreRecoveryHandler.StoredMessageRecoveryHandler;
 import org.apache.qpid.server.store.TransactionLogRecoveryHandler.QueueEntryRecoveryHandler;
+import org.apache.qpid.server.store.berkeleydb.entry.MessageContentKey;
 import org.apache.qpid.server.store.berkeleydb.entry.PreparedTransaction;
 import org.apache.qpid.server.store.berkeleydb.entry.QueueEntryKey;
 import org.apache.qpid.server.store.berkeleydb.entry.Xid;
 import org.apache.qpid.server.store.berkeleydb.tuple.ConfiguredObjectBinding;
-import org.apache.qpid.server.store.berkeleydb.tuple.ContentBinding;
+import org.apache.qpid.server.store.berkeleydb.tuple.MessageContentKeyBinding;
 import org.apache.qpid.server.store.berkeleydb.tuple.MessageMetaDataBinding;
 import org.apache.qpid.server.store.berkeleydb.tuple.PreparedTransactionBinding;
 import org.apache.qpid.server.store.berkeleydb.tuple.QueueEntryBinding;
@@ -64,13 +65,16 @@ import org.apache.qpid.server.store.berkeleydb.tuple.XidBinding;
 import org.apache.qpid.server.store.berkeleydb.upgrade.Upgrader;
 import org.apache.qpid.util.FileUtils;
 
-public abstract class AbstractBDBMessageStore implements MessageStore, DurableConfigurationStore
+public abstract class AbstractBDBMessageStore implements MessageStore, DurableConfigurationStore, FlowableMessageStore
 {
     private static final Logger LOGGER = Logger.getLogger(AbstractBDBMessageStore.class);
 
     private static final int LOCK_RETRY_ATTEMPTS = 5;
 
-    public static final int VERSION = 7;
+    public static final int VERSION = 8;
+
+    /** Message content is stored as records of at most this many bytes; changing it requires a store upgrade */
+    public static final int CONTENT_CHUNK_SIZE = 64 * 1024;
 
     private static final Map<String, String> ENVCONFIG_DEFAULTS = Collections.unmodifiableMap(new HashMap<String, String>()
     {{
@@ -126,6 +130,7 @@ public abstract class AbstractBDBMessageStore implements MessageStore, DurableCo
      */
 
     private final AtomicLong _messageId = new AtomicLong(0);
+    private final InMemoryContentSize _inMemoryContentSize = new InMemoryContentSize();
 
     protected final StateManager _stateManager;
 
@@ -625,10 +630,55 @@ public abstract class AbstractBDBMessageStore implements MessageStore, DurableCo
     }
 
     private void recoverQueueEntries(TransactionLogRecoveryHandler recoveryHandler)
-    throws DatabaseException
+    throws DatabaseException, AMQStoreException
     {
         QueueEntryRecoveryHandler qerh = recoveryHandler.begin(this);
 
+        if(ParallelQueueRecovery.isEnabled())
+        {
+            recoverQueueEntriesInParallel(qerh);
+        }
+        else
+        {
+            recoverQueueEntriesSequentially(qerh);
+        }
+
+        TransactionLogRecoveryHandler.DtxRecordRecoveryHandler dtxrh = qerh.completeQueueEntryRecovery();
+
+        Cursor cursor = null;
+        try
+        {
+            cursor = _xidDb.openCursor(null, null);
+            DatabaseEntry key = new DatabaseEntry();
+            XidBinding keyBinding = XidBinding.getInstance();
+            PreparedTransactionBinding valueBinding = new PreparedTransactionBinding();
+            DatabaseEntry value = new DatabaseEntry();
+
+            while (cursor.getNext(key, value, LockMode.RMW) == OperationStatus.SUCCESS)
+            {
+                Xid xid = keyBinding.entryToObject(key);
+                PreparedTransaction preparedTransaction = valueBinding.entryToObject(value);
+                dtxrh.dtxRecord(xid.getFormat(),xid.getGlobalId(),xid.getBranchId(),
+                                preparedTransaction.getEnqueues(),preparedTransaction.getDequeues());
+            }
+
+        }
+        catch (DatabaseException e)
+        {
+            LOGGER.error("Database Error: " + e.getMessage(), e);
+            throw e;
+        }
+        finally
+        {
+            closeCursorSafely(cursor);
+        }
+
+
+        dtxrh.completeDtxRecordRecovery();
+    }
+
+    private void recoverQueueEntriesSequentially(QueueEntryRecoveryHandler qerh) throws DatabaseException
+    {
         ArrayList<QueueEntryKey> entries = new ArrayList<QueueEntryKey>();
 
         Cursor cursor = null;
@@ -671,26 +721,55 @@ public abstract class AbstractBDBMessageStore implements MessageStore, DurableCo
         {
             closeCursorSafely(cursor);
         }
+    }
 
-        TransactionLogRecoveryHandler.DtxRecordRecoveryHandler dtxrh = qerh.completeQueueEntryRecovery();
+    private void recoverQueueEntriesInParallel(final QueueEntryRecoveryHandler qerh)
+            throws DatabaseException, AMQStoreException
+    {
+        ParallelQueueRecovery.recoverQueues(_virtualHost.getName(), getQueueIdsWithEntries(),
+                                            new ParallelQueueRecovery.QueueRecoveryTask()
+        {
+            @Override
+            public void recover(UUID queueId) throws AMQStoreException
+            {
+                for(Long messageId : getEnqueuedMessages(queueId))
+                {
+                    qerh.queueEntry(queueId, messageId);
+                }
+            }
+        });
+    }
 
-        cursor = null;
+    /**
+     * Returns the ids of all queues which have at least one entry in the delivery database, skipping from
+     * one queue to the next rather than reading every entry.
+     */
+    private List<UUID> getQueueIdsWithEntries() throws DatabaseException
+    {
+        List<UUID> queueIds = new ArrayList<UUID>();
+        Cursor cursor = null;
         try
         {
-            cursor = _xidDb.openCursor(null, null);
+            cursor = _deliveryDb.openCursor(null, null);
             DatabaseEntry key = new DatabaseEntry();
-            XidBinding keyBinding = XidBinding.getInstance();
-            PreparedTransactionBinding valueBinding = new PreparedTransactionBinding();
             DatabaseEntry value = new DatabaseEntry();
+            value.setPartial(0, 0, true);
+            QueueEntryBinding keyBinding = QueueEntryBinding.getInstance();
 
-            while (cursor.getNext(key, value, LockMode.RMW) == OperationStatus.SUCCESS)
+            OperationStatus status = cursor.getFirst(key, value, LockMode.DEFAULT);
+            while (status == OperationStatus.SUCCESS)
             {
-                Xid xid = keyBinding.entryToObject(key);
-                PreparedTransaction preparedTransaction = valueBinding.entryToObject(value);
-                dtxrh.dtxRecord(xid.getFormat(),xid.getGlobalId(),xid.getBranchId(),
-                                preparedTransaction.getEnqueues(),preparedTransaction.getDequeues());
-            }
+                UUID queueId = keyBinding.entryToObject(key).getQueueId();
+                queueIds.add(queueId);
 
+                keyBinding.objectToEntry(new QueueEntryKey(queueId, Long.MAX_VALUE), key);
+                status = cursor.getSearchKeyRange(key, value, LockMode.DEFAULT);
+                if (status == OperationStatus.SUCCESS && keyBinding.entryToObject(key).getQueueId().equals(queueId))
+                {
+                    // only an entry for message id Long.MAX_VALUE can still belong to this queue
+                    status = cursor.getNext(key, value, LockMode.DEFAULT);
+                }
+            }
         }
         catch (DatabaseException e)
         {
@@ -701,9 +780,7 @@ public abstract class AbstractBDBMessageStore implements MessageStore, DurableCo
         {
             closeCursorSafely(cursor);
         }
-
-
-        dtxrh.completeDtxRecordRecovery();
+        return queueIds;
     }
 
     public void removeMessage(long messageId, boolean sync) throws AMQStoreException
@@ -746,9 +823,7 @@ public abstract class AbstractBDBMessageStore implements MessageStore, DurableCo
                     }
 
                     //now remove the content data from the store if there is any.
-                    DatabaseEntry contentKeyEntry = new DatabaseEntry();
-                    LongBinding.longToEntry(messageId, contentKeyEntry);
-                    _messageContentDb.delete(tx, contentKeyEntry);
+                    deleteContent(tx, messageId);
 
                     if (LOGGER.isDebugEnabled())
                     {
@@ -1232,34 +1307,37 @@ public abstract class AbstractBDBMessageStore implements MessageStore, DurableCo
     }
 
     /**
-     * Stores a chunk of message data.
+     * Stores the content of a message, one record per chunk.
      *
      * @param tx         The transaction for the operation.
      * @param messageId       The message to store the data for.
-     * @param offset          The offset of the data chunk in the message.
-     * @param contentBody     The content of the data chunk.
+     * @param content         The content of the message.
      *
      * @throws AMQStoreException If the operation fails for any reason, or if the specified message does not exist.
      */
-    protected void addContent(final com.sleepycat.je.Transaction tx, long messageId, int offset,
-                                      ByteBuffer contentBody) throws AMQStoreException
+    protected void addContent(final com.sleepycat.je.Transaction tx, long messageId,
+                              MessageContentChunks content) throws AMQStoreException
     {
         DatabaseEntry key = new DatabaseEntry();
-        LongBinding.longToEntry(messageId, key);
         DatabaseEntry value = new DatabaseEntry();
-        ContentBinding messageBinding = ContentBinding.getInstance();
-        messageBinding.objectToEntry(contentBody.array(), value);
+        MessageContentKeyBinding keyBinding = MessageContentKeyBinding.getInstance();
         try
         {
-            OperationStatus status = _messageContentDb.put(tx, key, value);
-            if (status != OperationStatus.SUCCESS)
+            for(int chunk = 0; chunk < content.getChunkCount(); chunk++)
             {
-                throw new AMQStoreException("Error adding content for message id " + messageId + ": " + status);
+                keyBinding.objectToEntry(new MessageContentKey(messageId, chunk), key);
+                value.setData(content.getChunk(chunk), 0, content.getChunkLength(chunk));
+                OperationStatus status = _messageContentDb.put(tx, key, value);
+                if (status != OperationStatus.SUCCESS)
+                {
+                    throw new AMQStoreException("Error adding content for message id " + messageId + ": " + status);
+                }
             }
 
             if (LOGGER.isDebugEnabled())
             {
-                LOGGER.debug("Storing content for message " + messageId + " in transaction " + tx);
+                LOGGER.debug("Storing content for message " + messageId + " in " + content.getChunkCount()
+                             + " chunk(s) in transaction " + tx);
 
             }
         }
@@ -1269,6 +1347,31 @@ public abstract class AbstractBDBMessageStore implements MessageStore, DurableCo
         }
     }
 
+    private void deleteContent(final com.sleepycat.je.Transaction tx, long messageId) throws DatabaseException
+    {
+        Cursor cursor = null;
+        try
+        {
+            cursor = _messageContentDb.openCursor(tx, null);
+            DatabaseEntry key = new DatabaseEntry();
+            DatabaseEntry value = new DatabaseEntry();
+            value.setPartial(0, 0, true);
+            MessageContentKeyBinding keyBinding = MessageContentKeyBinding.getInstance();
+            keyBinding.objectToEntry(new MessageContentKey(messageId, 0), key);
+
+            OperationStatus status = cursor.getSearchKeyRange(key, value, LockMode.RMW);
+            while (status == OperationStatus.SUCCESS && keyBinding.entryToObject(key).getMessageId() == messageId)
+            {
+                cursor.delete();
+                status = cursor.getNext(key, value, LockMode.RMW);
+            }
+        }
+        finally
+        {
+            closeCursorSafely(cursor);
+        }
+    }
+
     /**
      * Stores message meta-data.
      *
@@ -1363,40 +1466,36 @@ public abstract class AbstractBDBMessageStore implements MessageStore, DurableCo
      */
     public int getContent(long messageId, int offset, ByteBuffer dst) throws AMQStoreException
     {
-        DatabaseEntry contentKeyEntry = new DatabaseEntry();
-        LongBinding.longToEntry(messageId, contentKeyEntry);
-        DatabaseEntry value = new DatabaseEntry();
-        ContentBinding contentTupleBinding = ContentBinding.getInstance();
-
-
         if (LOGGER.isDebugEnabled())
         {
             LOGGER.debug("Message Id: " + messageId + " Getting content body from offset: " + offset);
         }
 
+        MessageContentKeyBinding keyBinding = MessageContentKeyBinding.getInstance();
+        DatabaseEntry key = new DatabaseEntry();
+        keyBinding.objectToEntry(new MessageContentKey(messageId, offset / CONTENT_CHUNK_SIZE), key);
+
+        // only read the parts of the chunks which are wanted
+        DatabaseEntry value = new DatabaseEntry();
+        value.setPartial(offset % CONTENT_CHUNK_SIZE, dst.remaining(), true);
+
+        Cursor cursor = null;
         try
         {
+            cursor = _messageContentDb.openCursor(null, CursorConfig.READ_UNCOMMITTED);
 
             int written = 0;
-            OperationStatus status = _messageContentDb.get(null, contentKeyEntry, value, LockMode.READ_UNCOMMITTED);
-            if (status == OperationStatus.SUCCESS)
+            OperationStatus status = cursor.getSearchKey(key, value, LockMode.READ_UNCOMMITTED);
+            while (status == OperationStatus.SUCCESS && keyBinding.entryToObject(key).getMessageId() == messageId)
             {
-                byte[] dataAsBytes = contentTupleBinding.entryToObject(value);
-                int size = dataAsBytes.length;
-                if (offset > size)
+                dst.put(value.getData(), value.getOffset(), value.getSize());
+                written += value.getSize();
+                if (!dst.hasRemaining())
                 {
-                    throw new RuntimeException("Offset " + offset + " is greater than message size " + size
-                            + " for message id " + messageId + "!");
-
+                    break;
                 }
-
-                written = size - offset;
-                if(written > dst.remaining())
-                {
-                    written = dst.remaining();
-                }
-
-                dst.put(dataAsBytes, offset, written);
+                value.setPartial(0, dst.remaining(), true);
+                status = cursor.getNext(key, value, LockMode.READ_UNCOMMITTED);
             }
             return written;
         }
@@ -1404,6 +1503,10 @@ public abstract class AbstractBDBMessageStore implements MessageStore, DurableCo
         {
             throw new AMQStoreException("Error getting AMQMessage with id " + messageId + " to database: " + e.getMessage(), e);
         }
+        finally
+        {
+            closeCursorSafely(cursor);
+        }
     }
 
     public boolean isPersistent()
@@ -1420,10 +1523,15 @@ public abstract class AbstractBDBMessageStore implements MessageStore, DurableCo
         }
         else
         {
-            return new StoredMemoryMessage(getNewMessageId(), metaData);
+            return new StoredMemoryMessage(getNewMessageId(), metaData, _inMemoryContentSize);
         }
     }
 
+    public long getInMemoryContentSize()
+    {
+        return _inMemoryContentSize.get();
+    }
+
     //Package getters for the various databases used by the Store
 
     Database getMetaDataDb()
@@ -1497,7 +1605,7 @@ public abstract class AbstractBDBMessageStore implements MessageStore, DurableCo
     protected abstract StoreFuture commit(com.sleepycat.je.Transaction tx, boolean syncCommit) throws DatabaseException;
 
 
-    private class StoredBDBMessage implements StoredMessage<StorableMessageMetaData>
+    private class StoredBDBMessage implements StoredMessage<StorableMessageMetaData>, FlowableStoredMessage
     {
 
         private final long _messageId;
@@ -1506,8 +1614,10 @@ public abstract class AbstractBDBMessageStore implements MessageStore, DurableCo
         private StorableMessageMetaData _metaData;
         private volatile SoftReference<StorableMessageMetaData> _metaDataRef;
 
-        private byte[] _data;
-        private volatile SoftReference<byte[]> _dataRef;
+        private MessageContentChunks _content;
+        private volatile SoftReference<MessageContentChunks> _contentRef;
+        /** The number of content bytes this message has added to the in-memory content size of the store */
+        private int _accountedSize;
 
         StoredBDBMessage(long messageId, StorableMessageMetaData metaData)
         {
@@ -1552,34 +1662,22 @@ public abstract class AbstractBDBMessageStore implements MessageStore, DurableCo
 
         public void addContent(int offsetInMessage, java.nio.ByteBuffer src)
         {
-            src = src.slice();
-
-            if(_data == null)
+            if(_content == null)
             {
-                _data = new byte[src.remaining()];
-                _dataRef = new SoftReference<byte[]>(_data);
-                src.duplicate().get(_data);
-            }
-            else
-            {
-                byte[] oldData = _data;
-                _data = new byte[oldData.length + src.remaining()];
-                _dataRef = new SoftReference<byte[]>(_data);
-
-                System.arraycopy(oldData,0,_data,0,oldData.length);
-                src.duplicate().get(_data, oldData.length, src.remaining());
+                _content = new MessageContentChunks(CONTENT_CHUNK_SIZE, _metaData.getContentSize());
+                _contentRef = new SoftReference<MessageContentChunks>(_content);
             }
-
+            final int length = src.remaining();
+            _content.append(src);
+            setAccountedSize(_accountedSize + length);
         }
 
         public int getContent(int offsetInMessage, java.nio.ByteBuffer dst)
         {
-            byte[] data = _dataRef == null ? null : _dataRef.get();
-            if(data != null)
+            MessageContentChunks content = _contentRef == null ? null : _contentRef.get();
+            if(content != null)
             {
-                int length = Math.min(dst.remaining(), data.length - offsetInMessage);
-                dst.put(data, offsetInMessage, length);
-                return length;
+                return content.getContent(offsetInMessage, dst);
             }
             else
             {
@@ -1597,10 +1695,10 @@ public abstract class AbstractBDBMessageStore implements MessageStore, DurableCo
 
         public ByteBuffer getContent(int offsetInMessage, int size)
         {
-            byte[] data = _dataRef == null ? null : _dataRef.get();
-            if(data != null)
+            MessageContentChunks content = _contentRef == null ? null : _contentRef.get();
+            if(content != null)
             {
-                return ByteBuffer.wrap(data,offsetInMessage,size);
+                return content.getContent(offsetInMessage, size);
             }
             else
             {
@@ -1618,10 +1716,12 @@ public abstract class AbstractBDBMessageStore implements MessageStore, DurableCo
             {
                 try
                 {
-                    _dataRef = new SoftReference<byte[]>(_data);
+                    _contentRef = new SoftReference<MessageContentChunks>(_content);
                     AbstractBDBMessageStore.this.storeMetaData(txn, _messageId, _metaData);
-                    AbstractBDBMessageStore.this.addContent(txn, _messageId, 0,
-                                                    _data == null ? ByteBuffer.allocate(0) : ByteBuffer.wrap(_data));
+                    if(_content != null)
+                    {
+                        AbstractBDBMessageStore.this.addContent(txn, _messageId, _content);
+                    }
                 }
                 catch(DatabaseException e)
                 {
@@ -1639,7 +1739,7 @@ public abstract class AbstractBDBMessageStore implements MessageStore, DurableCo
                 finally
                 {
                     _metaData = null;
-                    _data = null;
+                    _content = null;
                 }
             }
         }
@@ -1663,7 +1763,7 @@ public abstract class AbstractBDBMessageStore implements MessageStore, DurableCo
                 int delta = getMetaData().getContentSize();
                 AbstractBDBMessageStore.this.removeMessage(_messageId, false);
                 storedSizeChange(-delta);
-
+                setAccountedSize(0);
             }
             catch (AMQStoreException e)
             {
@@ -1671,10 +1771,37 @@ public abstract class AbstractBDBMessageStore implements MessageStore, DurableCo
             }
         }
 
+        private synchronized void setAccountedSize(int size)
+        {
+            _inMemoryContentSize.change(size - _accountedSize);
+            _accountedSize = size;
+        }
+
         private boolean stored()
         {
             return _metaData == null || _isRecovered;
         }
+
+        public synchronized long flowToDisk(ContentSpillFile spillFile)
+        {
+            // until the message has been written to the store there is nowhere to reload it from
+            if(!stored())
+            {
+                return 0l;
+            }
+            // the content may already have been reclaimed by the garbage collector, but is still accounted for
+            final long released = _accountedSize;
+            _contentRef = null;
+            _metaDataRef = new SoftReference<StorableMessageMetaData>(null);
+            setAccountedSize(0);
+            return released;
+        }
+
+        public boolean isInMemory()
+        {
+            final SoftReference<MessageContentChunks> contentRef = _contentRef;
+            return contentRef != null && contentRef.get() != null;
+        }
     }
 
     private class BDBTransaction implements org.apache.qpid.server.store.Transaction
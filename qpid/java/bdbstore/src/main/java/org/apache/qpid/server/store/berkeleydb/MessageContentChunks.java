@@ -0,0 +1,134 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store.berkeleydb;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The content of a message held in memory as a sequence of fixed size chunks, each of which is stored as a separate
+ * record in the content database.  Appending content never copies the content already held, and reading a range of
+ * the content only touches the chunks covering that range.
+ */
+class MessageContentChunks
+{
+    private final List<byte[]> _chunks = new ArrayList<byte[]>();
+    private final int _chunkSize;
+    private final int _expectedLength;
+    private int _length;
+
+    MessageContentChunks(int chunkSize, int expectedLength)
+    {
+        _chunkSize = chunkSize;
+        _expectedLength = expectedLength;
+    }
+
+    void append(ByteBuffer src)
+    {
+        src = src.duplicate();
+        while(src.hasRemaining())
+        {
+            final int chunkIndex = _length / _chunkSize;
+            final int offsetInChunk = _length % _chunkSize;
+
+            byte[] chunk;
+            if(chunkIndex == _chunks.size())
+            {
+                // size the last chunk to the expected content length rather than the full chunk size
+                chunk = new byte[Math.min(_chunkSize, Math.max(_expectedLength - _length, src.remaining()))];
+                _chunks.add(chunk);
+            }
+            else
+            {
+                chunk = _chunks.get(chunkIndex);
+                if(chunk.length == offsetInChunk)
+                {
+                    // more content has arrived than was expected
+                    chunk = Arrays.copyOf(chunk, Math.min(_chunkSize, offsetInChunk + src.remaining()));
+                    _chunks.set(chunkIndex, chunk);
+                }
+            }
+
+            final int length = Math.min(chunk.length - offsetInChunk, src.remaining());
+            src.get(chunk, offsetInChunk, length);
+            _length += length;
+        }
+    }
+
+    int getLength()
+    {
+        return _length;
+    }
+
+    int getChunkCount()
+    {
+        return _chunks.size();
+    }
+
+    byte[] getChunk(int chunkIndex)
+    {
+        return _chunks.get(chunkIndex);
+    }
+
+    int getChunkLength(int chunkIndex)
+    {
+        return Math.min(_chunkSize, _length - chunkIndex * _chunkSize);
+    }
+
+    int getContent(int offset, ByteBuffer dst)
+    {
+        int position = offset;
+        while(dst.hasRemaining() && position < _length)
+        {
+            final int chunkIndex = position / _chunkSize;
+            final int offsetInChunk = position % _chunkSize;
+            final int length = Math.min(getChunkLength(chunkIndex) - offsetInChunk, dst.remaining());
+            dst.put(_chunks.get(chunkIndex), offsetInChunk, length);
+            position += length;
+        }
+        return position - offset;
+    }
+
+    ByteBuffer getContent(int offset, int size)
+    {
+        final int available = Math.max(0, Math.min(size, _length - offset));
+        if(available == 0)
+        {
+            return ByteBuffer.allocate(0);
+        }
+
+        final int chunkIndex = offset / _chunkSize;
+        final int offsetInChunk = offset % _chunkSize;
+        if(offsetInChunk + available <= getChunkLength(chunkIndex))
+        {
+            return ByteBuffer.wrap(_chunks.get(chunkIndex), offsetInChunk, available).slice();
+        }
+        else
+        {
+            ByteBuffer buf = ByteBuffer.allocate(available);
+            getContent(offset, buf);
+            buf.flip();
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store.berkeleydb.upgrade;
+
+import org.apache.log4j.Logger;
+import org.apache.qpid.AMQStoreException;
+import org.apache.qpid.server.store.berkeleydb.AbstractBDBMessageStore;
+import org.apache.qpid.server.store.berkeleydb.entry.MessageContentKey;
+import org.apache.qpid.server.store.berkeleydb.tuple.MessageContentKeyBinding;
+
+import com.sleepycat.bind.tuple.LongBinding;
+import com.sleepycat.je.Database;
+import com.sleepycat.je.DatabaseEntry;
+import com.sleepycat.je.DatabaseException;
+import com.sleepycat.je.Environment;
+import com.sleepycat.je.OperationStatus;
+import com.sleepycat.je.Transaction;
+
+public class UpgradeFrom7To8 extends AbstractStoreUpgrade
+{
+    private static final Logger _logger = Logger.getLogger(UpgradeFrom7To8.class);
+
+    static final String CONTENT_DB_NAME = "MESSAGE_CONTENT";
+
+    /**
+     * Upgrades from a v7 database to a v8 database
+     *
+     * Change in this version:
+     *
+     * Message content in MESSAGE_CONTENT is split into chunks of at most
+     * {@link AbstractBDBMessageStore#CONTENT_CHUNK_SIZE} bytes. The structure of the database changes from
+     * ( message-id: long ) -> ( byte[] data ) to ( message-id: long, chunk: int ) -> ( byte[] data )
+     *
+     * Records already in the new format are left untouched, so the upgrade is re-runnable.
+     */
+    @Override
+    public void performUpgrade(Environment environment, UpgradeInteractionHandler handler, String virtualHostName)
+            throws DatabaseException, AMQStoreException
+    {
+        reportStarting(environment, 7);
+
+        if (environment.getDatabaseNames().contains(CONTENT_DB_NAME))
+        {
+            Transaction transaction = environment.beginTransaction(null, null);
+            try
+            {
+                CursorOperation contentOperation = new CursorOperation()
+                {
+                    @Override
+                    public void processEntry(Database contentDatabase, Database notUsed, Transaction transaction,
+                                             DatabaseEntry key, DatabaseEntry value)
+                    {
+                        if (key.getSize() == 8)
+                        {
+                            long messageId = LongBinding.entryToLong(key);
+                            splitContent(contentDatabase, transaction, messageId, value);
+                            deleteCurrent();
+                        }
+                    }
+                };
+                new DatabaseTemplate(environment, CONTENT_DB_NAME, transaction).run(contentOperation);
+                _logger.info(contentOperation.getRowCount() + " Message Content Entries");
+                transaction.commit();
+            }
+            catch (RuntimeException e)
+            {
+                transaction.abort();
+                throw e;
+            }
+        }
+
+        reportFinished(environment, 8);
+    }
+
+    private void splitContent(Database contentDatabase, Transaction transaction, long messageId, DatabaseEntry value)
+    {
+        final byte[] data = value.getData();
+        final int offset = value.getOffset();
+        final int size = value.getSize();
+
+        MessageContentKeyBinding keyBinding = MessageContentKeyBinding.getInstance();
+        DatabaseEntry chunkKey = new DatabaseEntry();
+        DatabaseEntry chunkValue = new DatabaseEntry();
+        int chunk = 0;
+        for (int position = 0; position < size; position += AbstractBDBMessageStore.CONTENT_CHUNK_SIZE)
+        {
+            keyBinding.objectToEntry(new MessageContentKey(messageId, chunk++), chunkKey);
+            chunkValue.setData(data, offset + position, Math.min(AbstractBDBMessageStore.CONTENT_CHUNK_SIZE, size - position));
+            OperationStatus status = contentDatabase.put(transaction, chunkKey, chunkValue);
+            if (status != OperationStatus.SUCCESS)
+            {
+                throw new RuntimeException("Cannot add content chunk " + chunk + " for message " + messageId
+                                           + ": " + status);
+            }
+        }
+    }
+}
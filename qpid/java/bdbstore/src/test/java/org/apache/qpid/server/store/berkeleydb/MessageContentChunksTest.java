@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.qpid.server.store.berkeleydb;
+
+import java.nio.ByteBuffer;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class MessageContentChunksTest extends QpidTestCase
+{
+    private static final int CHUNK_SIZE = 16;
+
+    public void testAppendSplitsContentIntoChunks()
+    {
+        byte[] data = createData(40);
+        MessageContentChunks chunks = new MessageContentChunks(CHUNK_SIZE, data.length);
+
+        chunks.append(ByteBuffer.wrap(data, 0, 10));
+        chunks.append(ByteBuffer.wrap(data, 10, 30));
+
+        assertEquals("Unexpected length", 40, chunks.getLength());
+        assertEquals("Unexpected chunk count", 3, chunks.getChunkCount());
+        assertEquals("Unexpected length of first chunk", CHUNK_SIZE, chunks.getChunkLength(0));
+        assertEquals("Unexpected length of last chunk", 8, chunks.getChunkLength(2));
+        assertEquals("Last chunk should be sized to the expected length", 8, chunks.getChunk(2).length);
+    }
+
+    public void testAppendBeyondExpectedLength()
+    {
+        byte[] data = createData(20);
+        MessageContentChunks chunks = new MessageContentChunks(CHUNK_SIZE, 4);
+
+        chunks.append(ByteBuffer.wrap(data, 0, 4));
+        chunks.append(ByteBuffer.wrap(data, 4, 16));
+
+        assertEquals("Unexpected length", 20, chunks.getLength());
+        assertEquals("Unexpected chunk count", 2, chunks.getChunkCount());
+        assertContent(data, 0, chunks.getContent(0, data.length));
+    }
+
+    public void testGetContentWithinSingleChunk()
+    {
+        byte[] data = createData(40);
+        MessageContentChunks chunks = new MessageContentChunks(CHUNK_SIZE, data.length);
+        chunks.append(ByteBuffer.wrap(data));
+
+        ByteBuffer content = chunks.getContent(17, 5);
+
+        assertEquals("Unexpected content size", 5, content.remaining());
+        assertContent(data, 17, content);
+    }
+
+    public void testGetContentSpanningChunks()
+    {
+        byte[] data = createData(40);
+        MessageContentChunks chunks = new MessageContentChunks(CHUNK_SIZE, data.length);
+        chunks.append(ByteBuffer.wrap(data));
+
+        ByteBuffer dst = ByteBuffer.allocate(30);
+        int read = chunks.getContent(5, dst);
+        dst.flip();
+
+        assertEquals("Unexpected number of bytes read", 30, read);
+        assertContent(data, 5, dst);
+    }
+
+    public void testGetContentBeyondEnd()
+    {
+        byte[] data = createData(20);
+        MessageContentChunks chunks = new MessageContentChunks(CHUNK_SIZE, data.length);
+        chunks.append(ByteBuffer.wrap(data));
+
+        assertEquals("Unexpected content size", 5, chunks.getContent(15, 100).remaining());
+        assertEquals("Unexpected content size", 0, chunks.getContent(20, 100).remaining());
+    }
+
+    private byte[] createData(int length)
+    {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++)
+        {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+
+    private void assertContent(byte[] expected, int offset, ByteBuffer actual)
+    {
+        int position = offset;
+        while (actual.hasRemaining())
+        {
+            assertEquals("Unexpected byte at " + position, expected[position], actual.get());
+            position++;
+        }
+    }
+}
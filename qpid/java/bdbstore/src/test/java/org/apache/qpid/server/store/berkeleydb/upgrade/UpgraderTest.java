@@ -25,10 +25,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.qpid.server.store.berkeleydb.BDBMessageStore;
+import org.apache.qpid.server.store.berkeleydb.entry.MessageContentKey;
 import org.apache.qpid.server.store.berkeleydb.tuple.ContentBinding;
+import org.apache.qpid.server.store.berkeleydb.tuple.MessageContentKeyBinding;
 
 import com.sleepycat.bind.tuple.IntegerBinding;
-import com.sleepycat.bind.tuple.LongBinding;
 import com.sleepycat.je.Cursor;
 import com.sleepycat.je.Database;
 import com.sleepycat.je.DatabaseConfig;
@@ -135,8 +136,9 @@ public class UpgraderTest extends AbstractUpgradeTestCase
             public void processEntry(Database sourceDatabase, Database targetDatabase, Transaction transaction, DatabaseEntry key,
                     DatabaseEntry value)
             {
-                long id = LongBinding.entryToLong(key);
-                assertTrue("Unexpected id", id > 0);
+                MessageContentKey contentKey = MessageContentKeyBinding.getInstance().entryToObject(key);
+                assertTrue("Unexpected id", contentKey.getMessageId() > 0);
+                assertTrue("Unexpected chunk", contentKey.getChunk() >= 0);
                 byte[] content = contentBinding.entryToObject(value);
                 assertNotNull("Unexpected content", content);
             }
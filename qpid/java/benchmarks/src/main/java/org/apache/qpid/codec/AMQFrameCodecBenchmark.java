@@ -0,0 +1,175 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.framing.AMQBody;
+import org.apache.qpid.framing.AMQDataBlock;
+import org.apache.qpid.framing.AMQFrame;
+import org.apache.qpid.framing.AMQMethodBody;
+import org.apache.qpid.framing.AMQShortString;
+import org.apache.qpid.framing.BasicContentHeaderProperties;
+import org.apache.qpid.framing.ContentBody;
+import org.apache.qpid.framing.ContentHeaderBody;
+import org.apache.qpid.framing.HeartbeatBody;
+import org.apache.qpid.framing.MethodRegistry;
+import org.apache.qpid.framing.ProtocolVersion;
+import org.apache.qpid.protocol.AMQVersionAwareProtocolSession;
+import org.apache.qpid.transport.Sender;
+import org.apache.qpid.util.BytesDataOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures encoding and decoding of the 0-8/0-9/0-9-1 frames which make up a published message: the
+ * basic.publish method, the content header and a single content body frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AMQFrameCodecBenchmark
+{
+    private static final int CHANNEL = 1;
+
+    @Param({"256", "4096"})
+    public int bodySize;
+
+    private AMQBody[] _bodies;
+    private byte[] _encodeBuffer;
+    private BytesDataOutput _output;
+    private ByteBuffer _encoded;
+    private AMQDecoder _decoder;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        final MethodRegistry registry = MethodRegistry.getMethodRegistry(ProtocolVersion.v0_91);
+        final AMQMethodBody publish = registry.createBasicPublishBody(0,
+                                                                      new AMQShortString("amq.direct"),
+                                                                      new AMQShortString("benchmark"),
+                                                                      false,
+                                                                      false);
+
+        final BasicContentHeaderProperties properties = new BasicContentHeaderProperties();
+        properties.setContentType("text/plain");
+        properties.setDeliveryMode((byte) 2);
+        properties.setMessageId("ID:" + System.nanoTime());
+        properties.setTimestamp(System.currentTimeMillis());
+        final ContentHeaderBody header = new ContentHeaderBody(publish.getClazz(), 0, properties, bodySize);
+
+        _bodies = new AMQBody[] { publish, header, new ContentBody(new byte[bodySize]) };
+
+        int size = 0;
+        for(AMQBody body : _bodies)
+        {
+            size += body.getSize() + AMQFrame.getFrameOverhead();
+        }
+        _encodeBuffer = new byte[size];
+        _output = new BytesDataOutput(_encodeBuffer);
+
+        encode();
+        _encoded = ByteBuffer.wrap(_encodeBuffer.clone());
+
+        _decoder = new AMQDecoder(false, new BenchmarkSession(registry));
+    }
+
+    @Benchmark
+    public int encode() throws IOException
+    {
+        _output.reset();
+        AMQFrame.writeFrames(_output, CHANNEL, _bodies[0], _bodies[1], _bodies[2]);
+        return _output.length();
+    }
+
+    @Benchmark
+    public List<AMQDataBlock> decode() throws Exception
+    {
+        return _decoder.decodeBuffer(_encoded.duplicate());
+    }
+
+    /**
+     * Supplies the 0-9-1 method registry to the decoder; frames are returned from
+     * {@link AMQDecoder#decodeBuffer(ByteBuffer)} rather than dispatched, so nothing else is used.
+     */
+    private static class BenchmarkSession implements AMQVersionAwareProtocolSession
+    {
+        private final MethodRegistry _registry;
+
+        private BenchmarkSession(final MethodRegistry registry)
+        {
+            _registry = registry;
+        }
+
+        public MethodRegistry getMethodRegistry()
+        {
+            return _registry;
+        }
+
+        public void methodFrameReceived(final int channelId, final AMQMethodBody body)
+        {
+        }
+
+        public void contentHeaderReceived(final int channelId, final ContentHeaderBody body)
+        {
+        }
+
+        public void contentBodyReceived(final int channelId, final ContentBody body)
+        {
+        }
+
+        public void heartbeatBodyReceived(final int channelId, final HeartbeatBody body)
+        {
+        }
+
+        public void setSender(final Sender<ByteBuffer> sender)
+        {
+        }
+
+        public void writeFrame(final AMQDataBlock frame)
+        {
+        }
+
+        public byte getProtocolMinorVersion()
+        {
+            return ProtocolVersion.v0_91.getMinorVersion();
+        }
+
+        public byte getProtocolMajorVersion()
+        {
+            return ProtocolVersion.v0_91.getMajorVersion();
+        }
+
+        public ProtocolVersion getProtocolVersion()
+        {
+            return ProtocolVersion.v0_91;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.exchange;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.server.binding.Binding;
+import org.apache.qpid.server.filter.Filterable;
+import org.apache.qpid.server.message.BenchmarkMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures matching of message headers against a single headers exchange binding, for both x-match modes,
+ * with one message that matches and one that does not.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HeadersBindingBenchmark
+{
+    @Param({"all", "any"})
+    public String matchType;
+
+    @Param({"1", "5"})
+    public int conditions;
+
+    private HeadersBinding _binding;
+    private Filterable _matching;
+    private Filterable _notMatching;
+
+    @Setup
+    public void setUp()
+    {
+        final Map<String, Object> arguments = new HashMap<String, Object>();
+        arguments.put("x-match", matchType);
+
+        final BenchmarkMessage matching = new BenchmarkMessage(1l);
+        final BenchmarkMessage notMatching = new BenchmarkMessage(2l);
+        for(int i = 0; i < conditions; i++)
+        {
+            arguments.put("header" + i, "value" + i);
+            matching.setHeader("header" + i, "value" + i);
+            notMatching.setHeader("header" + i, "other" + i);
+        }
+        // headers which the binding does not mention
+        for(int i = 0; i < 5; i++)
+        {
+            matching.setHeader("extra" + i, i);
+            notMatching.setHeader("extra" + i, i);
+        }
+        _matching = matching;
+        _notMatching = notMatching;
+
+        _binding = new HeadersBinding(new Binding(UUID.randomUUID(), "", null, null, arguments));
+    }
+
+    @Benchmark
+    public boolean matching()
+    {
+        return _binding.matches(_matching);
+    }
+
+    @Benchmark
+    public boolean notMatching()
+    {
+        return _binding.matches(_notMatching);
+    }
+}
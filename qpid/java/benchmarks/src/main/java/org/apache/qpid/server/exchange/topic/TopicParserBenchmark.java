@@ -0,0 +1,98 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.exchange.topic;
+
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures routing key matching against a topic exchange's merged state machine, for a mix of exact,
+ * single word wildcard and multi word wildcard binding keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TopicParserBenchmark
+{
+    private static final String[] MARKETS = { "nyse", "nasdaq", "lse", "tse" };
+    private static final int ROUTING_KEYS = 1024;
+
+    @Param({"10", "100", "1000"})
+    public int bindings;
+
+    private TopicParser _parser;
+    private String[] _routingKeys;
+    private int _next;
+
+    @Setup
+    public void setUp()
+    {
+        final Random random = new Random(0l);
+        _parser = new TopicParser();
+
+        for(int i = 0; i < bindings; i++)
+        {
+            final String market = MARKETS[random.nextInt(MARKETS.length)];
+            final String bindingKey;
+            switch(i % 4)
+            {
+                case 0:
+                    bindingKey = "stock." + market + ".sym" + i;
+                    break;
+                case 1:
+                    bindingKey = "stock." + market + ".*";
+                    break;
+                case 2:
+                    bindingKey = "*.*.sym" + i;
+                    break;
+                default:
+                    bindingKey = "stock." + market + ".#";
+            }
+            _parser.addBinding(bindingKey, new TopicMatcherResult()
+            {
+            });
+        }
+
+        _routingKeys = new String[ROUTING_KEYS];
+        for(int i = 0; i < ROUTING_KEYS; i++)
+        {
+            _routingKeys[i] = "stock." + MARKETS[random.nextInt(MARKETS.length)] + ".sym" + random.nextInt(bindings);
+        }
+    }
+
+    @Benchmark
+    public Collection<TopicMatcherResult> parse()
+    {
+        final String routingKey = _routingKeys[_next];
+        _next = (_next + 1) & (ROUTING_KEYS - 1);
+        return _parser.parse(routingKey);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.filter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.server.message.BenchmarkMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures evaluation of a parsed JMS selector against a message.  The message does not cache filter results,
+ * so every invocation evaluates the expression.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JMSSelectorFilterBenchmark
+{
+    private static final Map<String, String> SELECTORS = new HashMap<String, String>();
+    static
+    {
+        SELECTORS.put("equality", "colour = 'red'");
+        SELECTORS.put("compound", "colour = 'red' AND size > 10 AND JMSPriority >= 4");
+        SELECTORS.put("in", "region IN ('emea', 'apac', 'amer')");
+        SELECTORS.put("like", "product LIKE 'widget-%'");
+    }
+
+    @Param({"equality", "compound", "in", "like"})
+    public String selector;
+
+    private JMSSelectorFilter _filter;
+    private BenchmarkMessage _message;
+
+    @Setup
+    public void setUp() throws Exception
+    {
+        _filter = new JMSSelectorFilter(SELECTORS.get(selector));
+        _message = new BenchmarkMessage(1l)
+                .setHeader("colour", "red")
+                .setHeader("size", 42)
+                .setHeader("region", "apac")
+                .setHeader("product", "widget-1234");
+    }
+
+    @Benchmark
+    public boolean matches()
+    {
+        return _filter.matches(_message);
+    }
+}
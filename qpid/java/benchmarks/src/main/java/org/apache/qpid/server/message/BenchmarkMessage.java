@@ -0,0 +1,219 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.message;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.qpid.server.filter.Filterable;
+import org.apache.qpid.server.store.StoredMessage;
+
+/**
+ * A content-less, non-persistent message for the benchmarks.  The message acts as its own header, reference and
+ * {@link Filterable} so that the code under measurement pays no more for message access than it would for a real
+ * transient message, which a mocking framework could not guarantee.
+ */
+public class BenchmarkMessage implements ServerMessage, AMQMessageHeader, MessageReference, Filterable
+{
+    private final long _messageNumber;
+    private final Map<String, Object> _headers = new HashMap<String, Object>();
+    private final long _arrivalTime = System.currentTimeMillis();
+    private String _routingKey = "";
+    private byte _priority = 4;
+
+    public BenchmarkMessage(long messageNumber)
+    {
+        _messageNumber = messageNumber;
+    }
+
+    public BenchmarkMessage setHeader(String name, Object value)
+    {
+        _headers.put(name, value);
+        return this;
+    }
+
+    public BenchmarkMessage setPriority(byte priority)
+    {
+        _priority = priority;
+        return this;
+    }
+
+    public BenchmarkMessage setRoutingKey(String routingKey)
+    {
+        _routingKey = routingKey;
+        return this;
+    }
+
+    // ServerMessage
+
+    public String getRoutingKey()
+    {
+        return _routingKey;
+    }
+
+    public AMQMessageHeader getMessageHeader()
+    {
+        return this;
+    }
+
+    public StoredMessage getStoredMessage()
+    {
+        return null;
+    }
+
+    public boolean isPersistent()
+    {
+        return false;
+    }
+
+    public long getSize()
+    {
+        return 0l;
+    }
+
+    public long getExpiration()
+    {
+        return 0l;
+    }
+
+    public MessageReference newReference()
+    {
+        return this;
+    }
+
+    public long getMessageNumber()
+    {
+        return _messageNumber;
+    }
+
+    public long getArrivalTime()
+    {
+        return _arrivalTime;
+    }
+
+    public int getContent(ByteBuffer buf, int offset)
+    {
+        return 0;
+    }
+
+    public ByteBuffer getContent(int offset, int size)
+    {
+        return ByteBuffer.allocate(0);
+    }
+
+    public Object getConnectionReference()
+    {
+        return null;
+    }
+
+    // MessageReference
+
+    public ServerMessage getMessage()
+    {
+        return this;
+    }
+
+    public void release()
+    {
+    }
+
+    // Filterable
+
+    public boolean isRedelivered()
+    {
+        return false;
+    }
+
+    // AMQMessageHeader
+
+    public String getCorrelationId()
+    {
+        return null;
+    }
+
+    public String getUserId()
+    {
+        return null;
+    }
+
+    public String getAppId()
+    {
+        return null;
+    }
+
+    public String getMessageId()
+    {
+        return "ID:" + _messageNumber;
+    }
+
+    public String getMimeType()
+    {
+        return null;
+    }
+
+    public String getEncoding()
+    {
+        return null;
+    }
+
+    public byte getPriority()
+    {
+        return _priority;
+    }
+
+    public long getTimestamp()
+    {
+        return _arrivalTime;
+    }
+
+    public String getType()
+    {
+        return null;
+    }
+
+    public String getReplyTo()
+    {
+        return null;
+    }
+
+    public Object getHeader(String name)
+    {
+        return _headers.get(name);
+    }
+
+    public boolean containsHeaders(Set<String> names)
+    {
+        return _headers.keySet().containsAll(names);
+    }
+
+    public boolean containsHeader(String name)
+    {
+        return _headers.containsKey(name);
+    }
+
+    public Collection<String> getHeaderNames()
+    {
+        return _headers.keySet();
+    }
+}
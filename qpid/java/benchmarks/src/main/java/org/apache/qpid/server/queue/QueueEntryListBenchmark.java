@@ -0,0 +1,165 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.server.message.BenchmarkMessage;
+import org.apache.qpid.server.virtualhost.VirtualHost;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the {@link QueueEntryList} implementations with a steady number of entries: each operation adds a
+ * message at the tail (or in order, for the sorted and priority lists), then acquires and deletes the first
+ * available entry, as a consumer would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QueueEntryListBenchmark
+{
+    private static final String KEY = "key";
+    private static final int PRIORITIES = 10;
+
+    @Param({"simple", "sorted", "priority", "conflation"})
+    public String listType;
+
+    @Param({"1000"})
+    public int depth;
+
+    private QueueEntryList _list;
+    private Random _random;
+    private String[] _keys;
+    private long _messageNumber;
+
+    @Setup
+    public void setUp()
+    {
+        final AMQQueue queue = nullObject(AMQQueue.class);
+
+        if("simple".equals(listType))
+        {
+            _list = new SimpleQueueEntryList(queue);
+        }
+        else if("sorted".equals(listType))
+        {
+            _list = new ConcurrentSortedQueueEntryList(queue, KEY);
+        }
+        else if("priority".equals(listType))
+        {
+            _list = new PriorityQueueList(queue, PRIORITIES);
+        }
+        else if("conflation".equals(listType))
+        {
+            _list = new ConflationQueueList(queue, KEY);
+        }
+        else
+        {
+            throw new IllegalArgumentException("Unknown list type " + listType);
+        }
+
+        // one key per queued entry, so that, for conflation, about half the adds supersede a queued entry
+        _random = new Random(0l);
+        _keys = new String[depth];
+        for(int i = 0; i < _keys.length; i++)
+        {
+            _keys[i] = "value-" + i;
+        }
+
+        for(int i = 0; i < depth; i++)
+        {
+            _list.add(nextMessage());
+        }
+    }
+
+    @Benchmark
+    public QueueEntry addAndConsumeHead()
+    {
+        _list.add(nextMessage());
+
+        final QueueEntry entry = _list.next(_list.getHead());
+        if(entry != null && entry.acquire())
+        {
+            entry.delete();
+        }
+        return entry;
+    }
+
+    @Benchmark
+    public int iterate()
+    {
+        int count = 0;
+        final QueueEntryIterator iterator = _list.iterator();
+        while(iterator.advance())
+        {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Creates a new message for each add, as a message which is still queued must not be added again.
+     */
+    private BenchmarkMessage nextMessage()
+    {
+        return new BenchmarkMessage(_messageNumber++)
+                .setPriority((byte) _random.nextInt(PRIORITIES))
+                .setHeader(KEY, _keys[_random.nextInt(_keys.length)]);
+    }
+
+    /**
+     * A proxy which answers every call with null (or zero/false) except for {@link AMQQueue#getVirtualHost()},
+     * whose result is itself a null object.  Entries call into their queue only on dequeue, so the reflective
+     * dispatch adds a small constant cost which is the same for every list type.
+     */
+    private static <T> T nullObject(final Class<T> type)
+    {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class[] { type }, new InvocationHandler()
+        {
+            public Object invoke(final Object proxy, final Method method, final Object[] args)
+            {
+                final Class<?> returnType = method.getReturnType();
+                if(returnType == VirtualHost.class)
+                {
+                    return nullObject(VirtualHost.class);
+                }
+                else if(returnType.isPrimitive() && returnType != void.class)
+                {
+                    // the default value of the primitive type, boxed
+                    return Array.get(Array.newInstance(returnType, 1), 0);
+                }
+                return null;
+            }
+        }));
+    }
+}
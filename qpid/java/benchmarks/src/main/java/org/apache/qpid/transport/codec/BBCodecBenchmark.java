@@ -0,0 +1,115 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.transport.codec;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.transport.DeliveryProperties;
+import org.apache.qpid.transport.MessageDeliveryMode;
+import org.apache.qpid.transport.MessageDeliveryPriority;
+import org.apache.qpid.transport.MessageProperties;
+import org.apache.qpid.transport.Struct;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures encoding and decoding of a 0-10 message header segment, i.e. the delivery and message properties
+ * structs written by the Disassembler and read by the Assembler for every transferred message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BBCodecBenchmark
+{
+    @Param({"0", "10"})
+    public int applicationHeaders;
+
+    private DeliveryProperties _deliveryProperties;
+    private MessageProperties _messageProperties;
+    private BBEncoder _encoder;
+    private BBDecoder _decoder;
+    private ByteBuffer _encoded;
+
+    @Setup
+    public void setUp()
+    {
+        _deliveryProperties = new DeliveryProperties();
+        _deliveryProperties.setRoutingKey("stock.nyse.ibm");
+        _deliveryProperties.setExchange("amq.topic");
+        _deliveryProperties.setPriority(MessageDeliveryPriority.MEDIUM);
+        _deliveryProperties.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+        _deliveryProperties.setTimestamp(System.currentTimeMillis());
+
+        _messageProperties = new MessageProperties();
+        _messageProperties.setMessageId(UUID.randomUUID());
+        _messageProperties.setContentType("text/plain");
+        _messageProperties.setContentLength(1024l);
+        if(applicationHeaders > 0)
+        {
+            final Map<String, Object> headers = new HashMap<String, Object>();
+            for(int i = 0; i < applicationHeaders; i++)
+            {
+                headers.put("header" + i, i % 2 == 0 ? "value" + i : Integer.valueOf(i));
+            }
+            _messageProperties.setApplicationHeaders(headers);
+        }
+
+        _encoder = new BBEncoder(4096);
+        _decoder = new BBDecoder();
+
+        encodeHeader();
+        final ByteBuffer encoded = _encoder.segment();
+        _encoded = ByteBuffer.allocate(encoded.remaining());
+        _encoded.put(encoded);
+        _encoded.flip();
+    }
+
+    @Benchmark
+    public int encodeHeader()
+    {
+        _encoder.init();
+        _encoder.writeStruct32(_deliveryProperties);
+        _encoder.writeStruct32(_messageProperties);
+        return _encoder.position();
+    }
+
+    @Benchmark
+    public void decodeHeader(Blackhole blackhole)
+    {
+        _decoder.init(_encoded.duplicate());
+        while(_decoder.hasRemaining())
+        {
+            final Struct struct = _decoder.readStruct32();
+            blackhole.consume(struct);
+        }
+    }
+}
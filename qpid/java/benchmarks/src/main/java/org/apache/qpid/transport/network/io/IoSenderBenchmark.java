@@ -0,0 +1,136 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.transport.network.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures the throughput of an {@link IoSender} writing frames to a loopback socket whose peer reads and
+ * discards everything, so that the sender's ring buffer and writer thread hand-off are the limiting factors.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IoSenderBenchmark
+{
+    private static final int SEND_BUFFER_SIZE = 64 * 1024;
+    private static final long TIMEOUT = 60000l;
+
+    @Param({"256", "4096", "65536"})
+    public int frameSize;
+
+    private ServerSocket _serverSocket;
+    private Socket _socket;
+    private Thread _drainer;
+    private IoSender _sender;
+    private ByteBuffer _frame;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        _serverSocket = new ServerSocket();
+        _serverSocket.bind(new InetSocketAddress(InetAddress.getByName(null), 0));
+
+        _drainer = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                drain();
+            }
+        }, "IoSenderBenchmark-drainer");
+        _drainer.setDaemon(true);
+        _drainer.start();
+
+        _socket = new Socket();
+        _socket.setTcpNoDelay(true);
+        _socket.setSendBufferSize(SEND_BUFFER_SIZE);
+        _socket.connect(_serverSocket.getLocalSocketAddress());
+
+        _sender = new IoSender(_socket, 2 * SEND_BUFFER_SIZE, TIMEOUT);
+        _sender.initiate();
+
+        _frame = ByteBuffer.allocate(frameSize);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception
+    {
+        try
+        {
+            _sender.close();
+        }
+        finally
+        {
+            _socket.close();
+            _serverSocket.close();
+            _drainer.join(TIMEOUT);
+        }
+    }
+
+    @Benchmark
+    public void send()
+    {
+        _sender.send(_frame.duplicate());
+        _sender.flush();
+    }
+
+    private void drain()
+    {
+        try
+        {
+            final Socket socket = _serverSocket.accept();
+            try
+            {
+                final InputStream input = socket.getInputStream();
+                final byte[] discard = new byte[SEND_BUFFER_SIZE];
+                while(input.read(discard) != -1)
+                {
+                    // discard
+                }
+            }
+            finally
+            {
+                socket.close();
+            }
+        }
+        catch(IOException e)
+        {
+            // the benchmark is over
+        }
+    }
+}
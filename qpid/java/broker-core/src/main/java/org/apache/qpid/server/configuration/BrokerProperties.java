@@ -56,6 +56,31 @@ public class BrokerProperties
     public static final String PROPERTY_QPID_WORK = "QPID_WORK";
     public static final String PROPERTY_LOG_RECORDS_BUFFER_SIZE = "qpid.broker_log_records_buffer_size";
 
+    public static final String PROPERTY_FLOW_TO_DISK_BROKER_THRESHOLD = "qpid.broker_flow_to_disk_threshold";
+    public static final String PROPERTY_FLOW_TO_DISK_VIRTUALHOST_THRESHOLD = "qpid.broker_flow_to_disk_virtualhost_threshold";
+    public static final String PROPERTY_FLOW_TO_DISK_CHECK_PERIOD = "qpid.broker_flow_to_disk_check_period";
+    public static final String PROPERTY_FLOW_TO_DISK_DIRECTORY = "qpid.broker_flow_to_disk_directory";
+    public static final long DEFAULT_FLOW_TO_DISK_CHECK_PERIOD = 5000l;
+
+    public static final String PROPERTY_SORTED_QUEUE_CONCURRENT_ENTRY_LIST = "qpid.broker_sorted_queue_concurrent_entry_list";
+
+    public static final String PROPERTY_STORE_RECOVERY_THREADS = "qpid.broker_store_recovery_threads";
+    public static final int DEFAULT_STORE_RECOVERY_THREADS = 1;
+
+    public static final String PROPERTY_MESSAGE_CONVERSION_CACHE_MAX_SIZE = "qpid.broker_message_conversion_cache_max_size";
+    public static final long DEFAULT_MESSAGE_CONVERSION_CACHE_MAX_SIZE = 256 * 1024l;
+
+    public static final String PROPERTY_CONTENT_POOL_MAX_BUFFER_SIZE = "qpid.broker_content_pool_max_buffer_size";
+    public static final int DEFAULT_CONTENT_POOL_MAX_BUFFER_SIZE = 64 * 1024;
+    public static final String PROPERTY_CONTENT_POOL_CAPACITY = "qpid.broker_content_pool_capacity";
+    public static final long DEFAULT_CONTENT_POOL_CAPACITY = 16 * 1024 * 1024l;
+    public static final String PROPERTY_CONTENT_POOL_DIRECT = "qpid.broker_content_pool_direct";
+
+    public static final String PROPERTY_JSON_CONFIG_STORE_COMPACTION_THRESHOLD = "qpid.broker_json_config_store_compaction_threshold";
+
+    public static final String PROPERTY_DELIVERY_PRIORITY_SLACK = "qpid.broker_delivery_priority_slack";
+    public static final long DEFAULT_DELIVERY_PRIORITY_SLACK = 10l;
+
     private BrokerProperties()
     {
     }
@@ -234,6 +234,30 @@ public class VirtualHostConfiguration extends AbstractConfiguration
         }
     }
 
+    /**
+     * The number of bytes of queued message content this virtual host may hold on the heap before content of
+     * entries furthest from the head of the queues is flowed to disk.  Zero disables the virtual host limit.
+     */
+    public long getFlowToDiskThreshold()
+    {
+        return getLongValue("flowToDisk.threshold",
+                            Long.getLong(BrokerProperties.PROPERTY_FLOW_TO_DISK_VIRTUALHOST_THRESHOLD, 0l));
+    }
+
+    public long getFlowToDiskCheckPeriod()
+    {
+        return getLongValue("flowToDisk.checkPeriod",
+                            Long.getLong(BrokerProperties.PROPERTY_FLOW_TO_DISK_CHECK_PERIOD,
+                                         BrokerProperties.DEFAULT_FLOW_TO_DISK_CHECK_PERIOD));
+    }
+
+    public String getFlowToDiskDirectory()
+    {
+        return getStringValue("flowToDisk.directory",
+                              System.getProperty(BrokerProperties.PROPERTY_FLOW_TO_DISK_DIRECTORY,
+                                                 System.getProperty("java.io.tmpdir")));
+    }
+
     public int getHouseKeepingThreadCount()
     {
         return getIntValue("housekeeping.poolSize", Runtime.getRuntime().availableProcessors());
@@ -39,6 +39,7 @@ import org.apache.qpid.server.model.UUIDGenerator;
 import org.apache.qpid.server.plugin.ExchangeType;
 import org.apache.qpid.server.queue.AMQQueue;
 import org.apache.qpid.server.queue.BaseQueue;
+import org.apache.qpid.server.stats.LatencyHistogram;
 import org.apache.qpid.server.store.DurableConfigurationStoreHelper;
 import org.apache.qpid.server.txn.ServerTransaction;
 import org.apache.qpid.server.virtualhost.VirtualHost;
@@ -440,6 +441,9 @@ public abstract class AbstractExchange implements Exchange
         else
         {
             final BaseQueue[] baseQueues = queues.toArray(new BaseQueue[queues.size()]);
+            final LatencyHistogram storeCommitLatency = isStoredDurably(message, baseQueues)
+                                                        ? _virtualHost.getPublishToStoreCommitLatency()
+                                                        : null;
 
             txn.enqueue(queues,message, new ServerTransaction.Action()
             {
@@ -447,6 +451,10 @@ public abstract class AbstractExchange implements Exchange
 
                 public void postCommit()
                 {
+                    if(storeCommitLatency != null)
+                    {
+                        storeCommitLatency.record(System.currentTimeMillis() - message.getArrivalTime());
+                    }
                     for(int i = 0; i < baseQueues.length; i++)
                     {
                         try
@@ -471,6 +479,21 @@ public abstract class AbstractExchange implements Exchange
         }
     }
 
+    private boolean isStoredDurably(final ServerMessage message, final BaseQueue[] queues)
+    {
+        if(_virtualHost != null && message.isPersistent())
+        {
+            for(BaseQueue queue : queues)
+            {
+                if(queue.isDurable())
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     protected abstract List<? extends BaseQueue> doRoute(final ServerMessage message,
                                                          final InstanceProperties instanceProperties);
 
@@ -117,6 +117,35 @@ class HeadersBinding
         return _binding;
     }
 
+    boolean isMatchAny()
+    {
+        return matchAny;
+    }
+
+    /**
+     * @return the names of the headers which must be present, with no constraint on their value
+     */
+    Set<String> getRequired()
+    {
+        return required;
+    }
+
+    /**
+     * @return the names and values of the headers which must be present with the given value
+     */
+    Map<String, Object> getMatches()
+    {
+        return matches;
+    }
+
+    /**
+     * @return the number of header conditions of this binding (excluding any filter)
+     */
+    int getConditionCount()
+    {
+        return required.size() + matches.size();
+    }
+
     /**
      * Checks whether the supplied headers match the requirements of this binding
      * @param headers the headers to check
@@ -279,4 +308,10 @@ class HeadersBinding
 
         return true;
     }
+
+    @Override
+    public int hashCode()
+    {
+        return _binding == null ? 0 : _binding.hashCode();
+    }
 }
@@ -0,0 +1,206 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.exchange;
+
+import org.apache.qpid.server.message.AMQMessageHeader;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Index of {@link HeadersBinding}s keyed on header name and, for value matches, header value.
+ * <p/>
+ * Given the headers of a message, the index yields only those bindings which have at least one condition
+ * satisfied by the message (x-match=any), or all of whose conditions are satisfied (x-match=all, found by
+ * counting the satisfied conditions of each binding), together with the bindings which have no header
+ * conditions at all.  The cost of a lookup therefore depends on the headers of the message and the
+ * bindings on those headers, not on the total number of bindings.
+ * <p/>
+ * Candidates must still be checked with {@link HeadersBinding#matches} to apply any filter on the binding.
+ */
+class HeadersBindingIndex
+{
+    private final Set<HeadersBinding> _unconditional = new CopyOnWriteArraySet<HeadersBinding>();
+
+    private final ConcurrentMap<String, Set<HeadersBinding>> _presenceIndex =
+            new ConcurrentHashMap<String, Set<HeadersBinding>>();
+
+    private final ConcurrentMap<String, ConcurrentMap<Object, Set<HeadersBinding>>> _valueIndex =
+            new ConcurrentHashMap<String, ConcurrentMap<Object, Set<HeadersBinding>>>();
+
+    // updates are serialised so that an emptied set is never removed from under a concurrent add
+    synchronized void add(HeadersBinding binding)
+    {
+        if(binding.getConditionCount() == 0)
+        {
+            _unconditional.add(binding);
+            return;
+        }
+
+        for(String name : binding.getRequired())
+        {
+            getOrCreate(_presenceIndex, name).add(binding);
+        }
+
+        for(Map.Entry<String, Object> entry : binding.getMatches().entrySet())
+        {
+            ConcurrentMap<Object, Set<HeadersBinding>> valueMap = _valueIndex.get(entry.getKey());
+            if(valueMap == null)
+            {
+                valueMap = new ConcurrentHashMap<Object, Set<HeadersBinding>>();
+                ConcurrentMap<Object, Set<HeadersBinding>> existing = _valueIndex.putIfAbsent(entry.getKey(), valueMap);
+                if(existing != null)
+                {
+                    valueMap = existing;
+                }
+            }
+            getOrCreate(valueMap, entry.getValue()).add(binding);
+        }
+    }
+
+    synchronized boolean remove(HeadersBinding binding)
+    {
+        if(binding.getConditionCount() == 0)
+        {
+            return _unconditional.remove(binding);
+        }
+
+        boolean removed = false;
+        for(String name : binding.getRequired())
+        {
+            removed = removeFrom(_presenceIndex, name, binding) || removed;
+        }
+
+        for(Map.Entry<String, Object> entry : binding.getMatches().entrySet())
+        {
+            ConcurrentMap<Object, Set<HeadersBinding>> valueMap = _valueIndex.get(entry.getKey());
+            if(valueMap != null)
+            {
+                removed = removeFrom(valueMap, entry.getValue(), binding) || removed;
+                if(valueMap.isEmpty())
+                {
+                    _valueIndex.remove(entry.getKey(), valueMap);
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * @param headers the headers of the message being routed, may be null
+     * @return the bindings which may match the given headers, in no particular order
+     */
+    Collection<HeadersBinding> getCandidates(AMQMessageHeader headers)
+    {
+        if(headers == null)
+        {
+            return _unconditional;
+        }
+
+        final Set<HeadersBinding> candidates = new LinkedHashSet<HeadersBinding>(_unconditional);
+        final Map<HeadersBinding, int[]> satisfiedCounts = new IdentityHashMap<HeadersBinding, int[]>();
+
+        for(String name : headers.getHeaderNames())
+        {
+            Set<HeadersBinding> present = _presenceIndex.get(name);
+            if(present != null)
+            {
+                for(HeadersBinding binding : present)
+                {
+                    conditionSatisfied(binding, candidates, satisfiedCounts);
+                }
+            }
+
+            Map<Object, Set<HeadersBinding>> valueMap = _valueIndex.get(name);
+            if(valueMap != null)
+            {
+                Object value = headers.getHeader(name);
+                Set<HeadersBinding> valueMatches = value == null ? null : valueMap.get(value);
+                if(valueMatches != null)
+                {
+                    for(HeadersBinding binding : valueMatches)
+                    {
+                        conditionSatisfied(binding, candidates, satisfiedCounts);
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private void conditionSatisfied(HeadersBinding binding,
+                                    Set<HeadersBinding> candidates,
+                                    Map<HeadersBinding, int[]> satisfiedCounts)
+    {
+        if(binding.isMatchAny())
+        {
+            candidates.add(binding);
+        }
+        else
+        {
+            int[] count = satisfiedCounts.get(binding);
+            if(count == null)
+            {
+                count = new int[1];
+                satisfiedCounts.put(binding, count);
+            }
+            if(++count[0] == binding.getConditionCount())
+            {
+                candidates.add(binding);
+            }
+        }
+    }
+
+    private static <K> Set<HeadersBinding> getOrCreate(ConcurrentMap<K, Set<HeadersBinding>> map, K key)
+    {
+        Set<HeadersBinding> bindings = map.get(key);
+        if(bindings == null)
+        {
+            bindings = new CopyOnWriteArraySet<HeadersBinding>();
+            Set<HeadersBinding> existing = map.putIfAbsent(key, bindings);
+            if(existing != null)
+            {
+                bindings = existing;
+            }
+        }
+        return bindings;
+    }
+
+    private static <K> boolean removeFrom(ConcurrentMap<K, Set<HeadersBinding>> map, K key, HeadersBinding binding)
+    {
+        Set<HeadersBinding> bindings = map.get(key);
+        if(bindings != null && bindings.remove(binding))
+        {
+            if(bindings.isEmpty())
+            {
+                map.remove(key, bindings);
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -31,10 +31,10 @@ import org.apache.qpid.server.queue.AMQQueue;
 import org.apache.qpid.server.queue.BaseQueue;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
@@ -72,8 +72,7 @@ public class HeadersExchange extends AbstractExchange
     private final ConcurrentHashMap<String, CopyOnWriteArraySet<Binding>> _bindingsByKey =
                             new ConcurrentHashMap<String, CopyOnWriteArraySet<Binding>>();
 
-    private final CopyOnWriteArrayList<HeadersBinding> _bindingHeaderMatchers =
-                            new CopyOnWriteArrayList<HeadersBinding>();
+    private final HeadersBindingIndex _bindingHeaderMatchers = new HeadersBindingIndex();
 
 
     public static final ExchangeType<HeadersExchange> TYPE = new HeadersExchangeType();
@@ -93,9 +92,16 @@ public class HeadersExchange extends AbstractExchange
 
         LinkedHashSet<BaseQueue> queues = new LinkedHashSet<BaseQueue>();
 
-        for (HeadersBinding hb : _bindingHeaderMatchers)
+        Collection<HeadersBinding> candidates = _bindingHeaderMatchers.getCandidates(payload.getMessageHeader());
+        if(candidates.isEmpty())
         {
-            if (hb.matches(Filterable.Factory.newInstance(payload,instanceProperties)))
+            return new ArrayList<BaseQueue>();
+        }
+
+        final Filterable filterable = Filterable.Factory.newInstance(payload,instanceProperties);
+        for (HeadersBinding hb : candidates)
+        {
+            if (hb.matches(filterable))
             {
                 Binding b = hb.getBinding();
 
@@ -66,5 +66,94 @@ public interface Filterable
                 }
             };
         }
+
+        /**
+         * Creates a filterable which also records the results of the filters evaluated against it.  Intended to be
+         * created once and retained for the lifetime of a queue entry.
+         */
+        public static Filterable newCachingInstance(final ServerMessage message, final InstanceProperties properties)
+        {
+            return new CachingFilterable(newInstance(message, properties));
+        }
+    }
+
+    class CachingFilterable implements Filterable, FilterResultCache
+    {
+        private final Filterable _delegate;
+        private MessageFilter[] _filters;
+        private boolean[] _results;
+        private int _size;
+
+        private CachingFilterable(Filterable delegate)
+        {
+            _delegate = delegate;
+        }
+
+        @Override
+        public AMQMessageHeader getMessageHeader()
+        {
+            return _delegate.getMessageHeader();
+        }
+
+        @Override
+        public boolean isPersistent()
+        {
+            return _delegate.isPersistent();
+        }
+
+        @Override
+        public boolean isRedelivered()
+        {
+            return _delegate.isRedelivered();
+        }
+
+        @Override
+        public Object getConnectionReference()
+        {
+            return _delegate.getConnectionReference();
+        }
+
+        @Override
+        public synchronized Boolean getCachedResult(MessageFilter filter)
+        {
+            for(int i = 0; i < _size; i++)
+            {
+                if(_filters[i] == filter)
+                {
+                    return _results[i];
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public synchronized void setCachedResult(MessageFilter filter, boolean result)
+        {
+            for(int i = 0; i < _size; i++)
+            {
+                if(_filters[i] == filter)
+                {
+                    _results[i] = result;
+                    return;
+                }
+            }
+            if(_filters == null)
+            {
+                _filters = new MessageFilter[2];
+                _results = new boolean[2];
+            }
+            else if(_size == _filters.length)
+            {
+                MessageFilter[] filters = new MessageFilter[_size * 2];
+                boolean[] results = new boolean[_size * 2];
+                System.arraycopy(_filters, 0, filters, 0, _size);
+                System.arraycopy(_results, 0, results, 0, _size);
+                _filters = filters;
+                _results = results;
+            }
+            _filters[_size] = filter;
+            _results[_size] = result;
+            _size++;
+        }
     }
 }
@@ -37,22 +37,45 @@ public class JMSSelectorFilter implements MessageFilter
 {
     private final static Logger _logger = org.apache.log4j.Logger.getLogger(JMSSelectorFilter.class);
 
+    private static final String REDELIVERED_PROPERTY = "JMSRedelivered";
+
     private String _selector;
     private BooleanExpression _matcher;
+    private final boolean _resultCacheable;
 
     public JMSSelectorFilter(String selector) throws ParseException, TokenMgrError, SelectorParsingException
     {
         _selector = selector;
         _matcher = new SelectorParser().parse(selector);
+        // the redelivered flag of a queue entry changes over time, so results of selectors which may refer to it
+        // cannot be remembered
+        _resultCacheable = !selector.contains(REDELIVERED_PROPERTY);
     }
 
     public boolean matches(Filterable message)
     {
+        final FilterResultCache resultCache =
+                _resultCacheable && message instanceof FilterResultCache ? (FilterResultCache) message : null;
+
+        Boolean cachedMatch = resultCache == null ? null : resultCache.getCachedResult(this);
+        final boolean match;
+        if(cachedMatch != null)
+        {
+            match = cachedMatch;
+        }
+        else
+        {
+            match = _matcher.matches(wrap(message));
+            if(resultCache != null)
+            {
+                resultCache.setCachedResult(this, match);
+            }
+        }
 
-        boolean match = _matcher.matches(wrap(message));
         if(_logger.isDebugEnabled())
         {
-            _logger.debug(message + " match(" + match + ") selector(" + System.identityHashCode(_selector) + "):" + _selector);
+            _logger.debug(message + " match(" + match + ") selector(" + System.identityHashCode(_selector) + "):" + _selector
+                          + (cachedMatch != null ? " (cached)" : ""));
         }
         return match;
     }
@@ -61,6 +84,11 @@ public class JMSSelectorFilter implements MessageFilter
     {
         return new FilterableMessage()
         {
+            // each property is fetched from the message header at most once per evaluation
+            private String[] _headerNames;
+            private Object[] _headerValues;
+            private int _headerCount;
+
             public boolean isPersistent()
             {
                 return message.isPersistent();
@@ -73,7 +101,34 @@ public class JMSSelectorFilter implements MessageFilter
 
             public Object getHeader(String name)
             {
-                return message.getMessageHeader().getHeader(name);
+                for(int i = 0; i < _headerCount; i++)
+                {
+                    if(_headerNames[i].equals(name))
+                    {
+                        return _headerValues[i];
+                    }
+                }
+
+                Object value = message.getMessageHeader().getHeader(name);
+
+                if(_headerNames == null)
+                {
+                    _headerNames = new String[4];
+                    _headerValues = new Object[4];
+                }
+                else if(_headerCount == _headerNames.length)
+                {
+                    String[] names = new String[_headerCount * 2];
+                    Object[] values = new Object[_headerCount * 2];
+                    System.arraycopy(_headerNames, 0, names, 0, _headerCount);
+                    System.arraycopy(_headerValues, 0, values, 0, _headerCount);
+                    _headerNames = names;
+                    _headerValues = values;
+                }
+                _headerNames[_headerCount] = name;
+                _headerValues[_headerCount] = value;
+                _headerCount++;
+                return value;
             }
 
             public String getReplyTo()
@@ -24,6 +24,9 @@ import org.apache.qpid.server.store.StorableMessageMetaData;
 import org.apache.qpid.server.store.StoredMessage;
 
 import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
@@ -37,6 +40,9 @@ public abstract class AbstractServerMessageImpl<X extends AbstractServerMessageI
     private final StoredMessage<T> _handle;
     private final Object _connectionReference;
 
+    // copy on write, keyed by the class of the converted message; at most one entry per protocol
+    private volatile Map<Class<? extends ServerMessage>, ServerMessage> _convertedMessages = Collections.emptyMap();
+
 
     public AbstractServerMessageImpl(StoredMessage<T> handle, Object connectionReference)
     {
@@ -82,6 +88,11 @@ public abstract class AbstractServerMessageImpl<X extends AbstractServerMessageI
             // by copying from other queues at the same time as it is being removed.
             _refCountUpdater.set(this,Integer.MIN_VALUE/2);
 
+            synchronized (this)
+            {
+                _convertedMessages = Collections.emptyMap();
+            }
+
             // must check if the handle is null since there may be cases where we decide to throw away a message
             // and the handle has not yet been constructed
             if (_handle != null)
@@ -99,6 +110,39 @@ public abstract class AbstractServerMessageImpl<X extends AbstractServerMessageI
         }
     }
 
+    /**
+     * Returns the form of this message previously converted to the given class, or null if none has been cached.
+     */
+    public <N extends ServerMessage> N getConvertedMessage(Class<N> clazz)
+    {
+        return clazz.cast(_convertedMessages.get(clazz));
+    }
+
+    /**
+     * Caches the converted form of this message so that it may be shared between all subscriptions requiring
+     * that class of message, returning the form which should be used if another has been cached concurrently.
+     * The cache is discarded when the last reference to this message is released.
+     */
+    public <N extends ServerMessage> N cacheConvertedMessage(Class<N> clazz, N converted)
+    {
+        synchronized (this)
+        {
+            final N existing = getConvertedMessage(clazz);
+            if(existing != null)
+            {
+                return existing;
+            }
+            if(_referenceCount > 0)
+            {
+                Map<Class<? extends ServerMessage>, ServerMessage> convertedMessages =
+                        new HashMap<Class<? extends ServerMessage>, ServerMessage>(_convertedMessages);
+                convertedMessages.put(clazz, converted);
+                _convertedMessages = convertedMessages;
+            }
+            return converted;
+        }
+    }
+
     public String debugIdentity()
     {
         return "(HC:" + System.identityHashCode(this) + " ID:" + getMessageNumber() + " Ref:" + getReferenceCount() + ")";
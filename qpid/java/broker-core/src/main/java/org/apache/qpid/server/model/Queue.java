@@ -100,6 +100,8 @@ public interface Queue extends ConfiguredObject
     public static final String SORT_KEY = "sortKey";
     public static final String TYPE = "type";
     public static final String PRIORITIES = "priorities";
+    public static final String DELIVERY_PRIORITY = "deliveryPriority";
+    public static final String SHARDS = "shards";
 
     public static final String CREATE_DLQ_ON_CREATION = "x-qpid-dlq-enabled"; // TODO - this value should change
 
@@ -136,7 +138,9 @@ public interface Queue extends ConfiguredObject
                                   ALERT_THRESHOLD_QUEUE_DEPTH_BYTES,
                                   ALERT_THRESHOLD_QUEUE_DEPTH_MESSAGES,
                                   ALERT_REPEAT_GAP,
-                                  PRIORITIES
+                                  PRIORITIES,
+                                  DELIVERY_PRIORITY,
+                                  SHARDS
                     ));
 
 
@@ -149,6 +153,8 @@ public interface Queue extends ConfiguredObject
 
     void visit(QueueEntryVisitor visitor);
 
+    long visit(QueueEntryVisitor visitor, long cursor);
+
     void delete();
 
     void setNotificationListener(QueueNotificationListener listener);
@@ -25,5 +25,6 @@ public enum QueueType
     STANDARD,
     PRIORITY,
     LVQ,
-    SORTED
+    SORTED,
+    SHARDED
 }
@@ -49,13 +49,28 @@ public interface VirtualHost extends ConfiguredObject
     public static final String QUEUE_COUNT = "queueCount";
     public static final String EXCHANGE_COUNT = "exchangeCount";
     public static final String CONNECTION_COUNT = "connectionCount";
+    public static final String ENQUEUE_TO_DELIVER_LATENCY_P50 = "enqueueToDeliverLatencyP50";
+    public static final String ENQUEUE_TO_DELIVER_LATENCY_P99 = "enqueueToDeliverLatencyP99";
+    public static final String ENQUEUE_TO_DELIVER_LATENCY_P999 = "enqueueToDeliverLatencyP999";
+    public static final String PUBLISH_TO_STORE_COMMIT_LATENCY_P50 = "publishToStoreCommitLatencyP50";
+    public static final String PUBLISH_TO_STORE_COMMIT_LATENCY_P99 = "publishToStoreCommitLatencyP99";
+    public static final String PUBLISH_TO_STORE_COMMIT_LATENCY_P999 = "publishToStoreCommitLatencyP999";
+    public static final String DELIVERY_SCHEDULE_LATENCY_P50 = "deliveryScheduleLatencyP50";
+    public static final String DELIVERY_SCHEDULE_LATENCY_P99 = "deliveryScheduleLatencyP99";
+    public static final String DELIVERY_SCHEDULE_LATENCY_P999 = "deliveryScheduleLatencyP999";
+    public static final String DELIVERY_RUN_QUEUE_LENGTH = "deliveryRunQueueLength";
 
     public static final Collection<String> AVAILABLE_STATISTICS =
             Collections.unmodifiableList(
                     Arrays.asList(BYTES_IN, BYTES_OUT, BYTES_RETAINED, LOCAL_TRANSACTION_BEGINS,
                             LOCAL_TRANSACTION_ROLLBACKS, MESSAGES_IN, MESSAGES_OUT, MESSAGES_RETAINED, STATE_CHANGED,
                             XA_TRANSACTION_BRANCH_ENDS, XA_TRANSACTION_BRANCH_STARTS, XA_TRANSACTION_BRANCH_SUSPENDS,
-                            QUEUE_COUNT, EXCHANGE_COUNT, CONNECTION_COUNT));
+                            QUEUE_COUNT, EXCHANGE_COUNT, CONNECTION_COUNT,
+                            ENQUEUE_TO_DELIVER_LATENCY_P50, ENQUEUE_TO_DELIVER_LATENCY_P99,
+                            ENQUEUE_TO_DELIVER_LATENCY_P999, PUBLISH_TO_STORE_COMMIT_LATENCY_P50,
+                            PUBLISH_TO_STORE_COMMIT_LATENCY_P99, PUBLISH_TO_STORE_COMMIT_LATENCY_P999,
+                            DELIVERY_SCHEDULE_LATENCY_P50, DELIVERY_SCHEDULE_LATENCY_P99,
+                            DELIVERY_SCHEDULE_LATENCY_P999, DELIVERY_RUN_QUEUE_LENGTH));
 
     String QUEUE_ALERT_REPEAT_GAP                     = "queue.alertRepeatGap";
     String QUEUE_ALERT_THRESHOLD_MESSAGE_AGE          = "queue.alertThresholdMessageAge";
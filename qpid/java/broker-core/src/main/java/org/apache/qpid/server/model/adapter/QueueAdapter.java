@@ -167,6 +167,11 @@ final class QueueAdapter extends AbstractAdapter implements Queue, AMQQueue.Subs
         _queue.visit(visitor);
     }
 
+    public long visit(final QueueEntryVisitor visitor, final long cursor)
+    {
+        return _queue.visit(visitor, cursor);
+    }
+
     public void delete()
     {
         try
@@ -446,6 +451,10 @@ final class QueueAdapter extends AbstractAdapter implements Queue, AMQQueue.Subs
             {
                 return "priority";
             }
+            if(_queue instanceof ShardedQueue)
+            {
+                return "sharded";
+            }
             return "standard";
         }
         else if(CREATED.equals(name))
@@ -491,6 +500,17 @@ final class QueueAdapter extends AbstractAdapter implements Queue, AMQQueue.Subs
                 return ((AMQPriorityQueue)_queue).getPriorities();
             }
         }
+        else if(DELIVERY_PRIORITY.equals(name))
+        {
+            return _queue.getAttribute(DELIVERY_PRIORITY);
+        }
+        else if(SHARDS.equals(name))
+        {
+            if(_queue instanceof ShardedQueue)
+            {
+                return ((ShardedQueue)_queue).getShards();
+            }
+        }
         return super.getAttribute(name);
     }
 
@@ -65,6 +65,7 @@ import org.apache.qpid.server.plugin.ExchangeType;
 import org.apache.qpid.server.protocol.AMQConnectionModel;
 import org.apache.qpid.server.queue.AMQQueue;
 import org.apache.qpid.server.queue.AMQQueueFactory;
+import org.apache.qpid.server.queue.DeliveryRunQueue;
 import org.apache.qpid.server.queue.QueueEntry;
 import org.apache.qpid.server.security.SecurityManager;
 import org.apache.qpid.server.security.access.Operation;
@@ -404,6 +405,10 @@ public final class VirtualHostAdapter extends AbstractAdapter implements Virtual
             {
                 throw new IllegalArgumentException("Sort key is not specified for sorted queue");
             }
+            else if (queueType == QueueType.SHARDED && attributes.get(Queue.SHARDS) == null)
+            {
+                attributes.put(Queue.SHARDS, Math.max(2, Runtime.getRuntime().availableProcessors()));
+            }
         }
 
         String         name     = MapValueConverter.getStringAttribute(Queue.NAME, attributes, null);
@@ -999,7 +1004,17 @@ public final class VirtualHostAdapter extends AbstractAdapter implements Virtual
         private static final Collection<String> VHOST_STATS = Arrays.asList(
                 VirtualHost.QUEUE_COUNT,
                 VirtualHost.EXCHANGE_COUNT,
-                VirtualHost.CONNECTION_COUNT);
+                VirtualHost.CONNECTION_COUNT,
+                VirtualHost.ENQUEUE_TO_DELIVER_LATENCY_P50,
+                VirtualHost.ENQUEUE_TO_DELIVER_LATENCY_P99,
+                VirtualHost.ENQUEUE_TO_DELIVER_LATENCY_P999,
+                VirtualHost.PUBLISH_TO_STORE_COMMIT_LATENCY_P50,
+                VirtualHost.PUBLISH_TO_STORE_COMMIT_LATENCY_P99,
+                VirtualHost.PUBLISH_TO_STORE_COMMIT_LATENCY_P999,
+                VirtualHost.DELIVERY_SCHEDULE_LATENCY_P50,
+                VirtualHost.DELIVERY_SCHEDULE_LATENCY_P99,
+                VirtualHost.DELIVERY_SCHEDULE_LATENCY_P999,
+                VirtualHost.DELIVERY_RUN_QUEUE_LENGTH);
 
         public VirtualHostStatisticsAdapter(org.apache.qpid.server.virtualhost.VirtualHost virtualHost)
         {
@@ -1030,6 +1045,46 @@ public final class VirtualHostAdapter extends AbstractAdapter implements Virtual
             {
                 return _vhost.getConnectionRegistry().getConnections().size();
             }
+            else if(VirtualHost.ENQUEUE_TO_DELIVER_LATENCY_P50.equals(name))
+            {
+                return _vhost.getEnqueueToDeliverLatency().getValueAtPercentile(50d);
+            }
+            else if(VirtualHost.ENQUEUE_TO_DELIVER_LATENCY_P99.equals(name))
+            {
+                return _vhost.getEnqueueToDeliverLatency().getValueAtPercentile(99d);
+            }
+            else if(VirtualHost.ENQUEUE_TO_DELIVER_LATENCY_P999.equals(name))
+            {
+                return _vhost.getEnqueueToDeliverLatency().getValueAtPercentile(99.9d);
+            }
+            else if(VirtualHost.PUBLISH_TO_STORE_COMMIT_LATENCY_P50.equals(name))
+            {
+                return _vhost.getPublishToStoreCommitLatency().getValueAtPercentile(50d);
+            }
+            else if(VirtualHost.PUBLISH_TO_STORE_COMMIT_LATENCY_P99.equals(name))
+            {
+                return _vhost.getPublishToStoreCommitLatency().getValueAtPercentile(99d);
+            }
+            else if(VirtualHost.PUBLISH_TO_STORE_COMMIT_LATENCY_P999.equals(name))
+            {
+                return _vhost.getPublishToStoreCommitLatency().getValueAtPercentile(99.9d);
+            }
+            else if(VirtualHost.DELIVERY_SCHEDULE_LATENCY_P50.equals(name))
+            {
+                return _vhost.getDeliveryScheduleLatency().getValueAtPercentile(50d);
+            }
+            else if(VirtualHost.DELIVERY_SCHEDULE_LATENCY_P99.equals(name))
+            {
+                return _vhost.getDeliveryScheduleLatency().getValueAtPercentile(99d);
+            }
+            else if(VirtualHost.DELIVERY_SCHEDULE_LATENCY_P999.equals(name))
+            {
+                return _vhost.getDeliveryScheduleLatency().getValueAtPercentile(99.9d);
+            }
+            else if(VirtualHost.DELIVERY_RUN_QUEUE_LENGTH.equals(name))
+            {
+                return DeliveryRunQueue.getSharedPendingTaskCount(_vhost);
+            }
             else
             {
                 return super.getStatistic(name);
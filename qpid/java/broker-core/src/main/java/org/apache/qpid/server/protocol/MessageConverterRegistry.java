@@ -23,12 +23,19 @@ package org.apache.qpid.server.protocol;
 
 import java.util.HashMap;
 import java.util.Map;
+import org.apache.qpid.server.configuration.BrokerProperties;
+import org.apache.qpid.server.message.AbstractServerMessageImpl;
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.plugin.MessageConverter;
 import org.apache.qpid.server.plugin.QpidServiceLoader;
+import org.apache.qpid.server.virtualhost.VirtualHost;
 
 public class MessageConverterRegistry
 {
+    private static final long CONVERSION_CACHE_MAX_SIZE =
+            Long.getLong(BrokerProperties.PROPERTY_MESSAGE_CONVERSION_CACHE_MAX_SIZE,
+                         BrokerProperties.DEFAULT_MESSAGE_CONVERSION_CACHE_MAX_SIZE);
+
     private static Map<Class<? extends ServerMessage>, Map<Class<? extends ServerMessage>, MessageConverter>> _converters =
             new HashMap<Class<? extends ServerMessage>, Map<Class<? extends ServerMessage>, MessageConverter>>();
 
@@ -56,4 +63,35 @@ public class MessageConverterRegistry
         }
         return map == null ? null : map.get(to);
     }
+
+    /**
+     * Converts the message to the given class, returning the message itself if no conversion is required.
+     *
+     * The converted form of a message no larger than {@link BrokerProperties#PROPERTY_MESSAGE_CONVERSION_CACHE_MAX_SIZE}
+     * is cached on the message, so that a message delivered to many subscriptions of the same protocol is only
+     * converted once.
+     */
+    public static <N extends ServerMessage> N convert(ServerMessage message, Class<N> to, VirtualHost vhost)
+    {
+        if(to.isInstance(message))
+        {
+            return to.cast(message);
+        }
+
+        final boolean cacheable = message instanceof AbstractServerMessageImpl
+                                  && message.getSize() <= CONVERSION_CACHE_MAX_SIZE;
+        if(cacheable)
+        {
+            final N converted = ((AbstractServerMessageImpl<?,?>) message).getConvertedMessage(to);
+            if(converted != null)
+            {
+                return converted;
+            }
+        }
+
+        final MessageConverter converter = getConverter(message.getClass(), to);
+        final N converted = to.cast(converter.convert(message, vhost));
+
+        return cacheable ? ((AbstractServerMessageImpl<?,?>) message).cacheConvertedMessage(to, converted) : converted;
+    }
 }
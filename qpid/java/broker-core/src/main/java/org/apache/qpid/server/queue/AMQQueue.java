@@ -160,6 +160,17 @@ public interface AMQQueue extends Comparable<AMQQueue>, ExchangeReferrer, Transa
 
     void visit(QueueEntryVisitor visitor);
 
+    /**
+     * Visits the entries which follow the given browse cursor, stopping as {@link #visit(QueueEntryVisitor)} does.
+     * A cursor of zero starts from the head of the queue.
+     *
+     * Cursors are opaque.  Where the queue's entry list is indexed, the cursor identifies an entry so that browsing
+     * resumes in constant time and is not disturbed by entries being consumed; otherwise it counts entries from the head.
+     *
+     * @return the cursor from which a later call continues after the last entry visited
+     */
+    long visit(QueueEntryVisitor visitor, long cursor);
+
 
     long getMaximumMessageSize();
 
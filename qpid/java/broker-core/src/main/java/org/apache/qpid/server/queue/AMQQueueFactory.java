@@ -235,6 +235,7 @@ public class AMQQueueFactory implements QueueFactory
         }
 
         int priorities = 1;
+        int shards = 1;
         String conflationKey = null;
         String sortingKey = null;
 
@@ -275,6 +276,25 @@ public class AMQQueueFactory implements QueueFactory
             {
                 sortingKey = (String)arguments.get(Queue.SORT_KEY);
             }
+            else if(arguments.containsKey(Queue.SHARDS))
+            {
+                Object shardsObj = arguments.get(Queue.SHARDS);
+                if(shardsObj instanceof Number)
+                {
+                    shards = ((Number)shardsObj).intValue();
+                }
+                else if(shardsObj != null)
+                {
+                    try
+                    {
+                        shards = Integer.parseInt(shardsObj.toString());
+                    }
+                    catch (NumberFormatException e)
+                    {
+                        throw new IllegalArgumentException("Invalid number of shards: " + shardsObj);
+                    }
+                }
+            }
         }
 
         AMQQueue q;
@@ -290,6 +310,10 @@ public class AMQQueueFactory implements QueueFactory
         {
             q = new AMQPriorityQueue(id, queueName, durable, owner, autoDelete, exclusive, _virtualHost, arguments, priorities);
         }
+        else if(shards > 1)
+        {
+            q = new ShardedQueue(id, queueName, durable, owner, autoDelete, exclusive, _virtualHost, arguments, shards);
+        }
         else
         {
             q = new SimpleAMQQueue(id, queueName, durable, owner, autoDelete, exclusive, _virtualHost, arguments);
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import org.apache.qpid.server.message.ServerMessage;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A sorted implementation of QueueEntryList backed by a {@link ConcurrentSkipListSet}, so that publishers and
+ * consumers do not contend on a single lock.
+ * <p/>
+ * Entries are ordered by the value of the sort key property, then by entry id, so that entries with equal keys
+ * are kept in the order in which they were added.  As entries which have been removed still compare correctly
+ * against those remaining, iteration may continue from an entry which has since been deleted.
+ */
+public class ConcurrentSortedQueueEntryList implements QueueEntryList<ConcurrentSortedQueueEntryImpl>
+{
+    private final ConcurrentSortedQueueEntryImpl _head;
+    private final ConcurrentSkipListSet<ConcurrentSortedQueueEntryImpl> _entries =
+            new ConcurrentSkipListSet<ConcurrentSortedQueueEntryImpl>();
+    private final AtomicLong _entryId = new AtomicLong(Long.MIN_VALUE);
+    private final AMQQueue _queue;
+    private final String _propertyName;
+
+    public ConcurrentSortedQueueEntryList(final AMQQueue queue, final String propertyName)
+    {
+        _queue = queue;
+        // the head has no key and the lowest entry id, so sorts before every entry
+        _head = new ConcurrentSortedQueueEntryImpl(this);
+        _propertyName = propertyName;
+    }
+
+    public AMQQueue getQueue()
+    {
+        return _queue;
+    }
+
+    public ConcurrentSortedQueueEntryImpl add(final ServerMessage message)
+    {
+        String key = null;
+        final Object val = message.getMessageHeader().getHeader(_propertyName);
+        if(val != null)
+        {
+            key = val.toString();
+        }
+
+        final ConcurrentSortedQueueEntryImpl entry =
+                new ConcurrentSortedQueueEntryImpl(this, message, _entryId.incrementAndGet(), key);
+        _entries.add(entry);
+        return entry;
+    }
+
+    public ConcurrentSortedQueueEntryImpl next(final ConcurrentSortedQueueEntryImpl node)
+    {
+        ConcurrentSortedQueueEntryImpl next = _entries.higher(node);
+        while(next != null && next.isDeleted())
+        {
+            next = _entries.higher(next);
+        }
+        return next;
+    }
+
+    public QueueEntryIterator<ConcurrentSortedQueueEntryImpl> iterator()
+    {
+        return new QueueEntryIteratorImpl(_head);
+    }
+
+    public ConcurrentSortedQueueEntryImpl getHead()
+    {
+        return _head;
+    }
+
+    public void entryDeleted(final ConcurrentSortedQueueEntryImpl entry)
+    {
+        _entries.remove(entry);
+    }
+
+    public int getPriorities()
+    {
+        return 0;
+    }
+
+    public class QueueEntryIteratorImpl implements QueueEntryIterator<ConcurrentSortedQueueEntryImpl>
+    {
+        private ConcurrentSortedQueueEntryImpl _lastNode;
+
+        public QueueEntryIteratorImpl(final ConcurrentSortedQueueEntryImpl startNode)
+        {
+            _lastNode = startNode;
+        }
+
+        public boolean atTail()
+        {
+            return next(_lastNode) == null;
+        }
+
+        public ConcurrentSortedQueueEntryImpl getNode()
+        {
+            return _lastNode;
+        }
+
+        public boolean advance()
+        {
+            ConcurrentSortedQueueEntryImpl nextNode = next(_lastNode);
+            if(nextNode != null)
+            {
+                _lastNode = nextNode;
+                return true;
+            }
+            else
+            {
+                return false;
+            }
+        }
+    }
+}
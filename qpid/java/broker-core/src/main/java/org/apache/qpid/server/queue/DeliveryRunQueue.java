@@ -0,0 +1,144 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.qpid.pool.ReferenceCountingExecutorService;
+import org.apache.qpid.server.virtualhost.VirtualHost;
+
+/**
+ * The delivery tasks waiting for a thread of an executor, ordered by deadline (see {@link DeliveryScheduler}).  For
+ * each task added the executor is given one drain task, which runs whichever pending task has the earliest deadline.
+ * <p>
+ * The queues of the broker share the run queue of the shared delivery pool, which is created along with the pool by
+ * the first {@link #acquire()} and discarded with it by the last {@link #release()}.
+ */
+public class DeliveryRunQueue
+{
+    private static DeliveryRunQueue _shared;
+    private static int _references;
+
+    private final PriorityBlockingQueue<DeliveryScheduler.Task> _pending = new PriorityBlockingQueue<DeliveryScheduler.Task>();
+    private final Executor _executor;
+
+    private final Runnable _drain = new Runnable()
+    {
+        public void run()
+        {
+            final DeliveryScheduler.Task task = _pending.poll();
+            if(task != null)
+            {
+                task.run();
+            }
+        }
+    };
+
+    DeliveryRunQueue(final Executor executor)
+    {
+        _executor = executor;
+    }
+
+    /**
+     * Provides the run queue of the shared delivery pool, creating both on the first reference.
+     */
+    static synchronized DeliveryRunQueue acquire()
+    {
+        if(_references++ == 0)
+        {
+            _shared = new DeliveryRunQueue(ReferenceCountingExecutorService.getInstance().acquireExecutorService());
+        }
+        return _shared;
+    }
+
+    /**
+     * Releases a reference to the run queue of the shared delivery pool, shutting the pool down with the last.
+     */
+    static synchronized void release()
+    {
+        if(--_references == 0)
+        {
+            _shared = null;
+            ReferenceCountingExecutorService.getInstance().releaseExecutorService();
+        }
+    }
+
+    /**
+     * Returns the number of delivery tasks of the queues of the given virtual host waiting for a thread of the
+     * shared delivery pool.
+     */
+    public static int getSharedPendingTaskCount(final VirtualHost virtualHost)
+    {
+        final DeliveryRunQueue shared;
+        synchronized (DeliveryRunQueue.class)
+        {
+            shared = _shared;
+        }
+        return shared == null ? 0 : shared.getPendingTaskCount(virtualHost);
+    }
+
+    int getPendingTaskCount(final VirtualHost virtualHost)
+    {
+        int count = 0;
+        for(DeliveryScheduler.Task task : _pending)
+        {
+            if(task.getScheduler().getVirtualHost() == virtualHost)
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    void add(final DeliveryScheduler.Task task)
+    {
+        _pending.add(task);
+        try
+        {
+            _executor.execute(_drain);
+        }
+        catch (RejectedExecutionException e)
+        {
+            _pending.remove(task);
+            throw e;
+        }
+    }
+
+    /**
+     * Discards the pending tasks of the given scheduler.
+     */
+    void cancel(final DeliveryScheduler scheduler)
+    {
+        final List<DeliveryScheduler.Task> cancelled = new ArrayList<DeliveryScheduler.Task>();
+        for(DeliveryScheduler.Task task : _pending)
+        {
+            if(task.getScheduler() == scheduler)
+            {
+                cancelled.add(task);
+            }
+        }
+        _pending.removeAll(cancelled);
+    }
+}
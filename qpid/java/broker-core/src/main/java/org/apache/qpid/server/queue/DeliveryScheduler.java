@@ -0,0 +1,117 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.qpid.server.configuration.BrokerProperties;
+import org.apache.qpid.server.stats.LatencyHistogram;
+import org.apache.qpid.server.virtualhost.VirtualHost;
+
+/**
+ * Orders the asynchronous delivery tasks of a queue with those of the other queues before they are run by the shared
+ * delivery pool.
+ * <p>
+ * Pending tasks are held in a {@link DeliveryRunQueue} shared by the queues and ordered by deadline.  A task's deadline is the time at which it was
+ * submitted, brought forward by the delivery priority of its queue multiplied by a slack of 10ms, unless set by
+ * {@link BrokerProperties#PROPERTY_DELIVERY_PRIORITY_SLACK}.  A task of a latency sensitive queue therefore
+ * overtakes those of busier queues submitted shortly before it, while tasks of lower priority queues are delayed
+ * by a bounded time rather than starved.
+ */
+public class DeliveryScheduler implements Executor
+{
+    private static final long PRIORITY_SLACK_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong(BrokerProperties.PROPERTY_DELIVERY_PRIORITY_SLACK,
+                                                       BrokerProperties.DEFAULT_DELIVERY_PRIORITY_SLACK));
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final DeliveryRunQueue _runQueue;
+    private final VirtualHost _virtualHost;
+    private final long _advance;
+
+    DeliveryScheduler(final DeliveryRunQueue runQueue, final VirtualHost virtualHost, final int priority)
+    {
+        _runQueue = runQueue;
+        _virtualHost = virtualHost;
+        _advance = priority * PRIORITY_SLACK_NANOS;
+    }
+
+    VirtualHost getVirtualHost()
+    {
+        return _virtualHost;
+    }
+
+    public void execute(final Runnable runnable)
+    {
+        _runQueue.add(new Task(runnable));
+    }
+
+    /**
+     * Discards the pending tasks of this scheduler, so that those of a stopped queue are not left behind when the
+     * shared pool is shut down.
+     */
+    void cancel()
+    {
+        _runQueue.cancel(this);
+    }
+
+    final class Task implements Runnable, Comparable<Task>
+    {
+        private final Runnable _runnable;
+        private final long _submitted = System.nanoTime();
+        private final long _deadline = _submitted - _advance;
+        private final long _sequence = SEQUENCE.getAndIncrement();
+
+        private Task(final Runnable runnable)
+        {
+            _runnable = runnable;
+        }
+
+        DeliveryScheduler getScheduler()
+        {
+            return DeliveryScheduler.this;
+        }
+
+        public void run()
+        {
+            final LatencyHistogram latency = _virtualHost.getDeliveryScheduleLatency();
+            if(latency != null)
+            {
+                latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - _submitted));
+            }
+            _runnable.run();
+        }
+
+        public int compareTo(final Task other)
+        {
+            // nano times may wrap, so only their difference is meaningful
+            final long difference = _deadline - other._deadline;
+            if(difference != 0l)
+            {
+                return difference < 0l ? -1 : 1;
+            }
+            return _sequence < other._sequence ? -1 : (_sequence == other._sequence ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import org.apache.qpid.server.message.InstanceProperties;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * The entries of a queue whose messages carry an expiration time, ordered by that time, so that expired entries
+ * can be found without iterating over the whole queue.
+ */
+class ExpiringEntryIndex
+{
+    private static final Comparator<QueueEntry> EXPIRATION_ORDER = new Comparator<QueueEntry>()
+    {
+        @Override
+        public int compare(final QueueEntry entry1, final QueueEntry entry2)
+        {
+            final long expiration1 = getExpiration(entry1);
+            final long expiration2 = getExpiration(entry2);
+            if(expiration1 != expiration2)
+            {
+                return expiration1 < expiration2 ? -1 : 1;
+            }
+            return entry1.compareTo(entry2);
+        }
+    };
+
+    private final ConcurrentSkipListSet<QueueEntry> _entries = new ConcurrentSkipListSet<QueueEntry>(EXPIRATION_ORDER);
+
+    void add(final QueueEntry entry)
+    {
+        if(getExpiration(entry) != 0L)
+        {
+            _entries.add(entry);
+        }
+    }
+
+    void remove(final QueueEntry entry)
+    {
+        if(getExpiration(entry) != 0L)
+        {
+            _entries.remove(entry);
+        }
+    }
+
+    /**
+     * @return the indexed entries which had expired at the given time, in expiration order.  Entries which have
+     * since been deleted are removed from the index rather than returned.
+     */
+    List<QueueEntry> getExpiredEntries(final long currentTime)
+    {
+        final List<QueueEntry> expired = new ArrayList<QueueEntry>();
+        for(QueueEntry entry : _entries)
+        {
+            if(getExpiration(entry) >= currentTime)
+            {
+                break;
+            }
+            if(entry.isDeleted())
+            {
+                _entries.remove(entry);
+            }
+            else
+            {
+                expired.add(entry);
+            }
+        }
+        return expired;
+    }
+
+    int size()
+    {
+        return _entries.size();
+    }
+
+    private static long getExpiration(final QueueEntry entry)
+    {
+        // taken from the instance properties as they remain available after the entry's message is released
+        final Object expiration = entry.getInstanceProperties().getProperty(InstanceProperties.Property.EXPIRATION);
+        return expiration instanceof Number ? ((Number) expiration).longValue() : 0L;
+    }
+}
@@ -47,21 +47,26 @@ public abstract class OutOfOrderQueue extends SimpleAMQQueue
             final Subscription subscription = subIter.getNode().getSubscription();
             if(!subscription.isClosed())
             {
-                QueueContext context = (QueueContext) subscription.getQueueContext();
-                if(context != null)
+                checkSubscriptionNotAheadOfDelivery(subscription, entry);
+            }
+        }
+    }
+
+    protected void checkSubscriptionNotAheadOfDelivery(final Subscription subscription, final QueueEntry entry)
+    {
+        QueueContext context = (QueueContext) subscription.getQueueContext();
+        if(context != null)
+        {
+            QueueEntry released = context.getReleasedEntry();
+            while(!entry.isAcquired() && (released == null || compareEntries(subscription, released, entry) > 0))
+            {
+                if(QueueContext._releasedUpdater.compareAndSet(context,released,entry))
+                {
+                    break;
+                }
+                else
                 {
-                    QueueEntry released = context.getReleasedEntry();
-                    while(!entry.isAcquired() && (released == null || released.compareTo(entry) > 0))
-                    {
-                        if(QueueContext._releasedUpdater.compareAndSet(context,released,entry))
-                        {
-                            break;
-                        }
-                        else
-                        {
-                            released = context.getReleasedEntry();
-                        }
-                    }
+                    released = context.getReleasedEntry();
                 }
             }
         }
@@ -41,6 +41,10 @@ public class QueueArgumentsConverter
 
     public static final String X_QPID_PRIORITIES = "x-qpid-priorities";
 
+    public static final String X_QPID_DELIVERY_PRIORITY = "x-qpid-delivery-priority";
+
+    public static final String X_QPID_SHARDS = "x-qpid-shards";
+
     public static final String X_QPID_DESCRIPTION = "x-qpid-description";
 
     public static final String QPID_LAST_VALUE_QUEUE_KEY = "qpid.last_value_queue_key";
@@ -81,6 +85,8 @@ public class QueueArgumentsConverter
         ATTRIBUTE_MAPPINGS.put(QPID_QUEUE_SORT_KEY, Queue.SORT_KEY);
         ATTRIBUTE_MAPPINGS.put(QPID_LAST_VALUE_QUEUE_KEY, Queue.LVQ_KEY);
         ATTRIBUTE_MAPPINGS.put(X_QPID_PRIORITIES, Queue.PRIORITIES);
+        ATTRIBUTE_MAPPINGS.put(X_QPID_DELIVERY_PRIORITY, Queue.DELIVERY_PRIORITY);
+        ATTRIBUTE_MAPPINGS.put(X_QPID_SHARDS, Queue.SHARDS);
 
         ATTRIBUTE_MAPPINGS.put(X_QPID_DESCRIPTION, Queue.DESCRIPTION);
 
@@ -79,6 +79,9 @@ public abstract class QueueEntryImpl implements QueueEntry
 
     private final EntryInstanceProperties _instanceProperties = new EntryInstanceProperties();
 
+    /** Created on first use, retaining the results of the subscription filters evaluated against this entry */
+    private volatile Filterable _filterable;
+
     /** Number of times this message has been delivered */
     private volatile int _deliveryCount = 0;
     private static final AtomicIntegerFieldUpdater<QueueEntryImpl> _deliveryCountUpdater = AtomicIntegerFieldUpdater
@@ -474,7 +477,14 @@ public abstract class QueueEntryImpl implements QueueEntry
     @Override
     public Filterable asFilterable()
     {
-        return Filterable.Factory.newInstance(getMessage(), getInstanceProperties());
+        Filterable filterable = _filterable;
+        if(filterable == null)
+        {
+            // a racing thread may create a second instance; at worst some filter results are not shared
+            filterable = Filterable.Factory.newCachingInstance(getMessage(), getInstanceProperties());
+            _filterable = filterable;
+        }
+        return filterable;
     }
 
     public String toString()
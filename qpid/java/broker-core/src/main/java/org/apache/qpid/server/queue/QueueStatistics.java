@@ -0,0 +1,106 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The counters updated as messages are enqueued, delivered and dequeued, striped so that threads enqueuing to and
+ * dequeuing from different shards of a queue do not contend on the same cache lines.  Each thread updates the stripe
+ * selected by its id, and a counter is read by summing the stripes, so an individual stripe may be negative.
+ */
+final class QueueStatistics
+{
+    static final int QUEUE_COUNT = 0;
+    static final int QUEUE_SIZE = 1;
+    static final int RECEIVED_COUNT = 2;
+    static final int ENQUEUE_COUNT = 3;
+    static final int ENQUEUE_SIZE = 4;
+    static final int DEQUEUE_COUNT = 5;
+    static final int DEQUEUE_SIZE = 6;
+    static final int PERSISTENT_ENQUEUE_COUNT = 7;
+    static final int PERSISTENT_ENQUEUE_SIZE = 8;
+    static final int PERSISTENT_DEQUEUE_COUNT = 9;
+    static final int PERSISTENT_DEQUEUE_SIZE = 10;
+    static final int TXN_ENQUEUE_COUNT = 11;
+    static final int TXN_ENQUEUE_SIZE = 12;
+    static final int TXN_DEQUEUE_COUNT = 13;
+    static final int TXN_DEQUEUE_SIZE = 14;
+    static final int DELIVERED_COUNT = 15;
+    static final int STATE_CHANGE_COUNT = 16;
+
+    private static final int COUNTERS = 17;
+
+    /** Unused slots after the counters, so that those of neighbouring stripes do not share a cache line */
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray[] _stripes;
+
+    QueueStatistics(final int stripes)
+    {
+        _stripes = new AtomicLongArray[stripes];
+        for(int i = 0; i < stripes; i++)
+        {
+            _stripes[i] = new AtomicLongArray(COUNTERS + PADDING);
+        }
+    }
+
+    void increment(final int counter)
+    {
+        getStripe().incrementAndGet(counter);
+    }
+
+    void decrement(final int counter)
+    {
+        getStripe().decrementAndGet(counter);
+    }
+
+    void add(final int counter, final long delta)
+    {
+        getStripe().addAndGet(counter, delta);
+    }
+
+    /**
+     * Sets the value of a counter, to be used before the statistics are shared between threads.
+     */
+    void set(final int counter, final long value)
+    {
+        for(int i = 0; i < _stripes.length; i++)
+        {
+            _stripes[i].set(counter, i == 0 ? value : 0l);
+        }
+    }
+
+    long get(final int counter)
+    {
+        long value = 0l;
+        for(AtomicLongArray stripe : _stripes)
+        {
+            value += stripe.get(counter);
+        }
+        return value;
+    }
+
+    private AtomicLongArray getStripe()
+    {
+        return _stripes.length == 1 ? _stripes[0] : _stripes[(int) (Thread.currentThread().getId() % _stripes.length)];
+    }
+}
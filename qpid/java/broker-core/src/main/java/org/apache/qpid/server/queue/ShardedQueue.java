@@ -0,0 +1,140 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import org.apache.qpid.server.subscription.Subscription;
+import org.apache.qpid.server.subscription.SubscriptionList;
+import org.apache.qpid.server.virtualhost.VirtualHost;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A queue whose entries are striped across shards (see {@link ShardedQueueList}) so that many publishers do not
+ * contend on a single tail.  Ordering is preserved per publisher but only approximately across publishers.  The
+ * statistics of the queue are striped likewise, and summed when read.
+ * <p>
+ * Each subscription has a home shard, chosen by its id, from which it starts its traversal of the queue before moving
+ * on to the following shards in turn, so that consumers spread across the shards rather than all starting at the
+ * first.  A message enqueued behind the position of a subscription recalls it, those homed on the message's shard
+ * first.
+ */
+public class ShardedQueue extends OutOfOrderQueue
+{
+    protected ShardedQueue(UUID id,
+                           final String name,
+                           final boolean durable,
+                           final String owner,
+                           final boolean autoDelete,
+                           boolean exclusive,
+                           final VirtualHost virtualHost,
+                           Map<String, Object> arguments, int shards)
+    {
+        super(id, name, durable, owner, autoDelete, exclusive, virtualHost, new ShardedQueueList.Factory(shards), arguments);
+    }
+
+    public int getShards()
+    {
+        return getShardedEntries().getShards();
+    }
+
+    @Override
+    protected int getStatisticsStripes()
+    {
+        return getShards();
+    }
+
+    @Override
+    protected QueueEntry getStartEntry(final Subscription sub)
+    {
+        return getShardedEntries().getHead(getHomeShard(sub));
+    }
+
+    @Override
+    protected QueueEntry nextEntry(final Subscription sub, final QueueEntry entry)
+    {
+        return getShardedEntries().next((SimpleQueueEntryImpl) entry, getHomeShard(sub));
+    }
+
+    @Override
+    protected int compareEntries(final Subscription sub, final QueueEntry entry1, final QueueEntry entry2)
+    {
+        final int position1 = getTraversalPosition(sub, entry1);
+        final int position2 = getTraversalPosition(sub, entry2);
+        if(position1 != position2)
+        {
+            return position1 < position2 ? -1 : 1;
+        }
+        return entry1.compareTo(entry2);
+    }
+
+    @Override
+    protected void checkSubscriptionsNotAheadOfDelivery(final QueueEntry entry)
+    {
+        final int shard = getShardedEntries().getShard(entry);
+
+        // recall the subscriptions homed on the entry's shard first, then the rest
+        for(int pass = 0; pass < 2; pass++)
+        {
+            SubscriptionList.SubscriptionNodeIterator subIter = getSubscriptionList().iterator();
+            while(subIter.advance() && !entry.isAcquired())
+            {
+                final Subscription subscription = subIter.getNode().getSubscription();
+                if(!subscription.isClosed()
+                   && (getHomeShard(subscription) == shard) == (pass == 0)
+                   && isBehindSubscription(subscription, entry))
+                {
+                    checkSubscriptionNotAheadOfDelivery(subscription, entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether the subscription has already moved on past the position of the entry, so that it would not
+     * otherwise visit it.  Subscriptions yet to reach the entry are left alone, so that an enqueue does not write to
+     * the context of every subscription.
+     */
+    boolean isBehindSubscription(final Subscription sub, final QueueEntry entry)
+    {
+        final QueueContext context = (QueueContext) sub.getQueueContext();
+        return context != null && compareEntries(sub, context.getLastSeenEntry(), entry) >= 0;
+    }
+
+    int getHomeShard(final Subscription sub)
+    {
+        return (int) (sub.getSubscriptionID() % getShards());
+    }
+
+    /**
+     * Returns the position, in the order in which the given subscription visits the shards, of the entry's shard.
+     */
+    private int getTraversalPosition(final Subscription sub, final QueueEntry entry)
+    {
+        final int shards = getShards();
+        return (getShardedEntries().getShard(entry) - getHomeShard(sub) + shards) % shards;
+    }
+
+    private ShardedQueueList getShardedEntries()
+    {
+        return (ShardedQueueList) getEntries();
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import org.apache.qpid.server.message.ServerMessage;
+
+/**
+ * Stripes the entries of a queue across a number of sub-lists, so that publishers on different threads append to
+ * different tails.  A publishing thread always appends to the same shard, so the messages of each publisher keep
+ * their order; the list is traversed shard by shard.
+ */
+public class ShardedQueueList implements QueueEntryList<SimpleQueueEntryImpl>
+{
+    private final AMQQueue _queue;
+    private final ShardSubList[] _shardLists;
+
+    public ShardedQueueList(AMQQueue queue, int shards)
+    {
+        _queue = queue;
+        _shardLists = new ShardSubList[shards];
+        for(int i = 0; i < shards; i++)
+        {
+            _shardLists[i] = new ShardSubList(queue, i);
+        }
+    }
+
+    public int getShards()
+    {
+        return _shardLists.length;
+    }
+
+    public int getShard(QueueEntry entry)
+    {
+        return ((ShardSubList)((SimpleQueueEntryImpl) entry).getQueueEntryList()).getShard();
+    }
+
+    public AMQQueue getQueue()
+    {
+        return _queue;
+    }
+
+    public SimpleQueueEntryImpl add(ServerMessage message)
+    {
+        final int shard = (int) (Thread.currentThread().getId() % _shardLists.length);
+        return _shardLists[shard].add(message);
+    }
+
+    public SimpleQueueEntryImpl next(SimpleQueueEntryImpl node)
+    {
+        return next(node, 0);
+    }
+
+    /**
+     * Returns the entry following the given one when the shards are traversed in turn starting from the given shard,
+     * wrapping around to the first shard after the last.
+     */
+    public SimpleQueueEntryImpl next(SimpleQueueEntryImpl node, int startShard)
+    {
+        SimpleQueueEntryImpl next = node.getNextValidEntry();
+
+        if(next == null)
+        {
+            int index = ((ShardSubList) node.getQueueEntryList()).getShard();
+            final int lastShard = (startShard + _shardLists.length - 1) % _shardLists.length;
+
+            while(next == null && index != lastShard)
+            {
+                index = (index + 1) % _shardLists.length;
+                next = _shardLists[index].getHead().getNextValidEntry();
+            }
+        }
+        return next;
+    }
+
+    private final class ShardedQueueEntryListIterator implements QueueEntryIterator<SimpleQueueEntryImpl>
+    {
+        private final SimpleQueueEntryList.QueueEntryIteratorImpl[] _iterators = new SimpleQueueEntryList.QueueEntryIteratorImpl[ _shardLists.length ];
+        private SimpleQueueEntryImpl _lastNode;
+
+        ShardedQueueEntryListIterator()
+        {
+            for(int i = 0; i < _shardLists.length; i++)
+            {
+                _iterators[i] = _shardLists[i].iterator();
+            }
+            _lastNode = _iterators[0].getNode();
+        }
+
+        public boolean atTail()
+        {
+            for(int i = 0; i < _iterators.length; i++)
+            {
+                if(!_iterators[i].atTail())
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public SimpleQueueEntryImpl getNode()
+        {
+            return _lastNode;
+        }
+
+        public boolean advance()
+        {
+            for(int i = 0; i < _iterators.length; i++)
+            {
+                if(_iterators[i].advance())
+                {
+                    _lastNode = _iterators[i].getNode();
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public ShardedQueueEntryListIterator iterator()
+    {
+        return new ShardedQueueEntryListIterator();
+    }
+
+    public SimpleQueueEntryImpl getHead()
+    {
+        return getHead(0);
+    }
+
+    public SimpleQueueEntryImpl getHead(int shard)
+    {
+        return _shardLists[shard].getHead();
+    }
+
+    public void entryDeleted(final SimpleQueueEntryImpl queueEntry)
+    {
+
+    }
+
+    public int getPriorities()
+    {
+        return 0;
+    }
+
+    static class Factory implements QueueEntryListFactory
+    {
+        private final int _shards;
+
+        Factory(int shards)
+        {
+            _shards = shards;
+        }
+
+        public ShardedQueueList createQueueEntryList(AMQQueue queue)
+        {
+            return new ShardedQueueList(queue, _shards);
+        }
+    }
+
+    private static class ShardSubList extends SimpleQueueEntryList
+    {
+        private final int _shard;
+
+        public ShardSubList(AMQQueue queue, int shard)
+        {
+            super(queue);
+            _shard = shard;
+        }
+
+        @Override
+        protected ShardEntryImpl createQueueEntry(ServerMessage<?> message)
+        {
+            return new ShardEntryImpl(this, message);
+        }
+
+        public int getShard()
+        {
+            return _shard;
+        }
+    }
+
+    private static class ShardEntryImpl extends SimpleQueueEntryImpl
+    {
+        public ShardEntryImpl(ShardSubList queueEntryList, ServerMessage<?> message)
+        {
+            super(queueEntryList, message);
+        }
+
+        @Override
+        public int compareTo(final QueueEntry o)
+        {
+            int otherShard = ((ShardSubList)((SimpleQueueEntryImpl)o).getQueueEntryList()).getShard();
+            int thisShard = ((ShardSubList) getQueueEntryList()).getShard();
+
+            if(thisShard != otherShard)
+            {
+                // entries are ordered as the list is traversed, shard by shard
+                return thisShard < otherShard ? -1 : 1;
+            }
+            else
+            {
+                return super.compareTo(o);
+            }
+        }
+    }
+}
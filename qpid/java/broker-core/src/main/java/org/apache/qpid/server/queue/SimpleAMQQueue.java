@@ -29,7 +29,6 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -38,7 +37,6 @@ import java.util.concurrent.atomic.AtomicLong;
 import org.apache.log4j.Logger;
 import org.apache.qpid.AMQException;
 import org.apache.qpid.AMQSecurityException;
-import org.apache.qpid.pool.ReferenceCountingExecutorService;
 import org.apache.qpid.server.binding.Binding;
 import org.apache.qpid.server.configuration.BrokerProperties;
 import org.apache.qpid.server.configuration.QueueConfiguration;
@@ -53,6 +51,7 @@ import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.protocol.AMQSessionModel;
 import org.apache.qpid.server.security.AuthorizationHolder;
+import org.apache.qpid.server.stats.LatencyHistogram;
 import org.apache.qpid.server.subscription.AssignedSubscriptionMessageGroupManager;
 import org.apache.qpid.server.subscription.DefinedGroupMessageGroupManager;
 import org.apache.qpid.server.subscription.MessageGroupManager;
@@ -98,33 +97,21 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
 
     private final QueueEntryList<QueueEntry> _entries;
 
+    /** Entries whose messages have an expiration time, so that housekeeping need not scan the whole queue */
+    private final ExpiringEntryIndex _expiringEntries = new ExpiringEntryIndex();
+
     private final SubscriptionList _subscriptionList = new SubscriptionList();
 
     private volatile Subscription _exclusiveSubscriber;
 
 
 
-    private final AtomicInteger _atomicQueueCount = new AtomicInteger(0);
-
-    private final AtomicLong _atomicQueueSize = new AtomicLong(0L);
+    /** The counters updated as messages are enqueued, delivered and dequeued */
+    private final QueueStatistics _statistics;
 
     private final AtomicInteger _activeSubscriberCount = new AtomicInteger();
 
-    private final AtomicLong _totalMessagesReceived = new AtomicLong();
-
-    private final AtomicLong _dequeueCount = new AtomicLong();
-    private final AtomicLong _dequeueSize = new AtomicLong();
-    private final AtomicLong _enqueueCount = new AtomicLong();
-    private final AtomicLong _enqueueSize = new AtomicLong();
-    private final AtomicLong _persistentMessageEnqueueSize = new AtomicLong();
-    private final AtomicLong _persistentMessageDequeueSize = new AtomicLong();
-    private final AtomicLong _persistentMessageEnqueueCount = new AtomicLong();
-    private final AtomicLong _persistentMessageDequeueCount = new AtomicLong();
     private final AtomicInteger _consumerCountHigh = new AtomicInteger(0);
-    private final AtomicLong _msgTxnEnqueues = new AtomicLong(0);
-    private final AtomicLong _byteTxnEnqueues = new AtomicLong(0);
-    private final AtomicLong _msgTxnDequeues = new AtomicLong(0);
-    private final AtomicLong _byteTxnDequeues = new AtomicLong(0);
     private final AtomicLong _unackedMsgCount = new AtomicLong(0);
     private final AtomicLong _unackedMsgCountHigh = new AtomicLong(0);
     private final AtomicLong _unackedMsgBytes = new AtomicLong();
@@ -156,10 +143,7 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
     static final int MAX_ASYNC_DELIVERIES = 80;
 
 
-    private final AtomicLong _stateChangeCount = new AtomicLong(Long.MIN_VALUE);
-
-    private final Executor _asyncDelivery;
-    private AtomicInteger _deliveredMessages = new AtomicInteger();
+    private final DeliveryScheduler _deliveryScheduler;
     private AtomicBoolean _stopped = new AtomicBoolean(false);
 
     private final Set<AMQSessionModel> _blockedChannels = new ConcurrentSkipListSet<AMQSessionModel>();
@@ -226,10 +210,12 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
         _exclusive = exclusive;
         _virtualHost = virtualHost;
         _entries = entryListFactory.createQueueEntryList(this);
+        _statistics = new QueueStatistics(getStatisticsStripes());
+        _statistics.set(QueueStatistics.STATE_CHANGE_COUNT, Long.MIN_VALUE);
         _arguments = Collections.synchronizedMap(arguments == null ? new LinkedHashMap<String, Object>() : new LinkedHashMap<String, Object>(arguments));
 
         _id = id;
-        _asyncDelivery = ReferenceCountingExecutorService.getInstance().acquireExecutorService();
+        _deliveryScheduler = new DeliveryScheduler(DeliveryRunQueue.acquire(), virtualHost, getDeliveryPriority(_arguments));
 
         _logSubject = new QueueLogSubject(this);
         _logActor = new QueueActor(this, CurrentActor.get().getRootMessageLogger());
@@ -270,6 +256,27 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
 
     }
 
+    private static int getDeliveryPriority(final Map<String, Object> arguments)
+    {
+        final Object priority = arguments.get(Queue.DELIVERY_PRIORITY);
+        if(priority instanceof Number)
+        {
+            return ((Number)priority).intValue();
+        }
+        else if(priority != null)
+        {
+            try
+            {
+                return Integer.parseInt(priority.toString());
+            }
+            catch (NumberFormatException e)
+            {
+                _logger.warn("Ignoring invalid delivery priority: " + priority);
+            }
+        }
+        return 0;
+    }
+
     public void resetNotifications()
     {
         // This ensure that the notification checks for the configured alerts are created.
@@ -285,7 +292,7 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
     {
         try
         {
-            _asyncDelivery.execute(runnable);
+            _deliveryScheduler.execute(runnable);
         }
         catch (RejectedExecutionException ree)
         {
@@ -422,7 +429,7 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
             _activeSubscriberCount.incrementAndGet();
         }
         subscription.setStateListener(this);
-        subscription.setQueueContext(new QueueContext(_entries.getHead()));
+        subscription.setQueueContext(new QueueContext(getStartEntry(subscription)));
 
         if (!isDeleted())
         {
@@ -549,22 +556,26 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
 
         if(entry != null)
         {
-            SubscriptionList.SubscriptionNodeIterator subscriberIter = _subscriptionList.iterator();
-            // iterate over all the subscribers, and if they are in advance of this queue entry then move them backwards
-            while (subscriberIter.advance())
-            {
-                Subscription sub = subscriberIter.getNode().getSubscription();
-
-                // we don't make browsers send the same stuff twice
-                if (sub.seesRequeues())
-                {
-                    updateSubRequeueEntry(sub, entry);
-                }
-            }
+            resetSubPointers(entry);
+        }
+    }
 
-            deliverAsync();
+    public void resetSubPointers(QueueEntry entry)
+    {
+        SubscriptionList.SubscriptionNodeIterator subscriberIter = _subscriptionList.iterator();
+        // iterate over all the subscribers, and if they are in advance of this queue entry then move them backwards
+        while (subscriberIter.advance())
+        {
+            Subscription sub = subscriberIter.getNode().getSubscription();
 
+            // we don't make browsers send the same stuff twice
+            if (sub.seesRequeues())
+            {
+                updateSubRequeueEntry(sub, entry);
+            }
         }
+
+        deliverAsync();
     }
 
     public boolean getDeleteOnNoConsumers()
@@ -637,12 +648,13 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
         incrementQueueCount();
         incrementQueueSize(message);
 
-        _totalMessagesReceived.incrementAndGet();
+        _statistics.increment(QueueStatistics.RECEIVED_COUNT);
 
 
         QueueEntry entry;
         final Subscription exclusiveSub = _exclusiveSubscriber;
         entry = _entries.add(message);
+        _expiringEntries.add(entry);
 
         if(action != null || (exclusiveSub == null  && _queueRunner.isIdle()))
         {
@@ -772,8 +784,7 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
         {
             return true;
         }
-        Subscription assigned = _messageGroupManager.getAssignedSubscription(entry);
-        return (assigned == null) || (assigned == sub);
+        return _messageGroupManager.mightAssign(sub, entry);
     }
 
     protected void checkSubscriptionsNotAheadOfDelivery(final QueueEntry entry)
@@ -782,44 +793,77 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
         // Simple Queues don't :-)
     }
 
+    /**
+     * Returns the number of stripes over which the statistics of the queue are spread.  Called during construction,
+     * once the entry list has been created.
+     */
+    protected int getStatisticsStripes()
+    {
+        return 1;
+    }
+
+    /**
+     * Returns the entry from which the given subscription starts its traversal of the queue.
+     */
+    protected QueueEntry getStartEntry(final Subscription sub)
+    {
+        return _entries.getHead();
+    }
+
+    /**
+     * Returns the entry following the given one in the order in which the given subscription traverses the queue.
+     */
+    protected QueueEntry nextEntry(final Subscription sub, final QueueEntry entry)
+    {
+        return _entries.next(entry);
+    }
+
+    /**
+     * Compares two entries by the order in which the given subscription traverses the queue.
+     */
+    protected int compareEntries(final Subscription sub, final QueueEntry entry1, final QueueEntry entry2)
+    {
+        return entry1.compareTo(entry2);
+    }
+
     private void incrementQueueSize(final ServerMessage message)
     {
         long size = message.getSize();
-        getAtomicQueueSize().addAndGet(size);
-        _enqueueCount.incrementAndGet();
-        _enqueueSize.addAndGet(size);
+        _statistics.add(QueueStatistics.QUEUE_SIZE, size);
+        _statistics.increment(QueueStatistics.ENQUEUE_COUNT);
+        _statistics.add(QueueStatistics.ENQUEUE_SIZE, size);
         if(message.isPersistent() && isDurable())
         {
-            _persistentMessageEnqueueSize.addAndGet(size);
-            _persistentMessageEnqueueCount.incrementAndGet();
+            _statistics.add(QueueStatistics.PERSISTENT_ENQUEUE_SIZE, size);
+            _statistics.increment(QueueStatistics.PERSISTENT_ENQUEUE_COUNT);
         }
     }
 
     public long getTotalDequeueCount()
     {
-        return _dequeueCount.get();
+        return _statistics.get(QueueStatistics.DEQUEUE_COUNT);
     }
 
     public long getTotalEnqueueCount()
     {
-        return _enqueueCount.get();
+        return _statistics.get(QueueStatistics.ENQUEUE_COUNT);
     }
 
     private void incrementQueueCount()
     {
-        getAtomicQueueCount().incrementAndGet();
+        _statistics.increment(QueueStatistics.QUEUE_COUNT);
     }
 
     private void incrementTxnEnqueueStats(final ServerMessage message)
     {
-        _msgTxnEnqueues.incrementAndGet();
-        _byteTxnEnqueues.addAndGet(message.getSize());
+        _statistics.increment(QueueStatistics.TXN_ENQUEUE_COUNT);
+        _statistics.add(QueueStatistics.TXN_ENQUEUE_SIZE, message.getSize());
     }
 
     private void incrementTxnDequeueStats(QueueEntry entry)
     {
-        _msgTxnDequeues.incrementAndGet();
-        _byteTxnDequeues.addAndGet(entry.getSize());
+        _statistics.increment(QueueStatistics.TXN_DEQUEUE_COUNT);
+        _statistics.add(QueueStatistics.TXN_DEQUEUE_SIZE, entry.getSize());
     }
 
     private void deliverMessage(final Subscription sub, final QueueEntry entry, boolean batch)
@@ -827,9 +871,18 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
     {
         setLastSeenEntry(sub, entry);
 
-        _deliveredMessages.incrementAndGet();
+        _statistics.increment(QueueStatistics.DELIVERED_COUNT);
         incrementUnackedMsgCount(entry);
 
+        if (!entry.isRedelivered())
+        {
+            LatencyHistogram latency = _virtualHost.getEnqueueToDeliverLatency();
+            if (latency != null)
+            {
+                latency.record(System.currentTimeMillis() - entry.getMessage().getArrivalTime());
+            }
+        }
+
         sub.send(entry, batch);
     }
 
@@ -862,7 +915,7 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
         {
             QueueEntry oldEntry;
 
-            while((oldEntry  = subContext.getReleasedEntry()) == null || oldEntry.compareTo(entry) > 0)
+            while((oldEntry  = subContext.getReleasedEntry()) == null || compareEntries(sub, oldEntry, entry) > 0)
             {
                 if(QueueContext._releasedUpdater.compareAndSet(subContext, oldEntry, entry))
                 {
@@ -880,8 +933,9 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
         {
             Subscription sub = subscriberIter.getNode().getSubscription();
 
-            // we don't make browsers send the same stuff twice
-            if (sub.seesRequeues())
+            // we don't make browsers send the same stuff twice, and subscriptions whose filters reject the entry
+            // are not moved back, as that would make them re-scan every entry between it and their current position
+            if (sub.seesRequeues() && sub.hasInterest(entry))
             {
                 updateSubRequeueEntry(sub, entry);
             }
@@ -893,11 +947,12 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
 
     public void dequeue(QueueEntry entry, Subscription sub)
     {
+        _expiringEntries.remove(entry);
         decrementQueueCount();
         decrementQueueSize(entry);
         if (entry.acquiredBySubscription())
         {
-            _deliveredMessages.decrementAndGet();
+            _statistics.decrement(QueueStatistics.DELIVERED_COUNT);
         }
 
         if(sub != null && sub.isSessionTransactional())
@@ -913,19 +968,19 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
     {
         final ServerMessage message = entry.getMessage();
         long size = message.getSize();
-        getAtomicQueueSize().addAndGet(-size);
-        _dequeueSize.addAndGet(size);
+        _statistics.add(QueueStatistics.QUEUE_SIZE, -size);
+        _statistics.add(QueueStatistics.DEQUEUE_SIZE, size);
         if(message.isPersistent() && isDurable())
         {
-            _persistentMessageDequeueSize.addAndGet(size);
-            _persistentMessageDequeueCount.incrementAndGet();
+            _statistics.add(QueueStatistics.PERSISTENT_DEQUEUE_SIZE, size);
+            _statistics.increment(QueueStatistics.PERSISTENT_DEQUEUE_COUNT);
         }
     }
 
     void decrementQueueCount()
     {
-        getAtomicQueueCount().decrementAndGet();
-        _dequeueCount.incrementAndGet();
+        _statistics.decrement(QueueStatistics.QUEUE_COUNT);
+        _statistics.increment(QueueStatistics.DEQUEUE_COUNT);
     }
 
     public boolean resend(final QueueEntry entry, final Subscription subscription) throws AMQException
@@ -981,17 +1036,17 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
 
     public int getMessageCount()
     {
-        return getAtomicQueueCount().get();
+        return (int) _statistics.get(QueueStatistics.QUEUE_COUNT);
     }
 
     public long getQueueDepth()
     {
-        return getAtomicQueueSize().get();
+        return _statistics.get(QueueStatistics.QUEUE_SIZE);
     }
 
     public int getUndeliveredMessageCount()
     {
-        int count = getMessageCount() - _deliveredMessages.get();
+        int count = getMessageCount() - (int) _statistics.get(QueueStatistics.DELIVERED_COUNT);
         if (count < 0)
         {
             return 0;
@@ -1004,7 +1059,7 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
 
     public long getReceivedMessageCount()
     {
-        return _totalMessagesReceived.get();
+        return _statistics.get(QueueStatistics.RECEIVED_COUNT);
     }
 
     public long getOldestMessageArrivalTime()
@@ -1062,16 +1117,6 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
         return _name.compareTo(o.getName());
     }
 
-    public AtomicInteger getAtomicQueueCount()
-    {
-        return _atomicQueueCount;
-    }
-
-    public AtomicLong getAtomicQueueSize()
-    {
-        return _atomicQueueSize;
-    }
-
     public boolean hasExclusiveSubscriber()
     {
         return _exclusiveSubscriber != null;
@@ -1084,7 +1129,7 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
 
     long getStateChangeCount()
     {
-        return _stateChangeCount.get();
+        return _statistics.get(QueueStatistics.STATE_CHANGE_COUNT);
     }
 
     /** Used to track bindings to exchanges so that on deletion they can easily be cancelled. */
@@ -1180,6 +1225,51 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
         }
     }
 
+    public long visit(final QueueEntryVisitor visitor, final long cursor)
+    {
+        final QueueEntryList<?> entries = _entries;
+        if(entries instanceof SimpleQueueEntryList)
+        {
+            QueueEntryIterator<SimpleQueueEntryImpl> queueListIterator = ((SimpleQueueEntryList)entries).iterator(cursor);
+            long lastVisited = cursor;
+
+            while(queueListIterator.advance())
+            {
+                SimpleQueueEntryImpl node = queueListIterator.getNode();
+
+                if(!node.isDeleted())
+                {
+                    lastVisited = node.getEntryId();
+                    if(visitor.visit(node))
+                    {
+                        break;
+                    }
+                }
+            }
+            return lastVisited;
+        }
+        else
+        {
+            // the entry list has no index, so the cursor is a count of the entries already visited
+            QueueEntryIterator queueListIterator = _entries.iterator();
+            long position = 0l;
+
+            while(queueListIterator.advance())
+            {
+                QueueEntry node = queueListIterator.getNode();
+
+                if(!node.isDeleted() && ++position > cursor)
+                {
+                    if(visitor.visit(node))
+                    {
+                        break;
+                    }
+                }
+            }
+            return Math.max(position, cursor);
+        }
+    }
+
     /**
      * Returns a list of QueEntries from a given range of queue positions, eg messages 5 to 10 on the queue.
      *
@@ -1395,7 +1485,8 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
     {
         if (!_stopped.getAndSet(true))
         {
-            ReferenceCountingExecutorService.getInstance().releaseExecutorService();
+            _deliveryScheduler.cancel();
+            DeliveryRunQueue.release();
         }
     }
 
@@ -1403,21 +1494,21 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
     {
         if(_capacity != 0l)
         {
-            if(_atomicQueueSize.get() > _capacity)
+            if(getQueueDepth() > _capacity)
             {
                 _overfull.set(true);
                 //Overfull log message
-                _logActor.message(_logSubject, QueueMessages.OVERFULL(_atomicQueueSize.get(), _capacity));
+                _logActor.message(_logSubject, QueueMessages.OVERFULL(getQueueDepth(), _capacity));
 
                 _blockedChannels.add(channel);
 
                 channel.block(this);
 
-                if(_atomicQueueSize.get() <= _flowResumeCapacity)
+                if(getQueueDepth() <= _flowResumeCapacity)
                 {
 
                     //Underfull log message
-                    _logActor.message(_logSubject, QueueMessages.UNDERFULL(_atomicQueueSize.get(), _flowResumeCapacity));
+                    _logActor.message(_logSubject, QueueMessages.UNDERFULL(getQueueDepth(), _flowResumeCapacity));
 
                    channel.unblock(this);
                    _blockedChannels.remove(channel);
@@ -1435,11 +1526,11 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
     {
         if(_capacity != 0L)
         {
-            if(_overfull.get() && _atomicQueueSize.get() <= _flowResumeCapacity)
+            if(_overfull.get() && getQueueDepth() <= _flowResumeCapacity)
             {
                 if(_overfull.compareAndSet(true,false))
                 {//Underfull log message
-                    _logActor.message(_logSubject, QueueMessages.UNDERFULL(_atomicQueueSize.get(), _flowResumeCapacity));
+                    _logActor.message(_logSubject, QueueMessages.UNDERFULL(getQueueDepth(), _flowResumeCapacity));
                 }
 
                 for(final AMQSessionModel blockedChannel : _blockedChannels)
@@ -1455,9 +1546,9 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
 
     public void deliverAsync()
     {
-        _stateChangeCount.incrementAndGet();
+        _statistics.increment(QueueStatistics.STATE_CHANGE_COUNT);
 
-        _queueRunner.execute(_asyncDelivery);
+        _queueRunner.execute(_deliveryScheduler);
 
     }
 
@@ -1475,7 +1566,7 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
                 flusher = new SubFlushRunner(sub);
                 sub.set(SUB_FLUSH_RUNNER, flusher);
             }
-            flusher.execute(_asyncDelivery);
+            flusher.execute(_deliveryScheduler);
         }
 
     }
@@ -1606,7 +1697,7 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
                 }
 
             }
-            atTail = (node == null) || (_entries.next(node) == null);
+            atTail = (node == null) || (nextEntry(sub, node) == null);
         }
         return atTail || !subActive;
     }
@@ -1638,7 +1729,7 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
             QueueEntry lastSeen = context.getLastSeenEntry();
             QueueEntry releasedNode = context.getReleasedEntry();
 
-            QueueEntry node = (releasedNode != null && lastSeen.compareTo(releasedNode)>=0) ? releasedNode : _entries.next(lastSeen);
+            QueueEntry node = (releasedNode != null && compareEntries(sub, lastSeen, releasedNode)>=0) ? releasedNode : nextEntry(sub, lastSeen);
 
             boolean expired = false;
             while (node != null && (!node.isAvailable() || (expired = node.expired()) || !sub.hasInterest(node) ||
@@ -1660,7 +1751,7 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
 
                 lastSeen = context.getLastSeenEntry();
                 releasedNode = context.getReleasedEntry();
-                node = (releasedNode != null && lastSeen.compareTo(releasedNode)>0) ? releasedNode : _entries.next(lastSeen);
+                node = (releasedNode != null && compareEntries(sub, lastSeen, releasedNode)>0) ? releasedNode : nextEntry(sub, lastSeen);
             }
             return node;
         }
@@ -1676,7 +1767,7 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
         if(context != null)
         {
             QueueEntry releasedNode = context.getReleasedEntry();
-            return releasedNode != null && releasedNode.compareTo(entry) < 0;
+            return releasedNode != null && compareEntries(sub, releasedNode, entry) < 0;
         }
         else
         {
@@ -1725,11 +1816,11 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
         final int perSub = Math.max(iterations / Math.max(numSubs,1), 1);
 
         // For every message enqueue/requeue the we fire deliveryAsync() which
-        // increases _stateChangeCount. If _sCC changes whilst we are in our loop
+        // increases the state change count. If it changes whilst we are in our loop
         // (detected by setting previousStateChangeCount to stateChangeCount in the loop body)
         // then we will continue to run for a maximum of iterations.
         // So whilst delivery/rejection is going on a processQueue thread will be running
-        while (iterations != 0 && ((previousStateChangeCount != (stateChangeCount = _stateChangeCount.get())) || deliveryIncomplete))
+        while (iterations != 0 && ((previousStateChangeCount != (stateChangeCount = getStateChangeCount())) || deliveryIncomplete))
         {
             // we want to have one extra loop after every subscription has reached the point where it cannot move
             // further, just in case the advance of one subscription in the last loop allows a different subscription to
@@ -1833,38 +1924,29 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
 
     public void checkMessageStatus() throws AMQException
     {
-        QueueEntryIterator queueListIterator = _entries.iterator();
-
-        while (queueListIterator.advance())
+        for (QueueEntry node : _expiringEntries.getExpiredEntries(System.currentTimeMillis()))
         {
-            QueueEntry node = queueListIterator.getNode();
-            // Only process nodes that are not currently deleted and not dequeued
-            if (!node.isDeleted())
+            // If the node has expired then acquire it
+            if (!node.isDeleted() && node.expired() && node.acquire())
             {
-                // If the node has expired then acquire it
-                if (node.expired() && node.acquire())
+                if (_logger.isDebugEnabled())
                 {
-                    if (_logger.isDebugEnabled())
-                    {
-                        _logger.debug("Dequeuing expired node " + node);
-                    }
-                    // Then dequeue it.
-                    dequeueEntry(node);
-                }
-                else
-                {
-                    // There is a chance that the node could be deleted by
-                    // the time the check actually occurs. So verify we
-                    // can actually get the message to perform the check.
-                    ServerMessage msg = node.getMessage();
-                    if (msg != null)
-                    {
-                        checkForNotification(msg);
-                    }
+                    _logger.debug("Dequeuing expired node " + node);
                 }
+                // Then dequeue it.
+                dequeueEntry(node);
             }
         }
 
+        // There is a chance that the oldest node could be deleted by
+        // the time the check actually occurs. So verify we
+        // can actually get the message to perform the check.
+        QueueEntry oldest = getOldestQueueEntry();
+        ServerMessage msg = oldest == null ? null : oldest.getMessage();
+        if (msg != null)
+        {
+            checkForNotification(msg);
+        }
     }
 
     public long getMinimumAlertRepeatGap()
@@ -2063,57 +2145,57 @@ public class SimpleAMQQueue implements AMQQueue, Subscription.StateListener, Mes
 
     public long getMessageDequeueCount()
     {
-        return  _dequeueCount.get();
+        return _statistics.get(QueueStatistics.DEQUEUE_COUNT);
     }
 
     public long getTotalEnqueueSize()
     {
-        return _enqueueSize.get();
+        return _statistics.get(QueueStatistics.ENQUEUE_SIZE);
     }
 
     public long getTotalDequeueSize()
     {
-        return _dequeueSize.get();
+        return _statistics.get(QueueStatistics.DEQUEUE_SIZE);
     }
 
     public long getByteTxnEnqueues()
     {
-        return _byteTxnEnqueues.get();
+        return _statistics.get(QueueStatistics.TXN_ENQUEUE_SIZE);
     }
 
     public long getByteTxnDequeues()
     {
-        return _byteTxnDequeues.get();
+        return _statistics.get(QueueStatistics.TXN_DEQUEUE_SIZE);
     }
 
     public long getMsgTxnEnqueues()
     {
-        return _msgTxnEnqueues.get();
+        return _statistics.get(QueueStatistics.TXN_ENQUEUE_COUNT);
     }
 
     public long getMsgTxnDequeues()
     {
-        return _msgTxnDequeues.get();
+        return _statistics.get(QueueStatistics.TXN_DEQUEUE_COUNT);
     }
 
     public long getPersistentByteEnqueues()
     {
-        return _persistentMessageEnqueueSize.get();
+        return _statistics.get(QueueStatistics.PERSISTENT_ENQUEUE_SIZE);
     }
 
     public long getPersistentByteDequeues()
     {
-        return _persistentMessageDequeueSize.get();
+        return _statistics.get(QueueStatistics.PERSISTENT_DEQUEUE_SIZE);
     }
 
     public long getPersistentMsgEnqueues()
     {
-        return _persistentMessageEnqueueCount.get();
+        return _statistics.get(QueueStatistics.PERSISTENT_ENQUEUE_COUNT);
     }
 
     public long getPersistentMsgDequeues()
     {
-        return _persistentMessageDequeueCount.get();
+        return _statistics.get(QueueStatistics.PERSISTENT_DEQUEUE_COUNT);
     }
 
 
@@ -22,6 +22,8 @@ package org.apache.qpid.server.queue;
 
 import org.apache.qpid.server.message.ServerMessage;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
@@ -48,6 +50,11 @@ public class SimpleQueueEntryList implements QueueEntryList<SimpleQueueEntryImpl
     private final long _scavengeCount = Integer.getInteger("qpid.queue.scavenge_count", 50);
     private final AtomicReference<SimpleQueueEntryImpl> _unscavengedHWM = new AtomicReference<SimpleQueueEntryImpl>();
 
+    /** every INDEX_INTERVAL'th entry, by entry id, so that an iterator can start part way along the list */
+    private static final long INDEX_INTERVAL = 256l;
+    private final ConcurrentSkipListMap<Long, SimpleQueueEntryImpl> _index =
+            new ConcurrentSkipListMap<Long, SimpleQueueEntryImpl>();
+
 
     public SimpleQueueEntryList(AMQQueue queue)
     {
@@ -92,6 +99,15 @@ public class SimpleQueueEntryList implements QueueEntryList<SimpleQueueEntryImpl
                     if (_nextUpdater.compareAndSet(tail, null, node))
                     {
                         _tailUpdater.compareAndSet(this, tail, node);
+                        if (node.getEntryId() % INDEX_INTERVAL == 0)
+                        {
+                            _index.put(node.getEntryId(), node);
+                            // the entry may have been consumed and deleted before it was indexed
+                            if (node.isDeleted())
+                            {
+                                _index.remove(node.getEntryId(), node);
+                            }
+                        }
 
                         return node;
                     }
@@ -151,6 +167,23 @@ public class SimpleQueueEntryList implements QueueEntryList<SimpleQueueEntryImpl
         return new QueueEntryIteratorImpl(_head);
     }
 
+    /**
+     * Returns an iterator which will advance to the first entry with an id greater than the given one.  The walk
+     * starts from the nearest indexed entry rather than the head, so costs the same wherever the entry lies.
+     */
+    public QueueEntryIteratorImpl iterator(long afterEntryId)
+    {
+        Map.Entry<Long, SimpleQueueEntryImpl> indexed = _index.floorEntry(afterEntryId);
+        // an indexed entry deleted since the lookup still leads on to the entries after it
+        SimpleQueueEntryImpl node = indexed == null ? _head : indexed.getValue();
+        SimpleQueueEntryImpl next;
+        while ((next = node.getNextValidEntry()) != null && next.getEntryId() <= afterEntryId)
+        {
+            node = next;
+        }
+        return new QueueEntryIteratorImpl(node);
+    }
+
 
     public SimpleQueueEntryImpl getHead()
     {
@@ -159,6 +192,11 @@ public class SimpleQueueEntryList implements QueueEntryList<SimpleQueueEntryImpl
 
     public void entryDeleted(SimpleQueueEntryImpl queueEntry)
     {
+        if (queueEntry.getEntryId() % INDEX_INTERVAL == 0)
+        {
+            _index.remove(queueEntry.getEntryId(), queueEntry);
+        }
+
         SimpleQueueEntryImpl next = _head.getNextNode();
         SimpleQueueEntryImpl newNext = _head.getNextValidEntry();
 
@@ -20,6 +20,7 @@
 package org.apache.qpid.server.queue;
 
 import org.apache.qpid.AMQException;
+import org.apache.qpid.server.configuration.BrokerProperties;
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.virtualhost.VirtualHost;
 
@@ -28,19 +29,35 @@ import java.util.UUID;
 
 public class SortedQueue extends OutOfOrderQueue
 {
+    private static final boolean USE_CONCURRENT_ENTRY_LIST =
+            Boolean.parseBoolean(System.getProperty(BrokerProperties.PROPERTY_SORTED_QUEUE_CONCURRENT_ENTRY_LIST, "true"));
+
     //Lock object to synchronize enqueue. Used instead of the object
     //monitor to prevent lock order issues with subscription sendLocks
     //and consumer updates in the super classes
     private final Object _sortedQueueLock = new Object();
     private final String _sortedPropertyName;
+    private final boolean _concurrentEntryList;
 
     protected SortedQueue(UUID id, final String name,
                             final boolean durable, final String owner, final boolean autoDelete,
                             final boolean exclusive, final VirtualHost virtualHost, Map<String, Object> arguments, String sortedPropertyName)
+    {
+        this(id, name, durable, owner, autoDelete, exclusive, virtualHost, arguments, sortedPropertyName,
+             USE_CONCURRENT_ENTRY_LIST);
+    }
+
+    protected SortedQueue(UUID id, final String name,
+                          final boolean durable, final String owner, final boolean autoDelete,
+                          final boolean exclusive, final VirtualHost virtualHost, Map<String, Object> arguments,
+                          String sortedPropertyName, boolean concurrentEntryList)
     {
         super(id, name, durable, owner, autoDelete, exclusive,
-                virtualHost, new SortedQueueEntryListFactory(sortedPropertyName), arguments);
+                virtualHost, concurrentEntryList
+                        ? new ConcurrentSortedQueueEntryListFactory(sortedPropertyName)
+                        : new SortedQueueEntryListFactory(sortedPropertyName), arguments);
         this._sortedPropertyName = sortedPropertyName;
+        this._concurrentEntryList = concurrentEntryList;
     }
 
     public String getSortedPropertyName()
@@ -50,9 +67,17 @@ public class SortedQueue extends OutOfOrderQueue
 
     public void enqueue(ServerMessage message, PostEnqueueAction action) throws AMQException
     {
-        synchronized (_sortedQueueLock)
+        if(_concurrentEntryList)
         {
+            // entries enqueued behind a subscription are caught by checkSubscriptionsNotAheadOfDelivery
             super.enqueue(message, action);
         }
+        else
+        {
+            synchronized (_sortedQueueLock)
+            {
+                super.enqueue(message, action);
+            }
+        }
     }
 }
\ No newline at end of file
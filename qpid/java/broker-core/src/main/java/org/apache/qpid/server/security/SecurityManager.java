@@ -470,12 +470,13 @@ public class SecurityManager implements ConfigurationChangeListener
             exchangeMap = cache.get(exchangeName);
         }
 
+        check = exchangeMap.get(routingKey);
+        if(check == null)
+        {
+            // publishers racing on a new routing key share one check, so the plugins see the same properties
+            exchangeMap.putIfAbsent(routingKey, new PublishAccessCheck(new ObjectProperties(exchangeName, routingKey, immediate)));
             check = exchangeMap.get(routingKey);
-            if(check == null)
-            {
-                check = new PublishAccessCheck(new ObjectProperties(exchangeName, routingKey, immediate));
-                exchangeMap.put(routingKey, check);
-            }
+        }
 
         return checkAllPlugins(check);
     }
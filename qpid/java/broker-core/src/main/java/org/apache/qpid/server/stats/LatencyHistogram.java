@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.qpid.server.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size histogram of non-negative latency values, from which percentiles can be read.
+ *
+ * Values are counted in logarithmic buckets, each power of two being split into eight linear sub-buckets, so
+ * percentiles are reported to within 12.5% of the recorded value whatever its magnitude.  Recording a value is a
+ * single atomic increment, to the buckets of a stripe chosen by the recording thread as for {@link StatisticsCounter},
+ * so that threads on different cores rarely contend.  The stripes are summed when the histogram is read.
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    // unused slots after the buckets, so that the last buckets of a stripe do not share a cache line with the next
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray[] _stripes = new AtomicLongArray[StatisticsCounter.STRIPES];
+
+    public LatencyHistogram()
+    {
+        for (int i = 0; i < _stripes.length; i++)
+        {
+            _stripes[i] = new AtomicLongArray(BUCKETS + PADDING);
+        }
+    }
+
+    public void record(long value)
+    {
+        _stripes[StatisticsCounter.getStripe()].incrementAndGet(getBucket(value < 0L ? 0L : value));
+    }
+
+    public long getCount()
+    {
+        long count = 0L;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            count += getBucketCount(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the value below or at which the given percentage of the recorded values fall, or zero if nothing has
+     * been recorded.  The value returned is the upper bound of the bucket containing the percentile.
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        final long[] counts = new long[BUCKETS];
+        long total = 0L;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            counts[i] = getBucketCount(i);
+            total += counts[i];
+        }
+        if (total == 0L)
+        {
+            return 0L;
+        }
+
+        final long target = Math.max(1L, (long) Math.ceil(total * Math.min(percentile, 100.0d) / 100.0d));
+        long cumulative = 0L;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            cumulative += counts[i];
+            if (cumulative >= target)
+            {
+                return getBucketUpperBound(i);
+            }
+        }
+        return getBucketUpperBound(BUCKETS - 1);
+    }
+
+    public void reset()
+    {
+        for (AtomicLongArray stripe : _stripes)
+        {
+            for (int i = 0; i < BUCKETS; i++)
+            {
+                stripe.set(i, 0L);
+            }
+        }
+    }
+
+    private long getBucketCount(int bucket)
+    {
+        long count = 0L;
+        for (AtomicLongArray stripe : _stripes)
+        {
+            count += stripe.get(bucket);
+        }
+        return count;
+    }
+
+    static int getBucket(long value)
+    {
+        if (value < SUB_BUCKETS)
+        {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int shift = exponent - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    static long getBucketUpperBound(int bucket)
+    {
+        if (bucket < SUB_BUCKETS)
+        {
+            return bucket;
+        }
+        final int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        final int subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        final long lowerBound = (long) (SUB_BUCKETS + subBucket) << shift;
+        return lowerBound + (1L << shift) - 1L;
+    }
+}
@@ -23,10 +23,15 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Date;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * This class collects statistics and counts the total, rate per second and
- * peak rate per second values for the events that are registered with it. 
+ * peak rate per second values for the events that are registered with it.
+ *
+ * Registering an event does not take a lock: values are added to one of a number of padded cells chosen by the
+ * registering thread, so that threads on different cores rarely contend.  The cells are summed only when a sample
+ * period ends or the total is read, which makes the rate approximate for events registered at a period boundary.
  */
 public class StatisticsCounter
 {
@@ -36,14 +41,21 @@ public class StatisticsCounter
 
     private static final String COUNTER = "counter";
     private static final AtomicLong _counterIds = new AtomicLong(0L);
-    
-    private long _peak = 0L;
-    private long _total = 0L;
-    private long _temp = 0L;
-    private long _last = 0L;
-    private long _rate = 0L;
 
-    private long _start;
+    // each cell occupies its own cache line
+    private static final int CELL_PADDING = 8;
+    static final int STRIPES = getStripes(Integer.getInteger("qpid.statistics.stripes",
+                                                                     Runtime.getRuntime().availableProcessors()));
+
+    private final AtomicLongArray _cells = new AtomicLongArray(STRIPES * CELL_PADDING);
+
+    private volatile long _peak = 0L;
+    private volatile long _rate = 0L;
+    private volatile long _last = 0L;
+    private long _sampleStartTotal = 0L;
+    private volatile long _resetTotal = 0L;
+
+    private volatile long _start;
     
     private final long _period;
     private final String _name;
@@ -78,21 +90,31 @@ public class StatisticsCounter
     public void registerEvent(long value, long timestamp)
     {
         long thisSample = (timestamp / _period);
-        synchronized (this)
+        if (thisSample > _last)
+        {
+            endSample(thisSample);
+        }
+
+        if (value != 0L)
         {
-            if (thisSample > _last)
+            _cells.addAndGet(getCellIndex(), value);
+        }
+    }
+
+    private synchronized void endSample(long thisSample)
+    {
+        // only the first thread to see the new sample period closes the previous one
+        if (thisSample > _last)
+        {
+            final long total = sumCells();
+            final long rate = total - _sampleStartTotal;
+            _sampleStartTotal = total;
+            _rate = rate;
+            if (rate > _peak)
             {
-                _last = thisSample;
-                _rate = _temp;
-                _temp = 0L;
-                if (_rate > _peak)
-                {
-                    _peak = _rate;
-                }
+                _peak = rate;
             }
-            
-            _total += value;
-            _temp += value;
+            _last = thisSample;
         }
     }
     
@@ -108,12 +130,14 @@ public class StatisticsCounter
     /**
      * Reset 
      */
-    public void reset()
+    public synchronized void reset()
     {
         _log.info("Resetting statistics for counter: " + _name);
+        final long total = sumCells();
         _peak = 0L;
         _rate = 0L;
-        _total = 0L;
+        _resetTotal = total;
+        _sampleStartTotal = total;
         _start = System.currentTimeMillis();
         _last = _start / _period;
     }
@@ -132,7 +156,7 @@ public class StatisticsCounter
 
     public long getTotal()
     {
-        return _total;
+        return sumCells() - _resetTotal;
     }
 
     public long getStart()
@@ -154,4 +178,38 @@ public class StatisticsCounter
     {
         return _period;
     }
+
+    private long sumCells()
+    {
+        long total = 0L;
+        for (int i = 0; i < _cells.length(); i += CELL_PADDING)
+        {
+            total += _cells.get(i);
+        }
+        return total;
+    }
+
+    private static int getCellIndex()
+    {
+        return getStripe() * CELL_PADDING;
+    }
+
+    /**
+     * Returns the stripe, below {@link #STRIPES}, to which the current thread adds its values.
+     */
+    static int getStripe()
+    {
+        final long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 32)) & (STRIPES - 1);
+    }
+
+    private static int getStripes(int requested)
+    {
+        int stripes = 1;
+        while (stripes < requested && stripes < 64)
+        {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
 }
@@ -39,7 +39,9 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import org.apache.log4j.Logger;
@@ -54,7 +56,7 @@ import org.codehaus.jackson.JsonParseException;
 import org.codehaus.jackson.map.JsonMappingException;
 import org.codehaus.jackson.map.ObjectMapper;
 
-abstract public class AbstractJDBCMessageStore implements MessageStore, DurableConfigurationStore
+abstract public class AbstractJDBCMessageStore implements MessageStore, DurableConfigurationStore, FlowableMessageStore
 {
     private static final String DB_VERSION_TABLE_NAME = "QPID_DB_VERSION";
     private static final String CONFIGURATION_VERSION_TABLE_NAME = "QPID_CONFIG_VERSION";
@@ -79,8 +81,11 @@ abstract public class AbstractJDBCMessageStore implements MessageStore, DurableC
     private static final int DB_VERSION = 7;
 
     private final AtomicLong _messageId = new AtomicLong(0);
+    private final InMemoryContentSize _inMemoryContentSize = new InMemoryContentSize();
     private final AtomicBoolean _closed = new AtomicBoolean(false);
 
+    private volatile CommitThread _commitThread;
+
     private static final String CREATE_DB_VERSION_TABLE = "CREATE TABLE "+ DB_VERSION_TABLE_NAME + " ( version int not null )";
     private static final String INSERT_INTO_DB_VERSION = "INSERT INTO "+ DB_VERSION_TABLE_NAME + " ( version ) VALUES ( ? )";
     private static final String SELECT_FROM_DB_VERSION = "SELECT version FROM " + DB_VERSION_TABLE_NAME;
@@ -96,6 +101,8 @@ abstract public class AbstractJDBCMessageStore implements MessageStore, DurableC
     private static final String INSERT_INTO_QUEUE_ENTRY = "INSERT INTO " + QUEUE_ENTRY_TABLE_NAME + " (queue_id, message_id) values (?,?)";
     private static final String DELETE_FROM_QUEUE_ENTRY = "DELETE FROM " + QUEUE_ENTRY_TABLE_NAME + " WHERE queue_id = ? AND message_id =?";
     private static final String SELECT_FROM_QUEUE_ENTRY = "SELECT queue_id, message_id FROM " + QUEUE_ENTRY_TABLE_NAME + " ORDER BY queue_id, message_id";
+    private static final String SELECT_QUEUE_IDS_FROM_QUEUE_ENTRY = "SELECT DISTINCT queue_id FROM " + QUEUE_ENTRY_TABLE_NAME;
+    private static final String SELECT_FROM_QUEUE_ENTRY_FOR_QUEUE = "SELECT message_id FROM " + QUEUE_ENTRY_TABLE_NAME + " WHERE queue_id = ? ORDER BY message_id";
     private static final String INSERT_INTO_MESSAGE_CONTENT = "INSERT INTO " + MESSAGE_CONTENT_TABLE_NAME
             + "( message_id, content ) values (?, ?)";
     private static final String SELECT_FROM_MESSAGE_CONTENT = "SELECT content FROM " + MESSAGE_CONTENT_TABLE_NAME
@@ -233,6 +240,12 @@ abstract public class AbstractJDBCMessageStore implements MessageStore, DurableC
 
         }
 
+        if(!isConfigStoreOnly() && _commitThread == null)
+        {
+            _commitThread = new CommitThread("Commit-Thread-" + _virtualHost.getName());
+            _commitThread.start();
+        }
+
         _stateManager.attainState(State.ACTIVE);
     }
 
@@ -674,6 +687,8 @@ abstract public class AbstractJDBCMessageStore implements MessageStore, DurableC
         {
             _stateManager.attainState(State.CLOSING);
 
+            stopCommitThread();
+
             doClose();
 
             _stateManager.attainState(State.CLOSED);
@@ -683,6 +698,17 @@ abstract public class AbstractJDBCMessageStore implements MessageStore, DurableC
 
     protected abstract void doClose() throws Exception;
 
+    private void stopCommitThread() throws InterruptedException
+    {
+        final CommitThread commitThread = _commitThread;
+        if(commitThread != null)
+        {
+            _commitThread = null;
+            commitThread.close();
+            commitThread.join();
+        }
+    }
+
     @Override
     public StoredMessage addMessage(StorableMessageMetaData metaData)
     {
@@ -692,10 +718,16 @@ abstract public class AbstractJDBCMessageStore implements MessageStore, DurableC
         }
         else
         {
-            return new StoredMemoryMessage(_messageId.incrementAndGet(), metaData);
+            return new StoredMemoryMessage(_messageId.incrementAndGet(), metaData, _inMemoryContentSize);
         }
     }
 
+    @Override
+    public long getInMemoryContentSize()
+    {
+        return _inMemoryContentSize.get();
+    }
+
     public StoredMessage getMessage(long messageNumber)
     {
         return null;
@@ -1143,10 +1175,53 @@ abstract public class AbstractJDBCMessageStore implements MessageStore, DurableC
         }
     }
 
-    public StoreFuture commitTranAsync(ConnectionWrapper connWrapper) throws AMQStoreException
+    private void executeAndCommit(List<JDBCAction> actions) throws AMQStoreException
     {
+        final ConnectionWrapper connWrapper;
+        try
+        {
+            connWrapper = new ConnectionWrapper(newConnection());
+        }
+        catch (SQLException e)
+        {
+            throw new AMQStoreException("Error opening connection: " + e.getMessage(), e);
+        }
+
+        try
+        {
+            for(JDBCAction action : actions)
+            {
+                action.execute(connWrapper);
+            }
+        }
+        catch (SQLException e)
+        {
+            abortTran(connWrapper);
+            throw new AMQStoreException("Error executing transaction: " + e.getMessage(), e);
+        }
+        catch (AMQStoreException e)
+        {
+            abortTran(connWrapper);
+            throw e;
+        }
         commitTran(connWrapper);
-        return StoreFuture.IMMEDIATE_FUTURE;
+    }
+
+    private JDBCCommitFuture commit(List<JDBCAction> actions) throws AMQStoreException
+    {
+        final JDBCCommitFuture future = new JDBCCommitFuture(actions);
+        final CommitThread commitThread = _commitThread;
+        if(commitThread == null)
+        {
+            // not (or no longer) active - commit on the calling thread
+            executeAndCommit(actions);
+            future.complete();
+        }
+        else
+        {
+            commitThread.addJob(future);
+        }
+        return future;
     }
 
     public void abortTran(ConnectionWrapper connWrapper) throws AMQStoreException
@@ -1289,8 +1364,13 @@ abstract public class AbstractJDBCMessageStore implements MessageStore, DurableC
     }
 
 
-    protected TransactionLogRecoveryHandler.DtxRecordRecoveryHandler recoverQueueEntries(TransactionLogRecoveryHandler recoveryHandler) throws SQLException
+    protected TransactionLogRecoveryHandler.DtxRecordRecoveryHandler recoverQueueEntries(TransactionLogRecoveryHandler recoveryHandler) throws SQLException, AMQStoreException
     {
+        if(ParallelQueueRecovery.isEnabled())
+        {
+            return recoverQueueEntriesInParallel(recoveryHandler);
+        }
+
         Connection conn = newAutoCommitConnection();
         try
         {
@@ -1328,6 +1408,88 @@ abstract public class AbstractJDBCMessageStore implements MessageStore, DurableC
         }
     }
 
+    private TransactionLogRecoveryHandler.DtxRecordRecoveryHandler recoverQueueEntriesInParallel(TransactionLogRecoveryHandler recoveryHandler)
+            throws SQLException, AMQStoreException
+    {
+        final TransactionLogRecoveryHandler.QueueEntryRecoveryHandler queueEntryHandler = recoveryHandler.begin(this);
+
+        List<UUID> queueIds = new ArrayList<UUID>();
+        Connection conn = newAutoCommitConnection();
+        try
+        {
+            Statement stmt = conn.createStatement();
+            try
+            {
+                ResultSet rs = stmt.executeQuery(SELECT_QUEUE_IDS_FROM_QUEUE_ENTRY);
+                try
+                {
+                    while(rs.next())
+                    {
+                        queueIds.add(UUID.fromString(rs.getString(1)));
+                    }
+                }
+                finally
+                {
+                    rs.close();
+                }
+            }
+            finally
+            {
+                stmt.close();
+            }
+        }
+        finally
+        {
+            conn.close();
+        }
+
+        ParallelQueueRecovery.recoverQueues(_virtualHost.getName(), queueIds,
+                                            new ParallelQueueRecovery.QueueRecoveryTask()
+        {
+            @Override
+            public void recover(UUID queueId) throws SQLException
+            {
+                recoverQueueEntries(queueEntryHandler, queueId);
+            }
+        });
+
+        return queueEntryHandler.completeQueueEntryRecovery();
+    }
+
+    private void recoverQueueEntries(TransactionLogRecoveryHandler.QueueEntryRecoveryHandler queueEntryHandler,
+                                     UUID queueId) throws SQLException
+    {
+        Connection conn = newAutoCommitConnection();
+        try
+        {
+            PreparedStatement stmt = conn.prepareStatement(SELECT_FROM_QUEUE_ENTRY_FOR_QUEUE);
+            try
+            {
+                stmt.setString(1, queueId.toString());
+                ResultSet rs = stmt.executeQuery();
+                try
+                {
+                    while(rs.next())
+                    {
+                        queueEntryHandler.queueEntry(queueId, rs.getLong(1));
+                    }
+                }
+                finally
+                {
+                    rs.close();
+                }
+            }
+            finally
+            {
+                stmt.close();
+            }
+        }
+        finally
+        {
+            conn.close();
+        }
+    }
+
     private static final class Xid
     {
 
@@ -1636,61 +1798,89 @@ abstract public class AbstractJDBCMessageStore implements MessageStore, DurableC
     }
 
 
+    /**
+     * A unit of work performed against the database on behalf of a {@link JDBCTransaction}.
+     */
+    private interface JDBCAction
+    {
+        void execute(ConnectionWrapper connWrapper) throws SQLException, AMQStoreException;
+    }
+
+    /**
+     * Transaction which records its operations and performs them only at commit, so that the commit thread
+     * can apply the operations of many concurrently committing transactions in a single database transaction.
+     */
     protected class JDBCTransaction implements Transaction
     {
-        private final ConnectionWrapper _connWrapper;
+        private final List<JDBCAction> _actions = new ArrayList<JDBCAction>();
         private int _storeSizeIncrease;
 
 
         protected JDBCTransaction()
         {
-            try
-            {
-                _connWrapper = new ConnectionWrapper(newConnection());
-            }
-            catch (SQLException e)
-            {
-                throw new RuntimeException(e);
-            }
         }
 
         @Override
-        public void enqueueMessage(TransactionLogResource queue, EnqueueableMessage message) throws AMQStoreException
+        public void enqueueMessage(final TransactionLogResource queue, final EnqueueableMessage message) throws AMQStoreException
         {
             final StoredMessage storedMessage = message.getStoredMessage();
+            final long messageId = message.getMessageNumber();
             if(storedMessage instanceof StoredJDBCMessage)
             {
-                try
-                {
-                    ((StoredJDBCMessage) storedMessage).store(_connWrapper.getConnection());
-                }
-                catch (SQLException e)
-                {
-                    throw new AMQStoreException("Exception on enqueuing message " + _messageId, e);
-                }
+                ((StoredJDBCMessage) storedMessage).setStoreDeferred();
             }
             _storeSizeIncrease += storedMessage.getMetaData().getContentSize();
-            AbstractJDBCMessageStore.this.enqueueMessage(_connWrapper, queue, message.getMessageNumber());
+            _actions.add(new JDBCAction()
+            {
+                @Override
+                public void execute(ConnectionWrapper connWrapper) throws SQLException, AMQStoreException
+                {
+                    if(storedMessage instanceof StoredJDBCMessage)
+                    {
+                        try
+                        {
+                            ((StoredJDBCMessage) storedMessage).store(connWrapper.getConnection());
+                        }
+                        catch (SQLException e)
+                        {
+                            throw new AMQStoreException("Exception on enqueuing message " + messageId, e);
+                        }
+                    }
+                    AbstractJDBCMessageStore.this.enqueueMessage(connWrapper, queue, messageId);
+                }
+            });
         }
 
         @Override
-        public void dequeueMessage(TransactionLogResource queue, EnqueueableMessage message) throws AMQStoreException
+        public void dequeueMessage(final TransactionLogResource queue, final EnqueueableMessage message) throws AMQStoreException
         {
-            AbstractJDBCMessageStore.this.dequeueMessage(_connWrapper, queue, message.getMessageNumber());
-
+            final long messageId = message.getMessageNumber();
+            _actions.add(new JDBCAction()
+            {
+                @Override
+                public void execute(ConnectionWrapper connWrapper) throws SQLException, AMQStoreException
+                {
+                    AbstractJDBCMessageStore.this.dequeueMessage(connWrapper, queue, messageId);
+                }
+            });
         }
 
         @Override
         public void commitTran() throws AMQStoreException
         {
-            AbstractJDBCMessageStore.this.commitTran(_connWrapper);
+            JDBCCommitFuture future = AbstractJDBCMessageStore.this.commit(_actions);
+            future.waitForCompletion();
+            if(future.getException() != null)
+            {
+                throw future.getException();
+            }
             storedSizeChange(_storeSizeIncrease);
         }
 
         @Override
         public StoreFuture commitTranAsync() throws AMQStoreException
         {
-            final StoreFuture storeFuture = AbstractJDBCMessageStore.this.commitTranAsync(_connWrapper);
+            final StoreFuture storeFuture = AbstractJDBCMessageStore.this.commit(_actions);
             storedSizeChange(_storeSizeIncrease);
             return storeFuture;
         }
@@ -1698,24 +1888,205 @@ abstract public class AbstractJDBCMessageStore implements MessageStore, DurableC
         @Override
         public void abortTran() throws AMQStoreException
         {
-            AbstractJDBCMessageStore.this.abortTran(_connWrapper);
+            // nothing has been written to the database before commit
+            _actions.clear();
         }
 
         @Override
-        public void removeXid(long format, byte[] globalId, byte[] branchId) throws AMQStoreException
+        public void removeXid(final long format, final byte[] globalId, final byte[] branchId) throws AMQStoreException
         {
-            AbstractJDBCMessageStore.this.removeXid(_connWrapper, format, globalId, branchId);
+            _actions.add(new JDBCAction()
+            {
+                @Override
+                public void execute(ConnectionWrapper connWrapper) throws AMQStoreException
+                {
+                    AbstractJDBCMessageStore.this.removeXid(connWrapper, format, globalId, branchId);
+                }
+            });
         }
 
         @Override
-        public void recordXid(long format, byte[] globalId, byte[] branchId, Record[] enqueues, Record[] dequeues)
+        public void recordXid(final long format, final byte[] globalId, final byte[] branchId,
+                              final Record[] enqueues, final Record[] dequeues)
                 throws AMQStoreException
         {
-            AbstractJDBCMessageStore.this.recordXid(_connWrapper, format, globalId, branchId, enqueues, dequeues);
+            _actions.add(new JDBCAction()
+            {
+                @Override
+                public void execute(ConnectionWrapper connWrapper) throws AMQStoreException
+                {
+                    AbstractJDBCMessageStore.this.recordXid(connWrapper, format, globalId, branchId, enqueues, dequeues);
+                }
+            });
         }
     }
 
-    private class StoredJDBCMessage implements StoredMessage
+    private static final class JDBCCommitFuture implements StoreFuture
+    {
+        private final List<JDBCAction> _actions;
+        private boolean _complete;
+        private AMQStoreException _exception;
+
+        private JDBCCommitFuture(List<JDBCAction> actions)
+        {
+            _actions = actions;
+        }
+
+        List<JDBCAction> getActions()
+        {
+            return _actions;
+        }
+
+        synchronized void complete()
+        {
+            _complete = true;
+            notifyAll();
+        }
+
+        synchronized void abort(AMQStoreException exception)
+        {
+            _complete = true;
+            _exception = exception;
+            notifyAll();
+        }
+
+        synchronized AMQStoreException getException()
+        {
+            return _exception;
+        }
+
+        @Override
+        public synchronized boolean isComplete()
+        {
+            return _complete;
+        }
+
+        @Override
+        public synchronized void waitForCompletion()
+        {
+            while(!_complete)
+            {
+                try
+                {
+                    wait();
+                }
+                catch (InterruptedException e)
+                {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Batches the operations of all transactions waiting to commit into a single database transaction,
+     * completing (or aborting) their futures together.  Transactions are applied in the order in which they
+     * were committed.
+     */
+    private class CommitThread extends Thread
+    {
+        private final Queue<JDBCCommitFuture> _jobQueue = new ConcurrentLinkedQueue<JDBCCommitFuture>();
+        private final Object _lock = new Object();
+        private volatile boolean _stopped;
+
+        private CommitThread(String name)
+        {
+            super(name);
+            setDaemon(true);
+        }
+
+        void addJob(JDBCCommitFuture job)
+        {
+            _jobQueue.add(job);
+            synchronized (_lock)
+            {
+                _lock.notifyAll();
+            }
+        }
+
+        void close()
+        {
+            synchronized (_lock)
+            {
+                _stopped = true;
+                _lock.notifyAll();
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            while (!_stopped || !_jobQueue.isEmpty())
+            {
+                synchronized (_lock)
+                {
+                    while (!_stopped && _jobQueue.isEmpty())
+                    {
+                        try
+                        {
+                            _lock.wait(1000);
+                        }
+                        catch (InterruptedException e)
+                        {
+                        }
+                    }
+                }
+                processJobs();
+            }
+        }
+
+        private void processJobs()
+        {
+            final List<JDBCCommitFuture> jobs = new ArrayList<JDBCCommitFuture>();
+            final List<JDBCAction> actions = new ArrayList<JDBCAction>();
+            JDBCCommitFuture job;
+            while ((job = _jobQueue.poll()) != null)
+            {
+                jobs.add(job);
+                actions.addAll(job.getActions());
+            }
+
+            if(jobs.isEmpty())
+            {
+                return;
+            }
+
+            try
+            {
+                executeAndCommit(actions);
+
+                if(getLogger().isDebugEnabled())
+                {
+                    getLogger().debug("Committed " + jobs.size() + " transaction(s) in a single database commit");
+                }
+
+                for(JDBCCommitFuture committed : jobs)
+                {
+                    committed.complete();
+                }
+            }
+            catch (AMQStoreException e)
+            {
+                getLogger().error("Failed to commit batch of " + jobs.size() + " transaction(s)", e);
+                for(JDBCCommitFuture aborted : jobs)
+                {
+                    aborted.abort(e);
+                }
+            }
+            catch (RuntimeException e)
+            {
+                getLogger().error("Failed to commit batch of " + jobs.size() + " transaction(s)", e);
+                final AMQStoreException storeException =
+                        new AMQStoreException("Error committing transaction: " + e.getMessage(), e);
+                for(JDBCCommitFuture aborted : jobs)
+                {
+                    aborted.abort(storeException);
+                }
+            }
+        }
+    }
+
+    private class StoredJDBCMessage implements StoredMessage, FlowableStoredMessage
     {
 
         private final long _messageId;
@@ -1725,6 +2096,9 @@ abstract public class AbstractJDBCMessageStore implements MessageStore, DurableC
         private volatile SoftReference<StorableMessageMetaData> _metaDataRef;
         private byte[] _data;
         private volatile SoftReference<byte[]> _dataRef;
+        private volatile boolean _storeDeferred;
+        /** The number of content bytes this message has added to the in-memory content size of the store */
+        private int _accountedSize;
 
 
         StoredJDBCMessage(long messageId, StorableMessageMetaData metaData)
@@ -1792,7 +2166,7 @@ abstract public class AbstractJDBCMessageStore implements MessageStore, DurableC
                 System.arraycopy(oldData,0,_data,0,oldData.length);
                 src.duplicate().get(_data, oldData.length, src.remaining());
             }
-
+            setAccountedSize(_data.length);
         }
 
         @Override
@@ -1828,7 +2202,8 @@ abstract public class AbstractJDBCMessageStore implements MessageStore, DurableC
             Connection conn = null;
             try
             {
-                if(!stored())
+                // a message enqueued within a transaction is written by that transaction when it commits
+                if(!stored() && !_storeDeferred)
                 {
                     conn = newConnection();
 
@@ -1859,6 +2234,13 @@ abstract public class AbstractJDBCMessageStore implements MessageStore, DurableC
             int delta = getMetaData().getContentSize();
             AbstractJDBCMessageStore.this.removeMessage(_messageId);
             storedSizeChange(-delta);
+            setAccountedSize(0);
+        }
+
+        private synchronized void setAccountedSize(int size)
+        {
+            _inMemoryContentSize.change(size - _accountedSize);
+            _accountedSize = size;
         }
 
         private synchronized void store(final Connection conn) throws SQLException
@@ -1888,6 +2270,32 @@ abstract public class AbstractJDBCMessageStore implements MessageStore, DurableC
         {
             return _metaData == null || _isRecovered;
         }
+
+        void setStoreDeferred()
+        {
+            _storeDeferred = true;
+        }
+
+        public synchronized long flowToDisk(ContentSpillFile spillFile)
+        {
+            // until the message has been written to the store there is nowhere to reload it from
+            if(!stored())
+            {
+                return 0l;
+            }
+            // the content may already have been reclaimed by the garbage collector, but is still accounted for
+            final long released = _accountedSize;
+            _dataRef = null;
+            _metaDataRef = new SoftReference<StorableMessageMetaData>(null);
+            setAccountedSize(0);
+            return released;
+        }
+
+        public boolean isInMemory()
+        {
+            final SoftReference<byte[]> dataRef = _dataRef;
+            return dataRef != null && dataRef.get() != null;
+        }
     }
 
     protected void closeConnection(final Connection conn)
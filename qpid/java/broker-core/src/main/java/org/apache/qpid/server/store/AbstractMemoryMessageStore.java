@@ -27,10 +27,11 @@ import org.apache.qpid.server.message.EnqueueableMessage;
 import org.apache.qpid.server.model.VirtualHost;
 
 /** A simple message store that stores the messages in a thread-safe structure in memory. */
-abstract public class AbstractMemoryMessageStore extends NullMessageStore
+abstract public class AbstractMemoryMessageStore extends NullMessageStore implements FlowableMessageStore
 {
     private final AtomicLong _messageId = new AtomicLong(1);
     private final AtomicBoolean _closed = new AtomicBoolean(false);
+    private final InMemoryContentSize _inMemoryContentSize = new InMemoryContentSize();
 
     private static final Transaction IN_MEMORY_TRANSACTION = new Transaction()
     {
@@ -113,11 +114,17 @@ abstract public class AbstractMemoryMessageStore extends NullMessageStore
     public StoredMessage addMessage(StorableMessageMetaData metaData)
     {
         final long id = _messageId.getAndIncrement();
-        StoredMemoryMessage message = new StoredMemoryMessage(id, metaData);
+        StoredMemoryMessage message = new StoredMemoryMessage(id, metaData, _inMemoryContentSize);
 
         return message;
     }
 
+    @Override
+    public long getInMemoryContentSize()
+    {
+        return _inMemoryContentSize.get();
+    }
+
     @Override
     public Transaction newTransaction()
     {
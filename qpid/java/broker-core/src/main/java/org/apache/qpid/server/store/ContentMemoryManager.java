@@ -0,0 +1,148 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.qpid.server.configuration.BrokerProperties;
+
+/**
+ * Provides the buffers holding the content of in-memory messages.  Requests are rounded up to a power of two size
+ * class, and buffers released back to the manager are retained for reuse by later messages of the same class, up to
+ * an overall capacity.  Content larger than the biggest size class is allocated at its exact size and never pooled.
+ *
+ * Buffers are allocated on the heap unless the manager is configured to use direct (off-heap) memory.
+ */
+public class ContentMemoryManager
+{
+    private static final int MIN_BUFFER_SIZE_SHIFT = 6;
+    private static final int MIN_BUFFER_SIZE = 1 << MIN_BUFFER_SIZE_SHIFT;
+
+    private static final ContentMemoryManager INSTANCE =
+            new ContentMemoryManager(Integer.getInteger(BrokerProperties.PROPERTY_CONTENT_POOL_MAX_BUFFER_SIZE,
+                                                        BrokerProperties.DEFAULT_CONTENT_POOL_MAX_BUFFER_SIZE),
+                                     Long.getLong(BrokerProperties.PROPERTY_CONTENT_POOL_CAPACITY,
+                                                  BrokerProperties.DEFAULT_CONTENT_POOL_CAPACITY),
+                                     Boolean.getBoolean(BrokerProperties.PROPERTY_CONTENT_POOL_DIRECT));
+
+    private final int _maxBufferSize;
+    private final long _capacity;
+    private final boolean _direct;
+    private final Queue<ByteBuffer>[] _freeBuffers;
+    private final AtomicLong _pooledBytes = new AtomicLong();
+
+    public static ContentMemoryManager getInstance()
+    {
+        return INSTANCE;
+    }
+
+    public ContentMemoryManager(int maxBufferSize, long capacity, boolean direct)
+    {
+        final int sizeClasses = maxBufferSize < MIN_BUFFER_SIZE ? 0 : getSizeClass(maxBufferSize) + 1;
+        _maxBufferSize = sizeClasses == 0 ? 0 : getBufferSize(sizeClasses - 1);
+        _capacity = capacity;
+        _direct = direct;
+        _freeBuffers = new Queue[sizeClasses];
+        for(int i = 0; i < sizeClasses; i++)
+        {
+            _freeBuffers[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+        }
+    }
+
+    /**
+     * Returns a buffer with position zero and a limit of the requested size.  The capacity of the buffer may exceed
+     * the requested size.
+     */
+    public ByteBuffer allocate(int size)
+    {
+        if(size > _maxBufferSize)
+        {
+            return allocateBuffer(size);
+        }
+
+        final int sizeClass = getSizeClass(size);
+        ByteBuffer buffer = _freeBuffers[sizeClass].poll();
+        if(buffer == null)
+        {
+            buffer = allocateBuffer(getBufferSize(sizeClass));
+        }
+        else
+        {
+            _pooledBytes.addAndGet(-buffer.capacity());
+            buffer.clear();
+        }
+        buffer.limit(size);
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer previously obtained from {@link #allocate(int)} for reuse.  The caller must ensure that no
+     * other reference to the buffer, or to any view of it, remains in use.
+     */
+    public void release(ByteBuffer buffer)
+    {
+        final int capacity = buffer.capacity();
+        if(capacity > _maxBufferSize || capacity < MIN_BUFFER_SIZE || buffer.isDirect() != _direct)
+        {
+            return;
+        }
+
+        final int sizeClass = getSizeClass(capacity);
+        if(getBufferSize(sizeClass) == capacity)
+        {
+            if(_pooledBytes.addAndGet(capacity) <= _capacity)
+            {
+                _freeBuffers[sizeClass].offer(buffer);
+            }
+            else
+            {
+                _pooledBytes.addAndGet(-capacity);
+            }
+        }
+    }
+
+    public long getPooledBytes()
+    {
+        return _pooledBytes.get();
+    }
+
+    private ByteBuffer allocateBuffer(int size)
+    {
+        return _direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    }
+
+    private static int getSizeClass(int size)
+    {
+        if(size <= MIN_BUFFER_SIZE)
+        {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_BUFFER_SIZE_SHIFT;
+    }
+
+    private static int getBufferSize(int sizeClass)
+    {
+        return MIN_BUFFER_SIZE << sizeClass;
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.log4j.Logger;
+
+/**
+ * File holding message content which has been flowed out of the heap.  Released regions are kept in a free list,
+ * merged with their free neighbours, and reused first fit by later writes; a free region at the end of the file
+ * is truncated away.
+ */
+public class ContentSpillFile
+{
+    private static final Logger _logger = Logger.getLogger(ContentSpillFile.class);
+
+    private final File _file;
+    private final RandomAccessFile _randomAccessFile;
+    private final FileChannel _channel;
+
+    /** The start and length of each released region below the end of the file, none of them adjacent */
+    private final TreeMap<Long, Long> _freeRegions = new TreeMap<Long, Long>();
+    private long _writePosition;
+    private long _liveBytes;
+    private boolean _closed;
+
+    public ContentSpillFile(File directory, String name) throws IOException
+    {
+        if(!directory.exists() && !directory.mkdirs())
+        {
+            throw new IOException("Cannot create spill directory " + directory.getAbsolutePath());
+        }
+        _file = File.createTempFile("qpid-spill-" + name + "-", ".dat", directory);
+        _file.deleteOnExit();
+        _randomAccessFile = new RandomAccessFile(_file, "rw");
+        _channel = _randomAccessFile.getChannel();
+    }
+
+    /**
+     * Writes the remaining bytes of the given buffer to the file.
+     *
+     * @return the position at which the content was written
+     */
+    public long write(ByteBuffer content)
+    {
+        final int length = content.remaining();
+        final long position = allocate(length);
+        try
+        {
+            long offset = position;
+            while(content.hasRemaining())
+            {
+                offset += _channel.write(content, offset);
+            }
+            return position;
+        }
+        catch (IOException e)
+        {
+            release(position, length);
+            throw new RuntimeException("Unable to write content to spill file " + _file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Reads up to <code>length</code> bytes starting at the given position into the destination buffer.
+     *
+     * @return the number of bytes read
+     */
+    public int read(long position, int length, ByteBuffer dst)
+    {
+        final int toRead = Math.min(length, dst.remaining());
+        final ByteBuffer target = dst.duplicate();
+        target.limit(target.position() + toRead);
+        try
+        {
+            int read = 0;
+            while(read < toRead)
+            {
+                int count = _channel.read(target, position + read);
+                if(count < 0)
+                {
+                    break;
+                }
+                read += count;
+            }
+            dst.position(dst.position() + read);
+            return read;
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException("Unable to read content from spill file " + _file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Releases the region of the given length written at the given position, so that it may be reused.
+     */
+    public synchronized void release(long position, int length)
+    {
+        _liveBytes -= length;
+        if(length == 0)
+        {
+            return;
+        }
+
+        long start = position;
+        long end = position + length;
+        final Map.Entry<Long, Long> before = _freeRegions.floorEntry(start);
+        if(before != null && before.getKey() + before.getValue() == start)
+        {
+            start = before.getKey();
+            _freeRegions.remove(start);
+        }
+        final Long after = _freeRegions.get(end);
+        if(after != null)
+        {
+            _freeRegions.remove(end);
+            end += after;
+        }
+
+        if(end == _writePosition)
+        {
+            _writePosition = start;
+            if(!_closed)
+            {
+                try
+                {
+                    _channel.truncate(start);
+                }
+                catch (IOException e)
+                {
+                    _logger.warn("Unable to truncate spill file " + _file.getAbsolutePath(), e);
+                }
+            }
+        }
+        else
+        {
+            _freeRegions.put(start, end - start);
+        }
+    }
+
+    public synchronized long getLiveBytes()
+    {
+        return _liveBytes;
+    }
+
+    /**
+     * @return the length of the file, including released regions not yet reused
+     */
+    public synchronized long getLength()
+    {
+        return _writePosition;
+    }
+
+    public synchronized void close()
+    {
+        if(!_closed)
+        {
+            _closed = true;
+            try
+            {
+                _randomAccessFile.close();
+            }
+            catch (IOException e)
+            {
+                _logger.warn("Unable to close spill file " + _file.getAbsolutePath(), e);
+            }
+            if(!_file.delete())
+            {
+                _logger.warn("Unable to delete spill file " + _file.getAbsolutePath());
+            }
+        }
+    }
+
+    private synchronized long allocate(int length)
+    {
+        if(_closed)
+        {
+            throw new IllegalStateException("Spill file " + _file.getAbsolutePath() + " is closed");
+        }
+        _liveBytes += length;
+        if(length == 0)
+        {
+            return _writePosition;
+        }
+        final Iterator<Map.Entry<Long, Long>> iterator = _freeRegions.entrySet().iterator();
+        while(iterator.hasNext())
+        {
+            final Map.Entry<Long, Long> region = iterator.next();
+            final long regionLength = region.getValue();
+            if(regionLength >= length)
+            {
+                final long position = region.getKey();
+                iterator.remove();
+                if(regionLength > length)
+                {
+                    _freeRegions.put(position + length, regionLength - length);
+                }
+                return position;
+            }
+        }
+        final long position = _writePosition;
+        _writePosition += length;
+        return position;
+    }
+}
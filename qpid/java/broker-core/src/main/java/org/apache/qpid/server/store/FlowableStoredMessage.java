@@ -0,0 +1,39 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store;
+
+/**
+ * Implemented by {@link StoredMessage}s whose content can be evicted from the heap and lazily reloaded when
+ * it is next required.
+ */
+public interface FlowableStoredMessage
+{
+    /**
+     * Releases the in-memory copy of the message content (and, where it can be reloaded from the store, the
+     * message meta-data).  Content which cannot be recovered from the message store is written to the given
+     * spill file first.
+     *
+     * @return the number of content bytes released from the heap
+     */
+    long flowToDisk(ContentSpillFile spillFile);
+
+    boolean isInMemory();
+}
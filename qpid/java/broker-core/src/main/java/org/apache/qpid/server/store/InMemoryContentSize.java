@@ -0,0 +1,42 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The number of bytes of message content a message store currently holds on the heap.  Messages add their content
+ * as it is received, and take back what they added when the content is flowed to disk or the message is removed.
+ */
+public final class InMemoryContentSize
+{
+    private final AtomicLong _size = new AtomicLong();
+
+    public void change(long delta)
+    {
+        _size.addAndGet(delta);
+    }
+
+    public long get()
+    {
+        return _size.get();
+    }
+}
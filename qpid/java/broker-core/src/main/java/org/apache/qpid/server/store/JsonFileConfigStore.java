@@ -20,9 +20,12 @@
  */
 package org.apache.qpid.server.store;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
@@ -34,30 +37,56 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import org.apache.log4j.Logger;
 import org.apache.qpid.AMQStoreException;
+import org.apache.qpid.server.configuration.BrokerProperties;
 import org.apache.qpid.server.model.ConfiguredObject;
 import org.apache.qpid.server.model.Model;
 import org.apache.qpid.server.model.VirtualHost;
+import org.codehaus.jackson.JsonProcessingException;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.map.SerializationConfig;
 
+/**
+ * Stores the durable configuration of a virtual host as a JSON file.
+ * <p>
+ * By default the whole file is rewritten on every change.  When the broker property
+ * {@value BrokerProperties#PROPERTY_JSON_CONFIG_STORE_COMPACTION_THRESHOLD} is set to a positive value, each change
+ * is instead appended as a single line record to a journal file alongside the JSON file, and the JSON file is only
+ * rewritten (and the journal emptied) once the journal holds that many records, or when the store is closed.  On
+ * recovery any journal left by an earlier run is replayed over the JSON file.
+ */
 public class JsonFileConfigStore implements DurableConfigurationStore
 {
+    private static final Logger LOGGER = Logger.getLogger(JsonFileConfigStore.class);
+
     private static final Model MODEL = Model.getInstance();
 
+    private static final String JOURNAL_OPERATION = "op";
+    private static final String JOURNAL_PUT = "put";
+    private static final String JOURNAL_REMOVE = "remove";
+    private static final String JOURNAL_ID = "id";
+    private static final String JOURNAL_TYPE = "type";
+    private static final String JOURNAL_ATTRIBUTES = "attributes";
+
     private static final Map<String,Class<? extends ConfiguredObject>> CLASS_NAME_MAPPING = generateClassNameMap(VirtualHost.class);
     public static final String TYPE = "JSON";
 
     private final Map<UUID, ConfiguredObjectRecord> _objectsById = new HashMap<UUID, ConfiguredObjectRecord>();
     private final Map<String, List<UUID>> _idsByType = new HashMap<String, List<UUID>>();
     private final ObjectMapper _objectMapper = new ObjectMapper();
+    private final ObjectMapper _journalMapper = new ObjectMapper();
 
     private String _directoryName;
     private String _name;
     private FileLock _fileLock;
     private String _configFileName;
     private String _backupFileName;
+    private String _journalFileName;
     private int _configVersion;
+    private int _compactionThreshold;
+    private FileOutputStream _journal;
+    private int _journalRecordCount;
 
     public JsonFileConfigStore()
     {
@@ -78,6 +107,8 @@ public class JsonFileConfigStore implements DurableConfigurationStore
         _directoryName = (String) storePathAttr;
         _configFileName = _name + ".json";
         _backupFileName = _name + ".bak";
+        _journalFileName = _name + ".journal";
+        _compactionThreshold = Integer.getInteger(BrokerProperties.PROPERTY_JSON_CONFIG_STORE_COMPACTION_THRESHOLD, 0);
         checkDirectoryIsWritable(_directoryName);
         getFileLock();
 
@@ -96,6 +127,9 @@ public class JsonFileConfigStore implements DurableConfigurationStore
 
 
         load();
+        // a journal holding only an incomplete record replays nothing, but must still be truncated before appending
+        final boolean journalPresent = new File(_directoryName, _journalFileName).length() != 0l;
+        _journalRecordCount = replayJournal();
         recoveryHandler.beginConfigurationRecovery(this,_configVersion);
         List<ConfiguredObjectRecord> records = new ArrayList<ConfiguredObjectRecord>(_objectsById.values());
         for(ConfiguredObjectRecord record : records)
@@ -104,10 +138,215 @@ public class JsonFileConfigStore implements DurableConfigurationStore
         }
         int oldConfigVersion = _configVersion;
         _configVersion = recoveryHandler.completeConfigurationRecovery();
-        if(oldConfigVersion != _configVersion)
+        if(oldConfigVersion != _configVersion || journalPresent)
+        {
+            save();
+        }
+
+        if(_compactionThreshold > 0)
+        {
+            openJournal();
+        }
+    }
+
+    private int replayJournal() throws AMQStoreException
+    {
+        File journalFile = new File(_directoryName, _journalFileName);
+        if(!journalFile.exists())
+        {
+            return 0;
+        }
+
+        List<String> lines = new ArrayList<String>();
+        try
+        {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(journalFile), "UTF-8"));
+            try
+            {
+                String line;
+                while((line = reader.readLine()) != null)
+                {
+                    if(line.length() != 0)
+                    {
+                        lines.add(line);
+                    }
+                }
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch (IOException e)
+        {
+            throw new AMQStoreException("Cannot read journal " + journalFile.getAbsolutePath(), e);
+        }
+
+        int replayed = 0;
+        for(String line : lines)
+        {
+            Map<String, Object> journalRecord;
+            try
+            {
+                journalRecord = _journalMapper.readValue(line, Map.class);
+            }
+            catch (IOException e)
+            {
+                if(replayed == lines.size() - 1)
+                {
+                    // the broker stopped part way through appending the last record, which was therefore never applied
+                    LOGGER.warn("Ignoring incomplete final record in journal " + journalFile.getAbsolutePath());
+                    break;
+                }
+                throw new AMQStoreException("Cannot parse record " + (replayed + 1) + " of journal "
+                                            + journalFile.getAbsolutePath(), e);
+            }
+            applyJournalRecord(journalRecord);
+            replayed++;
+        }
+
+        if(LOGGER.isDebugEnabled())
+        {
+            LOGGER.debug("Replayed " + replayed + " record(s) from journal " + journalFile.getAbsolutePath());
+        }
+        return replayed;
+    }
+
+    private void applyJournalRecord(final Map<String, Object> journalRecord) throws AMQStoreException
+    {
+        // replaying is idempotent, as the journal may already have been compacted into the JSON file
+        final UUID id = UUID.fromString((String) journalRecord.get(JOURNAL_ID));
+        final Object operation = journalRecord.get(JOURNAL_OPERATION);
+        if(JOURNAL_PUT.equals(operation))
+        {
+            final String type = (String) journalRecord.get(JOURNAL_TYPE);
+            final Class<? extends ConfiguredObject> clazz = CLASS_NAME_MAPPING.get(type);
+            if(clazz == null)
+            {
+                throw new AMQStoreException("Journal contains object " + id + " of unknown type " + type);
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, Object> attributes = (Map<String, Object>) journalRecord.get(JOURNAL_ATTRIBUTES);
+            if(attributes == null)
+            {
+                attributes = new LinkedHashMap<String, Object>();
+            }
+            for(Class<? extends ConfiguredObject> parent : MODEL.getParentTypes(clazz))
+            {
+                final String parentAttr = parent.getSimpleName().toLowerCase();
+                Object parentId = attributes.get(parentAttr);
+                if(parentId instanceof String)
+                {
+                    try
+                    {
+                        attributes.put(parentAttr, UUID.fromString((String) parentId));
+                    }
+                    catch(IllegalArgumentException e)
+                    {
+                        //
+                    }
+                }
+            }
+            ConfiguredObjectRecord existing = _objectsById.get(id);
+            if(existing != null && !existing.getType().equals(type))
+            {
+                _idsByType.get(existing.getType()).remove(id);
+                existing = null;
+            }
+            _objectsById.put(id, new ConfiguredObjectRecord(id, type, attributes));
+            if(existing == null)
+            {
+                addIdForType(id, type);
+            }
+        }
+        else if(JOURNAL_REMOVE.equals(operation))
+        {
+            ConfiguredObjectRecord record = _objectsById.remove(id);
+            if(record != null)
+            {
+                _idsByType.get(record.getType()).remove(id);
+            }
+        }
+        else
+        {
+            throw new AMQStoreException("Journal contains unknown operation " + operation + " for object " + id);
+        }
+    }
+
+    private void addIdForType(final UUID id, final String type)
+    {
+        List<UUID> idsForType = _idsByType.get(type);
+        if(idsForType == null)
+        {
+            idsForType = new ArrayList<UUID>();
+            _idsByType.put(type, idsForType);
+        }
+        idsForType.add(id);
+    }
+
+    private void openJournal() throws AMQStoreException
+    {
+        File journalFile = new File(_directoryName, _journalFileName);
+        try
+        {
+            _journal = new FileOutputStream(journalFile, true);
+        }
+        catch (IOException e)
+        {
+            throw new AMQStoreException("Cannot open journal " + journalFile.getAbsolutePath(), e);
+        }
+    }
+
+    private Map<String, Object> putRecord(final ConfiguredObjectRecord record)
+    {
+        Map<String, Object> journalRecord = new LinkedHashMap<String, Object>();
+        journalRecord.put(JOURNAL_OPERATION, JOURNAL_PUT);
+        journalRecord.put(JOURNAL_ID, record.getId());
+        journalRecord.put(JOURNAL_TYPE, record.getType());
+        journalRecord.put(JOURNAL_ATTRIBUTES, record.getAttributes());
+        return journalRecord;
+    }
+
+    private Map<String, Object> removeRecord(final UUID id)
+    {
+        Map<String, Object> journalRecord = new LinkedHashMap<String, Object>();
+        journalRecord.put(JOURNAL_OPERATION, JOURNAL_REMOVE);
+        journalRecord.put(JOURNAL_ID, id);
+        return journalRecord;
+    }
+
+    /**
+     * Makes the given changes, which have already been applied in memory, durable: either by appending them to the
+     * journal or, when not journaling or once the journal is due for compaction, by rewriting the JSON file.
+     */
+    private void persist(final List<Map<String, Object>> journalRecords) throws AMQStoreException
+    {
+        if(_journal == null || _journalRecordCount + journalRecords.size() >= _compactionThreshold)
         {
             save();
         }
+        else if(!journalRecords.isEmpty())
+        {
+            try
+            {
+                StringBuilder lines = new StringBuilder();
+                for(Map<String, Object> journalRecord : journalRecords)
+                {
+                    lines.append(_journalMapper.writeValueAsString(journalRecord)).append('\n');
+                }
+                // a single write, so that a failure cannot leave some of the records of one change behind
+                _journal.write(lines.toString().getBytes("UTF-8"));
+                _journalRecordCount += journalRecords.size();
+            }
+            catch (JsonProcessingException e)
+            {
+                throw new AMQStoreException("Cannot serialise configuration change to journal", e);
+            }
+            catch (IOException e)
+            {
+                throw new AMQStoreException("Cannot append to journal " + _journalFileName, e);
+            }
+        }
     }
 
     private void renameFile(String fromFileName, String toFileName) throws AMQStoreException
@@ -300,14 +539,8 @@ public class JsonFileConfigStore implements DurableConfigurationStore
         {
             ConfiguredObjectRecord record = new ConfiguredObjectRecord(id, type, attributes);
             _objectsById.put(id, record);
-            List<UUID> idsForType = _idsByType.get(type);
-            if(idsForType == null)
-            {
-                idsForType = new ArrayList<UUID>();
-                _idsByType.put(type, idsForType);
-            }
-            idsForType.add(id);
-            save();
+            addIdForType(id, type);
+            persist(Collections.singletonList(putRecord(record)));
         }
     }
 
@@ -348,6 +581,16 @@ public class JsonFileConfigStore implements DurableConfigurationStore
             File backupFile = new File(_directoryName, _backupFileName);
             backupFile.delete();
 
+            // everything in the journal is now in the JSON file
+            if(_journal != null)
+            {
+                _journal.getChannel().truncate(0l);
+            }
+            else
+            {
+                new File(_directoryName, _journalFileName).delete();
+            }
+            _journalRecordCount = 0;
         }
         catch (IOException e)
         {
@@ -406,16 +649,18 @@ public class JsonFileConfigStore implements DurableConfigurationStore
     public synchronized UUID[] removeConfiguredObjects(final UUID... objects) throws AMQStoreException
     {
         List<UUID> removedIds = new ArrayList<UUID>();
+        List<Map<String, Object>> journalRecords = new ArrayList<Map<String, Object>>();
         for(UUID id : objects)
         {
             ConfiguredObjectRecord record = _objectsById.remove(id);
             if(record != null)
             {
                 removedIds.add(id);
+                journalRecords.add(removeRecord(id));
                 _idsByType.get(record.getType()).remove(id);
             }
         }
-        save();
+        persist(journalRecords);
         return removedIds.toArray(new UUID[removedIds.size()]);
     }
 
@@ -432,7 +677,7 @@ public class JsonFileConfigStore implements DurableConfigurationStore
     }
 
     @Override
-    public void update(final boolean createIfNecessary, final ConfiguredObjectRecord... records)
+    public synchronized void update(final boolean createIfNecessary, final ConfiguredObjectRecord... records)
             throws AMQStoreException
     {
         for(ConfiguredObjectRecord record : records)
@@ -459,38 +704,54 @@ public class JsonFileConfigStore implements DurableConfigurationStore
                 throw new AMQStoreException("Cannot update record of unknown type " + type);
             }
         }
+        List<Map<String, Object>> journalRecords = new ArrayList<Map<String, Object>>();
         for(ConfiguredObjectRecord record : records)
         {
             final UUID id = record.getId();
             final String type = record.getType();
             if(_objectsById.put(id, record) == null)
             {
-                List<UUID> idsForType = _idsByType.get(type);
-                if(idsForType == null)
-                {
-                    idsForType = new ArrayList<UUID>();
-                    _idsByType.put(type, idsForType);
-                }
-                idsForType.add(id);
+                addIdForType(id, type);
             }
+            journalRecords.add(putRecord(record));
         }
 
-        save();
+        persist(journalRecords);
     }
 
-    public void close() throws Exception
+    public synchronized void close() throws Exception
     {
         try
         {
-            releaseFileLock();
+            if(_journal != null)
+            {
+                try
+                {
+                    if(_journalRecordCount != 0)
+                    {
+                        save();
+                    }
+                }
+                finally
+                {
+                    _journal.close();
+                    _journal = null;
+                }
+            }
         }
         finally
         {
-            _fileLock = null;
-            _idsByType.clear();
-            _objectsById.clear();
+            try
+            {
+                releaseFileLock();
+            }
+            finally
+            {
+                _fileLock = null;
+                _idsByType.clear();
+                _objectsById.clear();
+            }
         }
-
     }
 
     private void releaseFileLock() throws IOException
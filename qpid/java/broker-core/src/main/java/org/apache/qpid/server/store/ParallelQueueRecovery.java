@@ -0,0 +1,160 @@
+/*
+*
+* Licensed to the Apache Software Foundation (ASF) under one
+* or more contributor license agreements.  See the NOTICE file
+* distributed with this work for additional information
+* regarding copyright ownership.  The ASF licenses this file
+* to you under the Apache License, Version 2.0 (the
+* "License"); you may not use this file except in compliance
+* with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*
+*/
+package org.apache.qpid.server.store;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.apache.qpid.AMQStoreException;
+import org.apache.qpid.server.configuration.BrokerProperties;
+import org.apache.qpid.server.logging.LogActor;
+import org.apache.qpid.server.logging.actors.CurrentActor;
+
+/**
+ * Recovers the entries of several queues concurrently on a fixed size pool of threads, each queue being
+ * recovered in its entirety by a single thread.  The number of threads is given by the
+ * {@link BrokerProperties#PROPERTY_STORE_RECOVERY_THREADS} system property; with a single thread stores recover
+ * queue entries sequentially as before.
+ */
+public class ParallelQueueRecovery
+{
+    private static final Logger LOGGER = Logger.getLogger(ParallelQueueRecovery.class);
+
+    public interface QueueRecoveryTask
+    {
+        void recover(UUID queueId) throws Exception;
+    }
+
+    private ParallelQueueRecovery()
+    {
+    }
+
+    public static int getRecoveryThreadCount()
+    {
+        return Integer.getInteger(BrokerProperties.PROPERTY_STORE_RECOVERY_THREADS,
+                                  BrokerProperties.DEFAULT_STORE_RECOVERY_THREADS);
+    }
+
+    public static boolean isEnabled()
+    {
+        return getRecoveryThreadCount() > 1;
+    }
+
+    /**
+     * Runs the given task once for each of the queue ids, returning once all have completed.
+     *
+     * @throws AMQStoreException if any task failed; the first failure is reported
+     */
+    public static void recoverQueues(final String storeName,
+                                     final Collection<UUID> queueIds,
+                                     final QueueRecoveryTask task) throws AMQStoreException
+    {
+        final int threadCount = Math.max(1, Math.min(getRecoveryThreadCount(), queueIds.size()));
+        if(LOGGER.isDebugEnabled())
+        {
+            LOGGER.debug("Recovering entries of " + queueIds.size() + " queue(s) of store " + storeName
+                         + " using " + threadCount + " thread(s)");
+        }
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory()
+        {
+            @Override
+            public Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, "QueueRecovery-" + storeName + "-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        // recovery logging is performed on behalf of the actor which started the recovery
+        final LogActor actor = CurrentActor.get();
+        try
+        {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>(queueIds.size());
+            for(final UUID queueId : queueIds)
+            {
+                futures.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws Exception
+                    {
+                        CurrentActor.set(actor);
+                        try
+                        {
+                            task.recover(queueId);
+                        }
+                        finally
+                        {
+                            CurrentActor.remove();
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for(Future<Void> future : futures)
+            {
+                try
+                {
+                    future.get();
+                }
+                catch (ExecutionException e)
+                {
+                    final Throwable cause = e.getCause();
+                    if(cause instanceof AMQStoreException)
+                    {
+                        throw (AMQStoreException) cause;
+                    }
+                    else if(cause instanceof RuntimeException)
+                    {
+                        throw (RuntimeException) cause;
+                    }
+                    else if(cause instanceof Error)
+                    {
+                        throw (Error) cause;
+                    }
+                    throw new AMQStoreException("Error recovering queue entries: " + cause.getMessage(), cause);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new AMQStoreException("Interrupted while recovering queue entries", e);
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -23,16 +23,58 @@ package org.apache.qpid.server.store;
 
 import java.nio.ByteBuffer;
 
-public class StoredMemoryMessage implements StoredMessage
+/**
+ * A message held in memory.  Content is copied once, compactly, into buffers obtained from a
+ * {@link ContentMemoryManager}, so that a retained message never holds on to the (much larger) buffer its content
+ * was received into.  Views handed out by {@link #getContent(int, int)} share the pooled buffer; deliveries keep
+ * the message referenced until such views have been written, so the buffer is returned to the manager when the
+ * message is removed.  Content flowed to disk after a view was handed out is left to the garbage collector instead,
+ * as the view may still be queued for writing.
+ */
+public class StoredMemoryMessage implements StoredMessage, FlowableStoredMessage
 {
     private final long _messageNumber;
-    private ByteBuffer _content;
+    private final ContentMemoryManager _memoryManager;
+    private final InMemoryContentSize _inMemoryContentSize;
+    /** The number of content bytes this message has added to the in-memory content size of its store */
+    private int _accountedSize;
+    private volatile ByteBuffer _content;
+    /** Whether the content buffer was obtained from the memory manager */
+    private boolean _contentPooled;
+    /** Whether views of the content buffer have been handed out */
+    private boolean _contentShared;
     private final StorableMessageMetaData _metaData;
 
+    private ContentSpillFile _spillFile;
+    private long _spillPosition;
+    private int _spillLength;
+
     public StoredMemoryMessage(long messageNumber, StorableMessageMetaData metaData)
+    {
+        this(messageNumber, metaData, new InMemoryContentSize());
+    }
+
+    public StoredMemoryMessage(long messageNumber,
+                               StorableMessageMetaData metaData,
+                               InMemoryContentSize inMemoryContentSize)
+    {
+        this(messageNumber, metaData, ContentMemoryManager.getInstance(), inMemoryContentSize);
+    }
+
+    public StoredMemoryMessage(long messageNumber, StorableMessageMetaData metaData, ContentMemoryManager memoryManager)
+    {
+        this(messageNumber, metaData, memoryManager, new InMemoryContentSize());
+    }
+
+    public StoredMemoryMessage(long messageNumber,
+                               StorableMessageMetaData metaData,
+                               ContentMemoryManager memoryManager,
+                               InMemoryContentSize inMemoryContentSize)
     {
         _messageNumber = messageNumber;
         _metaData = metaData;
+        _memoryManager = memoryManager;
+        _inMemoryContentSize = inMemoryContentSize;
     }
 
     public long getMessageNumber()
@@ -40,77 +82,85 @@ public class StoredMemoryMessage implements StoredMessage
         return _messageNumber;
     }
 
-    public void addContent(int offsetInMessage, ByteBuffer src)
+    public synchronized void addContent(int offsetInMessage, ByteBuffer src)
     {
-        if(_content == null)
+        final int required = offsetInMessage + src.remaining();
+        ByteBuffer content = _content;
+        if(content == null)
         {
-            if(offsetInMessage == 0)
-            {
-                _content = src.slice();
-            }
-            else
-            {
-                final int contentSize = _metaData.getContentSize();
-                int size = (contentSize < offsetInMessage + src.remaining())
-                        ? offsetInMessage + src.remaining()
-                        : contentSize;
-                _content = ByteBuffer.allocate(size);
-                addContent(offsetInMessage, src);
-            }
+            content = _memoryManager.allocate(Math.max(_metaData.getContentSize(), required));
+            _contentPooled = true;
         }
-        else
+        else if(content.limit() < required)
         {
-            if(_content.limit() >= offsetInMessage + src.remaining())
+            if(_contentPooled && content.capacity() >= required)
             {
-                _content.position(offsetInMessage);
-                _content.put(src);
-                _content.position(0);
+                content.limit(required);
             }
             else
             {
-                final int contentSize = _metaData.getContentSize();
-                int size = (contentSize < offsetInMessage + src.remaining())
-                        ? offsetInMessage + src.remaining()
-                        : contentSize;
-                ByteBuffer oldContent = _content;
-                _content = ByteBuffer.allocate(size);
-                _content.put(oldContent);
-                _content.position(0);
-                addContent(offsetInMessage, src);
+                ByteBuffer oldContent = content;
+                content = _memoryManager.allocate(Math.max(_metaData.getContentSize(), required));
+                content.put(oldContent.duplicate());
+                content.position(0);
+                if(!_contentShared)
+                {
+                    releaseContent(oldContent);
+                }
+                _contentPooled = true;
+                _contentShared = false;
             }
-
         }
+
+        ByteBuffer dst = content.duplicate();
+        dst.position(offsetInMessage);
+        dst.put(src.duplicate());
+        _content = content;
+        setAccountedSize(content.limit());
     }
 
-    public int getContent(int offset, ByteBuffer dst)
+    /*
+     * Readers hold the lock while copying, so that a pooled buffer cannot be returned to the memory manager, and
+     * reused, underneath them.
+     */
+    public synchronized int getContent(int offset, ByteBuffer dst)
     {
-        if(_content == null)
+        final ByteBuffer content = _content;
+        if(content == null)
+        {
+            return getSpilledContent(offset, dst);
+        }
+        if(offset >= content.limit())
         {
             return 0;
         }
-        ByteBuffer src = _content.duplicate();
-
-        int oldPosition = src.position();
-
-        src.position(oldPosition + offset);
+        ByteBuffer src = content.duplicate();
+        src.position(offset);
 
         int length = dst.remaining() < src.remaining() ? dst.remaining() : src.remaining();
-        src.limit(oldPosition + length);
+        src.limit(offset + length);
 
         dst.put(src);
 
-
         return length;
     }
 
 
     public ByteBuffer getContent(int offsetInMessage, int size)
     {
-        if(_content == null)
+        final ByteBuffer content = shareContent();
+        if(content == null)
         {
-            return null;
+            if(!isSpilled())
+            {
+                return null;
+            }
+            ByteBuffer buf = ByteBuffer.allocate(size);
+            getSpilledContent(offsetInMessage, buf);
+            buf.flip();
+            return buf;
         }
-        ByteBuffer buf = _content.duplicate();
+        ByteBuffer buf = content.duplicate();
 
         if(offsetInMessage != 0)
         {
@@ -118,10 +168,20 @@ public class StoredMemoryMessage implements StoredMessage
             buf = buf.slice();
         }
 
-        buf.limit(size);
+        buf.limit(Math.min(size, buf.limit()));
         return buf;
     }
 
+    private synchronized ByteBuffer shareContent()
+    {
+        final ByteBuffer content = _content;
+        if(content != null)
+        {
+            _contentShared = true;
+        }
+        return content;
+    }
+
     public StoreFuture flushToStore()
     {
         return StoreFuture.IMMEDIATE_FUTURE;
@@ -135,5 +195,79 @@ public class StoredMemoryMessage implements StoredMessage
 
     public void remove()
     {
+        synchronized (this)
+        {
+            if(_spillFile != null)
+            {
+                _spillFile.release(_spillPosition, _spillLength);
+                _spillFile = null;
+            }
+            final ByteBuffer content = _content;
+            _content = null;
+            if(content != null)
+            {
+                releaseContent(content);
+            }
+            setAccountedSize(0);
+        }
+    }
+
+    private void setAccountedSize(int size)
+    {
+        _inMemoryContentSize.change(size - _accountedSize);
+        _accountedSize = size;
+    }
+
+    private void releaseContent(ByteBuffer content)
+    {
+        if(_contentPooled)
+        {
+            _contentPooled = false;
+            _memoryManager.release(content);
+        }
+    }
+
+    public synchronized long flowToDisk(ContentSpillFile spillFile)
+    {
+        final ByteBuffer content = _content;
+        if(content == null || _spillFile != null)
+        {
+            return 0l;
+        }
+        _spillPosition = spillFile.write(content.duplicate());
+        _spillLength = content.remaining();
+        _spillFile = spillFile;
+        _content = null;
+        if(_contentShared)
+        {
+            // a view may still be queued for writing, so the buffer must not be reused
+            _contentPooled = false;
+            _contentShared = false;
+        }
+        else
+        {
+            releaseContent(content);
+        }
+        setAccountedSize(0);
+        return _spillLength;
+    }
+
+    public boolean isInMemory()
+    {
+        return _content != null;
+    }
+
+    private synchronized boolean isSpilled()
+    {
+        return _spillFile != null;
+    }
+
+    private synchronized int getSpilledContent(int offset, ByteBuffer dst)
+    {
+        if(_spillFile == null || offset >= _spillLength)
+        {
+            return 0;
+        }
+        return _spillFile.read(_spillPosition + offset, _spillLength - offset, dst);
     }
 }
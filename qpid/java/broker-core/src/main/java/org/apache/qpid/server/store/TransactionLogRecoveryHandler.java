@@ -30,6 +30,11 @@ public interface TransactionLogRecoveryHandler
     {
         DtxRecordRecoveryHandler completeQueueEntryRecovery();
 
+        /**
+         * Called for each recovered queue entry, in message id order for any one queue.  A store may recover
+         * different queues concurrently, so this may be called from several threads at once, but never
+         * concurrently for the same queue.
+         */
         void queueEntry(UUID queueId, long messageId);
     }
 
@@ -61,6 +61,12 @@ public class AssignedSubscriptionMessageGroupManager implements MessageGroupMana
         return groupVal == null ? null : _groupMap.get(groupVal.hashCode() & _groupMask);
     }
 
+    public boolean mightAssign(final Subscription sub, final QueueEntry entry)
+    {
+        Subscription assigned = getAssignedSubscription(entry);
+        return (assigned == null) || (assigned == sub);
+    }
+
     public boolean acceptMessage(Subscription sub, QueueEntry entry)
     {
         if(assignMessage(sub, entry))
@@ -20,7 +20,6 @@
  */
 package org.apache.qpid.server.subscription;
 
-import org.apache.qpid.server.queue.QueueEntryVisitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,30 +27,53 @@ import org.apache.qpid.server.message.AMQMessageHeader;
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.queue.QueueEntry;
 
-import java.util.HashMap;
-import java.util.Map;
-
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Assigns each message group to a single subscription for as long as that subscription holds at least one
+ * acquired message from the group.
+ * <p>
+ * Groups are held in a concurrent map and each group's state is guarded by the group itself, so that deliveries
+ * for different groups do not contend.  Each group keeps the chain of its entries which other subscriptions have
+ * passed over while the group was assigned; when the group is released only the earliest of those entries needs
+ * to be offered again, so no scan of the queue is required.
+ */
 public class DefinedGroupMessageGroupManager implements MessageGroupManager
 {
     private static final Logger _logger = LoggerFactory.getLogger(DefinedGroupMessageGroupManager.class);
 
     private final String _groupId;
     private final String _defaultGroup;
-    private final Map<Object, Group> _groupMap = new HashMap<Object, Group>();
+    private final ConcurrentMap<Object, Group> _groupMap = new ConcurrentHashMap<Object, Group>();
     private final SubscriptionResetHelper _resetHelper;
 
     private final class Group
     {
         private final Object _group;
-        private Subscription _subscription;
+        private final Set<QueueEntry> _skippedEntries = new LinkedHashSet<QueueEntry>();
+        private volatile Subscription _subscription;
         private int _activeCount;
+        private boolean _removed;
 
-        private Group(final Object key, final Subscription subscription)
+        private Group(final Object key)
         {
             _group = key;
+        }
+
+        public void assign(final Subscription subscription)
+        {
+            if(_logger.isDebugEnabled())
+            {
+                _logger.debug("Assigning group " + _group + " to sub " + subscription);
+            }
             _subscription = subscription;
+            _activeCount = 0;
         }
-        
+
         public boolean add()
         {
             if(_subscription != null)
@@ -64,38 +86,63 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
                 return false;
             }
         }
-        
+
         public void subtract()
         {
             if(--_activeCount == 0)
             {
-                _resetHelper.resetSubPointersForGroups(_subscription, false);
+                QueueEntry earliest = getEarliestSkippedEntry();
+                _skippedEntries.clear();
                 _subscription = null;
-                _groupMap.remove(_group);
+                remove();
+                if(earliest != null)
+                {
+                    _resetHelper.resetSubPointers(earliest);
+                }
             }
         }
 
-        @Override
-        public boolean equals(final Object o)
+        public void entrySkipped(final QueueEntry entry)
         {
-            if (this == o)
+            // entries acquired other than by the owning subscription (e.g. on expiry) are dropped from the head
+            Iterator<QueueEntry> iterator = _skippedEntries.iterator();
+            while(iterator.hasNext() && !iterator.next().isAvailable())
             {
-                return true;
+                iterator.remove();
             }
-            if (o == null || getClass() != o.getClass())
+            _skippedEntries.add(entry);
+        }
+
+        public void entryAcquired(final QueueEntry entry)
+        {
+            if(!_skippedEntries.isEmpty())
             {
-                return false;
+                _skippedEntries.remove(entry);
             }
+        }
 
-            Group group = (Group) o;
+        public QueueEntry getEarliestSkippedEntry()
+        {
+            QueueEntry earliest = null;
+            for(QueueEntry entry : _skippedEntries)
+            {
+                if(entry.isAvailable() && (earliest == null || entry.compareTo(earliest) < 0))
+                {
+                    earliest = entry;
+                }
+            }
+            return earliest;
+        }
 
-            return _group.equals(group._group);
+        public void remove()
+        {
+            _removed = true;
+            _groupMap.remove(_group, this);
         }
 
-        @Override
-        public int hashCode()
+        public boolean isRemoved()
         {
-            return _group.hashCode();
+            return _removed;
         }
 
         public boolean isValid()
@@ -125,37 +172,78 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
         _defaultGroup = defaultGroup;
         _resetHelper = resetHelper;
     }
-    
-    public synchronized Subscription getAssignedSubscription(final QueueEntry entry)
-    {
-        Object groupId = getKey(entry);
 
-        Group group = _groupMap.get(groupId);
-        return group == null || !group.isValid() ? null : group.getSubscription();
+    public Subscription getAssignedSubscription(final QueueEntry entry)
+    {
+        Group group = _groupMap.get(getKey(entry));
+        if(group == null)
+        {
+            return null;
+        }
+        synchronized (group)
+        {
+            return group.isValid() ? group.getSubscription() : null;
+        }
     }
 
-    public synchronized boolean acceptMessage(final Subscription sub, final QueueEntry entry)
+    public boolean mightAssign(final Subscription sub, final QueueEntry entry)
     {
-        if(assignMessage(sub, entry))
+        Group group = _groupMap.get(getKey(entry));
+        if(group == null)
         {
-            return entry.acquire(sub);
+            return true;
         }
-        else
+        synchronized (group)
         {
-            return false;
+            if(!group.isValid() || group.getSubscription() == sub)
+            {
+                return true;
+            }
+            else
+            {
+                // the subscription will move past this entry, so it must be offered again when the group is released
+                group.entrySkipped(entry);
+                return false;
+            }
         }
     }
 
-    private boolean assignMessage(final Subscription sub, final QueueEntry entry)
+    public boolean acceptMessage(final Subscription sub, final QueueEntry entry)
     {
         Object groupId = getKey(entry);
-        Group group = _groupMap.get(groupId);
-
-        if(group == null || !group.isValid())
+        while(true)
         {
-            group = new Group(groupId, sub);
+            Group group = _groupMap.get(groupId);
+            if(group == null)
+            {
+                Group newGroup = new Group(groupId);
+                group = _groupMap.putIfAbsent(groupId, newGroup);
+                if(group == null)
+                {
+                    group = newGroup;
+                }
+            }
+
+            synchronized (group)
+            {
+                if(group.getSubscription() != null && !group.isValid())
+                {
+                    // the owning subscription has closed, so start afresh rather than revive the listeners of its entries
+                    group.remove();
+                }
+                else if(!group.isRemoved())
+                {
+                    return assignMessage(group, sub, entry) && entry.acquire(sub);
+                }
+            }
+        }
+    }
 
-            _groupMap.put(groupId, group);
+    private boolean assignMessage(final Group group, final Subscription sub, final QueueEntry entry)
+    {
+        if(!group.isValid())
+        {
+            group.assign(sub);
 
             // there's a small change that the group became empty between the point at which getNextAvailable() was
             // called on the subscription, and when accept message is called... in that case we want to avoid delivering
@@ -175,59 +263,49 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
         }
         else
         {
-            return false;            
+            return false;
         }
     }
 
-    public synchronized QueueEntry findEarliestAssignedAvailableEntry(final Subscription sub)
-    {
-        EntryFinder visitor = new EntryFinder(sub);
-        sub.getQueue().visit(visitor);
-        return visitor.getEntry();
-    }
-
-    private class EntryFinder implements QueueEntryVisitor
+    public QueueEntry findEarliestAssignedAvailableEntry(final Subscription sub)
     {
-        private QueueEntry _entry;
-        private Subscription _sub;
-
-        public EntryFinder(final Subscription sub)
-        {
-            _sub = sub;
-        }
-
-        public boolean visit(final QueueEntry entry)
+        QueueEntry earliest = null;
+        for(Group group : _groupMap.values())
         {
-            if(!entry.isAvailable())
+            if(group.getSubscription() == sub)
             {
-                return false;
-            }
-
-            Object groupId = getKey(entry);
-
-            Group group = _groupMap.get(groupId);
-            if(group != null && group.getSubscription() == _sub)
-            {
-                _entry = entry;
-                return true;
-            }
-            else
-            {
-                return false;
+                QueueEntry entry;
+                synchronized (group)
+                {
+                    entry = group.getSubscription() == sub ? group.getEarliestSkippedEntry() : null;
+                }
+                if(entry != null && (earliest == null || entry.compareTo(earliest) < 0))
+                {
+                    earliest = entry;
+                }
             }
         }
-
-        public QueueEntry getEntry()
-        {
-            return _entry;
-        }
+        return earliest;
     }
 
-    
     public void clearAssignments(final Subscription sub)
     {
+        // groups with acquired messages are released as those messages are released; only idle groups remain
+        for(Group group : _groupMap.values())
+        {
+            if(group.getSubscription() == sub)
+            {
+                synchronized (group)
+                {
+                    if(group.getSubscription() == sub && !group.isValid())
+                    {
+                        group.remove();
+                    }
+                }
+            }
+        }
     }
-    
+
     private Object getKey(QueueEntry entry)
     {
         ServerMessage message = entry.getMessage();
@@ -254,7 +332,7 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
                                  final QueueEntry.State oldState,
                                  final QueueEntry.State newState)
         {
-            synchronized (DefinedGroupMessageGroupManager.this)
+            synchronized (_group)
             {
                 if(_group.isValid())
                 {
@@ -263,6 +341,7 @@ public class DefinedGroupMessageGroupManager implements MessageGroupManager
                         if(newState == QueueEntry.State.ACQUIRED)
                         {
                             _group.add();
+                            _group.entryAcquired(entry);
                         }
                         else if(oldState == QueueEntry.State.ACQUIRED)
                         {
@@ -28,11 +28,22 @@ public interface MessageGroupManager
     {
         public void resetSubPointersForGroups(Subscription subscription, boolean clearAssignments);
 
+        /**
+         * Moves back any subscription which is ahead of the given entry, so that the entry is offered to it again.
+         */
+        public void resetSubPointers(QueueEntry entry);
+
         boolean isEntryAheadOfSubscription(QueueEntry entry, Subscription sub);
     }
 
     Subscription getAssignedSubscription(QueueEntry entry);
 
+    /**
+     * Returns false if the entry belongs to a group assigned to some other subscription, in which case the given
+     * subscription will pass over the entry.
+     */
+    boolean mightAssign(Subscription sub, QueueEntry entry);
+
     boolean acceptMessage(Subscription sub, QueueEntry entry);
 
     QueueEntry findEarliestAssignedAvailableEntry(Subscription sub);
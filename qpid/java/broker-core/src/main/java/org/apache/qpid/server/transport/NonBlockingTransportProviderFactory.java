@@ -0,0 +1,65 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.transport;
+
+import org.apache.qpid.server.model.Transport;
+import org.apache.qpid.server.plugin.TransportProviderFactory;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Provides a selector based transport for plain TCP ports.  As it competes with the TCPandSSL provider for
+ * plain TCP ports it is only offered when the {@value #USE_NON_BLOCKING_TRANSPORT_PROP_NAME} system property
+ * is set to true.
+ */
+public class NonBlockingTransportProviderFactory implements TransportProviderFactory
+{
+    public static final String USE_NON_BLOCKING_TRANSPORT_PROP_NAME = "qpid.broker.nonblocking_transport";
+
+    private static final String TYPE = "NonBlockingTCP";
+
+    @Override
+    public Set<Set<Transport>> getSupportedTransports()
+    {
+        if(Boolean.getBoolean(USE_NON_BLOCKING_TRANSPORT_PROP_NAME))
+        {
+            return Collections.<Set<Transport>>singleton(EnumSet.of(Transport.TCP));
+        }
+        else
+        {
+            return Collections.emptySet();
+        }
+    }
+
+    @Override
+    public TransportProvider getTransportProvider(final Set<Transport> transports)
+    {
+        return new NonBlockingTransportProvider();
+    }
+
+    @Override
+    public String getType()
+    {
+        return TYPE;
+    }
+}
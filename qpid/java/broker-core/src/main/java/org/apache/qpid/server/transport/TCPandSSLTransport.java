@@ -50,6 +50,18 @@ class TCPandSSLTransport implements AcceptingTransport
                        final Set<AmqpProtocolVersion> supported,
                        final AmqpProtocolVersion defaultSupportedProtocolReply)
     {
+        this(transports, sslContext, port, supported, defaultSupportedProtocolReply,
+             org.apache.qpid.transport.network.Transport.getIncomingTransportInstance());
+    }
+
+    TCPandSSLTransport(final Set<Transport> transports,
+                       final SSLContext sslContext,
+                       final Port port,
+                       final Set<AmqpProtocolVersion> supported,
+                       final AmqpProtocolVersion defaultSupportedProtocolReply,
+                       final IncomingNetworkTransport networkTransport)
+    {
+        _networkTransport = networkTransport;
         _transports = transports;
         _sslContext = sslContext;
         _port = port;
@@ -76,7 +88,6 @@ class TCPandSSLTransport implements AcceptingTransport
         }
 
         final NetworkTransportConfiguration settings = new ServerNetworkTransportConfiguration();
-        _networkTransport = org.apache.qpid.transport.network.Transport.getIncomingTransportInstance();
         final MultiVersionProtocolEngineFactory protocolEngineFactory =
                 new MultiVersionProtocolEngineFactory(
                 _port.getParent(Broker.class), _transports.contains(Transport.TCP) ? _sslContext : null,
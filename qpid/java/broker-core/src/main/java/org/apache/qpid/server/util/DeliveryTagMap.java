@@ -0,0 +1,312 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A map keyed by non-negative, mostly increasing, long values such as delivery tags or command ids.
+ *
+ * Values are held in a ring buffer indexed by the key's distance from the lowest key held, so adding, looking up and
+ * removing entries neither boxes keys nor allocates map nodes, and ranges of keys can be removed in a single pass.
+ * Keys which fall too far behind the rest (for instance a delivery which is never acknowledged while many later
+ * deliveries are) are moved into a sorted overflow map so that the ring stays proportional to the number of entries.
+ *
+ * Keys are iterated in ascending order.  This class is not thread-safe.
+ */
+public class DeliveryTagMap<V>
+{
+    public static final long NO_KEY = -1l;
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_SPARSENESS = 8;
+
+    private Object[] _slots;
+    private int _mask;
+
+    // slot holding the lowest key in the ring; while the ring is not empty that slot is never null
+    private int _head;
+    private long _base;
+    // number of slots from the lowest to the highest key in the ring, inclusive
+    private int _span;
+    private int _ringSize;
+
+    // keys below _base, created only if keys arrive out of order or fall far behind
+    private TreeMap<Long, V> _overflow;
+
+    public DeliveryTagMap(int initialCapacity)
+    {
+        int capacity = MIN_CAPACITY;
+        while(capacity < initialCapacity && capacity < (1 << 30))
+        {
+            capacity <<= 1;
+        }
+        _slots = new Object[capacity];
+        _mask = capacity - 1;
+    }
+
+    public V put(long key, V value)
+    {
+        if(key < 0)
+        {
+            throw new IllegalArgumentException("Key must not be negative: " + key);
+        }
+        if(value == null)
+        {
+            throw new IllegalArgumentException("Value must not be null");
+        }
+
+        if(_ringSize == 0)
+        {
+            if(_overflow != null && !_overflow.isEmpty() && key <= _overflow.lastKey())
+            {
+                return putOverflow(key, value);
+            }
+            _base = key;
+            _head = 0;
+            _span = 0;
+        }
+        else if(key < _base)
+        {
+            return putOverflow(key, value);
+        }
+        else if(key - _base >= _slots.length)
+        {
+            makeRoom(key);
+        }
+
+        final int offset = (int) (key - _base);
+        final int index = (_head + offset) & _mask;
+        final V previous = (V) _slots[index];
+        _slots[index] = value;
+        if(previous == null)
+        {
+            _ringSize++;
+        }
+        if(offset >= _span)
+        {
+            _span = offset + 1;
+        }
+        return previous;
+    }
+
+    public V get(long key)
+    {
+        if(key < _base || _ringSize == 0)
+        {
+            return _overflow == null ? null : _overflow.get(key);
+        }
+        final long offset = key - _base;
+        return offset < _span ? (V) _slots[(_head + (int) offset) & _mask] : null;
+    }
+
+    public V remove(long key)
+    {
+        if(key < _base || _ringSize == 0)
+        {
+            return _overflow == null ? null : _overflow.remove(key);
+        }
+        final long offset = key - _base;
+        if(offset >= _span)
+        {
+            return null;
+        }
+        final int index = (_head + (int) offset) & _mask;
+        final V value = (V) _slots[index];
+        if(value != null)
+        {
+            _slots[index] = null;
+            _ringSize--;
+            tidyRing();
+        }
+        return value;
+    }
+
+    /**
+     * Removes all entries with keys between lower and upper inclusive, adding their values in ascending key order to
+     * the given collection.
+     *
+     * @return the number of entries removed
+     */
+    public int removeRange(long lower, long upper, Collection<? super V> removed)
+    {
+        int count = 0;
+        if(_overflow != null && !_overflow.isEmpty() && lower <= upper)
+        {
+            final Map<Long, V> range = _overflow.subMap(lower, true, upper, true);
+            count += range.size();
+            removed.addAll(range.values());
+            range.clear();
+        }
+
+        if(_ringSize != 0)
+        {
+            final long first = Math.max(lower, _base);
+            final long last = Math.min(upper, _base + _span - 1);
+            for(long key = first; key <= last; key++)
+            {
+                final int index = (_head + (int) (key - _base)) & _mask;
+                final V value = (V) _slots[index];
+                if(value != null)
+                {
+                    _slots[index] = null;
+                    _ringSize--;
+                    removed.add(value);
+                    count++;
+                }
+            }
+            tidyRing();
+        }
+        return count;
+    }
+
+    /**
+     * @return the lowest key held, or {@link #NO_KEY} if the map is empty
+     */
+    public long firstKey()
+    {
+        if(_overflow != null && !_overflow.isEmpty())
+        {
+            return _overflow.firstKey();
+        }
+        return _ringSize == 0 ? NO_KEY : _base;
+    }
+
+    /**
+     * @return the lowest key held which is strictly greater than the given key, or {@link #NO_KEY} if there is none
+     */
+    public long higherKey(long key)
+    {
+        if(_overflow != null && !_overflow.isEmpty())
+        {
+            final Long higher = _overflow.higherKey(key);
+            if(higher != null)
+            {
+                return higher;
+            }
+        }
+        if(_ringSize != 0)
+        {
+            for(long offset = key < _base ? 0 : key - _base + 1; offset < _span; offset++)
+            {
+                if(_slots[(_head + (int) offset) & _mask] != null)
+                {
+                    return _base + offset;
+                }
+            }
+        }
+        return NO_KEY;
+    }
+
+    public int size()
+    {
+        return _ringSize + (_overflow == null ? 0 : _overflow.size());
+    }
+
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(_slots, null);
+        _head = 0;
+        _span = 0;
+        _ringSize = 0;
+        _overflow = null;
+    }
+
+    private V putOverflow(long key, V value)
+    {
+        if(_overflow == null)
+        {
+            _overflow = new TreeMap<Long, V>();
+        }
+        return _overflow.put(key, value);
+    }
+
+    private void makeRoom(long key)
+    {
+        final long required = key - _base + 1;
+        if(required <= (long) MAX_SPARSENESS * (_ringSize + 1) && required <= (1 << 30))
+        {
+            int capacity = _slots.length;
+            while(capacity < required)
+            {
+                capacity <<= 1;
+            }
+            resize(capacity);
+        }
+        else
+        {
+            // the ring would be mostly empty: move the oldest entries out of the way instead of growing it
+            while(_ringSize != 0 && key - _base >= _slots.length)
+            {
+                putOverflow(_base, (V) _slots[_head]);
+                _slots[_head] = null;
+                _ringSize--;
+                tidyRing();
+            }
+            if(_ringSize == 0)
+            {
+                _base = key;
+                _head = 0;
+                _span = 0;
+            }
+        }
+    }
+
+    private void resize(int capacity)
+    {
+        final Object[] slots = new Object[capacity];
+        for(int i = 0; i < _span; i++)
+        {
+            slots[i] = _slots[(_head + i) & _mask];
+        }
+        _slots = slots;
+        _mask = capacity - 1;
+        _head = 0;
+    }
+
+    private void tidyRing()
+    {
+        if(_ringSize == 0)
+        {
+            _head = 0;
+            _span = 0;
+            return;
+        }
+        while(_slots[_head] == null)
+        {
+            _head = (_head + 1) & _mask;
+            _base++;
+            _span--;
+        }
+        while(_slots[(_head + _span - 1) & _mask] == null)
+        {
+            _span--;
+        }
+    }
+}
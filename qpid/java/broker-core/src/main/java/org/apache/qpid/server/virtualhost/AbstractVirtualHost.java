@@ -20,6 +20,8 @@
  */
 package org.apache.qpid.server.virtualhost;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -35,6 +37,7 @@ import org.apache.commons.configuration.ConfigurationException;
 import org.apache.log4j.Logger;
 import org.apache.qpid.AMQException;
 import org.apache.qpid.AMQSecurityException;
+import org.apache.qpid.server.configuration.BrokerProperties;
 import org.apache.qpid.server.configuration.ExchangeConfiguration;
 import org.apache.qpid.server.configuration.QueueConfiguration;
 import org.apache.qpid.server.configuration.VirtualHostConfiguration;
@@ -57,8 +60,10 @@ import org.apache.qpid.server.queue.AMQQueueFactory;
 import org.apache.qpid.server.queue.DefaultQueueRegistry;
 import org.apache.qpid.server.queue.QueueRegistry;
 import org.apache.qpid.server.security.SecurityManager;
+import org.apache.qpid.server.stats.LatencyHistogram;
 import org.apache.qpid.server.stats.StatisticsCounter;
 import org.apache.qpid.server.stats.StatisticsGatherer;
+import org.apache.qpid.server.store.ContentSpillFile;
 import org.apache.qpid.server.store.DurableConfigurationStore;
 import org.apache.qpid.server.store.DurableConfigurationStoreHelper;
 import org.apache.qpid.server.store.DurableConfiguredObjectRecoverer;
@@ -103,10 +108,13 @@ public abstract class AbstractVirtualHost implements VirtualHost, IConnectionReg
     private volatile State _state = State.INITIALISING;
 
     private StatisticsCounter _messagesDelivered, _dataDelivered, _messagesReceived, _dataReceived;
+    private LatencyHistogram _enqueueToDeliverLatency, _publishToStoreCommitLatency, _deliveryScheduleLatency;
 
     private final Map<String, LinkRegistry> _linkRegistry = new HashMap<String, LinkRegistry>();
     private boolean _blocked;
 
+    private ContentSpillFile _spillFile;
+
     public AbstractVirtualHost(VirtualHostRegistry virtualHostRegistry,
                                StatisticsGatherer brokerStatisticsGatherer,
                                SecurityManager parentSecurityManager,
@@ -212,6 +220,43 @@ public abstract class AbstractVirtualHost implements VirtualHost, IConnectionReg
         }
     }
 
+    /**
+     * Initialise flow to disk of queued message content if a virtual host or broker wide threshold is set.
+     */
+    private void initialiseFlowToDisk()
+    {
+        final long virtualHostThreshold = _vhostConfig.getFlowToDiskThreshold();
+        final long brokerThreshold = Long.getLong(BrokerProperties.PROPERTY_FLOW_TO_DISK_BROKER_THRESHOLD, 0l);
+        final long period = _vhostConfig.getFlowToDiskCheckPeriod();
+
+        if ((virtualHostThreshold > 0l || brokerThreshold > 0l) && period > 0l)
+        {
+            if (_spillFile == null)
+            {
+                try
+                {
+                    _spillFile = new ContentSpillFile(new File(_vhostConfig.getFlowToDiskDirectory()), _name);
+                }
+                catch (IOException e)
+                {
+                    _logger.error("Unable to create spill file, message content will not be flowed to disk", e);
+                    return;
+                }
+            }
+            scheduleHouseKeepingTask(period, new FlowToDiskHouseKeepingTask(this, _virtualHostRegistry,
+                                                                            virtualHostThreshold, brokerThreshold,
+                                                                            _spillFile));
+        }
+    }
+
+    private void closeSpillFile()
+    {
+        if (_spillFile != null)
+        {
+            _spillFile.close();
+        }
+    }
+
     protected void removeHouseKeepingTasks()
     {
         BlockingQueue<Runnable> taskQueue = _houseKeepingTasks.getQueue();
@@ -642,6 +687,7 @@ public abstract class AbstractVirtualHost implements VirtualHost, IConnectionReg
         _dtxRegistry.close();
         closeStorage();
         shutdownHouseKeeping();
+        closeSpillFile();
 
         // clear exchange objects
         _exchangeRegistry.clearAndUnregisterMbeans();
@@ -727,12 +773,30 @@ public abstract class AbstractVirtualHost implements VirtualHost, IConnectionReg
         return _dataDelivered;
     }
 
+    public LatencyHistogram getEnqueueToDeliverLatency()
+    {
+        return _enqueueToDeliverLatency;
+    }
+
+    public LatencyHistogram getPublishToStoreCommitLatency()
+    {
+        return _publishToStoreCommitLatency;
+    }
+
+    public LatencyHistogram getDeliveryScheduleLatency()
+    {
+        return _deliveryScheduleLatency;
+    }
+
     public void resetStatistics()
     {
         _messagesDelivered.reset();
         _dataDelivered.reset();
         _messagesReceived.reset();
         _dataReceived.reset();
+        _enqueueToDeliverLatency.reset();
+        _publishToStoreCommitLatency.reset();
+        _deliveryScheduleLatency.reset();
 
         for (AMQConnectionModel connection : _connectionRegistry.getConnections())
         {
@@ -746,6 +810,9 @@ public abstract class AbstractVirtualHost implements VirtualHost, IConnectionReg
         _dataDelivered = new StatisticsCounter("bytes-delivered-" + getName());
         _messagesReceived = new StatisticsCounter("messages-received-" + getName());
         _dataReceived = new StatisticsCounter("bytes-received-" + getName());
+        _enqueueToDeliverLatency = new LatencyHistogram();
+        _publishToStoreCommitLatency = new LatencyHistogram();
+        _deliveryScheduleLatency = new LatencyHistogram();
     }
 
     public synchronized LinkRegistry getLinkRegistry(String remoteContainerId)
@@ -842,6 +909,7 @@ public abstract class AbstractVirtualHost implements VirtualHost, IConnectionReg
         try
         {
             initialiseHouseKeeping(_vhostConfig.getHousekeepingCheckPeriod());
+            initialiseFlowToDisk();
             finalState = State.ACTIVE;
         }
         finally
@@ -0,0 +1,166 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.virtualhost;
+
+import java.util.Collection;
+
+import org.apache.log4j.Logger;
+
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.queue.AMQQueue;
+import org.apache.qpid.server.queue.QueueEntry;
+import org.apache.qpid.server.queue.QueueEntryVisitor;
+import org.apache.qpid.server.store.ContentSpillFile;
+import org.apache.qpid.server.store.FlowableMessageStore;
+import org.apache.qpid.server.store.FlowableStoredMessage;
+import org.apache.qpid.server.store.MessageStore;
+import org.apache.qpid.server.store.StoredMessage;
+
+/**
+ * Keeps the amount of message content held on the heap within the virtual host (and broker wide) thresholds.
+ * When the in-memory content size of the message store exceeds the allowance, each queue keeps its proportional
+ * share of the allowance resident, counted from the head of the queue, and the content of the entries beyond
+ * that point is flowed to disk until the excess has been released.  Flowed content is reloaded on demand when
+ * the entry is delivered.
+ */
+class FlowToDiskHouseKeepingTask extends HouseKeepingTask
+{
+    private static final Logger _logger = Logger.getLogger(FlowToDiskHouseKeepingTask.class);
+
+    private final VirtualHostRegistry _virtualHostRegistry;
+    private final long _virtualHostThreshold;
+    private final long _brokerThreshold;
+    private final ContentSpillFile _spillFile;
+
+    FlowToDiskHouseKeepingTask(VirtualHost virtualHost,
+                               VirtualHostRegistry virtualHostRegistry,
+                               long virtualHostThreshold,
+                               long brokerThreshold,
+                               ContentSpillFile spillFile)
+    {
+        super(virtualHost);
+        _virtualHostRegistry = virtualHostRegistry;
+        _virtualHostThreshold = virtualHostThreshold;
+        _brokerThreshold = brokerThreshold;
+        _spillFile = spillFile;
+    }
+
+    @Override
+    public void execute()
+    {
+        final long inMemorySize = getInMemoryContentSize(getVirtualHost());
+        final long allowance = getAllowance(inMemorySize);
+
+        if(inMemorySize <= allowance)
+        {
+            return;
+        }
+
+        final Collection<AMQQueue> queues = getVirtualHost().getQueues();
+        final long virtualHostDepth = getDepth(getVirtualHost());
+        final long excess = inMemorySize - allowance;
+
+        long released = 0l;
+        for(AMQQueue queue : queues)
+        {
+            if(released >= excess)
+            {
+                break;
+            }
+            final long queueDepth = queue.getQueueDepth();
+            if(queueDepth > 0)
+            {
+                final long queueAllowance = (long) ((double) allowance * queueDepth / virtualHostDepth);
+                released += flowToDisk(queue, queueAllowance, excess - released);
+            }
+        }
+
+        if(_logger.isDebugEnabled())
+        {
+            _logger.debug("Flowed " + released + " bytes of message content to disk, in-memory content size "
+                          + inMemorySize + " allowance " + allowance);
+        }
+    }
+
+    long getAllowance(long inMemorySize)
+    {
+        long allowance = _virtualHostThreshold > 0l ? _virtualHostThreshold : Long.MAX_VALUE;
+        if(_brokerThreshold > 0l && inMemorySize > 0l)
+        {
+            long brokerInMemorySize = 0l;
+            for(VirtualHost virtualHost : _virtualHostRegistry.getVirtualHosts())
+            {
+                brokerInMemorySize += getInMemoryContentSize(virtualHost);
+            }
+            if(brokerInMemorySize > _brokerThreshold)
+            {
+                // the broker allowance is shared between the virtual hosts in proportion to their in-memory content
+                allowance = Math.min(allowance,
+                                     (long) ((double) _brokerThreshold * inMemorySize / brokerInMemorySize));
+            }
+        }
+        return allowance;
+    }
+
+    /**
+     * Flows to disk the content of the entries beyond the first {@code queueAllowance} bytes of the queue, stopping
+     * once {@code required} bytes have been released.  Content which is already on disk (or was reclaimed by the
+     * garbage collector) is still passed to the message, so that it stops being accounted as in memory.
+     */
+    private long flowToDisk(AMQQueue queue, final long queueAllowance, final long required)
+    {
+        final long[] counters = new long[2];
+        queue.visit(new QueueEntryVisitor()
+        {
+            public boolean visit(QueueEntry entry)
+            {
+                counters[0] += entry.getSize();
+                if(counters[0] > queueAllowance)
+                {
+                    final ServerMessage message = entry.getMessage();
+                    final StoredMessage storedMessage = message == null ? null : message.getStoredMessage();
+                    if(storedMessage instanceof FlowableStoredMessage)
+                    {
+                        counters[1] += ((FlowableStoredMessage) storedMessage).flowToDisk(_spillFile);
+                    }
+                }
+                return counters[1] >= required;
+            }
+        });
+        return counters[1];
+    }
+
+    private static long getInMemoryContentSize(VirtualHost virtualHost)
+    {
+        final MessageStore store = virtualHost.getMessageStore();
+        return store instanceof FlowableMessageStore ? ((FlowableMessageStore) store).getInMemoryContentSize() : 0l;
+    }
+
+    private static long getDepth(VirtualHost virtualHost)
+    {
+        long depth = 0l;
+        for(AMQQueue queue : virtualHost.getQueues())
+        {
+            depth += queue.getQueueDepth();
+        }
+        return depth;
+    }
+}
@@ -35,6 +35,7 @@ import org.apache.qpid.server.protocol.LinkRegistry;
 import org.apache.qpid.server.queue.AMQQueue;
 import org.apache.qpid.server.queue.QueueRegistry;
 import org.apache.qpid.server.security.SecurityManager;
+import org.apache.qpid.server.stats.LatencyHistogram;
 import org.apache.qpid.server.stats.StatisticsGatherer;
 import org.apache.qpid.server.store.DurableConfigurationStore;
 import org.apache.qpid.server.store.MessageStore;
@@ -123,4 +124,22 @@ public interface VirtualHost extends DurableConfigurationStore.Source, Closeable
     public void block();
 
     public void unblock();
+
+    /**
+     * Distribution of the time, in milliseconds, between a message arriving at the virtualhost and its first
+     * delivery to a consumer.
+     */
+    LatencyHistogram getEnqueueToDeliverLatency();
+
+    /**
+     * Distribution of the time, in milliseconds, between a persistent message arriving at the virtualhost and
+     * the store commit which makes it durable on its queues.
+     */
+    LatencyHistogram getPublishToStoreCommitLatency();
+
+    /**
+     * Distribution of the time, in microseconds, for which the asynchronous delivery tasks of the virtualhost's
+     * queues wait for a thread of the shared delivery pool.
+     */
+    LatencyHistogram getDeliveryScheduleLatency();
 }
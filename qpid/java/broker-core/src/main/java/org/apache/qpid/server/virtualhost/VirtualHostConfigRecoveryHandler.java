@@ -22,8 +22,9 @@ package org.apache.qpid.server.virtualhost;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import org.apache.log4j.Logger;
 import org.apache.qpid.AMQException;
@@ -61,9 +62,10 @@ public class VirtualHostConfigRecoveryHandler implements
 
     private final VirtualHost _virtualHost;
 
-    private final Map<String, Integer> _queueRecoveries = new TreeMap<String, Integer>();
+    // queue entries may be recovered for several queues concurrently
+    private final Map<String, Integer> _queueRecoveries = new ConcurrentSkipListMap<String, Integer>();
     private final Map<Long, ServerMessage> _recoveredMessages = new HashMap<Long, ServerMessage>();
-    private final Map<Long, StoredMessage> _unusedMessages = new HashMap<Long, StoredMessage>();
+    private final Map<Long, StoredMessage> _unusedMessages = new ConcurrentHashMap<Long, StoredMessage>();
 
     private final ExchangeRegistry _exchangeRegistry;
     private final ExchangeFactory _exchangeFactory;
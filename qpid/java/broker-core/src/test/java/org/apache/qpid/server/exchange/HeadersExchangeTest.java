@@ -186,6 +186,46 @@ public class HeadersExchangeTest extends TestCase
         routeAndTest(mockMessage(getArgsMapFromStrings("F0000=Aardvark")), q2);
     }
 
+    public void testOnUnbindAny() throws Exception
+    {
+        AMQQueue q1 = createAndBind("Q1", "F0000", "F0001=Bear", "X-match=any");
+        AMQQueue q2 = createAndBind("Q2", "F0001=Bear", "X-match=any");
+
+        routeAndTest(mockMessage(getArgsMapFromStrings("F0001=Bear")), q1, q2);
+
+        _exchange.removeBinding("Q1",q1,getArgsMapFromStrings("F0000", "F0001=Bear", "X-match=any"));
+
+        routeAndTest(mockMessage(getArgsMapFromStrings("F0000")));
+        routeAndTest(mockMessage(getArgsMapFromStrings("F0001=Bear")), q2);
+    }
+
+    public void testNoConditions() throws Exception
+    {
+        AMQQueue q1 = createAndBind("Q1");
+        AMQQueue q2 = createAndBind("Q2", "X-match=any");
+        AMQQueue q3 = createAndBind("Q3", "F0000");
+
+        routeAndTest(mockMessage(getArgsMapFromStrings()), q1, q2);
+        routeAndTest(mockMessage(getArgsMapFromStrings("F0000=Aardvark")), q1, q2, q3);
+    }
+
+    public void testManyBindings() throws Exception
+    {
+        List<AMQQueue> expected = new ArrayList<AMQQueue>();
+        for(int i = 0; i < 1000; i++)
+        {
+            AMQQueue q = createAndBind("Q" + i, "F0000=" + (i % 10), "F0001=" + (i % 7));
+            if(i % 10 == 3 && i % 7 == 5)
+            {
+                expected.add(q);
+            }
+        }
+
+        routeAndTest(mockMessage(getArgsMapFromStrings("F0000=3", "F0001=5")),
+                     expected.toArray(new AMQQueue[expected.size()]));
+        routeAndTest(mockMessage(getArgsMapFromStrings("F0000=3")));
+        routeAndTest(mockMessage(getArgsMapFromStrings("F0000=3", "F0001=7")));
+    }
 
     public void testWithSelectors() throws Exception
     {
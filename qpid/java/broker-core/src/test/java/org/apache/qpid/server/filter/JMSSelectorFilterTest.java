@@ -18,8 +18,17 @@
  */
 package org.apache.qpid.server.filter;
 
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
 import junit.framework.TestCase;
 
+import org.apache.qpid.server.message.AMQMessageHeader;
+import org.apache.qpid.server.message.InstanceProperties;
+import org.apache.qpid.server.message.ServerMessage;
+
 public class JMSSelectorFilterTest extends TestCase
 {
     public void testEqualsAndHashCodeUsingSelectorString() throws Exception
@@ -37,6 +46,56 @@ public class JMSSelectorFilterTest extends TestCase
         assertNotEqual(filter1, differentFilter);
     }
 
+    public void testPropertyFetchedOncePerEvaluation() throws Exception
+    {
+        JMSSelectorFilter filter = new JMSSelectorFilter("size > 1 AND size < 5");
+        AMQMessageHeader header = mockHeader(3);
+
+        assertTrue(filter.matches(Filterable.Factory.newInstance(mockMessage(header), mock(InstanceProperties.class))));
+        verify(header, times(1)).getHeader("size");
+    }
+
+    public void testResultCachedOnCachingFilterable() throws Exception
+    {
+        JMSSelectorFilter filter = new JMSSelectorFilter("size > 1");
+        AMQMessageHeader header = mockHeader(3);
+        Filterable filterable = Filterable.Factory.newCachingInstance(mockMessage(header), mock(InstanceProperties.class));
+
+        assertTrue(filter.matches(filterable));
+        assertTrue(filter.matches(filterable));
+        verify(header, times(1)).getHeader("size");
+
+        JMSSelectorFilter otherFilter = new JMSSelectorFilter("size > 5");
+        assertFalse(otherFilter.matches(filterable));
+        assertTrue(filter.matches(filterable));
+    }
+
+    public void testRedeliveredSelectorResultNotCached() throws Exception
+    {
+        JMSSelectorFilter filter = new JMSSelectorFilter("JMSRedelivered = TRUE");
+        InstanceProperties properties = mock(InstanceProperties.class);
+        Filterable filterable = Filterable.Factory.newCachingInstance(mockMessage(mockHeader(3)), properties);
+
+        assertFalse(filter.matches(filterable));
+
+        when(properties.getProperty(InstanceProperties.Property.REDELIVERED)).thenReturn(Boolean.TRUE);
+        assertTrue(filter.matches(filterable));
+    }
+
+    private AMQMessageHeader mockHeader(int size)
+    {
+        AMQMessageHeader header = mock(AMQMessageHeader.class);
+        when(header.getHeader("size")).thenReturn(size);
+        return header;
+    }
+
+    private ServerMessage mockMessage(AMQMessageHeader header)
+    {
+        ServerMessage message = mock(ServerMessage.class);
+        when(message.getMessageHeader()).thenReturn(header);
+        return message;
+    }
+
     private void assertEqualsAndHashCodeMatch(JMSSelectorFilter filter1, JMSSelectorFilter filter2)
     {
         String message = filter1 + " and " + filter2 + " should be equal";
@@ -0,0 +1,105 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.message;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import org.apache.qpid.server.store.StorableMessageMetaData;
+import org.apache.qpid.server.store.StoredMessage;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class AbstractServerMessageImplTest extends QpidTestCase
+{
+    private StoredMessage<StorableMessageMetaData> _storedMessage;
+    private TestMessage _message;
+    private MessageReference _reference;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        _storedMessage = mock(StoredMessage.class);
+        _message = new TestMessage(_storedMessage);
+        _reference = _message.newReference();
+    }
+
+    public void testConvertedMessageIsShared()
+    {
+        assertNull("Nothing should be cached initially", _message.getConvertedMessage(TestMessage.class));
+
+        TestMessage converted = new TestMessage(mock(StoredMessage.class));
+        assertSame("Unexpected message returned", converted, _message.cacheConvertedMessage(TestMessage.class, converted));
+        assertSame("Converted message not cached", converted, _message.getConvertedMessage(TestMessage.class));
+
+        TestMessage other = new TestMessage(mock(StoredMessage.class));
+        assertSame("Previously cached message should be used", converted,
+                   _message.cacheConvertedMessage(TestMessage.class, other));
+    }
+
+    public void testCacheDiscardedWhenLastReferenceReleased()
+    {
+        TestMessage converted = new TestMessage(mock(StoredMessage.class));
+        _message.cacheConvertedMessage(TestMessage.class, converted);
+
+        _reference.release();
+
+        verify(_storedMessage).remove();
+        assertNull("Cache should be discarded", _message.getConvertedMessage(TestMessage.class));
+        assertSame("Converted message should still be returned", converted,
+                   _message.cacheConvertedMessage(TestMessage.class, converted));
+        assertNull("Converted message should not be cached after release",
+                   _message.getConvertedMessage(TestMessage.class));
+    }
+
+    private static class TestMessage extends AbstractServerMessageImpl<TestMessage, StorableMessageMetaData>
+    {
+        private TestMessage(StoredMessage<StorableMessageMetaData> handle)
+        {
+            super(handle, null);
+        }
+
+        public String getRoutingKey()
+        {
+            return null;
+        }
+
+        public AMQMessageHeader getMessageHeader()
+        {
+            return null;
+        }
+
+        public long getSize()
+        {
+            return 0;
+        }
+
+        public long getExpiration()
+        {
+            return 0;
+        }
+
+        public long getArrivalTime()
+        {
+            return 0;
+        }
+    }
+}
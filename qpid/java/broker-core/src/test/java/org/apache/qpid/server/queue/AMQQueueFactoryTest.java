@@ -236,6 +236,26 @@ public class AMQQueueFactoryTest extends QpidTestCase
         verifyRegisteredQueueCount(1);
     }
 
+    public void testShardedQueueRegistration() throws Exception
+    {
+        Map<String,Object> attributes = Collections.singletonMap(Queue.SHARDS, (Object) 4);
+
+
+        AMQQueue queue = _queueFactory.createQueue(UUIDGenerator.generateRandomUUID(),
+                "testShardedQueue",
+                false,
+                "owner",
+                false,
+                false,
+                false,
+                attributes);
+
+        assertEquals("Queue not a sharded queue", ShardedQueue.class, queue.getClass());
+        assertEquals("Unexpected number of shards", 4, ((ShardedQueue) queue).getShards());
+        verifyQueueRegistered("testShardedQueue");
+        verifyRegisteredQueueCount(1);
+    }
+
 
     public void testSimpleQueueRegistration() throws Exception
     {
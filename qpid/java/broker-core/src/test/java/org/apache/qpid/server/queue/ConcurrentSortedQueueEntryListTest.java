@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.qpid.AMQException;
+import org.apache.qpid.server.message.AMQMessageHeader;
+import org.apache.qpid.server.message.MessageReference;
+import org.apache.qpid.server.message.ServerMessage;
+
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ConcurrentSortedQueueEntryListTest extends QueueEntryListTestBase
+{
+    private static ConcurrentSortedQueueEntryList _sqel;
+
+    private final static String keysSorted[] = SortedQueueEntryListTest.keys.clone();
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+
+        Arrays.sort(keysSorted);
+
+        _sqel = new ConcurrentSortedQueueEntryList(_testQueue, "KEY");
+
+        long messageId = 0L;
+        for(final String key : SortedQueueEntryListTest.keys)
+        {
+            _sqel.add(generateTestMessage(messageId++, key));
+        }
+    }
+
+    @Override
+    public QueueEntryList getTestList()
+    {
+        return getTestList(false);
+    }
+
+    @Override
+    public QueueEntryList getTestList(boolean newList)
+    {
+        if(newList)
+        {
+            return new ConcurrentSortedQueueEntryList(_testQueue, "KEY");
+        }
+        else
+        {
+            return _sqel;
+        }
+    }
+
+    public int getExpectedListLength()
+    {
+        return SortedQueueEntryListTest.keys.length;
+    }
+
+    public long getExpectedFirstMsgId()
+    {
+        return 67L;
+    }
+
+    public ServerMessage getTestMessageToAdd() throws AMQException
+    {
+        return generateTestMessage(1, "test value");
+    }
+
+    private ServerMessage generateTestMessage(final long id, final String keyValue)
+    {
+        final ServerMessage message = mock(ServerMessage.class);
+        AMQMessageHeader hdr = mock(AMQMessageHeader.class);
+        when(message.getMessageHeader()).thenReturn(hdr);
+        when(hdr.getHeader(eq("KEY"))).thenReturn(keyValue);
+        when(hdr.containsHeader(eq("KEY"))).thenReturn(true);
+        when(hdr.getHeaderNames()).thenReturn(Collections.singleton("KEY"));
+        MessageReference ref = mock(MessageReference.class);
+        when(ref.getMessage()).thenReturn(message);
+        when(message.newReference()).thenReturn(ref);
+        when(message.getMessageNumber()).thenReturn(id);
+
+        return message;
+    }
+
+    public void testIterator()
+    {
+        super.testIterator();
+
+        final QueueEntryIterator<?> iter = getTestList().iterator();
+        int count = 0;
+        while(iter.advance())
+        {
+            assertEquals("Sorted queue entry value does not match sorted key array",
+                         keysSorted[count++], iter.getNode().getMessage().getMessageHeader().getHeader("KEY"));
+        }
+    }
+
+    public void testNonUniqueSortKeysKeepInsertionOrder() throws Exception
+    {
+        _sqel = new ConcurrentSortedQueueEntryList(_testQueue, "KEY");
+
+        for(long messageId = 0L; messageId < 200; messageId++)
+        {
+            _sqel.add(generateTestMessage(messageId, messageId % 2 == 0 ? null : "samekey"));
+        }
+
+        final QueueEntryIterator<?> iter = getTestList().iterator();
+        long expectedNullId = 0L;
+        long expectedKeyedId = 1L;
+        while(iter.advance())
+        {
+            final QueueEntry node = iter.getNode();
+            if(node.getMessage().getMessageHeader().getHeader("KEY") == null)
+            {
+                assertEquals("Message id not as expected", expectedNullId, node.getMessage().getMessageNumber());
+                expectedNullId += 2;
+            }
+            else
+            {
+                assertEquals("Null keys should sort first", 200L, expectedNullId);
+                assertEquals("Message id not as expected", expectedKeyedId, node.getMessage().getMessageNumber());
+                expectedKeyedId += 2;
+            }
+        }
+        assertEquals("Unexpected number of keyed entries", 201L, expectedKeyedId);
+    }
+
+    public void testNextFromDeletedEntry() throws Exception
+    {
+        _sqel = new ConcurrentSortedQueueEntryList(_testQueue, "KEY");
+
+        _sqel.add(generateTestMessage(1, "A"));
+        _sqel.add(generateTestMessage(2, "C"));
+        ConcurrentSortedQueueEntryImpl b = _sqel.add(generateTestMessage(3, "B"));
+
+        b.acquire();
+        b.delete();
+
+        ConcurrentSortedQueueEntryImpl next = _sqel.next(b);
+        assertEquals("Unexpected entry after deleted entry", "C", next.getKey());
+
+        _sqel.add(generateTestMessage(4, "BB"));
+        next = _sqel.next(b);
+        assertEquals("Entry added after deletion should follow deleted entry", "BB", next.getKey());
+    }
+
+    public void testConcurrentAdds() throws Exception
+    {
+        _sqel = new ConcurrentSortedQueueEntryList(_testQueue, "KEY");
+
+        final int threadCount = 4;
+        final int perThread = 1000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<Thread>();
+        for(int t = 0; t < threadCount; t++)
+        {
+            final int threadNumber = t;
+            final List<ServerMessage> messages = new ArrayList<ServerMessage>();
+            for(int i = 0; i < perThread; i++)
+            {
+                messages.add(generateTestMessage(threadNumber * perThread + i,
+                                                 String.format("%05d", (i * 7919 + threadNumber) % 10000)));
+            }
+            Thread thread = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        start.await();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                    for(ServerMessage message : messages)
+                    {
+                        _sqel.add(message);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for(Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        final QueueEntryIterator<ConcurrentSortedQueueEntryImpl> iter = _sqel.iterator();
+        int count = 0;
+        String previousKey = null;
+        while(iter.advance())
+        {
+            String key = iter.getNode().getKey();
+            if(previousKey != null)
+            {
+                assertTrue("Entries out of order: " + previousKey + " before " + key, previousKey.compareTo(key) <= 0);
+            }
+            previousKey = key;
+            count++;
+        }
+        assertEquals("Unexpected number of entries", threadCount * perThread, count);
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.qpid.server.stats.LatencyHistogram;
+import org.apache.qpid.server.virtualhost.VirtualHost;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class DeliverySchedulerTest extends QpidTestCase
+{
+    private final List<Runnable> _drainTasks = new ArrayList<Runnable>();
+    private final List<String> _runOrder = new ArrayList<String>();
+    private final LatencyHistogram _latency = new LatencyHistogram();
+    private VirtualHost _virtualHost;
+    private DeliveryRunQueue _runQueue;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _virtualHost = mock(VirtualHost.class);
+        when(_virtualHost.getDeliveryScheduleLatency()).thenReturn(_latency);
+        _runQueue = new DeliveryRunQueue(new Executor()
+        {
+            public void execute(final Runnable command)
+            {
+                _drainTasks.add(command);
+            }
+        });
+    }
+
+    public void testTasksOfEqualPriorityRunInSubmissionOrder()
+    {
+        DeliveryScheduler scheduler = new DeliveryScheduler(_runQueue, _virtualHost, 0);
+        scheduler.execute(new NamedTask("a"));
+        scheduler.execute(new NamedTask("b"));
+        scheduler.execute(new NamedTask("c"));
+
+        assertEquals("Unexpected number of pending tasks", 3, _runQueue.getPendingTaskCount(_virtualHost));
+        runDrainTasks();
+
+        assertEquals("Unexpected run order", Arrays.asList("a", "b", "c"), _runOrder);
+        assertEquals("Unexpected number of pending tasks", 0, _runQueue.getPendingTaskCount(_virtualHost));
+        assertEquals("Time to schedule should be recorded for each task", 3l, _latency.getCount());
+    }
+
+    public void testHigherPriorityTaskOvertakesEarlierTasks()
+    {
+        DeliveryScheduler busy = new DeliveryScheduler(_runQueue, _virtualHost, 0);
+        DeliveryScheduler latencySensitive = new DeliveryScheduler(_runQueue, _virtualHost, 100);
+
+        busy.execute(new NamedTask("busy1"));
+        busy.execute(new NamedTask("busy2"));
+        latencySensitive.execute(new NamedTask("urgent"));
+
+        runDrainTasks();
+
+        assertEquals("Unexpected run order", Arrays.asList("urgent", "busy1", "busy2"), _runOrder);
+    }
+
+    public void testCancelDiscardsOnlyTheSchedulersTasks()
+    {
+        DeliveryScheduler stopped = new DeliveryScheduler(_runQueue, _virtualHost, 0);
+        DeliveryScheduler running = new DeliveryScheduler(_runQueue, _virtualHost, 0);
+
+        stopped.execute(new NamedTask("stopped"));
+        running.execute(new NamedTask("running"));
+        stopped.cancel();
+
+        runDrainTasks();
+
+        assertEquals("Unexpected run order", Arrays.asList("running"), _runOrder);
+    }
+
+    public void testPendingTasksAreCountedPerVirtualHost()
+    {
+        VirtualHost otherVirtualHost = mock(VirtualHost.class);
+        DeliveryScheduler scheduler = new DeliveryScheduler(_runQueue, _virtualHost, 0);
+        DeliveryScheduler otherScheduler = new DeliveryScheduler(_runQueue, otherVirtualHost, 0);
+
+        scheduler.execute(new NamedTask("a"));
+        otherScheduler.execute(new NamedTask("b"));
+        otherScheduler.execute(new NamedTask("c"));
+
+        assertEquals("Unexpected number of pending tasks", 1, _runQueue.getPendingTaskCount(_virtualHost));
+        assertEquals("Unexpected number of pending tasks of other virtual host",
+                     2, _runQueue.getPendingTaskCount(otherVirtualHost));
+
+        runDrainTasks();
+
+        assertEquals("Unexpected number of pending tasks", 0, _runQueue.getPendingTaskCount(_virtualHost));
+        assertEquals("Unexpected number of pending tasks of other virtual host",
+                     0, _runQueue.getPendingTaskCount(otherVirtualHost));
+    }
+
+    public void testRejectedTaskIsNotLeftPending()
+    {
+        _runQueue = new DeliveryRunQueue(new Executor()
+        {
+            public void execute(final Runnable command)
+            {
+                throw new RejectedExecutionException();
+            }
+        });
+        DeliveryScheduler scheduler = new DeliveryScheduler(_runQueue, _virtualHost, 0);
+
+        try
+        {
+            scheduler.execute(new NamedTask("rejected"));
+            fail("Exception not thrown");
+        }
+        catch (RejectedExecutionException e)
+        {
+            // PASS
+        }
+        assertEquals("Unexpected number of pending tasks", 0, _runQueue.getPendingTaskCount(_virtualHost));
+    }
+
+    private void runDrainTasks()
+    {
+        for(Runnable drainTask : _drainTasks)
+        {
+            drainTask.run();
+        }
+        _drainTasks.clear();
+    }
+
+    private class NamedTask implements Runnable
+    {
+        private final String _name;
+
+        private NamedTask(final String name)
+        {
+            _name = name;
+        }
+
+        public void run()
+        {
+            _runOrder.add(_name);
+        }
+    }
+}
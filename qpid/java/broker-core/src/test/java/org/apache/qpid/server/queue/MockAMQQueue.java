@@ -595,6 +595,11 @@ public class MockAMQQueue implements AMQQueue
     {
     }
 
+    public long visit(final QueueEntryVisitor visitor, final long cursor)
+    {
+        return cursor;
+    }
+
     @Override
     public void setNotificationListener(NotificationListener listener)
     {
@@ -0,0 +1,147 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.qpid.server.message.AMQMessageHeader;
+import org.apache.qpid.server.message.MessageReference;
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class ShardedQueueListTest extends QpidTestCase
+{
+    private static final int SHARDS = 2;
+
+    private ShardedQueueList _list;
+    private long _messageNumber;
+
+    private QueueEntry _local1;
+    private QueueEntry _local2;
+    private QueueEntry _remote1;
+    private QueueEntry _remote2;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _list = new ShardedQueueList(new MockAMQQueue(getTestName()), SHARDS);
+
+        _local1 = addEntry();
+
+        // thread ids are assigned on construction, so find a publisher whose entries land on the other shard
+        Thread publisher;
+        do
+        {
+            publisher = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    _remote1 = addEntry();
+                    _remote2 = addEntry();
+                }
+            });
+        }
+        while(publisher.getId() % SHARDS == Thread.currentThread().getId() % SHARDS);
+
+        publisher.start();
+        publisher.join();
+
+        _local2 = addEntry();
+    }
+
+    public void testEntriesOfEachPublisherShareAShard()
+    {
+        assertEquals("Entries of a publisher should share a shard",
+                     _list.getShard(_local1), _list.getShard(_local2));
+        assertEquals("Entries of a publisher should share a shard",
+                     _list.getShard(_remote1), _list.getShard(_remote2));
+        assertFalse("Entries of different publishers should be on different shards",
+                    _list.getShard(_local1) == _list.getShard(_remote1));
+    }
+
+    public void testTraversalIsShardByShard()
+    {
+        final List<QueueEntry> expected = _list.getShard(_local1) == 0
+                ? Arrays.asList(_local1, _local2, _remote1, _remote2)
+                : Arrays.asList(_remote1, _remote2, _local1, _local2);
+
+        final List<QueueEntry> iterated = new ArrayList<QueueEntry>();
+        final QueueEntryIterator<?> iter = _list.iterator();
+        while(iter.advance())
+        {
+            iterated.add(iter.getNode());
+        }
+        assertEquals("Unexpected iteration order", expected, iterated);
+
+        final List<QueueEntry> traversed = new ArrayList<QueueEntry>();
+        SimpleQueueEntryImpl entry = _list.getHead();
+        while((entry = _list.next(entry)) != null)
+        {
+            traversed.add(entry);
+        }
+        assertEquals("Unexpected traversal order", expected, traversed);
+    }
+
+    public void testTraversalFromStartShardWrapsAround()
+    {
+        final int remoteShard = _list.getShard(_remote1);
+        final List<QueueEntry> traversed = new ArrayList<QueueEntry>();
+        SimpleQueueEntryImpl entry = _list.getHead(remoteShard);
+        while((entry = _list.next(entry, remoteShard)) != null)
+        {
+            traversed.add(entry);
+        }
+        assertEquals("Unexpected traversal order", Arrays.asList(_remote1, _remote2, _local1, _local2), traversed);
+    }
+
+    public void testCompareToFollowsTraversalOrder()
+    {
+        final QueueEntry first = _list.getShard(_local1) == 0 ? _local2 : _remote2;
+        final QueueEntry second = _list.getShard(_local1) == 0 ? _remote1 : _local1;
+
+        assertEquals("Entry should compare 'equal' to itself", 0, first.compareTo(first));
+        assertEquals("Entry of the earlier shard should be 'earlier'", -1, first.compareTo(second));
+        assertEquals("Entry of the later shard should be 'later'", 1, second.compareTo(first));
+        assertEquals("Entries of a shard should be ordered as added", -1, _local1.compareTo(_local2));
+        assertEquals("Entries of a shard should be ordered as added", 1, _remote2.compareTo(_remote1));
+    }
+
+    private QueueEntry addEntry()
+    {
+        ServerMessage<?> message = mock(ServerMessage.class);
+        AMQMessageHeader header = mock(AMQMessageHeader.class);
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        MessageReference<ServerMessage> ref = mock(MessageReference.class);
+
+        when(message.getMessageNumber()).thenReturn(++_messageNumber);
+        when(message.getMessageHeader()).thenReturn(header);
+        when(message.newReference()).thenReturn(ref);
+        when(ref.getMessage()).thenReturn(message);
+
+        return _list.add(message);
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.queue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.model.Queue;
+import org.apache.qpid.server.subscription.MockSubscription;
+
+public class ShardedQueueTest extends SimpleAMQQueueTest
+{
+    private static final int SHARDS = 3;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        setArguments(Collections.singletonMap(Queue.SHARDS, (Object) SHARDS));
+        super.setUp();
+    }
+
+    public void testEntryBehindSubscriptionsReachesSubscriptionHomedOnAnotherShard() throws Exception
+    {
+        ShardedQueue queue = (ShardedQueue) getQueue();
+        MockSubscription consumer = createSubscription(queue, 0, null);
+        MockSubscription selectiveConsumer = createSubscription(queue, 1, new ArrayList<QueueEntry>());
+
+        queue.registerSubscription(consumer, false);
+        queue.registerSubscription(selectiveConsumer, false);
+
+        enqueueOnShard(queue, 2, createMessage(1l));
+        Thread.sleep(150);  // Work done by SubFlushRunner/QueueRunner Threads
+        assertEquals("Unexpected number of messages sent to subscription", 1, consumer.getMessages().size());
+
+        // lands behind the consumer, which has moved on to the last shard, on the shard of the selective consumer
+        enqueueOnShard(queue, 1, createMessage(2l));
+        Thread.sleep(150);  // Work done by SubFlushRunner/QueueRunner Threads
+
+        assertEquals("Message behind the subscription should have been delivered", 2, consumer.getMessages().size());
+        assertEquals("Unexpected number of messages sent to selective subscription",
+                     0, selectiveConsumer.getMessages().size());
+    }
+
+    public void testSubscriptionStartsAtItsHomeShard() throws Exception
+    {
+        ShardedQueue queue = (ShardedQueue) getQueue();
+        enqueueOnShard(queue, 0, createMessage(1l));
+        enqueueOnShard(queue, 1, createMessage(2l));
+        enqueueOnShard(queue, 2, createMessage(3l));
+
+        MockSubscription consumer = createSubscription(queue, 1, null);
+        queue.registerSubscription(consumer, false);
+        Thread.sleep(150);  // Work done by SubFlushRunner/QueueRunner Threads
+
+        List<QueueEntry> messages = consumer.getMessages();
+        assertEquals("Unexpected number of messages sent to subscription", 3, messages.size());
+        assertEquals(2l, messages.get(0).getMessage().getMessageNumber());
+        assertEquals(3l, messages.get(1).getMessage().getMessageNumber());
+        assertEquals(1l, messages.get(2).getMessage().getMessageNumber());
+    }
+
+    public void testOnlySubscriptionsPastTheEntryAreRecalled() throws Exception
+    {
+        ShardedQueue queue = (ShardedQueue) getQueue();
+        QueueEntry entry = enqueueOnShard(queue, 1, createMessage(1l));
+        QueueEntry later = enqueueOnShard(queue, 2, createMessage(2l));
+
+        MockSubscription subscription = createSubscription(queue, 0, null);
+        subscription.setQueueContext(new QueueContext(getShardHead(queue, 0)));
+        assertFalse("Subscription yet to reach the entry should not be recalled",
+                    queue.isBehindSubscription(subscription, entry));
+
+        subscription.setQueueContext(new QueueContext(later));
+        assertTrue("Subscription past the entry should be recalled", queue.isBehindSubscription(subscription, entry));
+
+        subscription.setQueueContext(new QueueContext(entry));
+        assertTrue("Subscription at the entry should be recalled", queue.isBehindSubscription(subscription, entry));
+    }
+
+    public void testStatisticsSummedAcrossShards() throws Exception
+    {
+        ShardedQueue queue = (ShardedQueue) getQueue();
+        final List<QueueEntry> entries = new ArrayList<QueueEntry>();
+        for(int shard = 0; shard < SHARDS; shard++)
+        {
+            entries.add(enqueueOnShard(queue, shard, createMessage((long) shard)));
+        }
+
+        assertEquals("Unexpected message count", SHARDS, queue.getMessageCount());
+        assertEquals("Unexpected enqueue count", SHARDS, queue.getTotalEnqueueCount());
+
+        QueueEntry entry = entries.get(SHARDS - 1);
+        entry.acquire();
+        entry.delete();
+
+        assertEquals("Unexpected message count after dequeue", SHARDS - 1, queue.getMessageCount());
+        assertEquals("Unexpected dequeue count", 1l, queue.getTotalDequeueCount());
+    }
+
+    private QueueEntry getShardHead(ShardedQueue queue, int shard)
+    {
+        return ((ShardedQueueList) queue.getEntries()).getHead(shard);
+    }
+
+    private MockSubscription createSubscription(ShardedQueue queue, int homeShard, List<QueueEntry> acceptEntries)
+    {
+        MockSubscription subscription;
+        do
+        {
+            subscription = acceptEntries == null ? new MockSubscription() : new MockSubscription(acceptEntries);
+        }
+        while(queue.getHomeShard(subscription) != homeShard);
+        return subscription;
+    }
+
+    /**
+     * Enqueues the message from a thread whose entries land on the given shard.
+     */
+    private QueueEntry enqueueOnShard(final ShardedQueue queue, int shard, final ServerMessage message)
+            throws Exception
+    {
+        final List<QueueEntry> enqueued = new ArrayList<QueueEntry>();
+        final List<Exception> errors = new ArrayList<Exception>();
+        Thread publisher;
+        do
+        {
+            // thread ids are assigned on construction
+            publisher = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        queue.enqueue(message, new BaseQueue.PostEnqueueAction()
+                        {
+                            public void onEnqueue(QueueEntry entry)
+                            {
+                                enqueued.add(entry);
+                            }
+                        });
+                    }
+                    catch (Exception e)
+                    {
+                        errors.add(e);
+                    }
+                }
+            });
+        }
+        while(publisher.getId() % queue.getShards() != shard);
+
+        publisher.start();
+        publisher.join();
+        if(!errors.isEmpty())
+        {
+            throw errors.get(0);
+        }
+        return enqueued.get(0);
+    }
+}
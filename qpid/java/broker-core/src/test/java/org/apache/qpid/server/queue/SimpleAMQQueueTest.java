@@ -406,6 +406,49 @@ public class SimpleAMQQueueTest extends QpidTestCase
         assertNull("releasedEntry should be cleared after requeue processed", ((QueueContext)subscription2.getQueueContext()).getReleasedEntry());
     }
 
+    /**
+     * Tests that a release does not move back a subscription whose filter rejects the released entry, so that it
+     * does not re-scan the entries between the released entry and its current position.
+     */
+    public void testReleaseDoesNotRewindUninterestedSubscription() throws Exception
+    {
+        final ArrayList<QueueEntry> queueEntries = new ArrayList<QueueEntry>();
+        PostEnqueueAction postEnqueueAction = new PostEnqueueAction()
+        {
+            public void onEnqueue(QueueEntry entry)
+            {
+                queueEntries.add(entry);
+            }
+        };
+
+        MockSubscription subscription = new MockSubscription();
+        MockSubscription selectiveSubscription = new MockSubscription(new ArrayList<QueueEntry>());
+
+        _queue.registerSubscription(subscription, false);
+        _queue.registerSubscription(selectiveSubscription, false);
+
+        _queue.enqueue(createMessage(new Long(24)), postEnqueueAction);
+        _queue.enqueue(createMessage(new Long(25)), postEnqueueAction);
+
+        Thread.sleep(150);  // Work done by SubFlushRunner/QueueRunner Threads
+
+        assertEquals("Unexpected number of messages sent to subscription", 2, subscription.getMessages().size());
+        assertEquals("Unexpected number of messages sent to selective subscription",
+                     0, selectiveSubscription.getMessages().size());
+        QueueEntry selectiveLastSeen = selectiveSubscription.getQueueContext().getLastSeenEntry();
+
+        queueEntries.get(0).release();
+
+        Thread.sleep(150); // Work done by SubFlushRunner/QueueRunner Threads
+
+        assertEquals("Unexpected number of messages sent to subscription after release",
+                     3, subscription.getMessages().size());
+        assertNull("Selective subscription should not have a released entry",
+                   ((QueueContext)selectiveSubscription.getQueueContext()).getReleasedEntry());
+        assertSame("Selective subscription should not have been moved back",
+                   selectiveLastSeen, selectiveSubscription.getQueueContext().getLastSeenEntry());
+    }
+
     public void testExclusiveConsumer() throws AMQException
     {
         // Check adding an exclusive subscription adds it to the queue
@@ -602,6 +645,51 @@ public class SimpleAMQQueueTest extends QpidTestCase
         assertEquals("Message ID was wrong", msgID, 10L);
     }
 
+    public void testVisitFromCursor() throws Exception
+    {
+        for (int i = 1 ; i <= 600; i++)
+        {
+            _queue.enqueue(createMessage(new Long(i)));
+        }
+
+        final List<Long> allIds = new ArrayList<Long>();
+        _queue.visit(new QueueEntryVisitor()
+        {
+            public boolean visit(final QueueEntry entry)
+            {
+                allIds.add(entry.getMessage().getMessageNumber());
+                return false;
+            }
+        });
+
+        // page through the queue and check every entry is visited once, in order
+        final List<Long> pagedIds = new ArrayList<Long>();
+        long cursor = 0l;
+        int pages = 0;
+        while(true)
+        {
+            final List<Long> page = new ArrayList<Long>();
+            cursor = _queue.visit(new QueueEntryVisitor()
+            {
+                public boolean visit(final QueueEntry entry)
+                {
+                    page.add(entry.getMessage().getMessageNumber());
+                    return page.size() == 250;
+                }
+            }, cursor);
+
+            if(page.isEmpty())
+            {
+                break;
+            }
+            pagedIds.addAll(page);
+            pages++;
+        }
+
+        assertEquals("Unexpected number of pages", 3, pages);
+        assertEquals("Paging should visit each entry once", allIds, pagedIds);
+    }
+
 
     /**
      * processQueue() is used when asynchronously delivering messages to
@@ -1078,6 +1166,27 @@ public class SimpleAMQQueueTest extends QpidTestCase
         verify(listener, atLeastOnce()).notifyClients(eq(NotificationCheck.MESSAGE_COUNT_ALERT), eq(_queue), contains("Maximum count on queue threshold"));
     }
 
+    public void testCheckMessageStatusRemovesOnlyExpiredMessages() throws Exception
+    {
+        ServerMessage expiredMessage = createMessage(new Long(24));
+        when(expiredMessage.getExpiration()).thenReturn(System.currentTimeMillis() - 1000l);
+        ServerMessage nonExpiringMessage = createMessage(new Long(25));
+        ServerMessage unexpiredMessage = createMessage(new Long(26));
+        when(unexpiredMessage.getExpiration()).thenReturn(System.currentTimeMillis() + 60000l);
+
+        _queue.enqueue(expiredMessage);
+        _queue.enqueue(nonExpiringMessage);
+        _queue.enqueue(unexpiredMessage);
+        assertEquals("Unexpected queue depth before check", 3, _queue.getMessageCount());
+
+        _queue.checkMessageStatus();
+
+        assertEquals("Unexpected queue depth after check", 2, _queue.getMessageCount());
+        List<QueueEntry> entries = _queue.getMessagesOnTheQueue();
+        assertEquals("Unexpected first message", nonExpiringMessage, entries.get(0).getMessage());
+        assertEquals("Unexpected second message", unexpiredMessage, entries.get(1).getMessage());
+    }
+
     /**
      * A helper method to put given number of messages into queue
      * <p>
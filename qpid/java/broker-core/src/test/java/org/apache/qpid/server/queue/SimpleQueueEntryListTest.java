@@ -208,6 +208,49 @@ public class SimpleQueueEntryListTest extends QueueEntryListTestBase
         assertEquals("Count should have been equal",count,remainingMessages.size());
     }
 
+    public void testIteratorAfterEntryId()
+    {
+        final SimpleQueueEntryList queueEntryList = new SimpleQueueEntryList(_testQueue);
+        final int numberOfEntries = 600;
+        final SimpleQueueEntryImpl[] entries = new SimpleQueueEntryImpl[numberOfEntries + 1];
+        for(int i = 1; i <= numberOfEntries; i++)
+        {
+            ServerMessage message =  mock(ServerMessage.class);
+            when(message.getMessageNumber()).thenReturn((long)i);
+            final MessageReference reference = mock(MessageReference.class);
+            when(reference.getMessage()).thenReturn(message);
+            when(message.newReference()).thenReturn(reference);
+            entries[i] = queueEntryList.add(message);
+            assertEquals("Unexpected entry id", (long) i, entries[i].getEntryId());
+        }
+
+        QueueEntryIterator<SimpleQueueEntryImpl> iterator = queueEntryList.iterator(0l);
+        assertTrue("Iterator should have an entry", iterator.advance());
+        assertEquals("Iterator from 0 should start at the first entry", entries[1], iterator.getNode());
+
+        iterator = queueEntryList.iterator(300l);
+        assertTrue("Iterator should have an entry", iterator.advance());
+        assertEquals("Unexpected entry after id 300", entries[301], iterator.getNode());
+
+        // delete an indexed entry and the entries either side of it
+        for(int i = 255; i <= 257; i++)
+        {
+            entries[i].acquire();
+            entries[i].delete();
+        }
+
+        iterator = queueEntryList.iterator(256l);
+        assertTrue("Iterator should have an entry", iterator.advance());
+        assertEquals("Unexpected entry after deleted id 256", entries[258], iterator.getNode());
+
+        iterator = queueEntryList.iterator(254l);
+        assertTrue("Iterator should have an entry", iterator.advance());
+        assertEquals("Deleted entries should be skipped", entries[258], iterator.getNode());
+
+        iterator = queueEntryList.iterator((long) numberOfEntries);
+        assertFalse("Iterator after the last entry should be exhausted", iterator.advance());
+    }
+
     public void testGettingNextElement()
     {
         final int numberOfEntries = 5;
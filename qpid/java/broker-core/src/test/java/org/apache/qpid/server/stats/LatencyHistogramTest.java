@@ -0,0 +1,116 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.stats;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for the {@link LatencyHistogram} class.
+ */
+public class LatencyHistogramTest extends TestCase
+{
+    public void testEmptyHistogram()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getValueAtPercentile(50.0));
+    }
+
+    public void testSmallValuesAreExact()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 4; i++)
+        {
+            histogram.record(i);
+        }
+        assertEquals(4L, histogram.getCount());
+        assertEquals(2L, histogram.getValueAtPercentile(50.0));
+        assertEquals(4L, histogram.getValueAtPercentile(100.0));
+    }
+
+    public void testPercentiles()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++)
+        {
+            histogram.record(i);
+        }
+
+        assertWithinPrecision(500L, histogram.getValueAtPercentile(50.0));
+        assertWithinPrecision(990L, histogram.getValueAtPercentile(99.0));
+        assertWithinPrecision(999L, histogram.getValueAtPercentile(99.9));
+    }
+
+    public void testBucketBoundsCoverValue()
+    {
+        long[] values = {0L, 7L, 8L, 9L, 15L, 16L, 1000L, 123456789L, Long.MAX_VALUE};
+        for (long value : values)
+        {
+            int bucket = LatencyHistogram.getBucket(value);
+            long upper = LatencyHistogram.getBucketUpperBound(bucket);
+            assertTrue("Upper bound " + upper + " below value " + value, upper >= value);
+            assertTrue("Upper bound " + upper + " too far above value " + value, upper - value <= value / 8);
+        }
+    }
+
+    public void testValuesRecordedByManyThreadsAreSummed() throws Exception
+    {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++)
+        {
+            final long value = i + 1;
+            threads[i] = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    for (int j = 0; j < 1000; j++)
+                    {
+                        histogram.record(value);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertEquals(8000L, histogram.getCount());
+        assertEquals(4L, histogram.getValueAtPercentile(50.0));
+        assertEquals(8L, histogram.getValueAtPercentile(100.0));
+    }
+
+    public void testReset()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10L);
+        histogram.reset();
+        assertEquals(0L, histogram.getCount());
+    }
+
+    private void assertWithinPrecision(long expected, long actual)
+    {
+        assertTrue("Expected approximately " + expected + " but was " + actual,
+                   actual >= expected && actual <= expected + expected / 8);
+    }
+}
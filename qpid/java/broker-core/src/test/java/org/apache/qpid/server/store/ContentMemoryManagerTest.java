@@ -0,0 +1,90 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store;
+
+import java.nio.ByteBuffer;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class ContentMemoryManagerTest extends QpidTestCase
+{
+    public void testAllocateRoundsUpToSizeClass()
+    {
+        ContentMemoryManager manager = new ContentMemoryManager(1024, 4096, false);
+
+        ByteBuffer buffer = manager.allocate(200);
+
+        assertEquals("Unexpected limit", 200, buffer.limit());
+        assertEquals("Unexpected position", 0, buffer.position());
+        assertEquals("Unexpected capacity", 256, buffer.capacity());
+        assertEquals("Unexpected capacity of smallest buffer", 64, manager.allocate(1).capacity());
+    }
+
+    public void testAllocateBeyondLargestSizeClassIsExact()
+    {
+        ContentMemoryManager manager = new ContentMemoryManager(1024, 4096, false);
+
+        ByteBuffer buffer = manager.allocate(1500);
+
+        assertEquals("Unexpected capacity", 1500, buffer.capacity());
+        manager.release(buffer);
+        assertEquals("Unpooled buffer should not be retained", 0, manager.getPooledBytes());
+    }
+
+    public void testReleasedBufferIsReused()
+    {
+        ContentMemoryManager manager = new ContentMemoryManager(1024, 4096, false);
+
+        ByteBuffer buffer = manager.allocate(200);
+        buffer.put((byte) 1);
+        manager.release(buffer);
+        assertEquals("Unexpected pooled bytes", 256, manager.getPooledBytes());
+
+        ByteBuffer reused = manager.allocate(130);
+        assertSame("Buffer should have been reused", buffer, reused);
+        assertEquals("Unexpected limit", 130, reused.limit());
+        assertEquals("Unexpected position", 0, reused.position());
+        assertEquals("Unexpected pooled bytes", 0, manager.getPooledBytes());
+    }
+
+    public void testPoolCapacityIsBounded()
+    {
+        ContentMemoryManager manager = new ContentMemoryManager(1024, 512, false);
+
+        ByteBuffer buffer1 = manager.allocate(256);
+        ByteBuffer buffer2 = manager.allocate(256);
+        ByteBuffer buffer3 = manager.allocate(256);
+        manager.release(buffer1);
+        manager.release(buffer2);
+        manager.release(buffer3);
+
+        assertEquals("Unexpected pooled bytes", 512, manager.getPooledBytes());
+    }
+
+    public void testDirectAllocation()
+    {
+        ContentMemoryManager manager = new ContentMemoryManager(1024, 4096, true);
+
+        assertTrue("Expected direct buffer", manager.allocate(100).isDirect());
+        manager.release(ByteBuffer.allocate(128));
+        assertEquals("Heap buffer should not be pooled by direct manager", 0, manager.getPooledBytes());
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+import org.apache.qpid.util.FileUtils;
+
+public class ContentSpillFileTest extends QpidTestCase
+{
+    private File _spillDirectory;
+    private ContentSpillFile _spillFile;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        _spillDirectory = new File(TMP_FOLDER, getTestName());
+        _spillFile = new ContentSpillFile(_spillDirectory, "test");
+    }
+
+    @Override
+    public void tearDown() throws Exception
+    {
+        try
+        {
+            _spillFile.close();
+            FileUtils.delete(_spillDirectory, true);
+        }
+        finally
+        {
+            super.tearDown();
+        }
+    }
+
+    public void testReleasedRegionIsReused()
+    {
+        final long first = _spillFile.write(createContent(100, (byte) 1));
+        _spillFile.write(createContent(100, (byte) 2));
+        _spillFile.release(first, 100);
+
+        final long reused = _spillFile.write(createContent(60, (byte) 3));
+        assertEquals("Released region should have been reused", first, reused);
+        assertEquals("Unexpected file length", 200, _spillFile.getLength());
+
+        assertEquals("Remainder of the released region should have been reused", 60,
+                     _spillFile.write(createContent(40, (byte) 4)));
+        assertEquals("Unexpected file length", 200, _spillFile.getLength());
+        assertEquals("Unexpected live bytes", 200, _spillFile.getLiveBytes());
+
+        assertContent(reused, 60, (byte) 3);
+        assertContent(100, 100, (byte) 2);
+    }
+
+    public void testAdjacentReleasedRegionsAreMerged()
+    {
+        final long first = _spillFile.write(createContent(50, (byte) 1));
+        final long second = _spillFile.write(createContent(50, (byte) 2));
+        final long third = _spillFile.write(createContent(50, (byte) 3));
+        _spillFile.write(createContent(50, (byte) 4));
+
+        _spillFile.release(first, 50);
+        _spillFile.release(third, 50);
+        _spillFile.release(second, 50);
+
+        assertEquals("Merged regions should have been reused", first, _spillFile.write(createContent(150, (byte) 5)));
+        assertEquals("Unexpected file length", 200, _spillFile.getLength());
+        assertContent(first, 150, (byte) 5);
+    }
+
+    public void testReleasedRegionsAtTheEndAreTruncated()
+    {
+        _spillFile.write(createContent(50, (byte) 1));
+        final long second = _spillFile.write(createContent(50, (byte) 2));
+        final long third = _spillFile.write(createContent(50, (byte) 3));
+
+        _spillFile.release(second, 50);
+        assertEquals("Unexpected file length", 150, _spillFile.getLength());
+
+        _spillFile.release(third, 50);
+        assertEquals("Free regions at the end should have been truncated", 50, _spillFile.getLength());
+        assertEquals("Unexpected live bytes", 50, _spillFile.getLiveBytes());
+
+        assertEquals("Unexpected write position", 50, _spillFile.write(createContent(10, (byte) 4)));
+    }
+
+    private void assertContent(long position, int length, byte expected)
+    {
+        ByteBuffer dst = ByteBuffer.allocate(length);
+        assertEquals("Unexpected number of bytes read", length, _spillFile.read(position, length, dst));
+        for(int i = 0; i < length; i++)
+        {
+            assertEquals("Unexpected content at " + (position + i), expected, dst.get(i));
+        }
+    }
+
+    private ByteBuffer createContent(int size, byte value)
+    {
+        byte[] content = new byte[size];
+        java.util.Arrays.fill(content, value);
+        return ByteBuffer.wrap(content);
+    }
+}
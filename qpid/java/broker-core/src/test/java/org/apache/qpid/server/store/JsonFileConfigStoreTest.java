@@ -21,11 +21,18 @@
 package org.apache.qpid.server.store;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import org.apache.qpid.AMQStoreException;
+import org.apache.qpid.server.configuration.BrokerProperties;
 import org.apache.qpid.server.model.Binding;
 import org.apache.qpid.server.model.Queue;
 import org.apache.qpid.server.model.VirtualHost;
@@ -67,13 +74,22 @@ public class JsonFileConfigStoreTest extends QpidTestCase
 
     private void removeStoreFile()
     {
-        File file = new File(TMP_FOLDER, getName() + ".json");
-        if(file.exists())
+        for(String fileName : new String[] { getName() + ".json", getName() + ".journal",
+                                             getCopyName() + ".json", getCopyName() + ".journal" })
         {
-            file.delete();
+            File file = new File(TMP_FOLDER, fileName);
+            if(file.exists())
+            {
+                file.delete();
+            }
         }
     }
 
+    private String getCopyName()
+    {
+        return getName() + "Copy";
+    }
+
     public void testNoStorePath() throws Exception
     {
         when(_virtualHost.getAttribute(VirtualHost.CONFIG_STORE_PATH)).thenReturn(null);
@@ -296,4 +312,195 @@ public class JsonFileConfigStoreTest extends QpidTestCase
 
     }
 
+    public void testJournaledChangesDoNotRewriteConfigFile() throws Exception
+    {
+        setTestSystemProperty(BrokerProperties.PROPERTY_JSON_CONFIG_STORE_COMPACTION_THRESHOLD, "100");
+        _store.configureConfigStore(_virtualHost, _recoveryHandler);
+        final byte[] initialConfig = readFile(getName() + ".json");
+        final UUID queueId = new UUID(0, 1);
+        final Map<String,Object> queueAttr = Collections.singletonMap("name", (Object) "q1");
+
+        _store.create(queueId, "Queue", queueAttr);
+
+        assertTrue("Config file should not have been rewritten",
+                   Arrays.equals(initialConfig, readFile(getName() + ".json")));
+        assertTrue("Change should have been appended to the journal", readFile(getName() + ".journal").length > 0);
+
+        _store.close();
+        assertEquals("Journal should have been compacted on close", 0, readFile(getName() + ".journal").length);
+
+        _store.configureConfigStore(_virtualHost, _recoveryHandler);
+        verify(_recoveryHandler).configuredObject(eq(queueId), eq("Queue"), eq(queueAttr));
+        _store.close();
+    }
+
+    public void testJournalIsReplayedOnRecovery() throws Exception
+    {
+        setTestSystemProperty(BrokerProperties.PROPERTY_JSON_CONFIG_STORE_COMPACTION_THRESHOLD, "100");
+        _store.configureConfigStore(_virtualHost, _recoveryHandler);
+        final UUID queueId = new UUID(0, 1);
+        final UUID queue2Id = new UUID(1, 1);
+        final UUID exchangeId = new UUID(0, 2);
+        final UUID bindingId = new UUID(0, 3);
+        Map<String,Object> queueAttr = Collections.singletonMap("name", (Object) "q1");
+        final Map<String, Object> bindingAttributes = new HashMap<String, Object>();
+        bindingAttributes.put(Binding.EXCHANGE, exchangeId);
+        bindingAttributes.put(Binding.QUEUE, queueId);
+
+        _store.create(queueId, "Queue", queueAttr);
+        _store.create(queue2Id, "Queue", queueAttr);
+        _store.create(exchangeId, "Exchange", Collections.<String, Object>emptyMap());
+        _store.create(bindingId, "Binding", bindingAttributes);
+        _store.remove(queue2Id, "Queue");
+        queueAttr = new HashMap<String,Object>(queueAttr);
+        queueAttr.put("owner", "theowner");
+        _store.update(queueId, "Queue", queueAttr);
+
+        // recover a copy of the files as they would be left had the broker stopped without closing the store
+        copyFile(getName() + ".json", getCopyName() + ".json");
+        copyFile(getName() + ".journal", getCopyName() + ".journal");
+        _store.close();
+
+        VirtualHost copyVirtualHost = mock(VirtualHost.class);
+        when(copyVirtualHost.getName()).thenReturn(getCopyName());
+        when(copyVirtualHost.getAttribute(VirtualHost.CONFIG_STORE_PATH)).thenReturn(TMP_FOLDER);
+        ConfigurationRecoveryHandler copyRecoveryHandler = mock(ConfigurationRecoveryHandler.class);
+        JsonFileConfigStore copyStore = new JsonFileConfigStore();
+        copyStore.configureConfigStore(copyVirtualHost, copyRecoveryHandler);
+
+        verify(copyRecoveryHandler).configuredObject(eq(queueId), eq("Queue"), eq(queueAttr));
+        verify(copyRecoveryHandler).configuredObject(eq(bindingId), eq("Binding"), eq(bindingAttributes));
+        verify(copyRecoveryHandler, never()).configuredObject(eq(queue2Id), anyString(), anyMap());
+        assertEquals("Journal should have been compacted after recovery",
+                     0, readFile(getCopyName() + ".journal").length);
+        copyStore.close();
+    }
+
+    public void testIncompleteFinalJournalRecordIsIgnoredOnRecovery() throws Exception
+    {
+        setTestSystemProperty(BrokerProperties.PROPERTY_JSON_CONFIG_STORE_COMPACTION_THRESHOLD, "100");
+        _store.configureConfigStore(_virtualHost, _recoveryHandler);
+        final UUID queueId = new UUID(0, 1);
+        final UUID queue2Id = new UUID(1, 1);
+        final Map<String,Object> queueAttr = Collections.singletonMap("name", (Object) "q1");
+
+        _store.create(queueId, "Queue", queueAttr);
+        _store.create(queue2Id, "Queue", queueAttr);
+
+        // recover a copy of the files as they would be left had the broker stopped part way through the last append
+        copyFile(getName() + ".json", getCopyName() + ".json");
+        copyFile(getName() + ".journal", getCopyName() + ".journal", 5);
+        _store.close();
+
+        ConfigurationRecoveryHandler copyRecoveryHandler = mock(ConfigurationRecoveryHandler.class);
+        JsonFileConfigStore copyStore = createCopyStore(copyRecoveryHandler);
+
+        verify(copyRecoveryHandler).configuredObject(eq(queueId), eq("Queue"), eq(queueAttr));
+        verify(copyRecoveryHandler, never()).configuredObject(eq(queue2Id), anyString(), anyMap());
+        assertEquals("Journal should have been compacted after recovery",
+                     0, readFile(getCopyName() + ".journal").length);
+        copyStore.close();
+    }
+
+    public void testJournalHoldingOnlyAnIncompleteRecordIsTruncatedOnRecovery() throws Exception
+    {
+        setTestSystemProperty(BrokerProperties.PROPERTY_JSON_CONFIG_STORE_COMPACTION_THRESHOLD, "100");
+        _store.configureConfigStore(_virtualHost, _recoveryHandler);
+        final UUID queueId = new UUID(0, 1);
+        final UUID queue2Id = new UUID(1, 1);
+        final Map<String,Object> queueAttr = Collections.singletonMap("name", (Object) "q1");
+
+        _store.create(queueId, "Queue", queueAttr);
+
+        copyFile(getName() + ".json", getCopyName() + ".json");
+        copyFile(getName() + ".journal", getCopyName() + ".journal", 5);
+        _store.close();
+
+        ConfigurationRecoveryHandler copyRecoveryHandler = mock(ConfigurationRecoveryHandler.class);
+        JsonFileConfigStore copyStore = createCopyStore(copyRecoveryHandler);
+
+        verify(copyRecoveryHandler, never()).configuredObject(eq(queueId), anyString(), anyMap());
+        assertEquals("Incomplete record should have been removed from the journal",
+                     0, readFile(getCopyName() + ".journal").length);
+
+        // a record appended after recovery must not be merged with the remains of the incomplete one
+        copyStore.create(queue2Id, "Queue", queueAttr);
+        copyFile(getCopyName() + ".json", getName() + ".json");
+        copyFile(getCopyName() + ".journal", getName() + ".journal");
+        copyStore.close();
+
+        ConfigurationRecoveryHandler recoveryHandler = mock(ConfigurationRecoveryHandler.class);
+        _store = new JsonFileConfigStore();
+        _store.configureConfigStore(_virtualHost, recoveryHandler);
+        verify(recoveryHandler).configuredObject(eq(queue2Id), eq("Queue"), eq(queueAttr));
+        _store.close();
+    }
+
+    public void testJournalIsCompactedAtThreshold() throws Exception
+    {
+        setTestSystemProperty(BrokerProperties.PROPERTY_JSON_CONFIG_STORE_COMPACTION_THRESHOLD, "2");
+        _store.configureConfigStore(_virtualHost, _recoveryHandler);
+        final Map<String, Object> EMPTY_ATTR = Collections.emptyMap();
+
+        _store.create(new UUID(0, 1), "Queue", EMPTY_ATTR);
+        assertTrue("First change should have been journaled", readFile(getName() + ".journal").length > 0);
+
+        _store.create(new UUID(1, 1), "Queue", EMPTY_ATTR);
+        assertEquals("Journal should have been compacted", 0, readFile(getName() + ".journal").length);
+        _store.close();
+    }
+
+    private byte[] readFile(String fileName) throws IOException
+    {
+        File file = new File(TMP_FOLDER, fileName);
+        byte[] data = new byte[(int) file.length()];
+        InputStream in = new FileInputStream(file);
+        try
+        {
+            int offset = 0;
+            int read;
+            while(offset < data.length && (read = in.read(data, offset, data.length - offset)) != -1)
+            {
+                offset += read;
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+        return data;
+    }
+
+    private JsonFileConfigStore createCopyStore(ConfigurationRecoveryHandler recoveryHandler) throws Exception
+    {
+        VirtualHost copyVirtualHost = mock(VirtualHost.class);
+        when(copyVirtualHost.getName()).thenReturn(getCopyName());
+        when(copyVirtualHost.getAttribute(VirtualHost.CONFIG_STORE_PATH)).thenReturn(TMP_FOLDER);
+        JsonFileConfigStore copyStore = new JsonFileConfigStore();
+        copyStore.configureConfigStore(copyVirtualHost, recoveryHandler);
+        return copyStore;
+    }
+
+    private void copyFile(String fromFileName, String toFileName) throws IOException
+    {
+        copyFile(fromFileName, toFileName, 0);
+    }
+
+    /**
+     * Copies a file, leaving off the given number of bytes from its end.
+     */
+    private void copyFile(String fromFileName, String toFileName, int truncateBy) throws IOException
+    {
+        OutputStream out = new FileOutputStream(new File(TMP_FOLDER, toFileName));
+        try
+        {
+            final byte[] data = readFile(fromFileName);
+            out.write(data, 0, data.length - truncateBy);
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
 }
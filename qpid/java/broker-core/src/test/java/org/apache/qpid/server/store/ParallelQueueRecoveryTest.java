@@ -0,0 +1,118 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.qpid.AMQStoreException;
+import org.apache.qpid.server.configuration.BrokerProperties;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class ParallelQueueRecoveryTest extends QpidTestCase
+{
+    private List<UUID> _queueIds;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        setTestSystemProperty(BrokerProperties.PROPERTY_STORE_RECOVERY_THREADS, "4");
+        _queueIds = new ArrayList<UUID>();
+        for(int i = 0; i < 10; i++)
+        {
+            _queueIds.add(UUID.randomUUID());
+        }
+    }
+
+    public void testEnabledOnlyWithMoreThanOneThread()
+    {
+        assertTrue("Recovery should be parallel with 4 threads", ParallelQueueRecovery.isEnabled());
+        setTestSystemProperty(BrokerProperties.PROPERTY_STORE_RECOVERY_THREADS, "1");
+        assertFalse("Recovery should be sequential with 1 thread", ParallelQueueRecovery.isEnabled());
+    }
+
+    public void testEachQueueRecoveredOnce() throws Exception
+    {
+        final ConcurrentHashMap<UUID, Boolean> recoveredQueues = new ConcurrentHashMap<UUID, Boolean>();
+
+        ParallelQueueRecovery.recoverQueues("test", _queueIds, new ParallelQueueRecovery.QueueRecoveryTask()
+        {
+            @Override
+            public void recover(UUID queueId)
+            {
+                assertNull("Queue " + queueId + " recovered more than once",
+                           recoveredQueues.putIfAbsent(queueId, Boolean.TRUE));
+            }
+        });
+
+        assertEquals("Unexpected number of recovered queues", _queueIds.size(), recoveredQueues.size());
+        assertTrue("Not all queues recovered", recoveredQueues.keySet().containsAll(_queueIds));
+    }
+
+    public void testFailureIsPropagated() throws Exception
+    {
+        final UUID failingQueue = _queueIds.get(3);
+        final AMQStoreException failure = new AMQStoreException("test failure");
+        try
+        {
+            ParallelQueueRecovery.recoverQueues("test", _queueIds, new ParallelQueueRecovery.QueueRecoveryTask()
+            {
+                @Override
+                public void recover(UUID queueId) throws AMQStoreException
+                {
+                    if(queueId.equals(failingQueue))
+                    {
+                        throw failure;
+                    }
+                }
+            });
+            fail("Exception not thrown");
+        }
+        catch(AMQStoreException e)
+        {
+            assertSame("Unexpected exception", failure, e);
+        }
+    }
+
+    public void testCheckedExceptionIsWrapped() throws Exception
+    {
+        final Exception failure = new Exception("test failure");
+        try
+        {
+            ParallelQueueRecovery.recoverQueues("test", _queueIds, new ParallelQueueRecovery.QueueRecoveryTask()
+            {
+                @Override
+                public void recover(UUID queueId) throws Exception
+                {
+                    throw failure;
+                }
+            });
+            fail("Exception not thrown");
+        }
+        catch(AMQStoreException e)
+        {
+            assertSame("Unexpected cause", failure, e.getCause());
+        }
+    }
+}
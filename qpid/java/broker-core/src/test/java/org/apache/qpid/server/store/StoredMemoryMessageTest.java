@@ -0,0 +1,211 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.store;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+import org.apache.qpid.util.FileUtils;
+
+public class StoredMemoryMessageTest extends QpidTestCase
+{
+    private File _spillDirectory;
+    private ContentSpillFile _spillFile;
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        _spillDirectory = new File(TMP_FOLDER, getTestName());
+        _spillFile = new ContentSpillFile(_spillDirectory, "test");
+    }
+
+    @Override
+    public void tearDown() throws Exception
+    {
+        try
+        {
+            _spillFile.close();
+            FileUtils.delete(_spillDirectory, true);
+        }
+        finally
+        {
+            super.tearDown();
+        }
+    }
+
+    public void testContentIsReadableAfterFlowToDisk()
+    {
+        byte[] content = createContent(1000);
+        StoredMemoryMessage message = createMessage(content);
+
+        assertTrue("Message should be in memory", message.isInMemory());
+        assertEquals("Unexpected number of bytes flowed", content.length, message.flowToDisk(_spillFile));
+        assertFalse("Message should no longer be in memory", message.isInMemory());
+        assertEquals("Unexpected live bytes in spill file", content.length, _spillFile.getLiveBytes());
+
+        ByteBuffer dst = ByteBuffer.allocate(content.length);
+        assertEquals("Unexpected number of bytes read", content.length, message.getContent(0, dst));
+        dst.flip();
+        byte[] read = new byte[content.length];
+        dst.get(read);
+        assertTrue("Unexpected content", java.util.Arrays.equals(content, read));
+
+        ByteBuffer partial = message.getContent(100, 50);
+        assertEquals("Unexpected partial content length", 50, partial.remaining());
+        assertEquals("Unexpected partial content", content[100], partial.get(0));
+    }
+
+    public void testFlowToDiskIsIdempotent()
+    {
+        StoredMemoryMessage message = createMessage(createContent(10));
+
+        assertEquals("Unexpected number of bytes flowed", 10, message.flowToDisk(_spillFile));
+        assertEquals("Content should only be flowed once", 0, message.flowToDisk(_spillFile));
+        assertEquals("Unexpected live bytes in spill file", 10, _spillFile.getLiveBytes());
+    }
+
+    public void testRemoveReleasesSpillFileSpace()
+    {
+        StoredMemoryMessage message1 = createMessage(createContent(10));
+        StoredMemoryMessage message2 = createMessage(createContent(20));
+        message1.flowToDisk(_spillFile);
+        message2.flowToDisk(_spillFile);
+        assertEquals("Unexpected live bytes in spill file", 30, _spillFile.getLiveBytes());
+
+        message1.remove();
+        assertEquals("Unexpected live bytes in spill file", 20, _spillFile.getLiveBytes());
+        message2.remove();
+        assertEquals("Unexpected live bytes in spill file", 0, _spillFile.getLiveBytes());
+    }
+
+    public void testInMemoryContentSizeExcludesFlowedAndRemovedContent()
+    {
+        InMemoryContentSize inMemoryContentSize = new InMemoryContentSize();
+        StoredMemoryMessage message1 = new StoredMemoryMessage(1l, new TestMessageMetaData(1l, 10), inMemoryContentSize);
+        StoredMemoryMessage message2 = new StoredMemoryMessage(2l, new TestMessageMetaData(2l, 20), inMemoryContentSize);
+        message1.addContent(0, ByteBuffer.wrap(createContent(10)));
+        message2.addContent(0, ByteBuffer.wrap(createContent(5)));
+        message2.addContent(5, ByteBuffer.wrap(createContent(15)));
+        assertEquals("Unexpected in-memory content size", 30, inMemoryContentSize.get());
+
+        message1.flowToDisk(_spillFile);
+        assertEquals("Flowed content should no longer be in memory", 20, inMemoryContentSize.get());
+
+        message1.remove();
+        assertEquals("Unexpected in-memory content size", 20, inMemoryContentSize.get());
+        message2.remove();
+        assertEquals("Removed content should no longer be in memory", 0, inMemoryContentSize.get());
+    }
+
+    public void testContentIsCopiedCompactly()
+    {
+        byte[] received = createContent(1000);
+        ContentMemoryManager manager = new ContentMemoryManager(1024, 4096, false);
+        StoredMemoryMessage message = new StoredMemoryMessage(1l, new TestMessageMetaData(1l, 200), manager);
+
+        message.addContent(0, ByteBuffer.wrap(received, 100, 120));
+        message.addContent(120, ByteBuffer.wrap(received, 220, 80));
+        received[100] = 0;
+
+        ByteBuffer content = message.getContent(0, 500);
+        assertEquals("Unexpected content length", 200, content.remaining());
+        assertFalse("Content should not share the receive buffer", content.hasArray() && content.array() == received);
+        assertEquals("Unexpected content", (byte) 100, content.get(0));
+        assertEquals("Unexpected content", (byte) 250, content.get(150));
+
+        ByteBuffer dst = ByteBuffer.allocate(50);
+        assertEquals("Unexpected number of bytes read", 50, message.getContent(120, dst));
+        assertEquals("Unexpected content", (byte) 220, dst.get(0));
+    }
+
+    public void testRemoveReleasesContentToMemoryManager()
+    {
+        ContentMemoryManager manager = new ContentMemoryManager(1024, 4096, false);
+        StoredMemoryMessage message = new StoredMemoryMessage(1l, new TestMessageMetaData(1l, 10), manager);
+        message.addContent(0, ByteBuffer.wrap(createContent(10)));
+
+        message.remove();
+
+        assertEquals("Content should have been returned to the pool", 64, manager.getPooledBytes());
+    }
+
+    public void testSharedContentIsReleasedToMemoryManagerOnRemove()
+    {
+        ContentMemoryManager manager = new ContentMemoryManager(1024, 4096, false);
+        StoredMemoryMessage message = new StoredMemoryMessage(1l, new TestMessageMetaData(1l, 10), manager);
+        message.addContent(0, ByteBuffer.wrap(createContent(10)));
+
+        ByteBuffer view = message.getContent(0, 10);
+        ByteBuffer other = message.getContent(5, 5);
+        assertEquals("Shared content should not have been returned to the pool", 0, manager.getPooledBytes());
+        assertEquals("Unexpected content", (byte) 9, view.get(9));
+        assertEquals("Unexpected content", (byte) 5, other.get(0));
+
+        message.remove();
+        assertEquals("Content should have been returned to the pool", 64, manager.getPooledBytes());
+    }
+
+    public void testFlowToDiskDoesNotReleaseSharedContentToMemoryManager()
+    {
+        ContentMemoryManager manager = new ContentMemoryManager(1024, 4096, false);
+        StoredMemoryMessage message = new StoredMemoryMessage(1l, new TestMessageMetaData(1l, 10), manager);
+        message.addContent(0, ByteBuffer.wrap(createContent(10)));
+        ByteBuffer view = message.getContent(0, 10);
+
+        message.flowToDisk(_spillFile);
+        assertEquals("Shared content must not be returned to the pool", 0, manager.getPooledBytes());
+        assertEquals("Unexpected content", (byte) 9, view.get(9));
+
+        message.remove();
+        assertEquals("Shared content must not be returned to the pool", 0, manager.getPooledBytes());
+    }
+
+    public void testFlowToDiskReleasesContentToMemoryManager()
+    {
+        ContentMemoryManager manager = new ContentMemoryManager(1024, 4096, false);
+        StoredMemoryMessage message = new StoredMemoryMessage(1l, new TestMessageMetaData(1l, 10), manager);
+        message.addContent(0, ByteBuffer.wrap(createContent(10)));
+
+        message.flowToDisk(_spillFile);
+
+        assertEquals("Content should have been returned to the pool", 64, manager.getPooledBytes());
+        assertEquals("Unexpected content", (byte) 9, message.getContent(0, 10).get(9));
+    }
+
+    private StoredMemoryMessage createMessage(byte[] content)
+    {
+        StoredMemoryMessage message = new StoredMemoryMessage(1l, new TestMessageMetaData(1l, content.length));
+        message.addContent(0, ByteBuffer.wrap(content));
+        return message;
+    }
+
+    private byte[] createContent(int size)
+    {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++)
+        {
+            content[i] = (byte) i;
+        }
+        return content;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.subscription;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.qpid.server.message.AMQMessageHeader;
+import org.apache.qpid.server.message.MessageReference;
+import org.apache.qpid.server.message.ServerMessage;
+import org.apache.qpid.server.queue.MockAMQQueue;
+import org.apache.qpid.server.queue.QueueEntry;
+import org.apache.qpid.server.queue.SimpleQueueEntryList;
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class DefinedGroupMessageGroupManagerTest extends QpidTestCase
+{
+    private static final String GROUP_HEADER = "group";
+    private static final String DEFAULT_GROUP = "default";
+
+    private final List<QueueEntry> _resetEntries = new ArrayList<QueueEntry>();
+    private SimpleQueueEntryList _entries;
+    private DefinedGroupMessageGroupManager _manager;
+    private MockSubscription _sub1;
+    private MockSubscription _sub2;
+    private long _messageNumber;
+
+    @Override
+    protected void setUp() throws Exception
+    {
+        super.setUp();
+        _entries = new SimpleQueueEntryList(new MockAMQQueue(getTestName()));
+        _manager = new DefinedGroupMessageGroupManager(GROUP_HEADER, DEFAULT_GROUP,
+                new MessageGroupManager.SubscriptionResetHelper()
+                {
+                    public void resetSubPointersForGroups(Subscription subscription, boolean clearAssignments)
+                    {
+                        fail("Releasing a group should not require a scan for the subscription's groups");
+                    }
+
+                    public void resetSubPointers(QueueEntry entry)
+                    {
+                        _resetEntries.add(entry);
+                    }
+
+                    public boolean isEntryAheadOfSubscription(QueueEntry entry, Subscription sub)
+                    {
+                        return false;
+                    }
+                });
+        _sub1 = new MockSubscription();
+        _sub2 = new MockSubscription();
+    }
+
+    public void testGroupIsAssignedToFirstAcceptingSubscription()
+    {
+        QueueEntry a1 = addEntry("A");
+        QueueEntry a2 = addEntry("A");
+        QueueEntry b1 = addEntry("B");
+
+        assertTrue("First entry of group A should be accepted", _manager.acceptMessage(_sub1, a1));
+        assertTrue("Entry should have been acquired", a1.isAcquiredBy(_sub1));
+
+        assertSame("Unexpected owner of group A", _sub1, _manager.getAssignedSubscription(a2));
+        assertTrue("Owner should be able to take further entries", _manager.mightAssign(_sub1, a2));
+        assertFalse("Other subscription should pass over entries of group A", _manager.mightAssign(_sub2, a2));
+        assertFalse("Other subscription should not be able to accept entries of group A",
+                    _manager.acceptMessage(_sub2, a2));
+
+        assertTrue("Unassigned group should be free", _manager.mightAssign(_sub2, b1));
+        assertTrue("Entry of group B should be accepted", _manager.acceptMessage(_sub2, b1));
+        assertSame("Unexpected owner of group B", _sub2, _manager.getAssignedSubscription(b1));
+    }
+
+    public void testReleasedGroupOffersOnlyItsEarliestSkippedEntry()
+    {
+        QueueEntry a1 = addEntry("A");
+        QueueEntry a2 = addEntry("A");
+        QueueEntry a3 = addEntry("A");
+        QueueEntry b1 = addEntry("B");
+
+        assertTrue(_manager.acceptMessage(_sub1, a1));
+        assertTrue(_manager.acceptMessage(_sub1, b1));
+        assertFalse(_manager.mightAssign(_sub2, a3));
+        assertFalse(_manager.mightAssign(_sub2, a2));
+
+        a1.release();
+
+        assertEquals("Only the earliest skipped entry of the released group should be offered again",
+                     1, _resetEntries.size());
+        assertSame("Unexpected entry offered again", a2, _resetEntries.get(0));
+        assertNull("Group A should no longer be assigned", _manager.getAssignedSubscription(a2));
+        assertSame("Group B should remain assigned", _sub1, _manager.getAssignedSubscription(b1));
+
+        assertTrue("Released group should be claimed by the next subscription", _manager.acceptMessage(_sub2, a1));
+        assertSame("Unexpected owner of group A", _sub2, _manager.getAssignedSubscription(a3));
+    }
+
+    public void testEntriesTakenByOwnerAreNotOfferedAgain()
+    {
+        QueueEntry a1 = addEntry("A");
+        QueueEntry a2 = addEntry("A");
+
+        assertTrue(_manager.acceptMessage(_sub1, a1));
+        assertFalse(_manager.mightAssign(_sub2, a2));
+        assertTrue(_manager.acceptMessage(_sub1, a2));
+
+        a1.delete();
+        assertNotNull("Group should remain assigned while the owner holds an entry",
+                      _manager.getAssignedSubscription(a2));
+        a2.delete();
+
+        assertTrue("No entry should have been offered again", _resetEntries.isEmpty());
+        assertNull("Group should have been released", _manager.getAssignedSubscription(a2));
+    }
+
+    public void testEntriesWithoutGroupHeaderShareTheDefaultGroup()
+    {
+        QueueEntry entry1 = addEntry(null);
+        QueueEntry entry2 = addEntry(null);
+
+        assertTrue(_manager.acceptMessage(_sub1, entry1));
+        assertFalse("Entries without a group should belong to the default group",
+                    _manager.mightAssign(_sub2, entry2));
+    }
+
+    public void testFindEarliestAssignedAvailableEntry()
+    {
+        QueueEntry a1 = addEntry("A");
+        QueueEntry b1 = addEntry("B");
+        QueueEntry b2 = addEntry("B");
+        QueueEntry a2 = addEntry("A");
+
+        assertTrue(_manager.acceptMessage(_sub1, a1));
+        assertTrue(_manager.acceptMessage(_sub1, b1));
+        assertNull("No entries have been passed over", _manager.findEarliestAssignedAvailableEntry(_sub1));
+
+        assertFalse(_manager.mightAssign(_sub2, a2));
+        assertFalse(_manager.mightAssign(_sub2, b2));
+
+        assertSame("Unexpected earliest entry", b2, _manager.findEarliestAssignedAvailableEntry(_sub1));
+        assertNull("Subscription owns no groups", _manager.findEarliestAssignedAvailableEntry(_sub2));
+    }
+
+    private QueueEntry addEntry(String group)
+    {
+        AMQMessageHeader header = mock(AMQMessageHeader.class);
+        when(header.getHeader(GROUP_HEADER)).thenReturn(group);
+
+        ServerMessage message = mock(ServerMessage.class);
+        when(message.getMessageNumber()).thenReturn(++_messageNumber);
+        when(message.getMessageHeader()).thenReturn(header);
+
+        MessageReference reference = mock(MessageReference.class);
+        when(reference.getMessage()).thenReturn(message);
+        when(message.newReference()).thenReturn(reference);
+
+        return _entries.add(message);
+    }
+}
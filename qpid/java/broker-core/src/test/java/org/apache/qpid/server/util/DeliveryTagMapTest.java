@@ -0,0 +1,145 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class DeliveryTagMapTest extends QpidTestCase
+{
+    private DeliveryTagMap<String> _map = new DeliveryTagMap<String>(4);
+
+    public void testPutGetRemove()
+    {
+        for (long tag = 1; tag <= 100; tag++)
+        {
+            assertNull("Unexpected previous value", _map.put(tag, "v" + tag));
+        }
+        assertEquals("Unexpected size", 100, _map.size());
+        assertEquals("Unexpected value", "v50", _map.get(50));
+        assertNull("Unexpected value", _map.get(101));
+
+        assertEquals("Unexpected removed value", "v1", _map.remove(1));
+        assertEquals("Unexpected removed value", "v100", _map.remove(100));
+        assertNull("Value should already be removed", _map.remove(1));
+        assertEquals("Unexpected size", 98, _map.size());
+        assertEquals("Unexpected first key", 2, _map.firstKey());
+    }
+
+    public void testRemoveRange()
+    {
+        for (long tag = 1; tag <= 10; tag++)
+        {
+            _map.put(tag, "v" + tag);
+        }
+        _map.remove(3);
+
+        List<String> removed = new ArrayList<String>();
+        assertEquals("Unexpected number removed", 4, _map.removeRange(0, 5, removed));
+        assertEquals("Unexpected values removed", Arrays.asList("v1", "v2", "v4", "v5"), removed);
+        assertEquals("Unexpected size", 5, _map.size());
+        assertEquals("Unexpected first key", 6, _map.firstKey());
+    }
+
+    public void testIterationIsInKeyOrder()
+    {
+        _map.put(5, "v5");
+        _map.put(7, "v7");
+        _map.put(3, "v3");
+        _map.put(6, "v6");
+
+        List<Long> keys = new ArrayList<Long>();
+        for (long key = _map.firstKey(); key != DeliveryTagMap.NO_KEY; key = _map.higherKey(key))
+        {
+            keys.add(key);
+        }
+        assertEquals("Unexpected keys", Arrays.asList(3l, 5l, 6l, 7l), keys);
+    }
+
+    public void testSparseKeysDoNotGrowRing()
+    {
+        _map.put(1, "v1");
+        for (long tag = 2; tag <= 100000; tag++)
+        {
+            _map.put(tag, "v" + tag);
+            _map.remove(tag);
+        }
+        _map.put(100001, "v100001");
+
+        assertEquals("Unexpected size", 2, _map.size());
+        assertEquals("Unexpected value", "v1", _map.get(1));
+        assertEquals("Unexpected value", "v100001", _map.get(100001));
+        assertEquals("Unexpected first key", 1, _map.firstKey());
+        assertEquals("Unexpected next key", 100001, _map.higherKey(1));
+    }
+
+    public void testRandomOperationsMatchSortedMap()
+    {
+        Random random = new Random(1);
+        TreeMap<Long, String> expected = new TreeMap<Long, String>();
+        long nextTag = 1;
+        for (int i = 0; i < 100000; i++)
+        {
+            int operation = random.nextInt(10);
+            if (operation < 5)
+            {
+                long tag = random.nextInt(20) == 0 ? random.nextInt((int) nextTag) : nextTag++;
+                String value = "v" + i;
+                assertEquals("Unexpected previous value for " + tag, expected.put(tag, value), _map.put(tag, value));
+            }
+            else if (operation < 8)
+            {
+                long tag = nextTag - 1 - random.nextInt(50);
+                assertEquals("Unexpected removed value for " + tag, expected.remove(tag), _map.remove(tag));
+            }
+            else if (operation < 9)
+            {
+                long upper = nextTag - random.nextInt(100);
+                long lower = upper - random.nextInt(20);
+                List<String> removed = new ArrayList<String>();
+                Map<Long, String> expectedRange = expected.subMap(lower, true, upper, true);
+                List<String> expectedRemoved = new ArrayList<String>(expectedRange.values());
+                expectedRange.clear();
+                _map.removeRange(lower, upper, removed);
+                assertEquals("Unexpected range removed", expectedRemoved, removed);
+            }
+            else
+            {
+                long tag = random.nextInt((int) nextTag);
+                assertEquals("Unexpected value for " + tag, expected.get(tag), _map.get(tag));
+            }
+            assertEquals("Unexpected size", expected.size(), _map.size());
+        }
+
+        List<Long> keys = new ArrayList<Long>();
+        for (long key = _map.firstKey(); key != DeliveryTagMap.NO_KEY; key = _map.higherKey(key))
+        {
+            keys.add(key);
+        }
+        assertEquals("Unexpected keys", new ArrayList<Long>(expected.keySet()), keys);
+    }
+}
@@ -33,6 +33,7 @@ import org.apache.qpid.server.queue.AMQQueue;
 import org.apache.qpid.server.queue.QueueRegistry;
 import org.apache.qpid.server.security.SecurityManager;
 import org.apache.qpid.server.security.auth.manager.AuthenticationManager;
+import org.apache.qpid.server.stats.LatencyHistogram;
 import org.apache.qpid.server.stats.StatisticsCounter;
 import org.apache.qpid.server.store.DurableConfigurationStore;
 import org.apache.qpid.server.store.MessageStore;
@@ -254,6 +255,21 @@ public class MockVirtualHost implements VirtualHost
         return null;
     }
 
+    public LatencyHistogram getEnqueueToDeliverLatency()
+    {
+        return null;
+    }
+
+    public LatencyHistogram getPublishToStoreCommitLatency()
+    {
+        return null;
+    }
+
+    public LatencyHistogram getDeliveryScheduleLatency()
+    {
+        return null;
+    }
+
     public StatisticsCounter getDataReceiptStatistics()
     {
         return null;
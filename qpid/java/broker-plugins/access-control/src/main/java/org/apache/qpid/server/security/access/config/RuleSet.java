@@ -28,10 +28,14 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.security.auth.Subject;
 
@@ -66,11 +70,23 @@ public class RuleSet
 
     private static final Integer _increment = 10;
 
+    public static final int MAX_CACHED_PUBLISH_DECISION_SUBJECTS = 1000;
+    private static final int MAX_CACHED_PUBLISH_DECISIONS_PER_SUBJECT = 100;
+
     private final SortedMap<Integer, Rule> _rules = new TreeMap<Integer, Rule>();
     private final Map<Subject, Map<Operation, Map<ObjectType, List<Rule>>>> _cache =
                         new WeakHashMap<Subject, Map<Operation, Map<ObjectType, List<Rule>>>>();
     private final Map<String, Boolean> _config = new HashMap<String, Boolean>();
 
+    // outcome of publish checks, per subject instance (and so per connection), keyed by exchange/routing key properties
+    private final ConcurrentMap<SubjectKey, PublishDecisions> _publishDecisionCache =
+                        new ConcurrentHashMap<SubjectKey, PublishDecisions>();
+
+    // incremented whenever the rules or configuration change, so that decisions made before are not reused
+    private final AtomicInteger _version = new AtomicInteger();
+
+    private final Random _evictionRandom = new Random();
+
     public RuleSet()
     {
         // set some default configuration properties
@@ -84,6 +100,7 @@ public class RuleSet
     {
         _rules.clear();
         _cache.clear();
+        clearPublishDecisionCache();
         _config.clear();
     }
 
@@ -186,6 +203,7 @@ public class RuleSet
     public void addRule(Integer number, String identity, Permission permission, AclAction action)
     {
         _cache.clear();
+        clearPublishDecisionCache();
 
         if (!action.isAllowed())
         {
@@ -218,11 +236,15 @@ public class RuleSet
     public void enableRule(int ruleNumber)
     {
         _rules.get(Integer.valueOf(ruleNumber)).enable();
+        _cache.clear();
+        clearPublishDecisionCache();
     }
 
     public void disableRule(int ruleNumber)
     {
         _rules.get(Integer.valueOf(ruleNumber)).disable();
+        _cache.clear();
+        clearPublishDecisionCache();
     }
 
     /** Return true if the name is well-formed (contains legal characters). */
@@ -286,9 +308,23 @@ public class RuleSet
      * in order to find the first one that matches. Either defers if there are no rules, returns the result of
      * the first match found, or denies access if there are no matching rules. Normally, it would be expected
      * to have a default deny or allow rule at the end of an access configuration however.
+     *
+     * Publish decisions are remembered per subject, so repeated publishes to the same exchange and routing key
+     * do not re-evaluate the rules, unless the matching rule requires the decision to be logged.
      */
     public Result check(Subject subject, Operation operation, ObjectType objectType, ObjectProperties properties, InetAddress addressOfClient)
     {
+        PublishDecisions publishDecisions = null;
+        if (operation == Operation.PUBLISH && objectType == ObjectType.EXCHANGE && addressOfClient == null)
+        {
+            publishDecisions = getPublishDecisions(subject);
+            Result decision = publishDecisions.get(properties);
+            if (decision != null)
+            {
+                return decision;
+            }
+        }
+
         ClientAction action = new ClientAction(operation, objectType, properties);
 
         if(_logger.isDebugEnabled())
@@ -304,7 +340,7 @@ public class RuleSet
             {
                 _logger.debug("No rules found, returning default result");
             }
-            return getDefault();
+            return cacheDecision(publishDecisions, properties, getDefault());
         }
 
         // Iterate through a filtered set of rules dealing with this identity and operation
@@ -327,14 +363,18 @@ public class RuleSet
                                 action.getObjectType().toString(),
                                 action.getProperties().toString()));
                     case ALLOW:
-                        return Result.ALLOWED;
+                        return permission == Permission.ALLOW
+                                ? cacheDecision(publishDecisions, properties, Result.ALLOWED)
+                                : Result.ALLOWED;
                     case DENY_LOG:
                         CurrentActor.get().message(AccessControlMessages.DENIED(
                                 action.getOperation().toString(),
                                 action.getObjectType().toString(),
                                 action.getProperties().toString()));
                     case DENY:
-                        return Result.DENIED;
+                        return permission == Permission.DENY
+                                ? cacheDecision(publishDecisions, properties, Result.DENIED)
+                                : Result.DENIED;
                 }
 
                 return Result.DENIED;
@@ -342,7 +382,7 @@ public class RuleSet
         }
 
         // Defer to the next plugin of this type, if it exists
-        return Result.DEFER;
+        return cacheDecision(publishDecisions, properties, Result.DEFER);
     }
 
     /** Default deny. */
@@ -375,6 +415,7 @@ public class RuleSet
     public void configure(Map<String, Boolean> properties)
     {
         _config.putAll(properties);
+        clearPublishDecisionCache();
     }
 
     /**
@@ -386,6 +427,7 @@ public class RuleSet
     public void configure(String key, Boolean value)
     {
         _config.put(key, value);
+        clearPublishDecisionCache();
     }
 
      /**
@@ -397,6 +439,14 @@ public class RuleSet
          return Collections.unmodifiableMap(_rules);
      }
 
+    /**
+     * Returns the number of subjects whose publish decisions are cached.   Primarily intended to support unit-testing.
+     */
+    public int getPublishDecisionSubjectCount()
+    {
+        return _publishDecisionCache.size();
+    }
+
     private boolean isRelevant(final Set<Principal> principals, final Rule rule)
     {
         if (rule.getIdentity().equalsIgnoreCase(Rule.ALL))
@@ -438,4 +488,120 @@ public class RuleSet
         }
         return objects;
     }
+
+    private PublishDecisions getPublishDecisions(final Subject subject)
+    {
+        final int version = _version.get();
+        final SubjectKey key = new SubjectKey(subject);
+        PublishDecisions decisions = _publishDecisionCache.get(key);
+        if (decisions == null || decisions.getVersion() != version)
+        {
+            // the subjects of closed connections are only dropped here, or when the rules change
+            if (decisions == null && _publishDecisionCache.size() >= MAX_CACHED_PUBLISH_DECISION_SUBJECTS)
+            {
+                evictPublishDecisions();
+            }
+            decisions = new PublishDecisions(version);
+            _publishDecisionCache.put(key, decisions);
+        }
+        return decisions;
+    }
+
+    /**
+     * Drops the decisions of one subject, chosen at random, so that when more subjects are publishing than can be
+     * cached the decisions of the others are kept.  New subjects are seen only as connections are opened, so the
+     * walk to the victim is not on the publish path.
+     */
+    private void evictPublishDecisions()
+    {
+        int skip = _evictionRandom.nextInt(MAX_CACHED_PUBLISH_DECISION_SUBJECTS);
+        final Iterator<SubjectKey> iterator = _publishDecisionCache.keySet().iterator();
+        SubjectKey victim = null;
+        while (iterator.hasNext() && (victim == null || skip-- > 0))
+        {
+            victim = iterator.next();
+        }
+        if (victim != null)
+        {
+            _publishDecisionCache.remove(victim);
+        }
+    }
+
+    private Result cacheDecision(final PublishDecisions decisions,
+                                 final ObjectProperties properties,
+                                 final Result decision)
+    {
+        // publishing to ever changing routing keys must not grow the cache without bound
+        if (decisions != null && decisions.size() < MAX_CACHED_PUBLISH_DECISIONS_PER_SUBJECT)
+        {
+            decisions.put(properties, decision);
+        }
+        return decision;
+    }
+
+    private void clearPublishDecisionCache()
+    {
+        // decisions being made concurrently are tagged with the old version, so are discarded when next looked up
+        _version.incrementAndGet();
+        _publishDecisionCache.clear();
+    }
+
+    /**
+     * Identifies a subject by instance, so that looking up its publish decisions does not hash its principals.
+     */
+    private static final class SubjectKey
+    {
+        private final Subject _subject;
+
+        SubjectKey(final Subject subject)
+        {
+            _subject = subject;
+        }
+
+        @Override
+        public boolean equals(final Object o)
+        {
+            return o instanceof SubjectKey && ((SubjectKey) o)._subject == _subject;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return System.identityHashCode(_subject);
+        }
+    }
+
+    /**
+     * The publish decisions made for a subject while the rules were at a given version.
+     */
+    private static final class PublishDecisions
+    {
+        private final int _version;
+        private final Map<ObjectProperties, Result> _decisions = new ConcurrentHashMap<ObjectProperties, Result>();
+
+        PublishDecisions(final int version)
+        {
+            _version = version;
+        }
+
+        int getVersion()
+        {
+            return _version;
+        }
+
+        Result get(final ObjectProperties properties)
+        {
+            return _decisions.get(properties);
+        }
+
+        int size()
+        {
+            return _decisions.size();
+        }
+
+        void put(final ObjectProperties properties, final Result decision)
+        {
+            _decisions.put(properties, decision);
+        }
+    }
 }
@@ -130,6 +130,66 @@ public class RuleSetTest extends QpidTestCase
         assertDenyGrantAllow(_testSubject, Operation.PUBLISH, ObjectType.EXCHANGE);
     }
 
+    public void testPublishDecisionsAreDistinguishedByRoutingKey()
+    {
+        ObjectProperties allowedKey = new ObjectProperties(_exchangeName, "allowed", false);
+        ObjectProperties otherKey = new ObjectProperties(_exchangeName, "other", false);
+        _ruleSet.grant(0, TEST_USER, Permission.ALLOW, Operation.PUBLISH, ObjectType.EXCHANGE, allowedKey);
+
+        assertEquals(Result.ALLOWED, _ruleSet.check(_testSubject, Operation.PUBLISH, ObjectType.EXCHANGE, allowedKey));
+        assertEquals(Result.DEFER, _ruleSet.check(_testSubject, Operation.PUBLISH, ObjectType.EXCHANGE, otherKey));
+        assertEquals(Result.ALLOWED, _ruleSet.check(_testSubject, Operation.PUBLISH, ObjectType.EXCHANGE,
+                                                    new ObjectProperties(_exchangeName, "allowed", false)));
+        assertEquals(Result.DEFER, _ruleSet.check(_testSubject, Operation.PUBLISH, ObjectType.EXCHANGE, otherKey));
+    }
+
+    public void testPublishDecisionsAreKeptPerSubject()
+    {
+        ObjectProperties properties = new ObjectProperties(_exchangeName, "rk", false);
+        _ruleSet.grant(0, TEST_USER, Permission.ALLOW, Operation.PUBLISH, ObjectType.EXCHANGE, properties);
+
+        assertEquals(Result.ALLOWED, _ruleSet.check(_testSubject, Operation.PUBLISH, ObjectType.EXCHANGE, properties));
+        assertEquals(Result.DEFER, _ruleSet.check(TestPrincipalUtils.createTestSubject("other"),
+                                                  Operation.PUBLISH, ObjectType.EXCHANGE, properties));
+        assertEquals(Result.ALLOWED, _ruleSet.check(TestPrincipalUtils.createTestSubject(TEST_USER),
+                                                    Operation.PUBLISH, ObjectType.EXCHANGE, properties));
+        assertEquals(Result.ALLOWED, _ruleSet.check(_testSubject, Operation.PUBLISH, ObjectType.EXCHANGE, properties));
+    }
+
+    public void testSubjectBeyondCacheLimitEvictsOnlyOneSubject()
+    {
+        ObjectProperties properties = new ObjectProperties(_exchangeName, "rk", false);
+        _ruleSet.grant(0, Rule.ALL, Permission.ALLOW, Operation.PUBLISH, ObjectType.EXCHANGE, properties);
+
+        for (int i = 0; i < RuleSet.MAX_CACHED_PUBLISH_DECISION_SUBJECTS; i++)
+        {
+            _ruleSet.check(TestPrincipalUtils.createTestSubject("user" + i), Operation.PUBLISH, ObjectType.EXCHANGE, properties);
+        }
+        assertEquals(RuleSet.MAX_CACHED_PUBLISH_DECISION_SUBJECTS, _ruleSet.getPublishDecisionSubjectCount());
+
+        assertEquals(Result.ALLOWED, _ruleSet.check(_testSubject, Operation.PUBLISH, ObjectType.EXCHANGE, properties));
+        assertEquals("One subject should have been evicted for the new one",
+                     RuleSet.MAX_CACHED_PUBLISH_DECISION_SUBJECTS, _ruleSet.getPublishDecisionSubjectCount());
+    }
+
+    public void testPublishDecisionIsReevaluatedWhenRulesChange()
+    {
+        ObjectProperties properties = new ObjectProperties(_exchangeName, "rk", false);
+        _ruleSet.grant(0, TEST_USER, Permission.ALLOW, Operation.PUBLISH, ObjectType.EXCHANGE, properties);
+        assertEquals(Result.ALLOWED, _ruleSet.check(_testSubject, Operation.PUBLISH, ObjectType.EXCHANGE, properties));
+
+        _ruleSet.disableRule(0);
+        assertEquals(Result.DENIED, _ruleSet.check(_testSubject, Operation.PUBLISH, ObjectType.EXCHANGE, properties));
+
+        _ruleSet.enableRule(0);
+        assertEquals(Result.ALLOWED, _ruleSet.check(_testSubject, Operation.PUBLISH, ObjectType.EXCHANGE, properties));
+
+        ObjectProperties otherKey = new ObjectProperties(_exchangeName, "other", false);
+        assertEquals(Result.DEFER, _ruleSet.check(_testSubject, Operation.PUBLISH, ObjectType.EXCHANGE, otherKey));
+        _ruleSet.grant(10, TEST_USER, Permission.ALLOW, Operation.PUBLISH, ObjectType.EXCHANGE, otherKey);
+        assertEquals(Result.ALLOWED, _ruleSet.check(_testSubject, Operation.PUBLISH, ObjectType.EXCHANGE, otherKey));
+    }
+
     /**
     * If the consume permission for temporary queues is for an unnamed queue then it should
     * be global for any temporary queue but not for any non-temporary queue
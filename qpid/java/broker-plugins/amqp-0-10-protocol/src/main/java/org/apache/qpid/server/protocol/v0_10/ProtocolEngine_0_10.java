@@ -24,6 +24,7 @@ import org.apache.qpid.protocol.ServerProtocolEngine;
 import org.apache.qpid.server.logging.messages.ConnectionMessages;
 import org.apache.qpid.server.model.Port;
 import org.apache.qpid.server.model.Transport;
+import org.apache.qpid.transport.GatheringSender;
 import org.apache.qpid.transport.Sender;
 import org.apache.qpid.transport.network.Assembler;
 import org.apache.qpid.transport.network.Disassembler;
@@ -76,7 +77,7 @@ public class ProtocolEngine_0_10  extends InputHandler implements ServerProtocol
 
     private Sender<ByteBuffer> wrapSender(final Sender<ByteBuffer> sender)
     {
-        return new Sender<ByteBuffer>()
+        return new GatheringSender()
         {
             @Override
             public void setIdleTimeout(int i)
@@ -93,6 +94,37 @@ public class ProtocolEngine_0_10  extends InputHandler implements ServerProtocol
 
             }
 
+            @Override
+            public void sendWithoutCopy(ByteBuffer... buffers)
+            {
+                _lastWriteTime = System.currentTimeMillis();
+                if(sender instanceof GatheringSender)
+                {
+                    ((GatheringSender)sender).sendWithoutCopy(buffers);
+                }
+                else
+                {
+                    for(ByteBuffer buffer : buffers)
+                    {
+                        sender.send(buffer);
+                    }
+                }
+            }
+
+            @Override
+            public void afterWritten(Runnable task)
+            {
+                if(sender instanceof GatheringSender)
+                {
+                    ((GatheringSender)sender).afterWritten(task);
+                }
+                else
+                {
+                    // content was copied when it was sent
+                    task.run();
+                }
+            }
+
             @Override
             public void flush()
             {
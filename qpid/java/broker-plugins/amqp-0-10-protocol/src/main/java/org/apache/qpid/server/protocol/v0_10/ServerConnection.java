@@ -51,7 +51,9 @@ import org.apache.qpid.transport.ExecutionErrorCode;
 import org.apache.qpid.transport.ExecutionException;
 import org.apache.qpid.transport.Method;
 import org.apache.qpid.transport.ProtocolEvent;
+import org.apache.qpid.transport.Sender;
 import org.apache.qpid.transport.Session;
+import org.apache.qpid.transport.network.Disassembler;
 import org.apache.qpid.transport.network.NetworkConnection;
 
 import static org.apache.qpid.server.logging.subjects.LogSubjectFormat.CONNECTION_FORMAT;
@@ -147,6 +149,22 @@ public class ServerConnection extends Connection implements AMQConnectionModel,
         return _virtualHost;
     }
 
+    /**
+     * Runs the given task once the frames sent so far have been written to the network.
+     */
+    public void afterWritten(Runnable task)
+    {
+        final Sender<ProtocolEvent> sender = getSender();
+        if(sender instanceof Disassembler)
+        {
+            ((Disassembler) sender).afterWritten(task);
+        }
+        else
+        {
+            task.run();
+        }
+    }
+
     public void setVirtualHost(VirtualHost virtualHost)
     {
         _virtualHost = virtualHost;
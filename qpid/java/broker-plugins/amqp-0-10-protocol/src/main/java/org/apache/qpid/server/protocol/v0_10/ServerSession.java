@@ -23,17 +23,15 @@ package org.apache.qpid.server.protocol.v0_10;
 import java.security.Principal;
 import java.text.MessageFormat;
 import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -77,13 +75,13 @@ import org.apache.qpid.server.txn.ServerTransaction;
 import org.apache.qpid.server.txn.SuspendAndFailDtxException;
 import org.apache.qpid.server.txn.TimeoutDtxException;
 import org.apache.qpid.server.txn.UnknownDtxBranchException;
+import org.apache.qpid.server.util.DeliveryTagMap;
 import org.apache.qpid.server.virtualhost.VirtualHost;
 import org.apache.qpid.transport.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static org.apache.qpid.server.logging.subjects.LogSubjectFormat.CHANNEL_FORMAT;
-import static org.apache.qpid.util.Serial.gt;
 
 public class ServerSession extends Session
         implements AuthorizationHolder,
@@ -94,6 +92,7 @@ public class ServerSession extends Session
     private static final String NULL_DESTINATION = UUID.randomUUID().toString();
     private static final int PRODUCER_CREDIT_TOPUP_THRESHOLD = 1 << 30;
     private static final int UNFINISHED_COMMAND_QUEUE_THRESHOLD = 500;
+    private static final long MAX_COMMAND_ID_KEY = 0xFFFFFFFFl;
 
     private final UUID _id = UUID.randomUUID();
     private long _createTime = System.currentTimeMillis();
@@ -132,8 +131,9 @@ public class ServerSession extends Session
     }
 
 
-    private final SortedMap<Integer, MessageDispositionChangeListener> _messageDispositionListenerMap =
-            new ConcurrentSkipListMap<Integer, MessageDispositionChangeListener>();
+    // keyed by command id as an unsigned value; guarded by synchronizing on the map itself
+    private final DeliveryTagMap<MessageDispositionChangeListener> _messageDispositionListenerMap =
+            new DeliveryTagMap<MessageDispositionChangeListener>(256);
 
     private ServerTransaction _transaction;
 
@@ -218,7 +218,10 @@ public class ServerSession extends Session
 
     public void onMessageDispositionChange(MessageTransfer xfr, MessageDispositionChangeListener acceptListener)
     {
-        _messageDispositionListenerMap.put(xfr.getId(), acceptListener);
+        synchronized (_messageDispositionListenerMap)
+        {
+            _messageDispositionListenerMap.put(commandIdKey(xfr.getId()), acceptListener);
+        }
     }
 
 
@@ -265,108 +268,91 @@ public class ServerSession extends Session
     {
         RangeSet acquired = RangeSetFactory.createRangeSet();
 
-        if(!_messageDispositionListenerMap.isEmpty())
+        List<Integer> ids = new ArrayList<Integer>();
+        List<MessageDispositionChangeListener> listeners = new ArrayList<MessageDispositionChangeListener>();
+        synchronized (_messageDispositionListenerMap)
         {
-            Iterator<Integer> unacceptedMessages = _messageDispositionListenerMap.keySet().iterator();
-            Iterator<Range> rangeIter = transfers.iterator();
-
-            if(rangeIter.hasNext())
+            for(Range range : transfers)
             {
-                Range range = rangeIter.next();
-
-                while(range != null && unacceptedMessages.hasNext())
+                long lower = commandIdKey(range.getLower());
+                long upper = commandIdKey(range.getUpper());
+                if(lower > upper)
                 {
-                    int next = unacceptedMessages.next();
-                    while(gt(next, range.getUpper()))
-                    {
-                        if(rangeIter.hasNext())
-                        {
-                            range = rangeIter.next();
-                        }
-                        else
-                        {
-                            range = null;
-                            break;
-                        }
-                    }
-                    if(range != null && range.includes(next))
-                    {
-                        MessageDispositionChangeListener changeListener = _messageDispositionListenerMap.get(next);
-                        if(changeListener != null && changeListener.acquire())
-                        {
-                            acquired.add(next);
-                        }
-                    }
-
-
+                    // the range wraps around the end of the command id space
+                    collectListeners(lower, MAX_COMMAND_ID_KEY, ids, listeners);
+                    lower = 0l;
                 }
-
+                collectListeners(lower, upper, ids, listeners);
             }
+        }
 
-
+        // listeners are invoked outside the lock as acquiring may call back into the session
+        for(int i = 0; i < ids.size(); i++)
+        {
+            if(listeners.get(i).acquire())
+            {
+                acquired.add(ids.get(i));
+            }
         }
 
         return acquired;
     }
 
+    private void collectListeners(long lower, long upper, List<Integer> ids,
+                                  List<MessageDispositionChangeListener> listeners)
+    {
+        long key = _messageDispositionListenerMap.get(lower) != null ? lower : _messageDispositionListenerMap.higherKey(lower);
+        while(key != DeliveryTagMap.NO_KEY && key <= upper)
+        {
+            ids.add((int) key);
+            listeners.add(_messageDispositionListenerMap.get(key));
+            key = _messageDispositionListenerMap.higherKey(key);
+        }
+    }
+
     public void dispositionChange(RangeSet ranges, MessageDispositionAction action)
     {
         if(ranges != null)
         {
-
-            if(ranges.size() == 1)
+            List<MessageDispositionChangeListener> changeListeners = new ArrayList<MessageDispositionChangeListener>();
+            synchronized (_messageDispositionListenerMap)
             {
-                Range r = ranges.getFirst();
-                for(int i = r.getLower(); i <= r.getUpper(); i++)
+                if(_messageDispositionListenerMap.isEmpty())
                 {
-                    MessageDispositionChangeListener changeListener = _messageDispositionListenerMap.remove(i);
-                    if(changeListener != null)
-                    {
-                        action.performAction(changeListener);
-                    }
+                    return;
                 }
-            }
-            else if(!_messageDispositionListenerMap.isEmpty())
-            {
-                Iterator<Integer> unacceptedMessages = _messageDispositionListenerMap.keySet().iterator();
-                Iterator<Range> rangeIter = ranges.iterator();
-
-                if(rangeIter.hasNext())
+                for(Range range : ranges)
                 {
-                    Range range = rangeIter.next();
-
-                    while(range != null && unacceptedMessages.hasNext())
+                    long lower = commandIdKey(range.getLower());
+                    long upper = commandIdKey(range.getUpper());
+                    if(lower > upper)
                     {
-                        int next = unacceptedMessages.next();
-                        while(gt(next, range.getUpper()))
-                        {
-                            if(rangeIter.hasNext())
-                            {
-                                range = rangeIter.next();
-                            }
-                            else
-                            {
-                                range = null;
-                                break;
-                            }
-                        }
-                        if(range != null && range.includes(next))
-                        {
-                            MessageDispositionChangeListener changeListener = _messageDispositionListenerMap.remove(next);
-                            action.performAction(changeListener);
-                        }
-
-
+                        // the range wraps around the end of the command id space
+                        _messageDispositionListenerMap.removeRange(lower, MAX_COMMAND_ID_KEY, changeListeners);
+                        lower = 0l;
                     }
-
+                    _messageDispositionListenerMap.removeRange(lower, upper, changeListeners);
                 }
             }
+
+            for(MessageDispositionChangeListener changeListener : changeListeners)
+            {
+                action.performAction(changeListener);
+            }
         }
     }
 
+    private static long commandIdKey(int commandId)
+    {
+        return commandId & MAX_COMMAND_ID_KEY;
+    }
+
     public void removeDispositionListener(Method method)
     {
-        _messageDispositionListenerMap.remove(method.getId());
+        synchronized (_messageDispositionListenerMap)
+        {
+            _messageDispositionListenerMap.remove(commandIdKey(method.getId()));
+        }
     }
 
     public void onClose()
@@ -380,11 +366,15 @@ public class ServerSession extends Session
             getVirtualHost().getDtxRegistry().endAssociations(this);
         }
 
-        for(MessageDispositionChangeListener listener : _messageDispositionListenerMap.values())
+        List<MessageDispositionChangeListener> unsettled = new ArrayList<MessageDispositionChangeListener>();
+        synchronized (_messageDispositionListenerMap)
+        {
+            _messageDispositionListenerMap.removeRange(0l, MAX_COMMAND_ID_KEY, unsettled);
+        }
+        for(MessageDispositionChangeListener listener : unsettled)
         {
             listener.onRelease(true);
         }
-        _messageDispositionListenerMap.clear();
 
         for (Task task : _taskList)
         {
@@ -858,7 +848,10 @@ public class ServerSession extends Session
 
     public int getUnacknowledgedMessageCount()
     {
-        return _messageDispositionListenerMap.size();
+        synchronized (_messageDispositionListenerMap)
+        {
+            return _messageDispositionListenerMap.size();
+        }
     }
 
     public boolean getBlocking()
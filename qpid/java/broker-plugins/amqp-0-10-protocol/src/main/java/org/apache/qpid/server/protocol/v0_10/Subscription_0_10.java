@@ -31,8 +31,8 @@ import org.apache.qpid.server.logging.actors.GenericActor;
 import org.apache.qpid.server.logging.messages.ChannelMessages;
 import org.apache.qpid.server.logging.messages.SubscriptionMessages;
 import org.apache.qpid.server.model.Queue;
-import org.apache.qpid.server.plugin.MessageConverter;
 import org.apache.qpid.server.protocol.MessageConverterRegistry;
+import org.apache.qpid.server.message.MessageReference;
 import org.apache.qpid.server.message.ServerMessage;
 import org.apache.qpid.server.queue.AMQQueue;
 import org.apache.qpid.server.queue.BaseQueue;
@@ -348,22 +348,8 @@ public class Subscription_0_10 implements Subscription, FlowCreditManager.FlowCr
         DeliveryProperties deliveryProps;
         MessageProperties messageProps = null;
 
-        MessageTransferMessage msg;
-
-        if(serverMsg instanceof MessageTransferMessage)
-        {
-
-            msg = (MessageTransferMessage) serverMsg;
-
-        }
-        else
-        {
-            MessageConverter converter =
-                    MessageConverterRegistry.getConverter(serverMsg.getClass(), MessageTransferMessage.class);
-
-
-            msg = (MessageTransferMessage) converter.convert(serverMsg, getQueue().getVirtualHost());
-        }
+        MessageTransferMessage msg =
+                MessageConverterRegistry.convert(serverMsg, MessageTransferMessage.class, getQueue().getVirtualHost());
         DeliveryProperties origDeliveryProps = msg.getHeader() == null ? null : msg.getHeader().getDeliveryProperties();
         messageProps = msg.getHeader() == null ? null : msg.getHeader().getMessageProperties();
 
@@ -473,7 +459,22 @@ public class Subscription_0_10 implements Subscription, FlowCreditManager.FlowCr
             }
 
 
-            _session.sendMessage(xfr, _postIdSettingAction);
+            // the body may be written by reference, so the message must outlive the write even once dequeued
+            final MessageReference reference = serverMsg.newReference();
+            try
+            {
+                _session.sendMessage(xfr, _postIdSettingAction);
+            }
+            finally
+            {
+                _session.getConnection().afterWritten(new Runnable()
+                {
+                    public void run()
+                    {
+                        reference.release();
+                    }
+                });
+            }
             entry.incrementDeliveryCount();
             _deliveredCount.incrementAndGet();
             _deliveredBytes.addAndGet(entry.getSize());
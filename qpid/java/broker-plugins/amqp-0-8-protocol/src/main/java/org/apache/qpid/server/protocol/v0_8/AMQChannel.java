@@ -44,12 +44,15 @@ import org.apache.qpid.AMQException;
 import org.apache.qpid.AMQSecurityException;
 import org.apache.qpid.framing.AMQMethodBody;
 import org.apache.qpid.framing.AMQShortString;
+import org.apache.qpid.framing.BasicAckBody;
 import org.apache.qpid.framing.BasicContentHeaderProperties;
+import org.apache.qpid.framing.BasicNackBody;
 import org.apache.qpid.framing.ContentBody;
 import org.apache.qpid.framing.ContentHeaderBody;
 import org.apache.qpid.framing.FieldTable;
 import org.apache.qpid.framing.MethodRegistry;
 import org.apache.qpid.framing.abstraction.MessagePublishInfo;
+import org.apache.qpid.framing.amqp_0_91.MethodRegistry_0_91;
 import org.apache.qpid.protocol.AMQConstant;
 import org.apache.qpid.server.TransactionTimeoutHelper;
 import org.apache.qpid.server.TransactionTimeoutHelper.CloseAction;
@@ -137,6 +140,17 @@ public class AMQChannel implements AMQSessionModel, AsyncAutoCommitTransaction.F
 
     private ServerTransaction _transaction;
 
+    /**
+     * Whether the client has selected publisher confirms (the 0-9-1 confirm extension).  When set, every message
+     * published on the channel is numbered and the broker answers with a basic.ack once the message is safely
+     * enqueued, or a basic.nack if it was refused.
+     */
+    private boolean _confirmOnPublish;
+    private long _confirmedMessageCounter;
+    // highest publish sequence number known to be accepted, and highest for which an ack or nack has been written
+    private long _pendingConfirmTag;
+    private long _lastWrittenConfirmTag;
+
     private final AtomicLong _txnStarts = new AtomicLong(0);
     private final AtomicLong _txnCommits = new AtomicLong(0);
     private final AtomicLong _txnRejects = new AtomicLong(0);
@@ -216,6 +230,17 @@ public class AMQChannel implements AMQSessionModel, AsyncAutoCommitTransaction.F
         return _transaction.isTransactional();
     }
 
+    /** Puts the channel into confirm mode; publishes received from now on are acknowledged by the broker */
+    public void setConfirmOnPublish()
+    {
+        _confirmOnPublish = true;
+    }
+
+    public boolean isConfirmOnPublish()
+    {
+        return _confirmOnPublish;
+    }
+
     public void receivedComplete()
     {
         sync();
@@ -332,6 +357,7 @@ public class AMQChannel implements AMQSessionModel, AsyncAutoCommitTransaction.F
                     if(!checkMessageUserId(_currentMessage.getContentHeader()))
                     {
                         _transaction.addPostTransactionAction(new WriteReturnAction(AMQConstant.ACCESS_REFUSED, "Access Refused", amqMessage));
+                        recordConfirmIfNecessary(false);
                     }
                     else
                     {
@@ -371,6 +397,7 @@ public class AMQChannel implements AMQSessionModel, AsyncAutoCommitTransaction.F
                             incrementOutstandingTxnsIfNecessary();
                             handle.flushToStore();
                         }
+                        recordConfirmIfNecessary(true);
                     }
                 }
                 finally
@@ -390,6 +417,71 @@ public class AMQChannel implements AMQSessionModel, AsyncAutoCommitTransaction.F
 
     }
 
+    /**
+     * In confirm mode, queues the confirm for the message just published behind the store futures of its enqueues,
+     * so that the ack is only written once the message is safe.  As the unfinished commands are completed in order,
+     * confirms are decided in publish order and can be coalesced by {@link #writePendingConfirms()}.
+     */
+    private void recordConfirmIfNecessary(final boolean accepted)
+    {
+        if(_confirmOnPublish)
+        {
+            recordFuture(StoreFuture.IMMEDIATE_FUTURE, new ConfirmAction(++_confirmedMessageCounter, accepted));
+        }
+    }
+
+    private void writePendingConfirms()
+    {
+        if(_pendingConfirmTag > _lastWrittenConfirmTag)
+        {
+            // every earlier tag is either covered by this ack or has already been nacked
+            final boolean multiple = _pendingConfirmTag - _lastWrittenConfirmTag > 1;
+            BasicAckBody ack = _session.getMethodRegistry().createBasicAckBody(_pendingConfirmTag, multiple);
+            _session.writeFrame(ack.generateFrame(_channelId));
+            _lastWrittenConfirmTag = _pendingConfirmTag;
+        }
+    }
+
+    private void writeNack(final long deliveryTag)
+    {
+        writePendingConfirms();
+        BasicNackBody nack = ((MethodRegistry_0_91)_session.getMethodRegistry()).createBasicNackBody(deliveryTag,
+                                                                                                  false,
+                                                                                                  false);
+        _session.writeFrame(nack.generateFrame(_channelId));
+        _lastWrittenConfirmTag = deliveryTag;
+        _pendingConfirmTag = deliveryTag;
+    }
+
+    private class ConfirmAction implements ServerTransaction.Action
+    {
+        private final long _deliveryTag;
+        private final boolean _accepted;
+
+        public ConfirmAction(final long deliveryTag, final boolean accepted)
+        {
+            _deliveryTag = deliveryTag;
+            _accepted = accepted;
+        }
+
+        public void postCommit()
+        {
+            if(_accepted)
+            {
+                _pendingConfirmTag = _deliveryTag;
+            }
+            else
+            {
+                writeNack(_deliveryTag);
+            }
+        }
+
+        public void onRollback()
+        {
+            writeNack(_deliveryTag);
+        }
+    }
+
     /**
      * Either throws a {@link AMQConnectionException} or returns the message
      *
@@ -1568,6 +1660,11 @@ public class AMQChannel implements AMQSessionModel, AsyncAutoCommitTransaction.F
             cmd.awaitReadyForCompletion();
             cmd.complete();
         }
+        if(_confirmOnPublish)
+        {
+            // one ack (with multiple set) covers every publish completed since the last sync
+            writePendingConfirms();
+        }
         if(_transaction instanceof LocalTransaction)
         {
             ((LocalTransaction)_transaction).sync();
@@ -97,10 +97,12 @@ import org.apache.qpid.server.stats.StatisticsCounter;
 import org.apache.qpid.server.subscription.ClientDeliveryMethod;
 import org.apache.qpid.server.subscription.Subscription;
 import org.apache.qpid.server.virtualhost.VirtualHost;
+import org.apache.qpid.transport.GatheringSender;
 import org.apache.qpid.transport.Sender;
 import org.apache.qpid.transport.TransportException;
 import org.apache.qpid.transport.network.NetworkConnection;
 import org.apache.qpid.util.BytesDataOutput;
+import org.apache.qpid.util.GatheringDataOutput;
 
 public class AMQProtocolEngine implements ServerProtocolEngine, AMQProtocolSession
 {
@@ -110,6 +112,9 @@ public class AMQProtocolEngine implements ServerProtocolEngine, AMQProtocolSessi
     // channels.  This value must be of the form 2^x - 1.
     private static final int CHANNEL_CACHE_SIZE = 0xff;
     private static final int REUSABLE_BYTE_BUFFER_CAPACITY = 65 * 1024;
+    // frames at least this large are passed to a gathering sender by reference rather than copied
+    private static final int GATHERING_WRITE_THRESHOLD = 4 * 1024;
+    private static final int GATHERING_HEADER_CAPACITY = 512;
     private final Port _port;
 
     private AMQShortString _contextKey;
@@ -678,16 +683,32 @@ public class AMQProtocolEngine implements ServerProtocolEngine, AMQProtocolSessi
      */
     public synchronized void writeFrame(AMQDataBlock frame)
     {
-
-        final ByteBuffer buf = asByteBuffer(frame);
-        _writtenBytes += buf.remaining();
-
         if(_logger.isDebugEnabled())
         {
             _logger.debug("SEND: " + frame);
         }
 
-        _sender.send(buf);
+        if(_sender instanceof GatheringSender && frame.getSize() >= GATHERING_WRITE_THRESHOLD)
+        {
+            final GatheringDataOutput output = new GatheringDataOutput(GATHERING_HEADER_CAPACITY);
+            try
+            {
+                frame.writePayload(output);
+            }
+            catch (IOException e)
+            {
+                throw new RuntimeException(e);
+            }
+            _writtenBytes += output.length();
+            ((GatheringSender)_sender).sendWithoutCopy(output.getBuffers());
+        }
+        else
+        {
+            final ByteBuffer buf = asByteBuffer(frame);
+            _writtenBytes += buf.remaining();
+            _sender.send(buf);
+        }
+
         final long time = System.currentTimeMillis();
         _lastIoTime = time;
         _lastWriteTime.set(time);
@@ -1653,6 +1674,23 @@ public class AMQProtocolEngine implements ServerProtocolEngine, AMQProtocolSessi
         _deferFlush = deferFlush;
     }
 
+    public void afterWritten(Runnable task)
+    {
+        if(_sender instanceof GatheringSender)
+        {
+            // ordered with the frames written under the same lock
+            synchronized (this)
+            {
+                ((GatheringSender)_sender).afterWritten(task);
+            }
+        }
+        else
+        {
+            // frames are copied when they are written
+            task.run();
+        }
+    }
+
     public String getUserName()
     {
         return getAuthorizedPrincipal().getName();
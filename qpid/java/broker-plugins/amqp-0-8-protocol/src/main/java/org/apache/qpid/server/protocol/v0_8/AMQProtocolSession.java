@@ -59,6 +59,12 @@ public interface AMQProtocolSession extends AMQVersionAwareProtocolSession, Auth
 
     void setDeferFlush(boolean defer);
 
+    /**
+     * Runs the given task once the frames written so far have been written to the network, so that content written
+     * by reference is no longer in use.
+     */
+    void afterWritten(Runnable task);
+
     ClientDeliveryMethod createDeliveryMethod(int channelId);
 
     long getLastReceivedTime();
@@ -22,10 +22,13 @@ package org.apache.qpid.server.protocol.v0_8;
 
 import org.apache.qpid.AMQException;
 import org.apache.qpid.server.queue.QueueEntry;
+import org.apache.qpid.server.util.DeliveryTagMap;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
@@ -34,44 +37,13 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
 
     private long _unackedSize;
 
-    private Map<Long, QueueEntry> _map;
+    private final DeliveryTagMap<QueueEntry> _map;
 
     private long _lastDeliveryTag;
 
-    private final int _prefetchLimit;
-
     public UnacknowledgedMessageMapImpl(int prefetchLimit)
     {
-        _prefetchLimit = prefetchLimit;
-        _map = new LinkedHashMap<Long, QueueEntry>(prefetchLimit);
-    }
-
-    public void collect(long deliveryTag, boolean multiple, Map<Long, QueueEntry> msgs)
-    {
-        if (multiple)
-        {
-            collect(deliveryTag, msgs);
-        }
-        else
-        {
-            final QueueEntry entry = get(deliveryTag);
-            if(entry != null)
-            {
-                msgs.put(deliveryTag, entry);
-            }
-        }
-
-    }
-
-    public void remove(Map<Long,QueueEntry> msgs)
-    {
-        synchronized (_lock)
-        {
-            for (Long deliveryTag : msgs.keySet())
-            {
-                remove(deliveryTag);
-            }
-        }
+        _map = new DeliveryTagMap<QueueEntry>(prefetchLimit);
     }
 
     public QueueEntry remove(long deliveryTag)
@@ -94,10 +66,9 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         synchronized (_lock)
         {
-            Set<Map.Entry<Long, QueueEntry>> currentEntries = _map.entrySet();
-            for (Map.Entry<Long, QueueEntry> entry : currentEntries)
+            for (long deliveryTag = _map.firstKey(); deliveryTag != DeliveryTagMap.NO_KEY; deliveryTag = _map.higherKey(deliveryTag))
             {
-                visitor.callback(entry.getKey().longValue(), entry.getValue());
+                visitor.callback(deliveryTag, _map.get(deliveryTag));
             }
             visitor.visitComplete();
         }
@@ -117,8 +88,8 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         synchronized (_lock)
         {
-            Collection<QueueEntry> currentEntries = _map.values();
-            _map = new LinkedHashMap<Long, QueueEntry>(_prefetchLimit);
+            List<QueueEntry> currentEntries = new ArrayList<QueueEntry>(_map.size());
+            _map.removeRange(0l, Long.MAX_VALUE, currentEntries);
             _unackedSize = 0l;
             return currentEntries;
         }
@@ -153,31 +124,36 @@ public class UnacknowledgedMessageMapImpl implements UnacknowledgedMessageMap
     {
         synchronized (_lock)
         {
-            return _map.keySet();
+            Set<Long> deliveryTags = new LinkedHashSet<Long>();
+            for (long deliveryTag = _map.firstKey(); deliveryTag != DeliveryTagMap.NO_KEY; deliveryTag = _map.higherKey(deliveryTag))
+            {
+                deliveryTags.add(deliveryTag);
+            }
+            return deliveryTags;
         }
     }
 
     public Collection<QueueEntry> acknowledge(long deliveryTag, boolean multiple)
     {
-        Map<Long, QueueEntry> ackedMessageMap = new LinkedHashMap<Long,QueueEntry>();
-        collect(deliveryTag, multiple, ackedMessageMap);
-        remove(ackedMessageMap);
-        return ackedMessageMap.values();
-    }
-
-    private void collect(long key, Map<Long, QueueEntry> msgs)
-    {
-        synchronized (_lock)
+        if (multiple)
         {
-            for (Map.Entry<Long, QueueEntry> entry : _map.entrySet())
+            synchronized (_lock)
             {
-                msgs.put(entry.getKey(),entry.getValue());
-                if (entry.getKey() == key)
+                // a delivery tag of zero acknowledges all outstanding messages
+                List<QueueEntry> ackedMessages = new ArrayList<QueueEntry>();
+                _map.removeRange(0l, deliveryTag == 0l ? Long.MAX_VALUE : deliveryTag, ackedMessages);
+                for (QueueEntry message : ackedMessages)
                 {
-                    break;
+                    _unackedSize -= message.getMessage().getSize();
                 }
+                return ackedMessages;
             }
         }
+        else
+        {
+            final QueueEntry message = remove(deliveryTag);
+            return message == null ? Collections.<QueueEntry>emptyList() : Collections.singletonList(message);
+        }
     }
 
 }
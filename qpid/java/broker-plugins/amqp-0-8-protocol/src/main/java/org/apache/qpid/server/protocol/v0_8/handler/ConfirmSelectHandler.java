@@ -0,0 +1,72 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.server.protocol.v0_8.handler;
+
+import org.apache.qpid.AMQException;
+import org.apache.qpid.framing.ConfirmSelectBody;
+import org.apache.qpid.framing.ConfirmSelectOkBody;
+import org.apache.qpid.framing.amqp_0_91.MethodRegistry_0_91;
+import org.apache.qpid.protocol.AMQConstant;
+import org.apache.qpid.server.protocol.v0_8.AMQChannel;
+import org.apache.qpid.server.protocol.v0_8.AMQProtocolSession;
+import org.apache.qpid.server.protocol.v0_8.state.AMQStateManager;
+import org.apache.qpid.server.protocol.v0_8.state.StateAwareMethodListener;
+
+public class ConfirmSelectHandler implements StateAwareMethodListener<ConfirmSelectBody>
+{
+    private static ConfirmSelectHandler _instance = new ConfirmSelectHandler();
+
+    public static ConfirmSelectHandler getInstance()
+    {
+        return _instance;
+    }
+
+    private ConfirmSelectHandler()
+    {
+    }
+
+    public void methodReceived(AMQStateManager stateManager, ConfirmSelectBody body, int channelId) throws AMQException
+    {
+        AMQProtocolSession session = stateManager.getProtocolSession();
+
+        AMQChannel channel = session.getChannel(channelId);
+
+        if (channel == null)
+        {
+            throw body.getChannelNotFoundException(channelId);
+        }
+
+        if (channel.isTransactional())
+        {
+            throw body.getChannelException(AMQConstant.NOT_ALLOWED,
+                                           "Confirm mode cannot be selected on a transactional channel");
+        }
+
+        channel.setConfirmOnPublish();
+
+        if (!body.getNowait())
+        {
+            MethodRegistry_0_91 methodRegistry = (MethodRegistry_0_91) session.getMethodRegistry();
+            ConfirmSelectOkBody responseBody = methodRegistry.createConfirmSelectOkBody();
+            session.writeFrame(responseBody.generateFrame(channelId));
+        }
+    }
+}
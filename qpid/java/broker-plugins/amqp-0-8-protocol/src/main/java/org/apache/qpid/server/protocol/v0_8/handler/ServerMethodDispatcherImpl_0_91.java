@@ -37,6 +37,8 @@ public class ServerMethodDispatcherImpl_0_91
             BasicRecoverSyncMethodHandler.getInstance();
     private static final QueueUnbindHandler _queueUnbindHandler =
             QueueUnbindHandler.getInstance();
+    private static final ConfirmSelectHandler _confirmSelectHandler =
+            ConfirmSelectHandler.getInstance();
 
 
     public ServerMethodDispatcherImpl_0_91(AMQStateManager stateManager)
@@ -55,6 +57,22 @@ public class ServerMethodDispatcherImpl_0_91
         throw new UnexpectedMethodException(body);
     }
 
+    public boolean dispatchBasicNack(BasicNackBody body, int channelId) throws AMQException
+    {
+        throw new UnexpectedMethodException(body);
+    }
+
+    public boolean dispatchConfirmSelect(ConfirmSelectBody body, int channelId) throws AMQException
+    {
+        _confirmSelectHandler.methodReceived(getStateManager(), body, channelId);
+        return true;
+    }
+
+    public boolean dispatchConfirmSelectOk(ConfirmSelectOkBody body, int channelId) throws AMQException
+    {
+        throw new UnexpectedMethodException(body);
+    }
+
     public boolean dispatchChannelOk(ChannelOkBody body, int channelId) throws AMQException
     {
         return false;
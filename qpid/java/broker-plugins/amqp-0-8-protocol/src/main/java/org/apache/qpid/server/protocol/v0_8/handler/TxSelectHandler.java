@@ -24,6 +24,7 @@ import org.apache.qpid.AMQException;
 import org.apache.qpid.framing.MethodRegistry;
 import org.apache.qpid.framing.TxSelectBody;
 import org.apache.qpid.framing.TxSelectOkBody;
+import org.apache.qpid.protocol.AMQConstant;
 import org.apache.qpid.server.protocol.v0_8.AMQChannel;
 import org.apache.qpid.server.protocol.v0_8.AMQProtocolSession;
 import org.apache.qpid.server.protocol.v0_8.state.AMQStateManager;
@@ -53,6 +54,12 @@ public class TxSelectHandler implements StateAwareMethodListener<TxSelectBody>
             throw body.getChannelNotFoundException(channelId);
         }
 
+        if (channel.isConfirmOnPublish())
+        {
+            throw body.getChannelException(AMQConstant.NOT_ALLOWED,
+                                           "Transactions cannot be selected on a channel in confirm mode");
+        }
+
         channel.setLocalTransactional();
 
         MethodRegistry methodRegistry = session.getMethodRegistry();
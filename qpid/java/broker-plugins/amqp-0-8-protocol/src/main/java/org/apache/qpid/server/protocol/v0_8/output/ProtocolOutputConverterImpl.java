@@ -34,12 +34,13 @@ import org.apache.qpid.framing.MethodRegistry;
 import org.apache.qpid.framing.abstraction.MessagePublishInfo;
 import org.apache.qpid.protocol.AMQVersionAwareProtocolSession;
 import org.apache.qpid.server.message.InstanceProperties;
+import org.apache.qpid.server.message.MessageReference;
 import org.apache.qpid.server.message.ServerMessage;
-import org.apache.qpid.server.plugin.MessageConverter;
 import org.apache.qpid.server.protocol.MessageConverterRegistry;
 import org.apache.qpid.server.protocol.v0_8.AMQMessage;
 import org.apache.qpid.server.message.MessageContentSource;
 import org.apache.qpid.server.protocol.v0_8.AMQProtocolSession;
+import org.apache.qpid.util.GatheringDataOutput;
 
 import java.io.DataOutput;
 import java.io.IOException;
@@ -70,28 +71,39 @@ class ProtocolOutputConverterImpl implements ProtocolOutputConverter
                              AMQShortString consumerTag)
             throws AMQException
     {
-        final AMQMessage msg = convertToAMQMessage(m);
-        final boolean isRedelivered = Boolean.TRUE.equals(props.getProperty(InstanceProperties.Property.REDELIVERED));
-        AMQBody deliverBody = createEncodedDeliverBody(msg, isRedelivered, deliveryTag, consumerTag);
-        writeMessageDelivery(msg, channelId, deliverBody);
-    }
-
-    private AMQMessage convertToAMQMessage(ServerMessage serverMessage)
-    {
-        if(serverMessage instanceof AMQMessage)
+        final MessageReference reference = m.newReference();
+        try
         {
-            return (AMQMessage) serverMessage;
+            final AMQMessage msg = convertToAMQMessage(m);
+            final boolean isRedelivered =
+                    Boolean.TRUE.equals(props.getProperty(InstanceProperties.Property.REDELIVERED));
+            AMQBody deliverBody = createEncodedDeliverBody(msg, isRedelivered, deliveryTag, consumerTag);
+            writeMessageDelivery(msg, channelId, deliverBody);
         }
-        else
+        finally
         {
-            return getMessageConverter(serverMessage).convert(serverMessage, _protocolSession.getVirtualHost());
+            releaseAfterWritten(reference);
         }
     }
 
-    private <M extends ServerMessage> MessageConverter<M, AMQMessage> getMessageConverter(M message)
+    /**
+     * Content may be written by reference, so the message (rather than any converted form of it) is kept referenced
+     * until the frames carrying its content have been written, keeping the content from being released and reused.
+     */
+    private void releaseAfterWritten(final MessageReference reference)
+    {
+        _protocolSession.afterWritten(new Runnable()
+        {
+            public void run()
+            {
+                reference.release();
+            }
+        });
+    }
+
+    private AMQMessage convertToAMQMessage(ServerMessage serverMessage)
     {
-        Class<M> clazz = (Class<M>) message.getClass();
-        return MessageConverterRegistry.getConverter(clazz, AMQMessage.class);
+        return MessageConverterRegistry.convert(serverMessage, AMQMessage.class, _protocolSession.getVirtualHost());
     }
 
     private void writeMessageDelivery(AMQMessage message, int channelId, AMQBody deliverBody)
@@ -168,7 +180,11 @@ class ProtocolOutputConverterImpl implements ProtocolOutputConverter
         {
             ByteBuffer buf = _message.getContent(_offset, _length);
 
-            if(buf.hasArray())
+            if(buffer instanceof GatheringDataOutput)
+            {
+                ((GatheringDataOutput)buffer).writeBuffer(buf);
+            }
+            else if(buf.hasArray())
             {
                 buffer.write(buf.array(), buf.arrayOffset()+buf.position(), buf.remaining());
             }
@@ -195,8 +211,16 @@ class ProtocolOutputConverterImpl implements ProtocolOutputConverter
                            long deliveryTag,
                            int queueSize) throws AMQException
     {
-        AMQBody deliver = createEncodedGetOkBody(msg, props, deliveryTag, queueSize);
-        writeMessageDelivery(convertToAMQMessage(msg), channelId, deliver);
+        final MessageReference reference = msg.newReference();
+        try
+        {
+            AMQBody deliver = createEncodedGetOkBody(msg, props, deliveryTag, queueSize);
+            writeMessageDelivery(convertToAMQMessage(msg), channelId, deliver);
+        }
+        finally
+        {
+            releaseAfterWritten(reference);
+        }
     }
 
 
@@ -333,9 +357,21 @@ class ProtocolOutputConverterImpl implements ProtocolOutputConverter
             throws AMQException
     {
 
-        AMQBody returnFrame = createEncodedReturnFrame(messagePublishInfo, replyCode, replyText);
+        final MessageReference reference =
+                message instanceof ServerMessage ? ((ServerMessage) message).newReference() : null;
+        try
+        {
+            AMQBody returnFrame = createEncodedReturnFrame(messagePublishInfo, replyCode, replyText);
 
-        writeMessageDelivery(message, header, channelId, returnFrame);
+            writeMessageDelivery(message, header, channelId, returnFrame);
+        }
+        finally
+        {
+            if(reference != null)
+            {
+                releaseAfterWritten(reference);
+            }
+        }
     }
 
 
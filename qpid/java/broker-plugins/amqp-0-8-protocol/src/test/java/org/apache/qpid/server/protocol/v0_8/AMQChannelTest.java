@@ -23,12 +23,19 @@ package org.apache.qpid.server.protocol.v0_8;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.qpid.AMQException;
+import org.apache.qpid.framing.AMQBody;
+import org.apache.qpid.framing.AMQDataBlock;
+import org.apache.qpid.framing.AMQFrame;
 import org.apache.qpid.framing.AMQShortString;
+import org.apache.qpid.framing.BasicAckBody;
 import org.apache.qpid.framing.BasicContentHeaderProperties;
+import org.apache.qpid.framing.BasicNackBody;
 import org.apache.qpid.framing.ContentHeaderBody;
 import org.apache.qpid.framing.abstraction.MessagePublishInfo;
 import org.apache.qpid.server.configuration.BrokerProperties;
@@ -44,6 +51,7 @@ public class AMQChannelTest extends QpidTestCase
     private VirtualHost _virtualHost;
     private AMQProtocolSession _protocolSession;
     private Map<Integer,String> _replies;
+    private List<AMQBody> _writtenBodies;
     private Broker _broker;
 
     @Override
@@ -65,8 +73,15 @@ public class AMQChannelTest extends QpidTestCase
                     {
                         _replies.put(replyCode, replyText.asString());
                     }
+
+            @Override
+            public synchronized void writeFrame(AMQDataBlock frame)
+            {
+                _writtenBodies.add(((AMQFrame) frame).getBodyFrame());
+            }
         };
         _replies = new HashMap<Integer, String>();
+        _writtenBodies = new ArrayList<AMQBody>();
     }
 
     @Override
@@ -138,4 +153,66 @@ public class AMQChannelTest extends QpidTestCase
         assertEquals("Unexpected number of replies", 0, _replies.size());
     }
 
+    public void testPublishConfirmsAreCoalescedUntilSync() throws Exception
+    {
+        AMQChannel channel = new AMQChannel(_protocolSession, 1, _virtualHost.getMessageStore());
+        channel.setConfirmOnPublish();
+
+        publishMessage(channel, _protocolSession.getAuthorizedPrincipal().getName());
+        publishMessage(channel, _protocolSession.getAuthorizedPrincipal().getName());
+        publishMessage(channel, _protocolSession.getAuthorizedPrincipal().getName());
+        assertEquals("Confirms should not be written before sync", 0, _writtenBodies.size());
+
+        channel.sync();
+
+        assertEquals("Unexpected number of frames", 1, _writtenBodies.size());
+        BasicAckBody ack = (BasicAckBody) _writtenBodies.get(0);
+        assertEquals("Unexpected delivery tag", 3l, ack.getDeliveryTag());
+        assertTrue("Ack should cover all publishes", ack.getMultiple());
+
+        publishMessage(channel, _protocolSession.getAuthorizedPrincipal().getName());
+        channel.sync();
+
+        assertEquals("Unexpected number of frames", 2, _writtenBodies.size());
+        ack = (BasicAckBody) _writtenBodies.get(1);
+        assertEquals("Unexpected delivery tag", 4l, ack.getDeliveryTag());
+        assertFalse("Ack of a single publish should not be multiple", ack.getMultiple());
+    }
+
+    public void testRefusedPublishIsNacked() throws Exception
+    {
+        setTestSystemProperty(BrokerProperties.PROPERTY_MSG_AUTH, "true");
+        AMQChannel channel = new AMQChannel(_protocolSession, 1, _virtualHost.getMessageStore());
+        channel.setConfirmOnPublish();
+
+        publishMessage(channel, _protocolSession.getAuthorizedPrincipal().getName());
+        publishMessage(channel, _protocolSession.getAuthorizedPrincipal().getName() + "_incorrect");
+        publishMessage(channel, _protocolSession.getAuthorizedPrincipal().getName());
+        channel.sync();
+
+        assertEquals("Unexpected number of frames", 3, _writtenBodies.size());
+        assertEquals("Unexpected ack tag", 1l, ((BasicAckBody) _writtenBodies.get(0)).getDeliveryTag());
+        BasicNackBody nack = (BasicNackBody) _writtenBodies.get(1);
+        assertEquals("Unexpected nack tag", 2l, nack.getDeliveryTag());
+        assertFalse("Nack should only cover the refused publish", nack.getMultiple());
+        BasicAckBody ack = (BasicAckBody) _writtenBodies.get(2);
+        assertEquals("Unexpected ack tag", 3l, ack.getDeliveryTag());
+        assertFalse("Ack should not cover the nacked publish", ack.getMultiple());
+    }
+
+    private void publishMessage(AMQChannel channel, String userId) throws Exception
+    {
+        MessagePublishInfo info = mock(MessagePublishInfo.class);
+        Exchange e = mock(Exchange.class);
+        ContentHeaderBody contentHeaderBody= mock(ContentHeaderBody.class);
+        BasicContentHeaderProperties properties = mock(BasicContentHeaderProperties.class);
+
+        when(contentHeaderBody.getProperties()).thenReturn(properties);
+        when(info.getExchange()).thenReturn(new AMQShortString("test"));
+        when(properties.getUserId()).thenReturn(new AMQShortString(userId));
+
+        channel.setPublishFrame(info, e);
+        channel.publishContentHeader(contentHeaderBody);
+    }
+
 }
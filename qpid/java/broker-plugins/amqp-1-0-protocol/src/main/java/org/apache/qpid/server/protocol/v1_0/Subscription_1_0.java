@@ -46,7 +46,6 @@ import org.apache.qpid.amqp_1_0.type.messaging.StdDistMode;
 import org.apache.qpid.amqp_1_0.type.transaction.TransactionalState;
 import org.apache.qpid.amqp_1_0.type.transport.SenderSettleMode;
 import org.apache.qpid.amqp_1_0.type.transport.Transfer;
-import org.apache.qpid.server.plugin.MessageConverter;
 import org.apache.qpid.server.protocol.MessageConverterRegistry;
 import org.apache.qpid.server.filter.FilterManager;
 import org.apache.qpid.server.logging.LogActor;
@@ -201,16 +200,8 @@ class
     public void send(final QueueEntry queueEntry) throws AMQException
     {
         ServerMessage serverMessage = queueEntry.getMessage();
-        Message_1_0 message;
-        if(serverMessage instanceof Message_1_0)
-        {
-            message = (Message_1_0) serverMessage;
-        }
-        else
-        {
-            final MessageConverter converter = MessageConverterRegistry.getConverter(serverMessage.getClass(), Message_1_0.class);
-            message = (Message_1_0) converter.convert(serverMessage, queueEntry.getQueue().getVirtualHost());
-        }
+        Message_1_0 message =
+                MessageConverterRegistry.convert(serverMessage, Message_1_0.class, queueEntry.getQueue().getVirtualHost());
 
         Transfer transfer = new Transfer();
         //TODO
@@ -220,7 +211,8 @@ class
         ByteBuffer payload;
         if(fragments.size() == 1)
         {
-            payload = fragments.get(0);
+            // the message, and so its fragments, may be shared by other subscriptions
+            payload = fragments.get(0).duplicate();
         }
         else
         {
@@ -41,6 +41,7 @@ import org.apache.qpid.server.queue.QueueEntryVisitor;
 import org.apache.qpid.server.security.SecurityManager;
 import org.apache.qpid.server.security.access.Operation;
 import org.apache.qpid.server.subscription.Subscription;
+import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.map.SerializationConfig;
 
@@ -48,6 +49,10 @@ public class MessageServlet extends AbstractServlet
 {
     private static final Logger LOGGER = Logger.getLogger(MessageServlet.class);
 
+    public static final String PARAM_CURSOR = "cursor";
+    public static final String PARAM_LIMIT = "limit";
+    private static final int DEFAULT_LIMIT = 100;
+
     public MessageServlet()
     {
         super();
@@ -61,6 +66,10 @@ public class MessageServlet extends AbstractServlet
         {
             getMessageContent(request, response);
         }
+        else if(request.getParameter(PARAM_CURSOR) != null || request.getParameter(PARAM_LIMIT) != null)
+        {
+            getMessagePage(request, response);
+        }
         else
         {
             getMessageList(request, response);
@@ -122,6 +131,60 @@ public class MessageServlet extends AbstractServlet
         mapper.writeValue(writer, messages);
     }
 
+    /*
+     * Streams up to 'limit' messages following 'cursor' as {"messages" : [...], "nextCursor" : n}, where passing
+     * nextCursor back as the cursor returns the following page.  Unlike a Range request, the cost of a page does not
+     * depend on how deep into the queue it lies.
+     */
+    private void getMessagePage(HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        Queue queue = getQueueFromRequest(request);
+
+        long cursor;
+        int limit;
+        try
+        {
+            String cursorParam = request.getParameter(PARAM_CURSOR);
+            String limitParam = request.getParameter(PARAM_LIMIT);
+            cursor = cursorParam == null ? 0l : Long.parseLong(cursorParam);
+            limit = limitParam == null ? DEFAULT_LIMIT : Integer.parseInt(limitParam);
+        }
+        catch(NumberFormatException e)
+        {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid cursor or limit");
+            return;
+        }
+        if(cursor < 0 || limit <= 0)
+        {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid cursor or limit");
+            return;
+        }
+
+        response.setContentType("application/json");
+        response.setStatus(HttpServletResponse.SC_OK);
+
+        response.setHeader("Cache-Control","no-cache");
+        response.setHeader("Pragma","no-cache");
+        response.setDateHeader ("Expires", 0);
+
+        final JsonGenerator generator = new ObjectMapper().getJsonFactory().createJsonGenerator(response.getWriter());
+        generator.useDefaultPrettyPrinter();
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("messages");
+
+        final MessageStreamer messageStreamer = new MessageStreamer(generator, limit);
+        final long nextCursor = queue.visit(messageStreamer, cursor);
+        if(messageStreamer.getException() != null)
+        {
+            throw messageStreamer.getException();
+        }
+
+        generator.writeEndArray();
+        generator.writeNumberField("nextCursor", nextCursor);
+        generator.writeEndObject();
+        generator.flush();
+    }
+
     private Queue getQueueFromRequest(HttpServletRequest request)
     {
         // TODO - validation that there is a vhost and queue and only those in the path
@@ -284,6 +347,41 @@ public class MessageServlet extends AbstractServlet
     }
 
 
+    private class MessageStreamer implements QueueEntryVisitor
+    {
+        private final JsonGenerator _generator;
+        private final int _limit;
+        private int _count;
+        private IOException _exception;
+
+        private MessageStreamer(JsonGenerator generator, int limit)
+        {
+            _generator = generator;
+            _limit = limit;
+        }
+
+        public boolean visit(QueueEntry entry)
+        {
+            try
+            {
+                writeMessage(_generator, entry);
+            }
+            catch (IOException e)
+            {
+                // most likely the client has gone away, so stop visiting the queue
+                _exception = e;
+                return true;
+            }
+            return ++_count >= _limit;
+        }
+
+        public IOException getException()
+        {
+            return _exception;
+        }
+    }
+
+
     private class MessageFinder implements QueueEntryVisitor
     {
         private final long _messageNumber;
@@ -322,11 +420,7 @@ public class MessageServlet extends AbstractServlet
         Map<String, Object> object = new LinkedHashMap<String, Object>();
         object.put("size", entry.getSize());
         object.put("deliveryCount", entry.getDeliveryCount());
-        object.put("state",entry.isAvailable()
-                                   ? "Available"
-                                   : entry.isAcquired()
-                                             ? "Acquired"
-                                             : "");
+        object.put("state", getState(entry));
         final Subscription deliveredSubscription = entry.getDeliveredSubscription();
         object.put("deliveredTo", deliveredSubscription == null ? null : deliveredSubscription.getSubscriptionID());
         ServerMessage message = entry.getMessage();
@@ -343,6 +437,77 @@ public class MessageServlet extends AbstractServlet
         return object;
     }
 
+    private String getState(QueueEntry entry)
+    {
+        return entry.isAvailable()
+                       ? "Available"
+                       : entry.isAcquired()
+                                 ? "Acquired"
+                                 : "";
+    }
+
+    /*
+     * Writes the same fields as convertToObject(entry, false) without building an intermediate map
+     */
+    private void writeMessage(JsonGenerator generator, QueueEntry entry) throws IOException
+    {
+        generator.writeStartObject();
+        generator.writeNumberField("size", entry.getSize());
+        generator.writeNumberField("deliveryCount", entry.getDeliveryCount());
+        generator.writeStringField("state", getState(entry));
+        final Subscription deliveredSubscription = entry.getDeliveredSubscription();
+        generator.writeFieldName("deliveredTo");
+        if(deliveredSubscription == null)
+        {
+            generator.writeNull();
+        }
+        else
+        {
+            generator.writeNumber(deliveredSubscription.getSubscriptionID());
+        }
+
+        ServerMessage message = entry.getMessage();
+        if(message != null)
+        {
+            generator.writeNumberField("id", message.getMessageNumber());
+            generator.writeNumberField("arrivalTime", message.getArrivalTime());
+            generator.writeBooleanField("persistent", message.isPersistent());
+
+            final AMQMessageHeader messageHeader = message.getMessageHeader();
+            if(messageHeader != null)
+            {
+                writeIfPresent(generator, "messageId", messageHeader.getMessageId());
+                writeIfNotZero(generator, "expirationTime", messageHeader.getExpiration());
+                writeIfPresent(generator, "applicationId", messageHeader.getAppId());
+                writeIfPresent(generator, "correlationId", messageHeader.getCorrelationId());
+                writeIfPresent(generator, "encoding", messageHeader.getEncoding());
+                writeIfPresent(generator, "mimeType", messageHeader.getMimeType());
+                generator.writeNumberField("priority", messageHeader.getPriority());
+                writeIfPresent(generator, "replyTo", messageHeader.getReplyTo());
+                writeIfNotZero(generator, "timestamp", messageHeader.getTimestamp());
+                writeIfPresent(generator, "type", messageHeader.getType());
+                writeIfPresent(generator, "userId", messageHeader.getUserId());
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeIfPresent(JsonGenerator generator, String name, String value) throws IOException
+    {
+        if(value != null)
+        {
+            generator.writeStringField(name, value);
+        }
+    }
+
+    private void writeIfNotZero(JsonGenerator generator, String name, long value) throws IOException
+    {
+        if(value != 0)
+        {
+            generator.writeNumberField(name, value);
+        }
+    }
+
     private void convertMessageProperties(Map<String, Object> object, ServerMessage message)
     {
         object.put("id", message.getMessageNumber());
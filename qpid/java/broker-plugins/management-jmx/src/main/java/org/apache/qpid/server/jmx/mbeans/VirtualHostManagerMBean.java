@@ -236,4 +236,39 @@ public class VirtualHostManagerMBean extends AbstractStatisticsGatheringMBean<Vi
         return true;
     }
 
+    public long getEnqueueToDeliverLatencyP50()
+    {
+        return getLatencyStatistic(VirtualHost.ENQUEUE_TO_DELIVER_LATENCY_P50);
+    }
+
+    public long getEnqueueToDeliverLatencyP99()
+    {
+        return getLatencyStatistic(VirtualHost.ENQUEUE_TO_DELIVER_LATENCY_P99);
+    }
+
+    public long getEnqueueToDeliverLatencyP999()
+    {
+        return getLatencyStatistic(VirtualHost.ENQUEUE_TO_DELIVER_LATENCY_P999);
+    }
+
+    public long getPublishToStoreCommitLatencyP50()
+    {
+        return getLatencyStatistic(VirtualHost.PUBLISH_TO_STORE_COMMIT_LATENCY_P50);
+    }
+
+    public long getPublishToStoreCommitLatencyP99()
+    {
+        return getLatencyStatistic(VirtualHost.PUBLISH_TO_STORE_COMMIT_LATENCY_P99);
+    }
+
+    public long getPublishToStoreCommitLatencyP999()
+    {
+        return getLatencyStatistic(VirtualHost.PUBLISH_TO_STORE_COMMIT_LATENCY_P999);
+    }
+
+    private long getLatencyStatistic(String name)
+    {
+        return (Long) getConfiguredObject().getStatistics().getStatistic(name);
+    }
+
 }
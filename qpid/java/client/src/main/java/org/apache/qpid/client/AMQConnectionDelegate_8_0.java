@@ -34,10 +34,13 @@ import org.apache.qpid.framing.BasicQosBody;
 import org.apache.qpid.framing.BasicQosOkBody;
 import org.apache.qpid.framing.ChannelOpenBody;
 import org.apache.qpid.framing.ChannelOpenOkBody;
+import org.apache.qpid.framing.ConfirmSelectBody;
+import org.apache.qpid.framing.ConfirmSelectOkBody;
 import org.apache.qpid.framing.FieldTable;
 import org.apache.qpid.framing.ProtocolVersion;
 import org.apache.qpid.framing.TxSelectBody;
 import org.apache.qpid.framing.TxSelectOkBody;
+import org.apache.qpid.framing.amqp_0_91.MethodRegistry_0_91;
 import org.apache.qpid.jms.BrokerDetails;
 import org.apache.qpid.jms.ChannelLimitReachedException;
 import org.apache.qpid.jms.ConnectionURL;
@@ -197,7 +200,8 @@ public class AMQConnectionDelegate_8_0 implements AMQConnectionDelegate
                         boolean success = false;
                         try
                         {
-                            createChannelOverWire(channelId, prefetchHigh, prefetchLow, transacted);
+                            createChannelOverWire(channelId, prefetchHigh, prefetchLow, transacted,
+                                                  ((AMQSession_0_8) session).getPublisherConfirms() != null);
                             success = true;
                         }
                         catch (AMQException e)
@@ -244,7 +248,8 @@ public class AMQConnectionDelegate_8_0 implements AMQConnectionDelegate
         return createXASession((int) _conn.getMaxPrefetch(), (int) _conn.getMaxPrefetch() / 2);
     }
 
-    private void createChannelOverWire(int channelId, int prefetchHigh, int prefetchLow, boolean transacted)
+    private void createChannelOverWire(int channelId, int prefetchHigh, int prefetchLow, boolean transacted,
+                                       boolean publisherConfirms)
             throws AMQException, FailoverException
     {
         ChannelOpenBody channelOpenBody = _conn.getProtocolHandler().getMethodRegistry().createChannelOpenBody(null);
@@ -267,6 +272,17 @@ public class AMQConnectionDelegate_8_0 implements AMQConnectionDelegate
             // TODO: Be aware of possible changes to parameter order as versions change.
             _conn.getProtocolHandler().syncWrite(body.generateFrame(channelId), TxSelectOkBody.class);
         }
+        else if (publisherConfirms)
+        {
+            if (_logger.isDebugEnabled())
+            {
+                _logger.debug("Issuing ConfirmSelect for " + channelId);
+            }
+            ConfirmSelectBody body =
+                    ((MethodRegistry_0_91) _conn.getProtocolHandler().getMethodRegistry()).createConfirmSelectBody(false);
+
+            _conn.getProtocolHandler().syncWrite(body.generateFrame(channelId), ConfirmSelectOkBody.class);
+        }
     }
 
     public void failoverPrep()
@@ -291,18 +307,27 @@ public class AMQConnectionDelegate_8_0 implements AMQConnectionDelegate
             // if virtual host is not blocked, then broker does not send flow command
             // that's why we need to reset the flow control flag
             s.setFlowControl(true);
-            reopenChannel(s.getChannelId(), s.getDefaultPrefetchHigh(), s.getDefaultPrefetchLow(), s.isTransacted());
+
+            // publishes awaiting confirmation on the old channel can no longer be confirmed
+            final PublisherConfirms publisherConfirms = ((AMQSession_0_8) s).getPublisherConfirms();
+            if (publisherConfirms != null)
+            {
+                publisherConfirms.channelReopened();
+            }
+            reopenChannel(s.getChannelId(), s.getDefaultPrefetchHigh(), s.getDefaultPrefetchLow(), s.isTransacted(),
+                          publisherConfirms != null);
 
             s.resubscribe();
         }
     }
 
-    private void reopenChannel(int channelId, int prefetchHigh, int prefetchLow, boolean transacted)
+    private void reopenChannel(int channelId, int prefetchHigh, int prefetchLow, boolean transacted,
+                               boolean publisherConfirms)
     throws AMQException, FailoverException
     {
         try
         {
-            createChannelOverWire(channelId, prefetchHigh, prefetchLow, transacted);
+            createChannelOverWire(channelId, prefetchHigh, prefetchLow, transacted, publisherConfirms);
         }
         catch (AMQException e)
         {
@@ -73,6 +73,8 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -136,6 +138,11 @@ public abstract class AMQSession<C extends BasicMessageConsumer, P extends Basic
      */
     protected final boolean DEAMON_DISPATCHER_THREAD = Boolean.getBoolean(ClientProperties.DAEMON_DISPATCHER);
 
+    /**
+     * Flag indicating to dispatch using the shared {@link DispatcherPool} rather than a thread of our own
+     */
+    private final boolean _useDispatcherPool = DispatcherPool.isEnabled();
+
     /** The connection to which this session belongs. */
     private AMQConnection _connection;
 
@@ -795,7 +802,16 @@ public abstract class AMQSession<C extends BasicMessageConsumer, P extends Basic
 
     protected void stopDispatcherThread()
     {
-        if (_dispatcherThread != null)
+        if (_useDispatcherPool)
+        {
+            // pool threads are shared, so rather than interrupting one stop the dispatcher scheduling itself
+            final Dispatcher dispatcher = _dispatcher;
+            if (dispatcher != null)
+            {
+                dispatcher.close();
+            }
+        }
+        else if (_dispatcherThread != null)
         {
             _dispatcherThread.interrupt();
         }
@@ -893,7 +909,7 @@ public abstract class AMQSession<C extends BasicMessageConsumer, P extends Basic
                     }
                     else
                     {
-                        _queue.add(new CloseConsumerMessage(consumer));
+                        addToDispatchQueue(new CloseConsumerMessage(consumer));
                     }
                 }
             }
@@ -1661,7 +1677,18 @@ public abstract class AMQSession<C extends BasicMessageConsumer, P extends Basic
             _logger.debug("Message[" + message.toString() + "] received in session");
         }
         _highestDeliveryTag.set(message.getDeliveryTag());
-        _queue.add(message);
+        addToDispatchQueue(message);
+    }
+
+    private void addToDispatchQueue(Dispatchable dispatchable)
+    {
+        _queue.add(dispatchable);
+
+        final Dispatcher dispatcher = _dispatcher;
+        if (dispatcher != null)
+        {
+            dispatcher.dispatchableAdded();
+        }
     }
 
     public void declareAndBind(AMQDestination amqd)
@@ -2188,7 +2215,7 @@ public abstract class AMQSession<C extends BasicMessageConsumer, P extends Basic
 
             final CountDownLatch signal = new CountDownLatch(1);
 
-            _queue.add(new Dispatchable()
+            addToDispatchQueue(new Dispatchable()
             {
                 public void dispatch(AMQSession ssn)
                 {
@@ -2240,7 +2267,7 @@ public abstract class AMQSession<C extends BasicMessageConsumer, P extends Basic
 
             final CountDownLatch signal = new CountDownLatch(1);
 
-            _queue.add(new Dispatchable()
+            addToDispatchQueue(new Dispatchable()
             {
                 public void dispatch(AMQSession ssn)
                 {
@@ -2345,7 +2372,16 @@ public abstract class AMQSession<C extends BasicMessageConsumer, P extends Basic
 
     synchronized void startDispatcherIfNecessary(boolean initiallyStopped)
     {
-        if (_dispatcher == null)
+        if (_dispatcher == null && _useDispatcherPool)
+        {
+            _dispatcher = new PooledDispatcher();
+            _dispatcher.setConnectionStopped(initiallyStopped);
+            if (_dispatcherLogger.isDebugEnabled())
+            {
+                _dispatcherLogger.debug("Pooled dispatcher created for channel " + _channelId + ":" + this);
+            }
+        }
+        else if (_dispatcher == null)
         {
             _dispatcher = new Dispatcher();
             try
@@ -3139,11 +3175,24 @@ public abstract class AMQSession<C extends BasicMessageConsumer, P extends Basic
 
         }
 
-        private AtomicBoolean getClosed()
+        AtomicBoolean getClosed()
         {
             return _closed;
         }
 
+        final Object getLock()
+        {
+            return _lock;
+        }
+
+        /**
+         * Called after a dispatchable has been added to the session's queue.  A dispatcher with its own thread has
+         * nothing to do, as the queue itself wakes the thread.
+         */
+        void dispatchableAdded()
+        {
+        }
+
         public void rejectPending(C consumer)
         {
             // Reject messages on pre-receive queue
@@ -3274,6 +3323,14 @@ public abstract class AMQSession<C extends BasicMessageConsumer, P extends Basic
             return _connectionStopped;
         }
 
+        final boolean isConnectionStopped()
+        {
+            synchronized (_lock)
+            {
+                return connectionStopped();
+            }
+        }
+
         boolean setConnectionStopped(boolean connectionStopped)
         {
             boolean currently;
@@ -3396,6 +3453,114 @@ public abstract class AMQSession<C extends BasicMessageConsumer, P extends Basic
         }
     }
 
+    /**
+     * A dispatcher without a thread of its own, which submits itself to the shared {@link DispatcherPool} whenever the
+     * session has something to dispatch and the connection is started.  At most one submission is outstanding at a
+     * time, so dispatch for the session remains serial.  While it runs, the pool thread is the session's dispatcher
+     * thread, so the checks made against {@link #getDispatcherThread()} hold as they do for a dedicated thread.
+     * <p/>
+     * Each dispatchable is taken from the queue and dispatched while holding the dispatcher lock, so the connection
+     * cannot be stopped in between.  When the connection is stopped the remaining dispatchables are left on the queue
+     * and the pool thread is given back, rather than waiting for the connection to be restarted; restarting it
+     * schedules the dispatcher again.
+     */
+    class PooledDispatcher extends Dispatcher
+    {
+        private final AtomicBoolean _scheduled = new AtomicBoolean(false);
+        private final ExecutorService _executor = DispatcherPool.acquireExecutor();
+
+        @Override
+        public void close()
+        {
+            if (getClosed().compareAndSet(false, true))
+            {
+                DispatcherPool.releaseExecutor();
+            }
+        }
+
+        @Override
+        void dispatchableAdded()
+        {
+            schedule();
+        }
+
+        @Override
+        boolean setConnectionStopped(boolean connectionStopped)
+        {
+            boolean currently = super.setConnectionStopped(connectionStopped);
+            if (!connectionStopped)
+            {
+                schedule();
+            }
+            return currently;
+        }
+
+        private void schedule()
+        {
+            if (!getClosed().get() && !_queue.isEmpty() && _scheduled.compareAndSet(false, true))
+            {
+                try
+                {
+                    _executor.execute(this);
+                }
+                catch (RejectedExecutionException e)
+                {
+                    // the pool is only shut down once this dispatcher has been closed
+                    _scheduled.set(false);
+                }
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            _dispatcherThread = Thread.currentThread();
+            try
+            {
+                int dispatched = 0;
+                while (dispatched < DispatcherPool.MAX_DISPATCH_BATCH && !getClosed().get() && dispatchNext())
+                {
+                    dispatched++;
+                }
+            }
+            finally
+            {
+                _dispatcherThread = null;
+                _scheduled.set(false);
+            }
+
+            // anything added while we held the schedule, or left over from the batch, needs another turn; if the
+            // connection has been stopped, restarting it will schedule us
+            if (!isConnectionStopped())
+            {
+                schedule();
+            }
+        }
+
+        /**
+         * Dispatches the next dispatchable unless the connection is stopped, in which case it is left on the queue.
+         *
+         * @return true if a dispatchable was dispatched
+         */
+        private boolean dispatchNext()
+        {
+            synchronized (getLock())
+            {
+                if (connectionStopped())
+                {
+                    return false;
+                }
+                final Dispatchable disp = (Dispatchable) _queue.poll();
+                if (disp == null)
+                {
+                    return false;
+                }
+                disp.dispatch(AMQSession.this);
+                return true;
+            }
+        }
+    }
+
     protected abstract boolean tagLE(long tag1, long tag2);
 
     protected abstract boolean updateRollbackMark(long current, long deliveryTag);
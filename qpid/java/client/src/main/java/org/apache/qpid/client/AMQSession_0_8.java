@@ -23,6 +23,7 @@ package org.apache.qpid.client;
 
 import static org.apache.qpid.configuration.ClientProperties.DEFAULT_FLOW_CONTROL_WAIT_FAILURE;
 import static org.apache.qpid.configuration.ClientProperties.DEFAULT_FLOW_CONTROL_WAIT_NOTIFY_PERIOD;
+import static org.apache.qpid.configuration.ClientProperties.PUBLISH_CONFIRM_WINDOW;
 import static org.apache.qpid.configuration.ClientProperties.QPID_FLOW_CONTROL_WAIT_FAILURE;
 import static org.apache.qpid.configuration.ClientProperties.QPID_FLOW_CONTROL_WAIT_NOTIFY_PERIOD;
 
@@ -85,6 +86,9 @@ public class AMQSession_0_8 extends AMQSession<BasicMessageConsumer_0_8, BasicMe
     /** Flow control */
     private FlowControlIndicator _flowControl = new FlowControlIndicator();
 
+    /** Tracks publishes awaiting their confirm, or null if the session has not selected publisher confirms */
+    private final PublisherConfirms _publisherConfirms;
+
     /**
      * Creates a new session on a connection.
      *
@@ -101,6 +105,17 @@ public class AMQSession_0_8 extends AMQSession<BasicMessageConsumer_0_8, BasicMe
     {
 
          super(con,channelId,transacted,acknowledgeMode,messageFactoryRegistry,defaultPrefetchHighMark,defaultPrefetchLowMark);
+
+        // confirms are a 0-9-1 extension, and a transacted session already learns the fate of its publishes on commit
+        final int confirmWindow = Integer.getInteger(PUBLISH_CONFIRM_WINDOW, 0);
+        if (confirmWindow > 0 && !transacted && ProtocolVersion.v0_91.equals(getProtocolVersion()))
+        {
+            _publisherConfirms = new PublisherConfirms(confirmWindow);
+        }
+        else
+        {
+            _publisherConfirms = null;
+        }
     }
 
     /**
@@ -177,6 +192,46 @@ public class AMQSession_0_8 extends AMQSession<BasicMessageConsumer_0_8, BasicMe
                                         generateFrame(getChannelId()), QueueBindOkBody.class);
     }
 
+    PublisherConfirms getPublisherConfirms()
+    {
+        return _publisherConfirms;
+    }
+
+    public void publishConfirmed(long deliveryTag, boolean multiple, boolean accepted)
+    {
+        if (_publisherConfirms == null)
+        {
+            _logger.warn("Ignoring publish confirm for delivery tag " + deliveryTag + " on channel " + getChannelId()
+                         + " which has not selected confirms");
+        }
+        else
+        {
+            _publisherConfirms.confirmed(deliveryTag, multiple, accepted);
+        }
+    }
+
+    private void awaitPublishConfirms(long timeout)
+    {
+        try
+        {
+            if (!_publisherConfirms.awaitAllConfirmed(timeout))
+            {
+                _logger.warn("Closing channel " + getChannelId() + " with " + _publisherConfirms.getUnconfirmedCount()
+                             + " publish(es) still awaiting confirmation");
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        final int rejected = _publisherConfirms.takeRejectedCount();
+        if (rejected != 0)
+        {
+            _logger.warn("Broker refused " + rejected + " message(s) published on channel " + getChannelId());
+        }
+    }
+
     public void sendClose(long timeout) throws AMQException, FailoverException
     {
         // we also need to check the state manager for 08/09 as the
@@ -188,6 +243,10 @@ public class AMQSession_0_8 extends AMQSession<BasicMessageConsumer_0_8, BasicMe
         if (!(getProtocolHandler().getStateManager().getCurrentState().equals(AMQState.CONNECTION_CLOSED)
             || getProtocolHandler().getStateManager().getCurrentState().equals(AMQState.CONNECTION_CLOSING)))
         {
+            if (_publisherConfirms != null)
+            {
+                awaitPublishConfirms(timeout);
+            }
 
             getProtocolHandler().closeSession(this);
             getProtocolHandler().syncWrite(getProtocolHandler().getMethodRegistry().createChannelCloseBody(AMQConstant.REPLY_SUCCESS.getCode(),
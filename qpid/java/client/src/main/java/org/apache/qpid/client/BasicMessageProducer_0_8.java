@@ -36,6 +36,7 @@ import org.apache.qpid.framing.MethodRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.jms.DeliveryMode;
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.Queue;
@@ -48,6 +49,10 @@ public class BasicMessageProducer_0_8 extends BasicMessageProducer
 {
     private static final Logger _logger = LoggerFactory.getLogger(BasicMessageProducer_0_8.class);
     private static final boolean SET_EXPIRATION_AS_TTL = Boolean.getBoolean(ClientProperties.SET_EXPIRATION_AS_TTL);
+    private static final long CONFIRM_TIMEOUT =
+            Long.getLong(ClientProperties.QPID_SYNC_OP_TIMEOUT,
+                         Long.getLong(ClientProperties.AMQJ_DEFAULT_SYNCWRITE_TIMEOUT,
+                                      ClientProperties.DEFAULT_SYNC_OPERATION_TIMEOUT));
 
     BasicMessageProducer_0_8(AMQConnection connection, AMQDestination destination, boolean transacted, int channelId,
             AMQSession session, AMQProtocolHandler protocolHandler, long producerId, Boolean immediate, Boolean mandatory) throws AMQException
@@ -182,7 +187,66 @@ public class BasicMessageProducer_0_8 extends BasicMessageProducer
             throw jmse;
         }
 
-        getConnection().getProtocolHandler().writeFrame(compositeFrame);
+        final PublisherConfirms confirms = ((AMQSession_0_8) getSession()).getPublisherConfirms();
+        if (confirms == null)
+        {
+            getConnection().getProtocolHandler().writeFrame(compositeFrame);
+        }
+        else
+        {
+            final boolean sync = getPublishMode() == PublishMode.SYNC_PUBLISH_ALL
+                                 || (getPublishMode() == PublishMode.SYNC_PUBLISH_PERSISTENT
+                                     && deliveryMode == DeliveryMode.PERSISTENT);
+            sendWithConfirm(confirms, compositeFrame, sync);
+        }
+    }
+
+    /**
+     * Publishes on a session in confirm mode.  Unless a synchronous publish is required the message is pipelined:
+     * the producer only waits when the window of unconfirmed publishes is full, and learns of any earlier publishes
+     * the broker refused on its next send.
+     */
+    private void sendWithConfirm(PublisherConfirms confirms, CompositeAMQDataBlock compositeFrame, boolean sync)
+            throws JMSException
+    {
+        try
+        {
+            if (!confirms.awaitCapacity(CONFIRM_TIMEOUT))
+            {
+                throw new JMSException("Timed out after " + CONFIRM_TIMEOUT + "ms waiting for the broker to confirm "
+                                       + confirms.getUnconfirmedCount() + " earlier message(s)");
+            }
+            checkNoneRejected(confirms);
+
+            final long publishTag = confirms.published();
+            getConnection().getProtocolHandler().writeFrame(compositeFrame);
+
+            if (sync)
+            {
+                if (!confirms.awaitConfirmed(publishTag, CONFIRM_TIMEOUT))
+                {
+                    throw new JMSException("Timed out after " + CONFIRM_TIMEOUT
+                                           + "ms waiting for the broker to confirm the message");
+                }
+                checkNoneRejected(confirms);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            JMSException jmse = new JMSException("Interrupted while waiting for publish confirms");
+            jmse.setLinkedException(e);
+            jmse.initCause(e);
+            throw jmse;
+        }
+    }
+
+    private void checkNoneRejected(PublisherConfirms confirms) throws JMSException
+    {
+        final int rejected = confirms.takeRejectedCount();
+        if (rejected != 0)
+        {
+            throw new JMSException("Broker refused " + rejected + " message(s) published on this session");
+        }
     }
 
     /**
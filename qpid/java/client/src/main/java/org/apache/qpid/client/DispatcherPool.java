@@ -0,0 +1,117 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.client;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.qpid.configuration.ClientProperties;
+import org.apache.qpid.thread.Threading;
+
+/**
+ * A JVM wide, bounded pool of threads shared by the dispatchers of all sessions when
+ * {@value ClientProperties#DISPATCHER_POOL_SIZE} is set, in place of a thread per session.
+ * <p/>
+ * A session has at most one dispatch task submitted to the pool at any time, so delivery to the message listeners of
+ * a session remains serial and in order.  Tasks give up their thread after a bounded number of messages so that a
+ * busy session cannot starve the others.
+ */
+final class DispatcherPool
+{
+    /** The maximum number of dispatchables a session processes before resubmitting itself to the pool. */
+    static final int MAX_DISPATCH_BATCH = 64;
+
+    private static ExecutorService _executor;
+
+    /** The number of dispatchers holding the executor; the pool is shut down when the last of them is closed. */
+    private static int _references;
+
+    private DispatcherPool()
+    {
+    }
+
+    static boolean isEnabled()
+    {
+        return getPoolSize() > 0;
+    }
+
+    /**
+     * Returns the shared executor, creating it if no dispatcher currently holds it with the pool size and daemon
+     * setting in effect at that time.  Each call must be matched by a call to {@link #releaseExecutor()}.
+     */
+    static synchronized ExecutorService acquireExecutor()
+    {
+        if (_executor == null)
+        {
+            final int poolSize = getPoolSize();
+            if (poolSize <= 0)
+            {
+                throw new IllegalStateException("Dispatcher pool is not enabled: "
+                                                + ClientProperties.DISPATCHER_POOL_SIZE + " is not set");
+            }
+            _executor = Executors.newFixedThreadPool(poolSize, new DispatcherThreadFactory());
+        }
+        _references++;
+        return _executor;
+    }
+
+    /**
+     * Releases a reference obtained from {@link #acquireExecutor()}, shutting the pool down once no dispatcher holds
+     * it so that its threads do not keep the JVM alive after the sessions using them have closed.
+     */
+    static synchronized void releaseExecutor()
+    {
+        if (_references > 0 && --_references == 0)
+        {
+            _executor.shutdown();
+            _executor = null;
+        }
+    }
+
+    private static int getPoolSize()
+    {
+        return Integer.getInteger(ClientProperties.DISPATCHER_POOL_SIZE, 0);
+    }
+
+    private static class DispatcherThreadFactory implements ThreadFactory
+    {
+        private final AtomicInteger _threadNumber = new AtomicInteger();
+        private final boolean _daemon = Boolean.getBoolean(ClientProperties.DAEMON_DISPATCHER);
+
+        public Thread newThread(final Runnable runnable)
+        {
+            final Thread thread;
+            try
+            {
+                thread = Threading.getThreadFactory().createThread(runnable);
+            }
+            catch (Exception e)
+            {
+                throw new Error("Error creating Dispatcher thread", e);
+            }
+            thread.setName("Dispatcher-Pool-" + _threadNumber.incrementAndGet());
+            thread.setDaemon(_daemon);
+            return thread;
+        }
+    }
+}
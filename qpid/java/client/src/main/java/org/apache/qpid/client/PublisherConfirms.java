@@ -0,0 +1,150 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.client;
+
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Tracks the messages published on a session which has selected publisher confirms.  Each publish is numbered
+ * from one, in the order the broker receives it, and remains unconfirmed until the broker settles it with a
+ * basic.ack or basic.nack, either of which may settle every publish up to and including its tag at once.
+ *
+ * Publishing only blocks once the configured window of unconfirmed messages is full, so that a producer can
+ * pipeline its messages while still learning of any the broker refused.
+ */
+final class PublisherConfirms
+{
+    private final int _window;
+    private final SortedSet<Long> _unconfirmed = new TreeSet<Long>();
+    private long _nextPublishTag = 1l;
+    private int _rejectedCount;
+
+    PublisherConfirms(int window)
+    {
+        _window = window;
+    }
+
+    /**
+     * Waits until fewer than the window of publishes are unconfirmed.
+     *
+     * @return false if the window was still full when the timeout elapsed
+     */
+    synchronized boolean awaitCapacity(long timeout) throws InterruptedException
+    {
+        final long deadline = System.currentTimeMillis() + timeout;
+        long remaining = timeout;
+        while (_unconfirmed.size() >= _window && remaining > 0)
+        {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return _unconfirmed.size() < _window;
+    }
+
+    /**
+     * Records a publish, which must be called before the message is written so that its confirm cannot overtake it.
+     *
+     * @return the tag by which the broker will confirm the message
+     */
+    synchronized long published()
+    {
+        final long tag = _nextPublishTag++;
+        _unconfirmed.add(tag);
+        return tag;
+    }
+
+    synchronized void confirmed(long tag, boolean multiple, boolean accepted)
+    {
+        int settled;
+        if (multiple)
+        {
+            final SortedSet<Long> upToTag = _unconfirmed.headSet(tag + 1);
+            settled = upToTag.size();
+            upToTag.clear();
+        }
+        else
+        {
+            settled = _unconfirmed.remove(tag) ? 1 : 0;
+        }
+
+        if (!accepted)
+        {
+            _rejectedCount += settled;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Waits until the given publish, and every publish before it, has been settled.
+     *
+     * @return false if some of the publishes were still unconfirmed when the timeout elapsed
+     */
+    synchronized boolean awaitConfirmed(long tag, long timeout) throws InterruptedException
+    {
+        final long deadline = System.currentTimeMillis() + timeout;
+        long remaining = timeout;
+        while (isUnconfirmed(tag) && remaining > 0)
+        {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return !isUnconfirmed(tag);
+    }
+
+    /** Waits until every publish made so far has been settled */
+    synchronized boolean awaitAllConfirmed(long timeout) throws InterruptedException
+    {
+        return awaitConfirmed(_nextPublishTag - 1, timeout);
+    }
+
+    private boolean isUnconfirmed(long tag)
+    {
+        return !_unconfirmed.isEmpty() && _unconfirmed.first() <= tag;
+    }
+
+    /**
+     * @return the number of publishes the broker has refused since the last call
+     */
+    synchronized int takeRejectedCount()
+    {
+        final int rejected = _rejectedCount;
+        _rejectedCount = 0;
+        return rejected;
+    }
+
+    synchronized int getUnconfirmedCount()
+    {
+        return _unconfirmed.size();
+    }
+
+    /**
+     * Called when the channel is reopened after failover.  The broker numbers publishes afresh on the new channel
+     * and cannot confirm any made on the old one, so those are counted as refused.
+     */
+    synchronized void channelReopened()
+    {
+        _rejectedCount += _unconfirmed.size();
+        _unconfirmed.clear();
+        _nextPublishTag = 1l;
+        notifyAll();
+    }
+}
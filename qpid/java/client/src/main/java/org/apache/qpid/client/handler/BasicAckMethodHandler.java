@@ -0,0 +1,55 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.client.handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.qpid.AMQException;
+import org.apache.qpid.client.protocol.AMQProtocolSession;
+import org.apache.qpid.client.state.StateAwareMethodListener;
+import org.apache.qpid.framing.BasicAckBody;
+
+/**
+ * Handles a basic.ack sent by the broker to confirm publishes on a channel which has selected confirms.
+ */
+public class BasicAckMethodHandler implements StateAwareMethodListener<BasicAckBody>
+{
+    private static final Logger _logger = LoggerFactory.getLogger(BasicAckMethodHandler.class);
+
+    private static final BasicAckMethodHandler _instance = new BasicAckMethodHandler();
+
+    public static BasicAckMethodHandler getInstance()
+    {
+        return _instance;
+    }
+
+    public void methodReceived(AMQProtocolSession session, BasicAckBody body, int channelId)
+    throws AMQException
+    {
+        if (_logger.isDebugEnabled())
+        {
+            _logger.debug("Publish confirm received on channel " + channelId + ": " + body);
+        }
+        session.publishConfirmed(channelId, body.getDeliveryTag(), body.getMultiple(), true);
+    }
+
+}
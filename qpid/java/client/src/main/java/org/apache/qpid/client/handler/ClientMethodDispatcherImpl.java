@@ -116,6 +116,11 @@ public class ClientMethodDispatcherImpl implements MethodDispatcher
         return _session.getStateManager();
     }
 
+    protected AMQProtocolSession getProtocolSession()
+    {
+        return _session;
+    }
+
     public boolean dispatchAccessRequestOk(AccessRequestOkBody body, int channelId) throws AMQException
     {
         return false;
@@ -28,11 +28,36 @@ import org.apache.qpid.framing.amqp_0_91.MethodDispatcher_0_91;
 
 public class ClientMethodDispatcherImpl_0_91 extends ClientMethodDispatcherImpl implements MethodDispatcher_0_91
 {
+    private static final BasicAckMethodHandler _basicAckMethodHandler = BasicAckMethodHandler.getInstance();
+    private static final BasicNackMethodHandler _basicNackMethodHandler = BasicNackMethodHandler.getInstance();
+
     public ClientMethodDispatcherImpl_0_91(AMQProtocolSession session)
     {
         super(session);
     }
 
+    public boolean dispatchBasicAck(BasicAckBody body, int channelId) throws AMQException
+    {
+        _basicAckMethodHandler.methodReceived(getProtocolSession(), body, channelId);
+        return true;
+    }
+
+    public boolean dispatchBasicNack(BasicNackBody body, int channelId) throws AMQException
+    {
+        _basicNackMethodHandler.methodReceived(getProtocolSession(), body, channelId);
+        return true;
+    }
+
+    public boolean dispatchConfirmSelect(ConfirmSelectBody body, int channelId) throws AMQException
+    {
+        throw new AMQMethodNotImplementedException(body);
+    }
+
+    public boolean dispatchConfirmSelectOk(ConfirmSelectOkBody body, int channelId) throws AMQException
+    {
+        return false;
+    }
+
     public boolean dispatchBasicRecoverSyncOk(BasicRecoverSyncOkBody body, int channelId) throws AMQException
     {
         return false;
@@ -25,6 +25,7 @@ import org.slf4j.LoggerFactory;
 import org.apache.qpid.AMQException;
 import org.apache.qpid.client.AMQConnection;
 import org.apache.qpid.client.AMQSession;
+import org.apache.qpid.client.AMQSession_0_8;
 import org.apache.qpid.client.ConnectionTuneParameters;
 import org.apache.qpid.client.handler.ClientMethodDispatcherImpl;
 import org.apache.qpid.client.message.UnprocessedMessage;
@@ -407,6 +408,16 @@ public class AMQProtocolSession implements AMQVersionAwareProtocolSession
         session.confirmConsumerCancelled(consumerTag.toIntValue());
     }
 
+    public void publishConfirmed(final int channelId, final long deliveryTag, final boolean multiple,
+                                 final boolean accepted)
+    {
+        final AMQSession session = getSession(channelId);
+        if (session != null)
+        {
+            ((AMQSession_0_8) session).publishConfirmed(deliveryTag, multiple, accepted);
+        }
+    }
+
     public void setProtocolVersion(final ProtocolVersion pv)
     {
         if (_logger.isDebugEnabled())
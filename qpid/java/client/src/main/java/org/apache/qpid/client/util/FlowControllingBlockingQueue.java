@@ -20,25 +20,26 @@
  */
 package org.apache.qpid.client.util;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import java.util.Iterator;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * A blocking queue that emits events above a user specified threshold allowing the caller to take action (e.g. flow
  * control) to try to prevent the queue growing (much) further. The underlying queue itself is not bounded therefore the
  * caller is not obliged to react to the events. <p/> This implementation is <b>only</b> safe where we have a single
- * thread adding items and a single (different) thread removing items.
+ * thread removing items at any one time; any number of threads may add items.
+ * <p/>
+ * Neither adding nor removing takes a lock: a taker which finds the queue empty parks itself, and is unparked by the
+ * next add. The threshold listener is called under the listener's monitor, and only when the count crosses a
+ * threshold.
  *
  * @todo Make this implement java.util.Queue and hide the implementation. Then different queue types can be substituted.
  */
 public class FlowControllingBlockingQueue
 {
-	private static final Logger _logger = LoggerFactory.getLogger(FlowControllingBlockingQueue.class);
-	
     /** This queue is bounded and is used to store messages before being dispatched to the consumer */
     private final Queue _queue = new ConcurrentLinkedQueue();
 
@@ -48,9 +49,12 @@ public class FlowControllingBlockingQueue
     private final ThresholdListener _listener;
 
     /** We require a separate count so we can track whether we have reached the threshold */
-    private int _count;
-    
-    private boolean disableFlowControl; 
+    private final AtomicInteger _count = new AtomicInteger();
+
+    /** The thread, if any, parked in {@link #take()} waiting for an item to be added */
+    private volatile Thread _waiter;
+
+    private final boolean disableFlowControl;
 
     public boolean isEmpty()
     {
@@ -74,55 +78,85 @@ public class FlowControllingBlockingQueue
         _flowControlHighThreshold = highThreshold;
         _flowControlLowThreshold = lowThreshold;
         _listener = listener;
-        if (highThreshold == 0)
-        {
-        	disableFlowControl = true;
-        }
+        disableFlowControl = highThreshold == 0;
     }
 
     public Object take() throws InterruptedException
     {
         Object o = _queue.poll();
-        if(o == null)
+        if (o == null)
         {
-            synchronized(this)
+            _waiter = Thread.currentThread();
+            try
             {
-                while((o = _queue.poll())==null)
+                // the add that follows our publication of _waiter is guaranteed to see it and unpark us
+                while ((o = _queue.poll()) == null)
                 {
-                    wait();
+                    LockSupport.park(this);
+                    if (Thread.interrupted())
+                    {
+                        throw new InterruptedException();
+                    }
                 }
             }
-        }
-        if (!disableFlowControl && _listener != null)
-        {
-            synchronized (_listener)
+            finally
             {
-                if (_count-- == _flowControlLowThreshold)
-                {
-                    _listener.underThreshold(_count);
-                }
+                _waiter = null;
             }
-            
         }
+        removed();
+        return o;
+    }
 
+    /**
+     * Retrieves and removes the head of the queue without waiting.
+     *
+     * @return the head of the queue, or null if the queue is empty
+     */
+    public Object poll()
+    {
+        Object o = _queue.poll();
+        if (o != null)
+        {
+            removed();
+        }
         return o;
     }
 
     public void add(Object o)
     {
-        synchronized(this)
+        _queue.add(o);
+
+        final Thread waiter = _waiter;
+        if (waiter != null)
         {
-            _queue.add(o);
+            LockSupport.unpark(waiter);
+        }
 
-            notifyAll();
+        if (!disableFlowControl && _listener != null && _count.incrementAndGet() == _flowControlHighThreshold)
+        {
+            synchronized (_listener)
+            {
+                // a taker may have brought the count back down before we got the monitor
+                final int count = _count.get();
+                if (count >= _flowControlHighThreshold)
+                {
+                    _listener.aboveThreshold(count);
+                }
+            }
         }
-        if (!disableFlowControl && _listener != null)
+    }
+
+    private void removed()
+    {
+        if (!disableFlowControl && _listener != null && _count.getAndDecrement() == _flowControlLowThreshold)
         {
             synchronized (_listener)
             {
-                if (++_count == _flowControlHighThreshold)
+                final int count = _count.get();
+                if (count < _flowControlLowThreshold)
                 {
-                    _listener.aboveThreshold(_count);
+                    _listener.underThreshold(count);
                 }
             }
         }
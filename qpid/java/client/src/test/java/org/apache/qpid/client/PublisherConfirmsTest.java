@@ -0,0 +1,130 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.client;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class PublisherConfirmsTest extends QpidTestCase
+{
+    public void testPublishesAreNumberedFromOne()
+    {
+        PublisherConfirms confirms = new PublisherConfirms(10);
+
+        assertEquals("Unexpected first tag", 1l, confirms.published());
+        assertEquals("Unexpected second tag", 2l, confirms.published());
+        assertEquals("Unexpected unconfirmed count", 2, confirms.getUnconfirmedCount());
+    }
+
+    public void testMultipleAckSettlesAllEarlierPublishes() throws Exception
+    {
+        PublisherConfirms confirms = new PublisherConfirms(10);
+        for (int i = 0; i < 5; i++)
+        {
+            confirms.published();
+        }
+
+        confirms.confirmed(3l, true, true);
+
+        assertEquals("Unexpected unconfirmed count", 2, confirms.getUnconfirmedCount());
+        assertTrue("Publish 3 should be confirmed", confirms.awaitConfirmed(3l, 0l));
+        assertFalse("Publish 4 should not be confirmed", confirms.awaitConfirmed(4l, 0l));
+        assertEquals("Unexpected rejected count", 0, confirms.takeRejectedCount());
+    }
+
+    public void testOutOfOrderSingleAckDoesNotConfirmEarlierPublish() throws Exception
+    {
+        PublisherConfirms confirms = new PublisherConfirms(10);
+        confirms.published();
+        confirms.published();
+
+        confirms.confirmed(2l, false, true);
+
+        assertFalse("Publish 2 must wait for publish 1", confirms.awaitConfirmed(2l, 0l));
+        confirms.confirmed(1l, false, true);
+        assertTrue("All publishes should be confirmed", confirms.awaitAllConfirmed(0l));
+    }
+
+    public void testNackIsCountedAsRejected() throws Exception
+    {
+        PublisherConfirms confirms = new PublisherConfirms(10);
+        confirms.published();
+        confirms.published();
+        confirms.published();
+
+        confirms.confirmed(1l, false, true);
+        confirms.confirmed(3l, true, false);
+
+        assertTrue("All publishes should be settled", confirms.awaitAllConfirmed(0l));
+        assertEquals("Unexpected rejected count", 2, confirms.takeRejectedCount());
+        assertEquals("Rejected count should be reset once taken", 0, confirms.takeRejectedCount());
+    }
+
+    public void testAwaitCapacityBlocksUntilWindowHasRoom() throws Exception
+    {
+        final PublisherConfirms confirms = new PublisherConfirms(2);
+        confirms.published();
+        confirms.published();
+
+        assertFalse("Window should be full", confirms.awaitCapacity(0l));
+
+        final CountDownLatch hasCapacity = new CountDownLatch(1);
+        Thread publisher = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    if (confirms.awaitCapacity(10000l))
+                    {
+                        hasCapacity.countDown();
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    // test fails on the latch
+                }
+            }
+        });
+        publisher.start();
+
+        confirms.confirmed(1l, false, true);
+
+        assertTrue("Publisher was not released", hasCapacity.await(10, TimeUnit.SECONDS));
+        publisher.join();
+    }
+
+    public void testChannelReopenedRejectsUnconfirmedAndRestartsNumbering() throws Exception
+    {
+        PublisherConfirms confirms = new PublisherConfirms(10);
+        confirms.published();
+        confirms.published();
+        confirms.confirmed(1l, false, true);
+
+        confirms.channelReopened();
+
+        assertEquals("Unexpected unconfirmed count", 0, confirms.getUnconfirmedCount());
+        assertEquals("Unexpected rejected count", 1, confirms.takeRejectedCount());
+        assertEquals("Numbering should restart on the new channel", 1l, confirms.published());
+    }
+}
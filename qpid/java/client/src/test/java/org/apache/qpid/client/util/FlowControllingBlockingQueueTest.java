@@ -0,0 +1,147 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.client.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.qpid.test.utils.QpidTestCase;
+
+public class FlowControllingBlockingQueueTest extends QpidTestCase
+{
+    private final List<String> _events = new ArrayList<String>();
+
+    private final FlowControllingBlockingQueue.ThresholdListener _listener = new FlowControllingBlockingQueue.ThresholdListener()
+    {
+        public void aboveThreshold(int currentValue)
+        {
+            _events.add("above:" + currentValue);
+        }
+
+        public void underThreshold(int currentValue)
+        {
+            _events.add("under:" + currentValue);
+        }
+    };
+
+    public void testTakeAndPollReturnItemsInOrder() throws Exception
+    {
+        FlowControllingBlockingQueue queue = new FlowControllingBlockingQueue(0, null);
+        assertTrue("Queue should be empty", queue.isEmpty());
+        assertNull("Poll of empty queue should return null", queue.poll());
+
+        queue.add("one");
+        queue.add("two");
+        queue.add("three");
+
+        assertEquals("one", queue.take());
+        assertEquals("two", queue.poll());
+        assertEquals("three", queue.take());
+        assertTrue("Queue should be empty", queue.isEmpty());
+    }
+
+    public void testTakeWaitsForAdd() throws Exception
+    {
+        final FlowControllingBlockingQueue queue = new FlowControllingBlockingQueue(0, null);
+        final AtomicReference<Object> taken = new AtomicReference<Object>();
+        final CountDownLatch takeComplete = new CountDownLatch(1);
+
+        Thread taker = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    taken.set(queue.take());
+                    takeComplete.countDown();
+                }
+                catch (InterruptedException e)
+                {
+                    // test will fail on the latch
+                }
+            }
+        });
+        taker.start();
+
+        assertFalse("Take should wait whilst the queue is empty", takeComplete.await(100, TimeUnit.MILLISECONDS));
+
+        queue.add("item");
+
+        assertTrue("Take did not complete after add", takeComplete.await(5, TimeUnit.SECONDS));
+        assertEquals("item", taken.get());
+    }
+
+    public void testTakeIsInterruptible() throws Exception
+    {
+        final FlowControllingBlockingQueue queue = new FlowControllingBlockingQueue(0, null);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        Thread taker = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    queue.take();
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted.countDown();
+                }
+            }
+        });
+        taker.start();
+        taker.interrupt();
+
+        assertTrue("Take was not interrupted", interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    public void testThresholdListenerNotifiedOnCrossingThresholds() throws Exception
+    {
+        FlowControllingBlockingQueue queue = new FlowControllingBlockingQueue(3, 2, _listener);
+
+        queue.add("1");
+        queue.add("2");
+        assertTrue("Unexpected events before reaching the high threshold " + _events, _events.isEmpty());
+
+        queue.add("3");
+        queue.add("4");
+        assertEquals("[above:3]", _events.toString());
+
+        queue.take();
+        queue.poll();
+        assertEquals("Unexpected events before falling below the low threshold", "[above:3]", _events.toString());
+
+        queue.take();
+        assertEquals("[above:3, under:1]", _events.toString());
+    }
+
+    public void testFlowControlDisabledWithZeroThreshold() throws Exception
+    {
+        FlowControllingBlockingQueue queue = new FlowControllingBlockingQueue(0, _listener);
+        queue.add("1");
+        queue.take();
+        assertTrue("Unexpected events " + _events, _events.isEmpty());
+    }
+}
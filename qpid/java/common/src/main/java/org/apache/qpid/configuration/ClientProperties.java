@@ -171,6 +171,20 @@ public class ClientProperties
      */
     public static final String DAEMON_DISPATCHER = "qpid.jms.daemon.dispatcher";
 
+    /**
+     * System property to set the number of threads in a JVM wide pool which delivers messages to the
+     * message listeners of all sessions. When unset or zero (the default) each session starts its own
+     * dispatcher thread.
+     */
+    public static final String DISPATCHER_POOL_SIZE = "qpid.jms.dispatcher_pool_size";
+
+    /**
+     * System property to enable publisher confirms on non-transacted 0-9-1 sessions. The value is the maximum
+     * number of published messages which may await their confirm before a producer blocks. When unset or zero
+     * (the default) confirms are not used.
+     */
+    public static final String PUBLISH_CONFIRM_WINDOW = "qpid.jms.publish_confirm_window";
+
     /**
      * Used to name the process utilising the Qpid client, to override the default
      * value is used in the ConnectionStartOk reply to the broker.
@@ -33,11 +33,13 @@ import org.apache.qpid.framing.*;
 public interface ClientMethodDispatcher_0_91 extends ClientMethodDispatcher
 {
 
+    public boolean dispatchBasicAck(BasicAckBody body, int channelId) throws AMQException;
     public boolean dispatchBasicCancelOk(BasicCancelOkBody body, int channelId) throws AMQException;
     public boolean dispatchBasicConsumeOk(BasicConsumeOkBody body, int channelId) throws AMQException;
     public boolean dispatchBasicDeliver(BasicDeliverBody body, int channelId) throws AMQException;
     public boolean dispatchBasicGetEmpty(BasicGetEmptyBody body, int channelId) throws AMQException;
     public boolean dispatchBasicGetOk(BasicGetOkBody body, int channelId) throws AMQException;
+    public boolean dispatchBasicNack(BasicNackBody body, int channelId) throws AMQException;
     public boolean dispatchBasicQosOk(BasicQosOkBody body, int channelId) throws AMQException;
     public boolean dispatchBasicRecoverSyncOk(BasicRecoverSyncOkBody body, int channelId) throws AMQException;
     public boolean dispatchBasicReturn(BasicReturnBody body, int channelId) throws AMQException;
@@ -46,6 +48,7 @@ public interface ClientMethodDispatcher_0_91 extends ClientMethodDispatcher
     public boolean dispatchChannelFlow(ChannelFlowBody body, int channelId) throws AMQException;
     public boolean dispatchChannelFlowOk(ChannelFlowOkBody body, int channelId) throws AMQException;
     public boolean dispatchChannelOpenOk(ChannelOpenOkBody body, int channelId) throws AMQException;
+    public boolean dispatchConfirmSelectOk(ConfirmSelectOkBody body, int channelId) throws AMQException;
     public boolean dispatchConnectionClose(ConnectionCloseBody body, int channelId) throws AMQException;
     public boolean dispatchConnectionCloseOk(ConnectionCloseOkBody body, int channelId) throws AMQException;
     public boolean dispatchConnectionOpenOk(ConnectionOpenOkBody body, int channelId) throws AMQException;
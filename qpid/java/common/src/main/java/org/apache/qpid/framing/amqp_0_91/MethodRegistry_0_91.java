@@ -122,7 +122,7 @@ public class MethodRegistry_0_91 extends MethodRegistry
 
         // Register method body instance factories for the Basic class.
 
-        _factories[60] = new AMQMethodBodyInstanceFactory[112];
+        _factories[60] = new AMQMethodBodyInstanceFactory[121];
 
         _factories[60][10] = BasicQosBodyImpl.getFactory();
         _factories[60][11] = BasicQosOkBodyImpl.getFactory();
@@ -141,6 +141,16 @@ public class MethodRegistry_0_91 extends MethodRegistry
         _factories[60][100] = BasicRecoverBodyImpl.getFactory();
         _factories[60][110] = BasicRecoverSyncBodyImpl.getFactory();
         _factories[60][111] = BasicRecoverSyncOkBodyImpl.getFactory();
+        _factories[60][120] = BasicNackBodyImpl.getFactory();
+
+
+
+        // Register method body instance factories for the Confirm class.
+
+        _factories[85] = new AMQMethodBodyInstanceFactory[12];
+
+        _factories[85][10] = ConfirmSelectBodyImpl.getFactory();
+        _factories[85][11] = ConfirmSelectOkBodyImpl.getFactory();
 
 
 
@@ -822,6 +832,38 @@ public class MethodRegistry_0_91 extends MethodRegistry
                                 );
     }
 
+    public BasicNackBody createBasicNackBody(
+                                final long deliveryTag,
+                                final boolean multiple,
+                                final boolean requeue
+                                )
+    {
+        return new BasicNackBodyImpl(
+                                deliveryTag,
+                                multiple,
+                                requeue
+                                );
+    }
+
+
+
+
+    public ConfirmSelectBody createConfirmSelectBody(
+                                final boolean nowait
+                                )
+    {
+        return new ConfirmSelectBodyImpl(
+                                nowait
+                                );
+    }
+
+    public ConfirmSelectOkBody createConfirmSelectOkBody(
+                                )
+    {
+        return new ConfirmSelectOkBodyImpl(
+                                );
+    }
+
 
 
 
@@ -38,6 +38,7 @@ public interface ServerMethodDispatcher_0_91 extends ServerMethodDispatcher
     public boolean dispatchBasicCancel(BasicCancelBody body, int channelId) throws AMQException;
     public boolean dispatchBasicConsume(BasicConsumeBody body, int channelId) throws AMQException;
     public boolean dispatchBasicGet(BasicGetBody body, int channelId) throws AMQException;
+    public boolean dispatchBasicNack(BasicNackBody body, int channelId) throws AMQException;
     public boolean dispatchBasicPublish(BasicPublishBody body, int channelId) throws AMQException;
     public boolean dispatchBasicQos(BasicQosBody body, int channelId) throws AMQException;
     public boolean dispatchBasicRecover(BasicRecoverBody body, int channelId) throws AMQException;
@@ -48,6 +49,7 @@ public interface ServerMethodDispatcher_0_91 extends ServerMethodDispatcher
     public boolean dispatchChannelFlow(ChannelFlowBody body, int channelId) throws AMQException;
     public boolean dispatchChannelFlowOk(ChannelFlowOkBody body, int channelId) throws AMQException;
     public boolean dispatchChannelOpen(ChannelOpenBody body, int channelId) throws AMQException;
+    public boolean dispatchConfirmSelect(ConfirmSelectBody body, int channelId) throws AMQException;
     public boolean dispatchConnectionClose(ConnectionCloseBody body, int channelId) throws AMQException;
     public boolean dispatchConnectionCloseOk(ConnectionCloseOkBody body, int channelId) throws AMQException;
     public boolean dispatchConnectionOpen(ConnectionOpenBody body, int channelId) throws AMQException;
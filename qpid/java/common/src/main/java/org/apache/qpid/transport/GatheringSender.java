@@ -0,0 +1,45 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.transport;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Sender} which is able to write a sequence of buffers without first copying them, typically using a
+ * {@link java.nio.channels.GatheringByteChannel}.
+ */
+public interface GatheringSender extends Sender<ByteBuffer>
+{
+    /**
+     * Sends the remaining bytes of each of the given buffers, in order.
+     *
+     * Unlike {@link #send(Object)} the buffers are held by reference until they have been written, so neither the
+     * buffers nor the memory they are views of may be modified by the caller after this method is called.
+     */
+    void sendWithoutCopy(ByteBuffer... buffers);
+
+    /**
+     * Runs the given task once everything sent before this method was called has been written, or the sender has
+     * been closed, so that buffers passed to {@link #sendWithoutCopy(ByteBuffer...)} are no longer in use.  The task
+     * may be run by the thread performing the write.
+     */
+    void afterWritten(Runnable task);
+}
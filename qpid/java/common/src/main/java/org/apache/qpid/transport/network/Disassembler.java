@@ -20,6 +20,7 @@
  */
 package org.apache.qpid.transport.network;
 
+import org.apache.qpid.transport.GatheringSender;
 import org.apache.qpid.transport.Header;
 import org.apache.qpid.transport.Method;
 import org.apache.qpid.transport.ProtocolDelegate;
@@ -48,6 +49,7 @@ import static java.lang.Math.min;
 public final class Disassembler implements Sender<ProtocolEvent>, ProtocolDelegate<Void>
 {
     private final Sender<ByteBuffer> sender;
+    private final GatheringSender gatheringSender;
     private final int maxPayload;
     private final Object sendlock = new Object();
     private final static ThreadLocal<BBEncoder> _encoder = new ThreadLocal<BBEncoder>()
@@ -65,6 +67,7 @@ public final class Disassembler implements Sender<ProtocolEvent>, ProtocolDelega
             throw new IllegalArgumentException("maxFrame must be > HEADER_SIZE and < 64K: " + maxFrame);
         }
         this.sender = sender;
+        this.gatheringSender = sender instanceof GatheringSender ? (GatheringSender) sender : null;
         this.maxPayload  = maxFrame - HEADER_SIZE;
     }
 
@@ -89,16 +92,50 @@ public final class Disassembler implements Sender<ProtocolEvent>, ProtocolDelega
         }
     }
 
+    /**
+     * Runs the given task once the frames sent so far have been written, so that message bodies sent without being
+     * copied are no longer in use.
+     */
+    public void afterWritten(Runnable task)
+    {
+        if (gatheringSender == null)
+        {
+            // bodies are copied when they are sent
+            task.run();
+            return;
+        }
+        synchronized (sendlock)
+        {
+            gatheringSender.afterWritten(task);
+        }
+    }
+
     private final ByteBuffer _frameHeader = ByteBuffer.allocate(HEADER_SIZE);
 
     {
         _frameHeader.order(ByteOrder.BIG_ENDIAN);
     }
 
-    private void frame(byte flags, byte type, byte track, int channel, int size, ByteBuffer buf)
+    private void frame(byte flags, byte type, byte track, int channel, int size, ByteBuffer buf, boolean shared)
     {
         synchronized (sendlock)
         {
+            if (shared)
+            {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.put(0, flags);
+                header.put(1, type);
+                header.putShort(2, (short) (size + HEADER_SIZE));
+                header.put(5, track);
+                header.putShort(6, (short) channel);
+
+                ByteBuffer payload = buf.slice();
+                payload.limit(size);
+                gatheringSender.sendWithoutCopy(header, payload);
+                buf.position(buf.position() + size);
+                return;
+            }
+
             ByteBuffer data = _frameHeader;
             _frameHeader.rewind();
 
@@ -122,6 +159,14 @@ public final class Disassembler implements Sender<ProtocolEvent>, ProtocolDelega
     }
 
     private void fragment(byte flags, SegmentType type, ProtocolEvent event, ByteBuffer buf)
+    {
+        fragment(flags, type, event, buf, false);
+    }
+
+    /**
+     * @param shared true if the content of buf will not change, allowing it to be sent without being copied
+     */
+    private void fragment(byte flags, SegmentType type, ProtocolEvent event, ByteBuffer buf, boolean shared)
     {
         byte typeb = (byte) type.getValue();
         byte track = event.getEncodedTrack() == Frame.L4 ? (byte) 1 : (byte) 0;
@@ -144,7 +189,7 @@ public final class Disassembler implements Sender<ProtocolEvent>, ProtocolDelega
                 newflags |= LAST_FRAME;
             }
 
-            frame(newflags, typeb, track, event.getChannel(), size, buf);
+            frame(newflags, typeb, track, event.getChannel(), size, buf, shared);
 
             if (remaining == 0)
             {
@@ -239,7 +284,8 @@ public final class Disassembler implements Sender<ProtocolEvent>, ProtocolDelega
                 fragment(body == null ? LAST_SEG : 0x0, SegmentType.HEADER, method, buf);
                 if (body != null)
                 {
-                    fragment(LAST_SEG, SegmentType.BODY, method, body);
+                    // the encoder's buffer is reused but message bodies are not, so only they may be sent by reference
+                    fragment(LAST_SEG, SegmentType.BODY, method, body, gatheringSender != null);
                 }
 
             }
@@ -0,0 +1,486 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.transport.network.io;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.security.Principal;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.qpid.transport.GatheringSender;
+import org.apache.qpid.transport.Receiver;
+import org.apache.qpid.transport.Sender;
+import org.apache.qpid.transport.SenderClosedException;
+import org.apache.qpid.transport.SenderException;
+import org.apache.qpid.transport.network.NetworkConnection;
+import org.apache.qpid.transport.network.Ticker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A network connection over a non-blocking {@link SocketChannel} which is serviced by a shared
+ * {@link SelectorThread}.  The connection acts as its own {@link Sender}: outgoing data is queued and written
+ * by the selector thread, with callers on other threads blocking only when more than the configured send
+ * buffer size is waiting to be written.  Queued buffers are written to the channel with a single gathering write,
+ * so that buffers passed to {@link #sendWithoutCopy(ByteBuffer...)} reach the socket without being copied.
+ */
+public class NonBlockingConnection implements NetworkConnection, GatheringSender
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(NonBlockingConnection.class);
+
+    private static final int MAX_GATHERED_BUFFERS = 64;
+
+    private final SocketChannel _socketChannel;
+    private final Receiver<ByteBuffer> _receiver;
+    private final Ticker _ticker;
+    private final SelectorThread _selectorThread;
+    private final long _timeout;
+    private final long _maxPendingBytes;
+    private final String _remoteSocketAddress;
+
+    private final Queue<ByteBuffer> _pending = new ConcurrentLinkedQueue<ByteBuffer>();
+    /** Tasks waiting for their marker, an empty buffer in the pending queue, to be written; in queue order */
+    private final Queue<WriteCompletion> _completions = new ConcurrentLinkedQueue<WriteCompletion>();
+    private final AtomicLong _pendingBytes = new AtomicLong();
+    private final AtomicBoolean _writeRequested = new AtomicBoolean();
+    private final AtomicBoolean _closing = new AtomicBoolean();
+    private final AtomicBoolean _channelClosed = new AtomicBoolean();
+    private final Object _notFull = new Object();
+
+    // only used on the selector thread
+    private final ByteBuffer[] _gatheredBuffers = new ByteBuffer[MAX_GATHERED_BUFFERS];
+
+    private SelectionKey _selectionKey;
+    private volatile int _maxReadIdle;
+    private volatile int _maxWriteIdle;
+
+    NonBlockingConnection(SocketChannel socketChannel, Receiver<ByteBuffer> receiver,
+                          int sendBufferSize, long timeout, Ticker ticker,
+                          SelectorThread selectorThread)
+    {
+        _socketChannel = socketChannel;
+        _receiver = receiver;
+        _ticker = ticker;
+        _selectorThread = selectorThread;
+        _timeout = timeout;
+        _maxPendingBytes = 2l * sendBufferSize;
+        _remoteSocketAddress = String.valueOf(socketChannel.socket().getRemoteSocketAddress());
+    }
+
+    public void start()
+    {
+        _selectorThread.addConnection(this);
+    }
+
+    public Sender<ByteBuffer> getSender()
+    {
+        return this;
+    }
+
+    public void send(ByteBuffer msg)
+    {
+        checkNotAlreadyClosed();
+
+        // callers are free to reuse the buffer once send returns, so take a compact copy
+        ByteBuffer copy = ByteBuffer.allocate(msg.remaining());
+        copy.put(msg);
+        copy.flip();
+
+        _pending.add(copy);
+        waitIfFull(_pendingBytes.addAndGet(copy.remaining()));
+    }
+
+    public void sendWithoutCopy(ByteBuffer... buffers)
+    {
+        checkNotAlreadyClosed();
+
+        long size = 0l;
+        for (ByteBuffer buffer : buffers)
+        {
+            // slice so that writing does not move the caller's position
+            final ByteBuffer slice = buffer.slice();
+            _pending.add(slice);
+            size += slice.remaining();
+        }
+        waitIfFull(_pendingBytes.addAndGet(size));
+    }
+
+    public void afterWritten(Runnable task)
+    {
+        synchronized (_completions)
+        {
+            // the marker and its task must be queued in the same order by concurrent callers
+            final ByteBuffer marker = ByteBuffer.allocate(0);
+            _completions.add(new WriteCompletion(marker, task));
+            _pending.add(marker);
+        }
+        if (_channelClosed.get())
+        {
+            runAllCompletions();
+        }
+    }
+
+    private void waitIfFull(final long pendingBytes)
+    {
+        if (pendingBytes > _maxPendingBytes && !_selectorThread.isSelectorThread())
+        {
+            waitUntilNotFull();
+        }
+    }
+
+    private void waitUntilNotFull()
+    {
+        flush();
+        synchronized (_notFull)
+        {
+            final long start = System.currentTimeMillis();
+            long elapsed = 0;
+            while (!_channelClosed.get() && _pendingBytes.get() > _maxPendingBytes && elapsed < _timeout)
+            {
+                try
+                {
+                    _notFull.wait(_timeout - elapsed);
+                }
+                catch (InterruptedException e)
+                {
+                    // pass
+                }
+                elapsed = System.currentTimeMillis() - start;
+            }
+        }
+
+        checkNotAlreadyClosed();
+
+        if (_pendingBytes.get() > _maxPendingBytes)
+        {
+            LOGGER.error("write timed out for socket " + _remoteSocketAddress);
+            closeChannel();
+            throw new SenderException("write timed out for socket " + _remoteSocketAddress);
+        }
+    }
+
+    public void flush()
+    {
+        if (_selectorThread.isSelectorThread())
+        {
+            doWrite();
+        }
+        else if (!_writeRequested.getAndSet(true))
+        {
+            _selectorThread.requestWrite(this);
+        }
+    }
+
+    public void setIdleTimeout(int i)
+    {
+        // idle detection is driven by the ticker on the selector thread
+    }
+
+    public void close()
+    {
+        if (!_closing.getAndSet(true))
+        {
+            // outstanding data is written before the channel is closed
+            flush();
+        }
+    }
+
+    SocketChannel getChannel()
+    {
+        return _socketChannel;
+    }
+
+    void setSelectionKey(SelectionKey selectionKey)
+    {
+        _selectionKey = selectionKey;
+        if (_closing.get() || !_pending.isEmpty())
+        {
+            doWrite();
+        }
+    }
+
+    boolean isChannelClosed()
+    {
+        return _channelClosed.get();
+    }
+
+    void doRead(ByteBuffer readBuffer)
+    {
+        try
+        {
+            int read;
+            do
+            {
+                readBuffer.clear();
+                read = _socketChannel.read(readBuffer);
+                if (read > 0)
+                {
+                    readBuffer.flip();
+                    // the protocol engine may retain slices of what it is given, so never hand it the shared buffer
+                    byte[] data = new byte[read];
+                    readBuffer.get(data);
+                    _receiver.received(ByteBuffer.wrap(data));
+                }
+            }
+            while (read == readBuffer.capacity() && !_channelClosed.get());
+
+            if (read == -1)
+            {
+                closeChannel();
+            }
+        }
+        catch (Throwable t)
+        {
+            if (!_channelClosed.get())
+            {
+                _receiver.exception(t);
+            }
+            closeChannel();
+        }
+    }
+
+    void doWrite()
+    {
+        _writeRequested.set(false);
+        if (_selectionKey == null || _channelClosed.get())
+        {
+            // not yet registered, or already gone
+            return;
+        }
+
+        try
+        {
+            int count;
+            while ((count = gatherPending()) != 0)
+            {
+                final long written = _socketChannel.write(_gatheredBuffers, 0, count);
+                if (written > 0)
+                {
+                    releasePending(written);
+                }
+
+                boolean complete = true;
+                for (int i = 0; i < count && complete; i++)
+                {
+                    if (_gatheredBuffers[i].hasRemaining())
+                    {
+                        complete = false;
+                    }
+                    else
+                    {
+                        written(_pending.poll());
+                    }
+                }
+                Arrays.fill(_gatheredBuffers, 0, count, null);
+
+                if (!complete)
+                {
+                    // socket send buffer is full; resume when the selector reports the channel writable
+                    _selectionKey.interestOps(_selectionKey.interestOps() | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+
+            _selectionKey.interestOps(_selectionKey.interestOps() & ~SelectionKey.OP_WRITE);
+
+            if (_closing.get())
+            {
+                closeChannel();
+            }
+        }
+        catch (IOException e)
+        {
+            LOGGER.error("error writing to socket " + _remoteSocketAddress, e);
+            closeChannel();
+        }
+    }
+
+    private int gatherPending()
+    {
+        // only the selector thread removes buffers, so the head of the queue cannot change while iterating
+        int count = 0;
+        for (ByteBuffer buffer : _pending)
+        {
+            _gatheredBuffers[count++] = buffer;
+            if (count == MAX_GATHERED_BUFFERS)
+            {
+                break;
+            }
+        }
+        return count;
+    }
+
+    private void written(ByteBuffer buffer)
+    {
+        final WriteCompletion completion = _completions.peek();
+        if (completion != null && completion.getMarker() == buffer && _completions.remove(completion))
+        {
+            completion.run();
+        }
+    }
+
+    private void runAllCompletions()
+    {
+        WriteCompletion completion;
+        while ((completion = _completions.poll()) != null)
+        {
+            completion.run();
+        }
+    }
+
+    private void releasePending(long written)
+    {
+        final long pendingBytes = _pendingBytes.addAndGet(-written);
+        if (pendingBytes <= _maxPendingBytes && pendingBytes + written > _maxPendingBytes)
+        {
+            synchronized (_notFull)
+            {
+                _notFull.notifyAll();
+            }
+        }
+    }
+
+    long getTimeToNextTick(long currentTime)
+    {
+        return _ticker.getTimeToNextTick(currentTime);
+    }
+
+    void tickIfNecessary(long currentTime)
+    {
+        if (!_channelClosed.get() && _ticker.getTimeToNextTick(currentTime) <= 0)
+        {
+            _ticker.tick(currentTime);
+        }
+    }
+
+    void closeChannel()
+    {
+        if (!_channelClosed.getAndSet(true))
+        {
+            _closing.set(true);
+            try
+            {
+                if (_selectionKey != null)
+                {
+                    _selectionKey.cancel();
+                }
+                _socketChannel.close();
+            }
+            catch (IOException e)
+            {
+                LOGGER.warn("Error closing socket " + _remoteSocketAddress, e);
+            }
+            finally
+            {
+                _pending.clear();
+                runAllCompletions();
+                synchronized (_notFull)
+                {
+                    _notFull.notifyAll();
+                }
+                _receiver.closed();
+            }
+        }
+    }
+
+    private void checkNotAlreadyClosed()
+    {
+        if (_closing.get())
+        {
+            throw new SenderClosedException("sender for socket " + _remoteSocketAddress + " is closed", null);
+        }
+    }
+
+    public SocketAddress getRemoteAddress()
+    {
+        return _socketChannel.socket().getRemoteSocketAddress();
+    }
+
+    public SocketAddress getLocalAddress()
+    {
+        return _socketChannel.socket().getLocalSocketAddress();
+    }
+
+    public void setMaxWriteIdle(int sec)
+    {
+        _maxWriteIdle = sec;
+    }
+
+    public void setMaxReadIdle(int sec)
+    {
+        _maxReadIdle = sec;
+    }
+
+    @Override
+    public Principal getPeerPrincipal()
+    {
+        return null;
+    }
+
+    @Override
+    public int getMaxReadIdle()
+    {
+        return _maxReadIdle;
+    }
+
+    @Override
+    public int getMaxWriteIdle()
+    {
+        return _maxWriteIdle;
+    }
+
+    private static final class WriteCompletion
+    {
+        private final ByteBuffer _marker;
+        private final Runnable _task;
+
+        private WriteCompletion(ByteBuffer marker, Runnable task)
+        {
+            _marker = marker;
+            _task = task;
+        }
+
+        ByteBuffer getMarker()
+        {
+            return _marker;
+        }
+
+        void run()
+        {
+            try
+            {
+                _task.run();
+            }
+            catch (RuntimeException e)
+            {
+                LOGGER.error("Error running task after write", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.transport.network.io;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import javax.net.ssl.SSLContext;
+
+import org.apache.qpid.configuration.CommonProperties;
+import org.apache.qpid.protocol.ProtocolEngine;
+import org.apache.qpid.protocol.ProtocolEngineFactory;
+import org.apache.qpid.thread.Threading;
+import org.apache.qpid.transport.NetworkTransportConfiguration;
+import org.apache.qpid.transport.TransportException;
+import org.apache.qpid.transport.network.IncomingNetworkTransport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Incoming transport which multiplexes all accepted connections over a small, fixed set of
+ * {@link SelectorThread}s rather than dedicating a reader and a writer thread to every socket.
+ *
+ * SSL is not supported by this transport; SSL ports continue to use {@link IoNetworkTransport}.
+ */
+public class NonBlockingNetworkTransport implements IncomingNetworkTransport
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(NonBlockingNetworkTransport.class);
+
+    public static final String SELECTOR_THREADS_PROP_NAME = "qpid.broker.nonblocking.selector_threads";
+
+    private static final int TIMEOUT = Integer.getInteger(CommonProperties.IO_NETWORK_TRANSPORT_TIMEOUT_PROP_NAME,
+                                                          CommonProperties.IO_NETWORK_TRANSPORT_TIMEOUT_DEFAULT);
+    private static final int HANDSHAKE_TIMEOUT = Integer.getInteger(CommonProperties.HANDSHAKE_TIMEOUT_PROP_NAME,
+                                                                    CommonProperties.HANDSHAKE_TIMEOUT_DEFAULT);
+
+    private SelectorThread[] _selectorThreads;
+    private AcceptingThread _acceptor;
+
+    public void accept(NetworkTransportConfiguration config,
+                       ProtocolEngineFactory factory,
+                       SSLContext sslContext)
+    {
+        if(sslContext != null)
+        {
+            throw new TransportException("Non-blocking transport does not support SSL, port : " + config);
+        }
+
+        int threadCount = Integer.getInteger(SELECTOR_THREADS_PROP_NAME,
+                                             Runtime.getRuntime().availableProcessors());
+        if(threadCount < 1)
+        {
+            threadCount = 1;
+        }
+
+        try
+        {
+            _selectorThreads = new SelectorThread[threadCount];
+            for(int i = 0; i < threadCount; i++)
+            {
+                _selectorThreads[i] = new SelectorThread(config.getAddress(), i, TIMEOUT);
+                _selectorThreads[i].start();
+            }
+
+            _acceptor = new AcceptingThread(config, factory);
+            _acceptor.setDaemon(false);
+            _acceptor.start();
+        }
+        catch (IOException e)
+        {
+            closeSelectorThreads();
+            throw new TransportException("Failed to start AMQP on port : " + config, e);
+        }
+    }
+
+    public void close()
+    {
+        try
+        {
+            if(_acceptor != null)
+            {
+                _acceptor.close();
+            }
+        }
+        finally
+        {
+            closeSelectorThreads();
+        }
+    }
+
+    private void closeSelectorThreads()
+    {
+        if(_selectorThreads != null)
+        {
+            for(SelectorThread selectorThread : _selectorThreads)
+            {
+                if(selectorThread != null)
+                {
+                    selectorThread.close();
+                }
+            }
+        }
+    }
+
+    private class AcceptingThread extends Thread
+    {
+        private volatile boolean _closed = false;
+        private final NetworkTransportConfiguration _config;
+        private final ProtocolEngineFactory _factory;
+        private final ServerSocketChannel _serverSocketChannel;
+        private int _nextSelector;
+
+        private AcceptingThread(NetworkTransportConfiguration config,
+                                ProtocolEngineFactory factory) throws IOException
+        {
+            super("NonBlockingAcceptor - " + config.getAddress());
+            _config = config;
+            _factory = factory;
+
+            InetSocketAddress address = config.getAddress();
+
+            _serverSocketChannel = ServerSocketChannel.open();
+            _serverSocketChannel.socket().setReuseAddress(true);
+            _serverSocketChannel.socket().bind(address);
+        }
+
+        public void close()
+        {
+            LOGGER.debug("Shutting down the Acceptor");
+            _closed = true;
+
+            if (_serverSocketChannel.isOpen())
+            {
+                try
+                {
+                    _serverSocketChannel.close();
+                }
+                catch (IOException e)
+                {
+                    throw new TransportException(e);
+                }
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                while (!_closed)
+                {
+                    SocketChannel socketChannel = null;
+                    try
+                    {
+                        socketChannel = _serverSocketChannel.accept();
+
+                        final Socket socket = socketChannel.socket();
+                        socket.setTcpNoDelay(_config.getTcpNoDelay());
+                        socket.setSendBufferSize(_config.getSendBufferSize());
+                        socket.setReceiveBufferSize(_config.getReceiveBufferSize());
+                        socketChannel.configureBlocking(false);
+
+                        ProtocolEngine engine = _factory.newProtocolEngine();
+
+                        final IdleTimeoutTicker ticker = new IdleTimeoutTicker(engine, TIMEOUT);
+                        final SelectorThread selectorThread = nextSelectorThread();
+                        NonBlockingConnection connection =
+                                new NonBlockingConnection(socketChannel, engine,
+                                                          _config.getSendBufferSize(),
+                                                          TIMEOUT, ticker, selectorThread);
+
+                        connection.setMaxReadIdle(HANDSHAKE_TIMEOUT);
+
+                        ticker.setConnection(connection);
+
+                        engine.setNetworkConnection(connection, connection.getSender());
+
+                        connection.start();
+                    }
+                    catch(RuntimeException e)
+                    {
+                        LOGGER.error("Error in Acceptor thread on address " + _config.getAddress(), e);
+                        closeChannelIfNecessary(socketChannel);
+                    }
+                    catch(IOException e)
+                    {
+                        if(!_closed)
+                        {
+                            LOGGER.error("Error in Acceptor thread on address " + _config.getAddress(), e);
+                            closeChannelIfNecessary(socketChannel);
+                            try
+                            {
+                                //Delay to avoid tight spinning the loop during issues such as too many open files
+                                Thread.sleep(1000);
+                            }
+                            catch (InterruptedException ie)
+                            {
+                                LOGGER.debug("Stopping acceptor due to interrupt request");
+                                _closed = true;
+                            }
+                        }
+                    }
+                }
+            }
+            finally
+            {
+                if(LOGGER.isDebugEnabled())
+                {
+                    LOGGER.debug("Acceptor exiting, no new connections will be accepted on address " + _config.getAddress());
+                }
+            }
+        }
+
+        private SelectorThread nextSelectorThread()
+        {
+            SelectorThread selectorThread = _selectorThreads[_nextSelector];
+            _nextSelector = (_nextSelector + 1) % _selectorThreads.length;
+            return selectorThread;
+        }
+
+        private void closeChannelIfNecessary(final SocketChannel socketChannel)
+        {
+            if(socketChannel != null)
+            {
+                try
+                {
+                    socketChannel.close();
+                }
+                catch (IOException e)
+                {
+                    LOGGER.debug("Exception while closing socket", e);
+                }
+            }
+        }
+    }
+
+    static Thread createDaemonThread(Runnable runnable, String name)
+    {
+        final Thread thread;
+        try
+        {
+            thread = Threading.getThreadFactory().createThread(runnable);
+        }
+        catch(Exception e)
+        {
+            throw new TransportException("Error creating thread " + name, e);
+        }
+        thread.setDaemon(true);
+        thread.setName(name);
+        return thread;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.transport.network.io;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Services reads, writes and idle ticks for a set of {@link NonBlockingConnection}s using a single
+ * {@link Selector}.  All socket I/O for a connection, and all calls into its protocol engine's
+ * {@link org.apache.qpid.transport.Receiver}, happen on the selector thread the connection is registered with.
+ */
+final class SelectorThread implements Runnable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(SelectorThread.class);
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final Selector _selector;
+    private final Thread _thread;
+    private final int _defaultTimeout;
+    private final Queue<NonBlockingConnection> _newConnections = new ConcurrentLinkedQueue<NonBlockingConnection>();
+    private final Queue<NonBlockingConnection> _writeRequests = new ConcurrentLinkedQueue<NonBlockingConnection>();
+    private final Set<NonBlockingConnection> _connections = new HashSet<NonBlockingConnection>();
+
+    // shared by all connections of this selector; received data is always copied out before being passed on
+    private final ByteBuffer _readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+
+    private volatile boolean _closed;
+
+    SelectorThread(InetSocketAddress address, int index, int defaultTimeout) throws IOException
+    {
+        _selector = Selector.open();
+        _defaultTimeout = defaultTimeout;
+        _thread = NonBlockingNetworkTransport.createDaemonThread(this,
+                                                                 String.format("SelectorThread-%d - %s", index, address));
+    }
+
+    void start()
+    {
+        _thread.start();
+    }
+
+    boolean isSelectorThread()
+    {
+        return Thread.currentThread() == _thread;
+    }
+
+    void addConnection(NonBlockingConnection connection)
+    {
+        _newConnections.add(connection);
+        _selector.wakeup();
+    }
+
+    void requestWrite(NonBlockingConnection connection)
+    {
+        _writeRequests.add(connection);
+        _selector.wakeup();
+    }
+
+    void close()
+    {
+        _closed = true;
+        _selector.wakeup();
+    }
+
+    public void run()
+    {
+        try
+        {
+            while (!_closed)
+            {
+                _selector.select(getTimeToNextTick(System.currentTimeMillis()));
+
+                registerNewConnections();
+                processSelectedKeys();
+                processWriteRequests();
+                processTicks(System.currentTimeMillis());
+            }
+        }
+        catch (IOException e)
+        {
+            LOGGER.error("Error in selector thread " + _thread.getName(), e);
+        }
+        finally
+        {
+            for (NonBlockingConnection connection : _connections)
+            {
+                connection.closeChannel();
+            }
+            _connections.clear();
+
+            NonBlockingConnection connection;
+            while ((connection = _newConnections.poll()) != null)
+            {
+                connection.closeChannel();
+            }
+
+            try
+            {
+                _selector.close();
+            }
+            catch (IOException e)
+            {
+                LOGGER.debug("Exception while closing selector", e);
+            }
+        }
+    }
+
+    private void registerNewConnections()
+    {
+        NonBlockingConnection connection;
+        while ((connection = _newConnections.poll()) != null)
+        {
+            try
+            {
+                SelectionKey key = connection.getChannel().register(_selector, SelectionKey.OP_READ, connection);
+                connection.setSelectionKey(key);
+                _connections.add(connection);
+            }
+            catch (ClosedChannelException e)
+            {
+                connection.closeChannel();
+            }
+        }
+    }
+
+    private void processSelectedKeys()
+    {
+        Iterator<SelectionKey> iterator = _selector.selectedKeys().iterator();
+        while (iterator.hasNext())
+        {
+            SelectionKey key = iterator.next();
+            iterator.remove();
+
+            NonBlockingConnection connection = (NonBlockingConnection) key.attachment();
+            if (key.isValid() && key.isReadable())
+            {
+                connection.doRead(_readBuffer);
+            }
+            if (key.isValid() && key.isWritable())
+            {
+                connection.doWrite();
+            }
+            if (connection.isChannelClosed())
+            {
+                _connections.remove(connection);
+            }
+        }
+    }
+
+    private void processWriteRequests()
+    {
+        NonBlockingConnection connection;
+        while ((connection = _writeRequests.poll()) != null)
+        {
+            connection.doWrite();
+            if (connection.isChannelClosed())
+            {
+                _connections.remove(connection);
+            }
+        }
+    }
+
+    private void processTicks(long currentTime)
+    {
+        Iterator<NonBlockingConnection> iterator = _connections.iterator();
+        while (iterator.hasNext())
+        {
+            NonBlockingConnection connection = iterator.next();
+            connection.tickIfNecessary(currentTime);
+            if (connection.isChannelClosed())
+            {
+                iterator.remove();
+            }
+        }
+    }
+
+    private long getTimeToNextTick(long currentTime)
+    {
+        long timeout = _defaultTimeout;
+        for (NonBlockingConnection connection : _connections)
+        {
+            timeout = Math.min(timeout, connection.getTimeToNextTick(currentTime));
+        }
+        // Selector.select(0) blocks indefinitely, so never ask for less than one millisecond
+        return timeout <= 0 ? 1 : timeout;
+    }
+}
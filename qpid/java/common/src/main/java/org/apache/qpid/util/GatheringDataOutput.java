@@ -0,0 +1,209 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.util;
+
+import java.io.DataOutput;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A {@link DataOutput} which produces a sequence of {@link ByteBuffer}s rather than a single contiguous array.
+ * Primitive values are encoded into a heap array, while buffers given to {@link #writeBuffer(ByteBuffer)} are
+ * added to the sequence by reference, allowing large message content to be written to a
+ * {@link org.apache.qpid.transport.GatheringSender} without being copied.
+ */
+public class GatheringDataOutput implements DataOutput
+{
+    private final List<ByteBuffer> _buffers = new ArrayList<ByteBuffer>();
+    private byte[] _buf;
+    private int _pos;
+    private int _segmentStart;
+
+    public GatheringDataOutput(int initialCapacity)
+    {
+        _buf = new byte[initialCapacity];
+    }
+
+    /**
+     * Adds the remaining bytes of the given buffer to the output without copying them.  The buffer's position is
+     * not changed.
+     */
+    public void writeBuffer(ByteBuffer buffer)
+    {
+        endSegment();
+        _buffers.add(buffer.slice());
+    }
+
+    public ByteBuffer[] getBuffers()
+    {
+        endSegment();
+        return _buffers.toArray(new ByteBuffer[_buffers.size()]);
+    }
+
+    public long length()
+    {
+        long length = _pos - _segmentStart;
+        for (ByteBuffer buffer : _buffers)
+        {
+            length += buffer.remaining();
+        }
+        return length;
+    }
+
+    private void endSegment()
+    {
+        if (_pos > _segmentStart)
+        {
+            _buffers.add(ByteBuffer.wrap(_buf, _segmentStart, _pos - _segmentStart));
+            _segmentStart = _pos;
+        }
+    }
+
+    private void ensureCapacity(int required)
+    {
+        if (_pos + required > _buf.length)
+        {
+            // buffers already handed out continue to refer to the old array, which is never written to again
+            _buf = Arrays.copyOf(_buf, Math.max(_buf.length * 2, _pos + required));
+        }
+    }
+
+    public void write(int b)
+    {
+        ensureCapacity(1);
+        _buf[_pos++] = (byte) b;
+    }
+
+    public void write(byte[] b)
+    {
+        write(b, 0, b.length);
+    }
+
+    public void write(byte[] b, int off, int len)
+    {
+        ensureCapacity(len);
+        System.arraycopy(b, off, _buf, _pos, len);
+        _pos += len;
+    }
+
+    public void writeBoolean(boolean v)
+    {
+        write(v ? 1 : 0);
+    }
+
+    public void writeByte(int v)
+    {
+        write(v);
+    }
+
+    public void writeShort(int v)
+    {
+        ensureCapacity(2);
+        _buf[_pos++] = (byte) (v >>> 8);
+        _buf[_pos++] = (byte) v;
+    }
+
+    public void writeChar(int v)
+    {
+        writeShort(v);
+    }
+
+    public void writeInt(int v)
+    {
+        ensureCapacity(4);
+        _buf[_pos++] = (byte) (v >>> 24);
+        _buf[_pos++] = (byte) (v >>> 16);
+        _buf[_pos++] = (byte) (v >>> 8);
+        _buf[_pos++] = (byte) v;
+    }
+
+    public void writeLong(long v)
+    {
+        writeInt((int) (v >>> 32));
+        writeInt((int) v);
+    }
+
+    public void writeFloat(float v)
+    {
+        writeInt(Float.floatToIntBits(v));
+    }
+
+    public void writeDouble(double v)
+    {
+        writeLong(Double.doubleToLongBits(v));
+    }
+
+    public void writeBytes(String s)
+    {
+        int len = s.length();
+        ensureCapacity(len);
+        for (int i = 0 ; i < len ; i++)
+        {
+            _buf[_pos++] = ((byte)s.charAt(i));
+        }
+    }
+
+    public void writeChars(String s)
+    {
+        int len = s.length();
+        for (int i = 0 ; i < len ; i++)
+        {
+            writeChar(s.charAt(i));
+        }
+    }
+
+    public void writeUTF(String s)
+    {
+        int strlen = s.length();
+
+        // worst case of three bytes per character, plus the length
+        ensureCapacity(2 + 3 * strlen);
+        int pos = _pos;
+        _pos+=2;
+
+        for (int i = 0; i < strlen; i++)
+        {
+            int c = s.charAt(i);
+            if ((c >= 0x0001) && (c <= 0x007F))
+            {
+                _buf[_pos++] = (byte) c;
+            }
+            else if (c > 0x07FF)
+            {
+                _buf[_pos++]  = (byte) (0xE0 | ((c >> 12) & 0x0F));
+                _buf[_pos++]  = (byte) (0x80 | ((c >>  6) & 0x3F));
+                _buf[_pos++]  = (byte) (0x80 | (c & 0x3F));
+            }
+            else
+            {
+                _buf[_pos++] = (byte) (0xC0 | ((c >>  6) & 0x1F));
+                _buf[_pos++]  = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        int len = _pos - (pos + 2);
+
+        _buf[pos++] = (byte) (len >>> 8);
+        _buf[pos] = (byte) len;
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.apache.qpid.transport.network.io;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.qpid.protocol.ProtocolEngine;
+import org.apache.qpid.protocol.ProtocolEngineFactory;
+import org.apache.qpid.test.utils.QpidTestCase;
+import org.apache.qpid.transport.GatheringSender;
+import org.apache.qpid.transport.NetworkTransportConfiguration;
+import org.apache.qpid.transport.Sender;
+import org.apache.qpid.transport.network.NetworkConnection;
+
+public class NonBlockingNetworkTransportTest extends QpidTestCase
+{
+    private NonBlockingNetworkTransport _transport;
+    private InetSocketAddress _address;
+    private final CountDownLatch _closed = new CountDownLatch(1);
+    private volatile boolean _echoWithoutCopy;
+    private final AtomicInteger _writeTasksAdded = new AtomicInteger();
+    private final AtomicInteger _writeTasksRun = new AtomicInteger();
+
+    @Override
+    public void setUp() throws Exception
+    {
+        super.setUp();
+        setTestSystemProperty(NonBlockingNetworkTransport.SELECTOR_THREADS_PROP_NAME, "2");
+        _address = new InetSocketAddress("localhost", findFreePort());
+        _transport = new NonBlockingNetworkTransport();
+        _transport.accept(new TestNetworkTransportConfiguration(), new EchoEngineFactory(), null);
+    }
+
+    @Override
+    public void tearDown() throws Exception
+    {
+        try
+        {
+            _transport.close();
+        }
+        finally
+        {
+            super.tearDown();
+        }
+    }
+
+    public void testDataIsEchoedBack() throws Exception
+    {
+        assertEcho();
+    }
+
+    public void testDataIsEchoedBackWithoutCopy() throws Exception
+    {
+        _echoWithoutCopy = true;
+        assertEcho();
+        assertTrue("No tasks were added to run after writing", _writeTasksAdded.get() > 0);
+        assertEquals("Unexpected number of tasks run after writing", _writeTasksAdded.get(), _writeTasksRun.get());
+    }
+
+    private void assertEcho() throws Exception
+    {
+        byte[] data = new byte[256 * 1024];
+        for (int i = 0; i < data.length; i++)
+        {
+            data[i] = (byte) i;
+        }
+
+        Socket socket = new Socket(_address.getAddress(), _address.getPort());
+        try
+        {
+            socket.setSoTimeout(10000);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = socket.getInputStream();
+
+            out.write(data);
+            out.flush();
+
+            byte[] received = new byte[data.length];
+            int offset = 0;
+            while (offset < received.length)
+            {
+                int read = in.read(received, offset, received.length - offset);
+                assertTrue("Unexpected end of stream after " + offset + " bytes", read != -1);
+                offset += read;
+            }
+
+            for (int i = 0; i < data.length; i++)
+            {
+                assertEquals("Unexpected byte at position " + i, data[i], received[i]);
+            }
+
+            if (_echoWithoutCopy)
+            {
+                // everything has been written, so each task must run without waiting for the connection to close
+                final long timeout = System.currentTimeMillis() + 10000;
+                while (_writeTasksRun.get() < _writeTasksAdded.get() && System.currentTimeMillis() < timeout)
+                {
+                    Thread.sleep(10);
+                }
+                assertEquals("Tasks should have run once their data was written",
+                             _writeTasksAdded.get(), _writeTasksRun.get());
+            }
+        }
+        finally
+        {
+            socket.close();
+        }
+
+        assertTrue("Engine was not notified of the connection closing", _closed.await(10, TimeUnit.SECONDS));
+    }
+
+    private class TestNetworkTransportConfiguration implements NetworkTransportConfiguration
+    {
+        public Boolean getTcpNoDelay()
+        {
+            return true;
+        }
+
+        public Integer getReceiveBufferSize()
+        {
+            return 64 * 1024;
+        }
+
+        public Integer getSendBufferSize()
+        {
+            return 64 * 1024;
+        }
+
+        public InetSocketAddress getAddress()
+        {
+            return _address;
+        }
+
+        public boolean needClientAuth()
+        {
+            return false;
+        }
+
+        public boolean wantClientAuth()
+        {
+            return false;
+        }
+    }
+
+    private class EchoEngineFactory implements ProtocolEngineFactory
+    {
+        public ProtocolEngine newProtocolEngine()
+        {
+            return new EchoEngine();
+        }
+    }
+
+    private class EchoEngine implements ProtocolEngine
+    {
+        private NetworkConnection _network;
+        private Sender<ByteBuffer> _sender;
+
+        public void setNetworkConnection(NetworkConnection network, Sender<ByteBuffer> sender)
+        {
+            _network = network;
+            _sender = sender;
+            // the test never idles long enough to matter, disable the handshake timeout
+            _network.setMaxReadIdle(0);
+        }
+
+        public void received(ByteBuffer msg)
+        {
+            if (_echoWithoutCopy)
+            {
+                // split the data so that it has to be written by a gathering write
+                ByteBuffer first = msg.slice();
+                first.limit(msg.remaining() / 2);
+                msg.position(msg.position() + first.remaining());
+                ((GatheringSender) _sender).sendWithoutCopy(first, msg.slice());
+                _writeTasksAdded.incrementAndGet();
+                ((GatheringSender) _sender).afterWritten(new Runnable()
+                {
+                    public void run()
+                    {
+                        _writeTasksRun.incrementAndGet();
+                    }
+                });
+            }
+            else
+            {
+                _sender.send(msg);
+            }
+            _sender.flush();
+        }
+
+        public void exception(Throwable t)
+        {
+        }
+
+        public void closed()
+        {
+            _closed.countDown();
+        }
+
+        public SocketAddress getRemoteAddress()
+        {
+            return _network.getRemoteAddress();
+        }
+
+        public SocketAddress getLocalAddress()
+        {
+            return _network.getLocalAddress();
+        }
+
+        public long getWrittenBytes()
+        {
+            return 0;
+        }
+
+        public long getReadBytes()
+        {
+            return 0;
+        }
+
+        public void writerIdle()
+        {
+        }
+
+        public void readerIdle()
+        {
+        }
+
+        public long getLastReadTime()
+        {
+            return System.currentTimeMillis();
+        }
+
+        public long getLastWriteTime()
+        {
+            return System.currentTimeMillis();
+        }
+    }
+}
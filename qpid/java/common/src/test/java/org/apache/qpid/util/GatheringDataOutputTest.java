@@ -0,0 +1,77 @@
+/*
+ * 
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * 
+ */
+package org.apache.qpid.util;
+
+import java.io.DataOutput;
+import java.nio.ByteBuffer;
+
+import junit.framework.TestCase;
+
+public class GatheringDataOutputTest extends TestCase
+{
+    public void testPrimitivesAreEncodedAsWithBytesDataOutput() throws Exception
+    {
+        GatheringDataOutput gathering = new GatheringDataOutput(4);
+        byte[] expected = new byte[64];
+        BytesDataOutput bytes = new BytesDataOutput(expected);
+
+        writePrimitives(gathering);
+        writePrimitives(bytes);
+
+        ByteBuffer[] buffers = gathering.getBuffers();
+        assertEquals("Unexpected number of buffers", 1, buffers.length);
+        assertEquals("Unexpected length", bytes.length(), gathering.length());
+        assertEquals("Unexpected content", ByteBuffer.wrap(expected, 0, bytes.length()), buffers[0]);
+    }
+
+    public void testBufferIsWrittenByReference()
+    {
+        ByteBuffer content = ByteBuffer.wrap(new byte[] { 1, 2, 3, 4, 5 });
+        content.position(1);
+
+        GatheringDataOutput output = new GatheringDataOutput(16);
+        output.writeByte(9);
+        output.writeBuffer(content);
+        output.writeByte(10);
+
+        ByteBuffer[] buffers = output.getBuffers();
+        assertEquals("Unexpected number of buffers", 3, buffers.length);
+        assertEquals("Unexpected length", 6, output.length());
+        assertEquals("Unexpected first buffer", ByteBuffer.wrap(new byte[] { 9 }), buffers[0]);
+        assertEquals("Unexpected second buffer", ByteBuffer.wrap(new byte[] { 2, 3, 4, 5 }), buffers[1]);
+        assertEquals("Unexpected third buffer", ByteBuffer.wrap(new byte[] { 10 }), buffers[2]);
+        assertEquals("Position of written buffer should not change", 1, content.position());
+
+        content.put(2, (byte) 7);
+        assertEquals("Content should not have been copied", 7, buffers[1].get(1));
+    }
+
+    private void writePrimitives(DataOutput output) throws Exception
+    {
+        output.writeByte(1);
+        output.writeShort(0x0203);
+        output.writeInt(0x04050607);
+        output.writeLong(0x08090a0b0c0d0e0fl);
+        output.writeBoolean(true);
+        output.writeUTF("qpid\u00e9\u4e2d");
+        output.write(new byte[] { 1, 2, 3 }, 1, 2);
+    }
+}
@@ -263,4 +263,52 @@ public interface ManagedBroker
      */
     @MBeanAttribute(name="StatisticsEnabled", description=TYPE + " Statistics Enabled")
     boolean isStatisticsEnabled();
+
+    /**
+     * Median time in milliseconds between a message arriving and its first delivery for the virtual host.
+     *
+     * @since Qpid JMX API 2.8
+     */
+    @MBeanAttribute(name="EnqueueToDeliverLatencyP50", description=TYPE + " Enqueue To Deliver Latency P50")
+    long getEnqueueToDeliverLatencyP50();
+
+    /**
+     * 99th percentile of the time in milliseconds between a message arriving and its first delivery for the virtual host.
+     *
+     * @since Qpid JMX API 2.8
+     */
+    @MBeanAttribute(name="EnqueueToDeliverLatencyP99", description=TYPE + " Enqueue To Deliver Latency P99")
+    long getEnqueueToDeliverLatencyP99();
+
+    /**
+     * 99.9th percentile of the time in milliseconds between a message arriving and its first delivery for the virtual host.
+     *
+     * @since Qpid JMX API 2.8
+     */
+    @MBeanAttribute(name="EnqueueToDeliverLatencyP999", description=TYPE + " Enqueue To Deliver Latency P999")
+    long getEnqueueToDeliverLatencyP999();
+
+    /**
+     * Median time in milliseconds between a persistent message arriving and its store commit for the virtual host.
+     *
+     * @since Qpid JMX API 2.8
+     */
+    @MBeanAttribute(name="PublishToStoreCommitLatencyP50", description=TYPE + " Publish To Store Commit Latency P50")
+    long getPublishToStoreCommitLatencyP50();
+
+    /**
+     * 99th percentile of the time in milliseconds between a persistent message arriving and its store commit for the virtual host.
+     *
+     * @since Qpid JMX API 2.8
+     */
+    @MBeanAttribute(name="PublishToStoreCommitLatencyP99", description=TYPE + " Publish To Store Commit Latency P99")
+    long getPublishToStoreCommitLatencyP99();
+
+    /**
+     * 99.9th percentile of the time in milliseconds between a persistent message arriving and its store commit for the virtual host.
+     *
+     * @since Qpid JMX API 2.8
+     */
+    @MBeanAttribute(name="PublishToStoreCommitLatencyP999", description=TYPE + " Publish To Store Commit Latency P999")
+    long getPublishToStoreCommitLatencyP999();
 }
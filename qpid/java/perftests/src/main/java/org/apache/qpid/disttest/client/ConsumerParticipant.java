@@ -20,9 +20,7 @@
 package org.apache.qpid.disttest.client;
 
 
-import java.util.ArrayList;
 import java.util.Date;
-import java.util.List;
 import java.util.NavigableSet;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.CountDownLatch;
@@ -37,6 +35,7 @@ import org.apache.qpid.disttest.DistributedTestException;
 import org.apache.qpid.disttest.jms.ClientJmsDelegate;
 import org.apache.qpid.disttest.message.CreateConsumerCommand;
 import org.apache.qpid.disttest.message.ParticipantResult;
+import org.apache.qpid.disttest.results.aggregation.SeriesStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,7 +54,7 @@ public class ConsumerParticipant implements Participant
     private long _startTime;
 
     private volatile Exception _asyncMessageListenerException;
-    private List<Long> _messageLatencies;
+    private SeriesStatistics _latencyStatistics;
 
     public ConsumerParticipant(final ClientJmsDelegate delegate, final CreateConsumerCommand command)
     {
@@ -64,7 +63,7 @@ public class ConsumerParticipant implements Participant
         _resultFactory = new ParticipantResultFactory();
         if (command.isEvaluateLatency())
         {
-            _messageLatencies = new ArrayList<Long>();
+            _latencyStatistics = new SeriesStatistics();
         }
     }
 
@@ -120,7 +119,7 @@ public class ConsumerParticipant implements Participant
                 numberOfMessagesReceived,
                 payloadSize,
                 totalPayloadSize,
-                start, end, _messageLatencies);
+                start, end, _latencyStatistics);
 
         return result;
     }
@@ -170,7 +169,7 @@ public class ConsumerParticipant implements Participant
                     throw new DistributedTestException("Cannot get message timestamp!", e);
                 }
                 long latency = System.currentTimeMillis() - mesageTimestamp;
-                _messageLatencies.add(latency);
+                _latencyStatistics.record(latency);
             }
 
             if (!batchEnabled || batchComplete)
@@ -18,7 +18,6 @@
  */
 package org.apache.qpid.disttest.client;
 
-import java.util.Collection;
 import java.util.Date;
 
 import org.apache.qpid.disttest.message.ConsumerParticipantResult;
@@ -41,10 +40,10 @@ public class ParticipantResultFactory
 
     public ConsumerParticipantResult createForConsumer(String participantName, String clientRegisteredName,
             CreateConsumerCommand command, int acknowledgeMode, int numberOfMessagesReceived, int payloadSize,
-            long totalPayloadReceived, Date start, Date end, Collection<Long> messageLatencies)
+            long totalPayloadReceived, Date start, Date end, SeriesStatistics latencyStatistics)
     {
         ConsumerParticipantResult consumerParticipantResult = new ConsumerParticipantResult();
-        consumerParticipantResult.setMessageLatencies(messageLatencies);
+        consumerParticipantResult.setLatencyStatistics(latencyStatistics);
 
         setTestProperties(consumerParticipantResult, command, participantName, clientRegisteredName, acknowledgeMode);
         setTestResultProperties(consumerParticipantResult, numberOfMessagesReceived, payloadSize, totalPayloadReceived, start, end);
@@ -58,11 +57,10 @@ public class ParticipantResultFactory
         consumerParticipantResult.setTotalNumberOfConsumers(1);
         consumerParticipantResult.setTotalNumberOfProducers(0);
 
-        SeriesStatistics statistics = new SeriesStatistics(messageLatencies);
-        consumerParticipantResult.setAverageLatency(statistics.getAverage());
-        consumerParticipantResult.setMinLatency(statistics.getMinimum());
-        consumerParticipantResult.setMaxLatency(statistics.getMaximum());
-        consumerParticipantResult.setLatencyStandardDeviation(statistics.getStandardDeviation());
+        if (latencyStatistics != null)
+        {
+            consumerParticipantResult.setLatencySummary(latencyStatistics);
+        }
         return consumerParticipantResult;
     }
 
@@ -32,6 +32,10 @@ import static org.apache.qpid.disttest.message.ParticipantAttribute.IS_SELECTOR;
 import static org.apache.qpid.disttest.message.ParticipantAttribute.IS_SYNCHRONOUS_CONSUMER;
 import static org.apache.qpid.disttest.message.ParticipantAttribute.IS_TOPIC;
 import static org.apache.qpid.disttest.message.ParticipantAttribute.ITERATION_NUMBER;
+import static org.apache.qpid.disttest.message.ParticipantAttribute.LATENCY_PERCENTILE_50;
+import static org.apache.qpid.disttest.message.ParticipantAttribute.LATENCY_PERCENTILE_90;
+import static org.apache.qpid.disttest.message.ParticipantAttribute.LATENCY_PERCENTILE_99;
+import static org.apache.qpid.disttest.message.ParticipantAttribute.LATENCY_PERCENTILE_99_9;
 import static org.apache.qpid.disttest.message.ParticipantAttribute.LATENCY_STANDARD_DEVIATION;
 import static org.apache.qpid.disttest.message.ParticipantAttribute.MAXIMUM_DURATION;
 import static org.apache.qpid.disttest.message.ParticipantAttribute.MAX_LATENCY;
@@ -51,15 +55,20 @@ import static org.apache.qpid.disttest.message.ParticipantAttribute.TOTAL_NUMBER
 import static org.apache.qpid.disttest.message.ParticipantAttribute.TOTAL_PAYLOAD_PROCESSED;
 
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.List;
+import java.util.Set;
 import java.util.TimeZone;
 
 import javax.naming.Context;
@@ -125,8 +134,12 @@ public class ResultsDbWriter
             ", %29$s bigint" +      // MIN_LATENCY
             ", %30$s bigint" +      // MAX_LATENCY
             ", %31$s double" +      // LATENCY_STANDARD_DEVIATION
-            ", %32$s varchar(200) not null" +
-            ", %33$s timestamp not null" +
+            ", %32$s bigint" +      // LATENCY_PERCENTILE_50
+            ", %33$s bigint" +      // LATENCY_PERCENTILE_90
+            ", %34$s bigint" +      // LATENCY_PERCENTILE_99
+            ", %35$s bigint" +      // LATENCY_PERCENTILE_99_9
+            ", %36$s varchar(200) not null" +
+            ", %37$s timestamp not null" +
             ")",
             RESULTS_TABLE_NAME,
             TEST_NAME.getDisplayName(),
@@ -159,10 +172,23 @@ public class ResultsDbWriter
             MIN_LATENCY.getDisplayName(),
             MAX_LATENCY.getDisplayName(),
             LATENCY_STANDARD_DEVIATION.getDisplayName(),
+            LATENCY_PERCENTILE_50.getDisplayName(),
+            LATENCY_PERCENTILE_90.getDisplayName(),
+            LATENCY_PERCENTILE_99.getDisplayName(),
+            LATENCY_PERCENTILE_99_9.getDisplayName(),
             RUN_ID,
             INSERTED_TIMESTAMP
         );
 
+    /** bigint columns added since the results table was first created, which older tables lack */
+    private static final List<String> ADDED_BIGINT_COLUMNS = Arrays.asList(
+            LATENCY_PERCENTILE_50.getDisplayName(),
+            LATENCY_PERCENTILE_90.getDisplayName(),
+            LATENCY_PERCENTILE_99.getDisplayName(),
+            LATENCY_PERCENTILE_99_9.getDisplayName());
+
+    private static final String ADD_COLUMN = "ALTER TABLE %s ADD COLUMN %s bigint";
+
     public static final String DRIVER_NAME = "jdbcDriverClass";
     public static final String URL = "jdbcUrl";
 
@@ -273,6 +299,10 @@ public class ResultsDbWriter
                         statement.close();
                     }
                 }
+                else
+                {
+                    addMissingColumns(RESULTS_TABLE_NAME, connection);
+                }
             }
             finally
             {
@@ -289,6 +319,45 @@ public class ResultsDbWriter
 
     }
 
+    /**
+     * Brings a results table created by an earlier version up to date, so that results can be inserted into it.
+     */
+    private void addMissingColumns(final String tableName, final Connection conn) throws SQLException
+    {
+        final Set<String> existingColumns = new HashSet<String>();
+        DatabaseMetaData metaData = conn.getMetaData();
+        ResultSet rs = metaData.getColumns(null, null, tableName, null);
+        try
+        {
+            while(rs.next())
+            {
+                existingColumns.add(rs.getString("COLUMN_NAME").toUpperCase());
+            }
+        }
+        finally
+        {
+            rs.close();
+        }
+
+        for (String column : ADDED_BIGINT_COLUMNS)
+        {
+            if(!existingColumns.contains(column.toUpperCase()))
+            {
+                Statement statement = conn.createStatement();
+                try
+                {
+                    String sql = String.format(ADD_COLUMN, tableName, column);
+                    _logger.info("About to add missing column to results table using SQL: " + sql);
+                    statement.execute(sql);
+                }
+                finally
+                {
+                    statement.close();
+                }
+            }
+        }
+    }
+
     private boolean tableExists(final String tableName, final Connection conn) throws SQLException
     {
         PreparedStatement stmt = conn.prepareStatement(TABLE_EXISTENCE_QUERY);
@@ -359,8 +428,8 @@ public class ResultsDbWriter
         try
         {
             String sqlTemplate = String.format(
-                    "INSERT INTO %s (%s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s) " +
-                    "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    "INSERT INTO %s (%s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s, %s) " +
+                    "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
                     RESULTS_TABLE_NAME,
                     TEST_NAME.getDisplayName(),
                     ITERATION_NUMBER.getDisplayName(),
@@ -392,6 +461,10 @@ public class ResultsDbWriter
                     MIN_LATENCY.getDisplayName(),
                     MAX_LATENCY.getDisplayName(),
                     LATENCY_STANDARD_DEVIATION.getDisplayName(),
+                    LATENCY_PERCENTILE_50.getDisplayName(),
+                    LATENCY_PERCENTILE_90.getDisplayName(),
+                    LATENCY_PERCENTILE_99.getDisplayName(),
+                    LATENCY_PERCENTILE_99_9.getDisplayName(),
                     RUN_ID,
                     INSERTED_TIMESTAMP
                     );
@@ -428,6 +501,10 @@ public class ResultsDbWriter
             statement.setLong(columnIndex++, participantResult.getMinLatency());
             statement.setLong(columnIndex++, participantResult.getMaxLatency());
             statement.setDouble(columnIndex++, participantResult.getLatencyStandardDeviation());
+            statement.setLong(columnIndex++, participantResult.getLatencyPercentile50());
+            statement.setLong(columnIndex++, participantResult.getLatencyPercentile90());
+            statement.setLong(columnIndex++, participantResult.getLatencyPercentile99());
+            statement.setLong(columnIndex++, participantResult.getLatencyPercentile999());
 
             statement.setString(columnIndex++, _runId);
             statement.setTimestamp(columnIndex++, new Timestamp(_clock.currentTimeMillis()));
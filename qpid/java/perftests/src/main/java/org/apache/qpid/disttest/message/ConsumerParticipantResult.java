@@ -25,7 +25,7 @@ import static org.apache.qpid.disttest.message.ParticipantAttribute.IS_SELECTOR;
 import static org.apache.qpid.disttest.message.ParticipantAttribute.IS_SYNCHRONOUS_CONSUMER;
 import static org.apache.qpid.disttest.message.ParticipantAttribute.IS_TOPIC;
 
-import java.util.Collection;
+import org.apache.qpid.disttest.results.aggregation.SeriesStatistics;
 
 public class ConsumerParticipantResult extends ParticipantResult
 {
@@ -36,11 +36,15 @@ public class ConsumerParticipantResult extends ParticipantResult
     private boolean _noLocal;
     private boolean _synchronousConsumer;
 
-    private Collection<Long> _messageLatencies;
+    private SeriesStatistics _latencyStatistics;
     private long _minLatency;
     private long _maxLatency;
     private double _averageLatency;
     private double _latencyStandardDeviation;
+    private long _latencyPercentile50;
+    private long _latencyPercentile90;
+    private long _latencyPercentile99;
+    private long _latencyPercentile999;
 
     public ConsumerParticipantResult()
     {
@@ -124,14 +128,17 @@ public class ConsumerParticipantResult extends ParticipantResult
         return _topic;
     }
 
-    public Collection<Long> getMessageLatencies()
+    /**
+     * @return the latency histogram of the messages received, or null if latency was not evaluated
+     */
+    public SeriesStatistics getLatencyStatistics()
     {
-        return _messageLatencies;
+        return _latencyStatistics;
     }
 
-    public void setMessageLatencies(Collection<Long> messageLatencies)
+    public void setLatencyStatistics(SeriesStatistics latencyStatistics)
     {
-        _messageLatencies = messageLatencies;
+        _latencyStatistics = latencyStatistics;
     }
 
     @Override
@@ -182,4 +189,67 @@ public class ConsumerParticipantResult extends ParticipantResult
         _latencyStandardDeviation = latencyStandardDeviation;
     }
 
+    @Override
+    @OutputAttribute(attribute=ParticipantAttribute.LATENCY_PERCENTILE_50)
+    public long getLatencyPercentile50()
+    {
+        return _latencyPercentile50;
+    }
+
+    public void setLatencyPercentile50(long latencyPercentile50)
+    {
+        _latencyPercentile50 = latencyPercentile50;
+    }
+
+    @Override
+    @OutputAttribute(attribute=ParticipantAttribute.LATENCY_PERCENTILE_90)
+    public long getLatencyPercentile90()
+    {
+        return _latencyPercentile90;
+    }
+
+    public void setLatencyPercentile90(long latencyPercentile90)
+    {
+        _latencyPercentile90 = latencyPercentile90;
+    }
+
+    @Override
+    @OutputAttribute(attribute=ParticipantAttribute.LATENCY_PERCENTILE_99)
+    public long getLatencyPercentile99()
+    {
+        return _latencyPercentile99;
+    }
+
+    public void setLatencyPercentile99(long latencyPercentile99)
+    {
+        _latencyPercentile99 = latencyPercentile99;
+    }
+
+    @Override
+    @OutputAttribute(attribute=ParticipantAttribute.LATENCY_PERCENTILE_99_9)
+    public long getLatencyPercentile999()
+    {
+        return _latencyPercentile999;
+    }
+
+    public void setLatencyPercentile999(long latencyPercentile999)
+    {
+        _latencyPercentile999 = latencyPercentile999;
+    }
+
+    /**
+     * Sets the summary latency attributes from the given statistics.
+     */
+    public void setLatencySummary(SeriesStatistics statistics)
+    {
+        setAverageLatency(statistics.getAverage());
+        setMinLatency(statistics.getMinimum());
+        setMaxLatency(statistics.getMaximum());
+        setLatencyStandardDeviation(statistics.getStandardDeviation());
+        setLatencyPercentile50(statistics.getPercentile(50));
+        setLatencyPercentile90(statistics.getPercentile(90));
+        setLatencyPercentile99(statistics.getPercentile(99));
+        setLatencyPercentile999(statistics.getPercentile(99.9));
+    }
+
 }
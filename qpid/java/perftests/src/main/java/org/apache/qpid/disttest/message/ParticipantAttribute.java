@@ -61,7 +61,11 @@ public enum ParticipantAttribute
     MIN_LATENCY("minLatency"),
     MAX_LATENCY("maxLatency"),
     LATENCY_STANDARD_DEVIATION("latencyStandardDeviation"),
-    MESSAGE_THROUGHPUT("throughputMessagesPerS")
+    MESSAGE_THROUGHPUT("throughputMessagesPerS"),
+    LATENCY_PERCENTILE_50("latencyP50"),
+    LATENCY_PERCENTILE_90("latencyP90"),
+    LATENCY_PERCENTILE_99("latencyP99"),
+    LATENCY_PERCENTILE_99_9("latencyP999")
     ;
 
     private String _displayName;
@@ -305,6 +305,30 @@ public class ParticipantResult extends Response
         return 0;
     }
 
+    @OutputAttribute(attribute = ParticipantAttribute.LATENCY_PERCENTILE_50)
+    public long getLatencyPercentile50()
+    {
+        return 0;
+    }
+
+    @OutputAttribute(attribute = ParticipantAttribute.LATENCY_PERCENTILE_90)
+    public long getLatencyPercentile90()
+    {
+        return 0;
+    }
+
+    @OutputAttribute(attribute = ParticipantAttribute.LATENCY_PERCENTILE_99)
+    public long getLatencyPercentile99()
+    {
+        return 0;
+    }
+
+    @OutputAttribute(attribute = ParticipantAttribute.LATENCY_PERCENTILE_99_9)
+    public long getLatencyPercentile999()
+    {
+        return 0;
+    }
+
     public int getPriority()
     {
         return 0;
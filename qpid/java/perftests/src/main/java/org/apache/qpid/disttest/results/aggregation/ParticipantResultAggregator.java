@@ -66,8 +66,7 @@ public class ParticipantResultAggregator
             if (result instanceof ConsumerParticipantResult)
             {
                 ConsumerParticipantResult consumerParticipantResult = (ConsumerParticipantResult)result;
-                _latencyStatistics.addMessageLatencies(consumerParticipantResult.getMessageLatencies());
-                _latencyStatistics.aggregate();
+                _latencyStatistics.merge(consumerParticipantResult.getLatencyStatistics());
             }
         }
     }
@@ -78,10 +77,7 @@ public class ParticipantResultAggregator
         if (_targetClass == ConsumerParticipantResult.class)
         {
             ConsumerParticipantResult consumerParticipantResult = new ConsumerParticipantResult(_aggregatedResultName);
-            consumerParticipantResult.setAverageLatency(_latencyStatistics.getAverage());
-            consumerParticipantResult.setMinLatency(_latencyStatistics.getMinimum());
-            consumerParticipantResult.setMaxLatency(_latencyStatistics.getMaximum());
-            consumerParticipantResult.setLatencyStandardDeviation(_latencyStatistics.getStandardDeviation());
+            consumerParticipantResult.setLatencySummary(_latencyStatistics);
             aggregatedResult = consumerParticipantResult;
         }
         else
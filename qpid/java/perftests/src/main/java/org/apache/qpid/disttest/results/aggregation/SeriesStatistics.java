@@ -21,91 +21,157 @@
 package org.apache.qpid.disttest.results.aggregation;
 
 import java.util.Collection;
-import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * Summarises a series of values (typically message latencies in milliseconds) without retaining the values
+ * themselves.  Values are counted in a fixed number of log-linear buckets, each power of two being split into
+ * {@value #SUB_BUCKET_COUNT} equal parts, so percentiles are reported to within about 3% whilst the memory used
+ * (and the size of the serialised result sent from client to controller) does not grow with the number of
+ * messages.  Minimum, maximum, mean and standard deviation are exact.
+ * <p>
+ * Statistics gathered by different consumers may be combined with {@link #merge(SeriesStatistics)}.
+ * Instances are not thread safe.
+ */
 public class SeriesStatistics
 {
-    private long _minValue;
-    private long _maxValue;
-    private double _mean;
-    private double _standardDeviation;
-    private Collection<Long> _series = new CopyOnWriteArrayList<Long>();
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** Values above this (about 35 years in milliseconds) share the last bucket */
+    private static final long MAX_TRACKABLE_VALUE = (1l << 40) - 1;
+    private static final int BUCKET_COUNT = bucketIndex(MAX_TRACKABLE_VALUE) + 1;
+
+    private long[] _bucketCounts = new long[BUCKET_COUNT];
+    private long _count;
+    private long _minValue = Long.MAX_VALUE;
+    private long _maxValue = Long.MIN_VALUE;
+    private double _sum;
+    private double _sumOfSquares;
 
     public SeriesStatistics()
     {
         super();
     }
 
-    public SeriesStatistics(Collection<Long> messageLatencies)
+    public SeriesStatistics(Collection<Long> values)
     {
-        setMessageLatencies(messageLatencies);
+        addMessageLatencies(values);
     }
 
-    public void addMessageLatencies(Collection<Long> messageLatencies)
+    public void addMessageLatencies(Collection<Long> values)
     {
-        if (messageLatencies != null)
+        if (values != null)
         {
-            _series.addAll(messageLatencies);
+            for (Long value : values)
+            {
+                record(value);
+            }
         }
     }
 
-    public void setMessageLatencies(Collection<Long> messageLatencies)
+    public void record(long value)
     {
-        _series = messageLatencies;
-        aggregate();
+        // latencies may be negative if the producer's and consumer's clocks differ; keep them in the lowest bucket
+        long bucketedValue = Math.min(Math.max(value, 0l), MAX_TRACKABLE_VALUE);
+        _bucketCounts[bucketIndex(bucketedValue)]++;
+        _count++;
+        _minValue = Math.min(_minValue, value);
+        _maxValue = Math.max(_maxValue, value);
+        _sum += value;
+        _sumOfSquares += (double) value * (double) value;
     }
 
-    public void aggregate()
+    public void merge(SeriesStatistics other)
     {
-        if (_series != null && _series.size() > 0)
+        if (other != null && other._count > 0)
         {
-            long minLatency = Long.MAX_VALUE;
-            long maxLatency = Long.MIN_VALUE;
-            long totalLatency = 0;
-            for (Long latency : _series)
+            for (int i = 0; i < BUCKET_COUNT; i++)
             {
-                totalLatency += latency;
-                minLatency = Math.min(minLatency, latency);
-                maxLatency = Math.max(maxLatency, latency);
+                _bucketCounts[i] += other._bucketCounts[i];
             }
-            _mean = ((double) totalLatency) / (double) _series.size();
-            _minValue = minLatency;
-            _maxValue = maxLatency;
-            double sum = 0;
-            for (Long latency : _series)
-            {
-                double diff = latency - _mean;
-                sum += diff * diff;
-            }
-            long size = _series.size() == 1 ? 1: _series.size() - 1;
-            _standardDeviation = Math.sqrt(sum / (double) size);
-        }
-        else
-        {
-            _mean = 0;
-            _minValue = 0;
-            _maxValue = 0;
-            _standardDeviation = 0;
+            _count += other._count;
+            _minValue = Math.min(_minValue, other._minValue);
+            _maxValue = Math.max(_maxValue, other._maxValue);
+            _sum += other._sum;
+            _sumOfSquares += other._sumOfSquares;
         }
     }
 
+    public long getCount()
+    {
+        return _count;
+    }
+
     public long getMinimum()
     {
-        return _minValue;
+        return _count == 0 ? 0 : _minValue;
     }
 
     public long getMaximum()
     {
-        return _maxValue;
+        return _count == 0 ? 0 : _maxValue;
     }
 
     public double getAverage()
     {
-        return _mean;
+        return _count == 0 ? 0 : _sum / _count;
     }
 
     public double getStandardDeviation()
     {
-        return _standardDeviation;
+        if (_count == 0)
+        {
+            return 0;
+        }
+        long size = _count == 1 ? 1 : _count - 1;
+        double variance = (_sumOfSquares - (_sum * _sum) / _count) / size;
+        return variance > 0 ? Math.sqrt(variance) : 0;
+    }
+
+    /**
+     * Returns the value below which the given percentage of the recorded values fall, reported as the upper
+     * bound of the bucket containing it and never outside the recorded minimum and maximum.
+     *
+     * @param percentile between 0 and 100, for example 99.9
+     */
+    public long getPercentile(double percentile)
+    {
+        if (_count == 0)
+        {
+            return 0;
+        }
+
+        long rank = Math.max(1l, (long) Math.ceil(percentile / 100.0d * _count));
+        long cumulativeCount = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            cumulativeCount += _bucketCounts[i];
+            if (cumulativeCount >= rank)
+            {
+                return Math.min(Math.max(bucketUpperBound(i), _minValue), _maxValue);
+            }
+        }
+        return _maxValue;
+    }
+
+    private static int bucketIndex(long value)
+    {
+        if (value < 2 * SUB_BUCKET_COUNT)
+        {
+            return (int) value;
+        }
+        int exponent = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return (exponent << SUB_BUCKET_BITS) + (int) (value >>> exponent);
+    }
+
+    private static long bucketUpperBound(int index)
+    {
+        if (index < 2 * SUB_BUCKET_COUNT)
+        {
+            return index;
+        }
+        int exponent = (index >>> SUB_BUCKET_BITS) - 1;
+        long mantissa = index - (exponent << SUB_BUCKET_BITS);
+        return ((mantissa + 1) << exponent) - 1;
     }
 }
@@ -20,6 +20,10 @@
 package org.apache.qpid.disttest.db;
 
 import static org.apache.qpid.disttest.message.ParticipantAttribute.ITERATION_NUMBER;
+import static org.apache.qpid.disttest.message.ParticipantAttribute.LATENCY_PERCENTILE_50;
+import static org.apache.qpid.disttest.message.ParticipantAttribute.LATENCY_PERCENTILE_90;
+import static org.apache.qpid.disttest.message.ParticipantAttribute.LATENCY_PERCENTILE_99;
+import static org.apache.qpid.disttest.message.ParticipantAttribute.LATENCY_PERCENTILE_99_9;
 import static org.apache.qpid.disttest.message.ParticipantAttribute.PARTICIPANT_NAME;
 import static org.apache.qpid.disttest.message.ParticipantAttribute.TEST_NAME;
 import static org.apache.qpid.disttest.message.ParticipantAttribute.THROUGHPUT;
@@ -93,6 +97,48 @@ public class ResultsDbWriterTest extends QpidTestCase
         assertResultsAreInDb(context, expectedResult, runId);
     }
 
+    public void testWriteResultsToTableOfEarlierVersion() throws Exception
+    {
+        Context context = getContext();
+        ResultsForAllTests results = _resultsTestFixture.createResultsForAllTests();
+        String runId = "myRunId";
+
+        ResultsDbWriter resultsDbWriter = new ResultsDbWriter(context, runId, _clock);
+        resultsDbWriter.createResultsTableIfNecessary();
+
+        // revert to the table as created before the latency percentile columns were added
+        Connection connection = getConnection(context);
+        try
+        {
+            Statement statement = connection.createStatement();
+            try
+            {
+                for (String column : new String[] { LATENCY_PERCENTILE_50.getDisplayName(),
+                                                    LATENCY_PERCENTILE_90.getDisplayName(),
+                                                    LATENCY_PERCENTILE_99.getDisplayName(),
+                                                    LATENCY_PERCENTILE_99_9.getDisplayName() })
+                {
+                    statement.execute("ALTER TABLE results DROP COLUMN " + column);
+                }
+            }
+            finally
+            {
+                statement.close();
+            }
+        }
+        finally
+        {
+            connection.close();
+        }
+
+        resultsDbWriter = new ResultsDbWriter(context, runId, _clock);
+        resultsDbWriter.createResultsTableIfNecessary();
+        resultsDbWriter.writeResults(results);
+
+        ParticipantResult expectedResult = _resultsTestFixture.getFirstParticipantResult(results);
+        assertResultsAreInDb(context, expectedResult, runId);
+    }
+
     public void testDefaultRunId() throws Exception
     {
         TimeZone defaultTimeZone = TimeZone.getDefault();
@@ -127,14 +173,19 @@ public class ResultsDbWriterTest extends QpidTestCase
     }
 
     @SuppressWarnings("unchecked")
-    private void assertResultsAreInDb(Context context, ParticipantResult participantResult, String expectedRunId) throws Exception
+    private Connection getConnection(Context context) throws Exception
     {
         String driverName = (String) context.getEnvironment().get(ResultsDbWriter.DRIVER_NAME);
         Class<? extends Driver> driverClass = (Class<? extends Driver>) Class.forName(driverName);
         driverClass.newInstance();
         String url = (String) context.getEnvironment().get(ResultsDbWriter.URL);
 
-        Connection connection = DriverManager.getConnection(url);
+        return DriverManager.getConnection(url);
+    }
+
+    private void assertResultsAreInDb(Context context, ParticipantResult participantResult, String expectedRunId) throws Exception
+    {
+        Connection connection = getConnection(context);
         Statement statement = connection.createStatement();
         ResultSet rs = statement.executeQuery(
                 "SELECT * FROM results WHERE testName='" + participantResult.getTestName() +
@@ -149,6 +200,7 @@ public class ResultsDbWriterTest extends QpidTestCase
             assertEquals(participantResult.getThroughput(), rs.getDouble(THROUGHPUT.getDisplayName()));
             assertEquals(expectedRunId, rs.getString(ResultsDbWriter.RUN_ID));
             assertEquals(new Timestamp(_dummyTimestamp), rs.getTimestamp(ResultsDbWriter.INSERTED_TIMESTAMP));
+            assertEquals(participantResult.getLatencyPercentile99(), rs.getLong(LATENCY_PERCENTILE_99.getDisplayName()));
         }
         finally
         {
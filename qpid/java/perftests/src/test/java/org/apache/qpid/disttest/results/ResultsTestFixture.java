@@ -32,6 +32,10 @@ import static org.apache.qpid.disttest.message.ParticipantAttribute.IS_SELECTOR;
 import static org.apache.qpid.disttest.message.ParticipantAttribute.IS_SYNCHRONOUS_CONSUMER;
 import static org.apache.qpid.disttest.message.ParticipantAttribute.IS_TOPIC;
 import static org.apache.qpid.disttest.message.ParticipantAttribute.ITERATION_NUMBER;
+import static org.apache.qpid.disttest.message.ParticipantAttribute.LATENCY_PERCENTILE_50;
+import static org.apache.qpid.disttest.message.ParticipantAttribute.LATENCY_PERCENTILE_90;
+import static org.apache.qpid.disttest.message.ParticipantAttribute.LATENCY_PERCENTILE_99;
+import static org.apache.qpid.disttest.message.ParticipantAttribute.LATENCY_PERCENTILE_99_9;
 import static org.apache.qpid.disttest.message.ParticipantAttribute.LATENCY_STANDARD_DEVIATION;
 import static org.apache.qpid.disttest.message.ParticipantAttribute.MAXIMUM_DURATION;
 import static org.apache.qpid.disttest.message.ParticipantAttribute.MAX_LATENCY;
@@ -125,6 +129,10 @@ public class ResultsTestFixture
         participantAttributes.put(AVERAGE_LATENCY, 4.6f);
         participantAttributes.put(LATENCY_STANDARD_DEVIATION, 2.0f);
         participantAttributes.put(MESSAGE_THROUGHPUT, 2);
+        participantAttributes.put(LATENCY_PERCENTILE_50, 5l);
+        participantAttributes.put(LATENCY_PERCENTILE_90, 8l);
+        participantAttributes.put(LATENCY_PERCENTILE_99, 9l);
+        participantAttributes.put(LATENCY_PERCENTILE_99_9, 9l);
         return participantAttributes;
     }
 
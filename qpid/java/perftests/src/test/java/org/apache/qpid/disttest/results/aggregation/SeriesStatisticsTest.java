@@ -21,23 +21,90 @@
 package org.apache.qpid.disttest.results.aggregation;
 
 import java.util.Arrays;
-import java.util.Collection;
+import java.util.List;
 
 import org.apache.qpid.test.utils.QpidTestCase;
 
 public class SeriesStatisticsTest extends QpidTestCase
 {
-    public static Collection<Long> SERIES = Arrays.asList(new Long[] { 2l, 4l, 4l, 4l, 5l, 5l, 7l, 9l, 5l });
+    public static List<Long> SERIES = Arrays.asList(new Long[] { 2l, 4l, 4l, 4l, 5l, 5l, 7l, 9l, 5l });
 
     public void testAggregate()
     {
         SeriesStatistics results = new SeriesStatistics();
         results.addMessageLatencies(SERIES);
-        results.aggregate();
+        assertEquals("Unexpected count", 9, results.getCount());
         assertEquals("Unexpected average", 5.0, results.getAverage(), 0.01);
         assertEquals("Unexpected min", 2, results.getMinimum());
         assertEquals("Unexpected max", 9, results.getMaximum());
         assertEquals("Unexpected standard deviation", 2.0, results.getStandardDeviation(), 0.01);
+        assertEquals("Unexpected 50th percentile", 5, results.getPercentile(50));
+        assertEquals("Unexpected 90th percentile", 9, results.getPercentile(90));
+        assertEquals("Unexpected 99.9th percentile", 9, results.getPercentile(99.9));
     }
 
+    public void testEmptySeries()
+    {
+        SeriesStatistics results = new SeriesStatistics();
+        assertEquals("Unexpected count", 0, results.getCount());
+        assertEquals("Unexpected average", 0.0, results.getAverage(), 0.01);
+        assertEquals("Unexpected min", 0, results.getMinimum());
+        assertEquals("Unexpected max", 0, results.getMaximum());
+        assertEquals("Unexpected standard deviation", 0.0, results.getStandardDeviation(), 0.01);
+        assertEquals("Unexpected 99th percentile", 0, results.getPercentile(99));
+    }
+
+    public void testPercentilesOfLargeValuesAreWithinBucketPrecision()
+    {
+        SeriesStatistics results = new SeriesStatistics();
+        for (long value = 1; value <= 100000; value++)
+        {
+            results.record(value);
+        }
+
+        assertEquals("Unexpected min", 1, results.getMinimum());
+        assertEquals("Unexpected max", 100000, results.getMaximum());
+        assertEquals("Unexpected average", 50000.5, results.getAverage(), 0.01);
+        assertWithinPrecision(50000, results.getPercentile(50));
+        assertWithinPrecision(90000, results.getPercentile(90));
+        assertWithinPrecision(99000, results.getPercentile(99));
+        assertWithinPrecision(99900, results.getPercentile(99.9));
+        assertEquals("Unexpected 100th percentile", 100000, results.getPercentile(100));
+    }
+
+    public void testNegativeValuesFromClockSkew()
+    {
+        SeriesStatistics results = new SeriesStatistics(Arrays.asList(new Long[] { -3l, 1l, 2l }));
+
+        assertEquals("Unexpected min", -3, results.getMinimum());
+        assertEquals("Unexpected 10th percentile", 0, results.getPercentile(10));
+        assertEquals("Unexpected 50th percentile", 1, results.getPercentile(50));
+        assertEquals("Unexpected average", 0.0, results.getAverage(), 0.01);
+    }
+
+    public void testMerge()
+    {
+        SeriesStatistics first = new SeriesStatistics(SERIES.subList(0, 4));
+        SeriesStatistics second = new SeriesStatistics(SERIES.subList(4, SERIES.size()));
+
+        SeriesStatistics merged = new SeriesStatistics();
+        merged.merge(first);
+        merged.merge(second);
+        merged.merge(null);
+        merged.merge(new SeriesStatistics());
+
+        SeriesStatistics expected = new SeriesStatistics(SERIES);
+        assertEquals("Unexpected count", expected.getCount(), merged.getCount());
+        assertEquals("Unexpected average", expected.getAverage(), merged.getAverage(), 0.01);
+        assertEquals("Unexpected min", expected.getMinimum(), merged.getMinimum());
+        assertEquals("Unexpected max", expected.getMaximum(), merged.getMaximum());
+        assertEquals("Unexpected standard deviation", expected.getStandardDeviation(), merged.getStandardDeviation(), 0.01);
+        assertEquals("Unexpected 50th percentile", expected.getPercentile(50), merged.getPercentile(50));
+    }
+
+    private void assertWithinPrecision(long expected, long actual)
+    {
+        assertTrue("Percentile " + actual + " not within 4% of " + expected,
+                   Math.abs(actual - expected) <= expected * 0.04);
+    }
 }
@@ -140,7 +140,7 @@ public class TestResultAggregatorTest extends QpidTestCase
         {
             if (participantResult instanceof ConsumerParticipantResult)
             {
-                ((ConsumerParticipantResult)participantResult).setMessageLatencies(SeriesStatisticsTest.SERIES);
+                ((ConsumerParticipantResult)participantResult).setLatencyStatistics(new SeriesStatistics(SeriesStatisticsTest.SERIES));
                 break;
             }
         }
@@ -183,6 +183,10 @@ public class TestResultAggregatorTest extends QpidTestCase
         assertEquals("Unexpected min", 2, results.getMinLatency());
         assertEquals("Unexpected max", 9, results.getMaxLatency());
         assertEquals("Unexpected standard deviation", 2.0, results.getLatencyStandardDeviation(), 0.01);
+        assertEquals("Unexpected 50th percentile", 5, results.getLatencyPercentile50());
+        assertEquals("Unexpected 90th percentile", 9, results.getLatencyPercentile90());
+        assertEquals("Unexpected 99th percentile", 9, results.getLatencyPercentile99());
+        assertEquals("Unexpected 99.9th percentile", 9, results.getLatencyPercentile999());
     }
 
     private void assertMinimalAggregatedResults(ParticipantResult result, String expectedTestName, int expectedIterationNumber, int expectedBatchSize, long expectedNumberOfMessagesProcessed, int expectedTotalNumberOfConsumers, int expectedTotalNumberOfProducers)